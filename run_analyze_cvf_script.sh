@@ -65,8 +65,95 @@ analysis_mode_list=("config-base") #("trans-base")
 ##    full: full analysis
 #     statistical: statistical analysis
 #     full_statistical: both full and statistical analysis
+#     backward: backward search from the invariant, ranks up to backward_max_distance
+#               (can be combined with full, e.g. full_backward, to cross check);
+#               rank distributions so far and a line of the layer file are written after every layer,
+#               so a long run can be stopped at any point
+#     scc: find cycles of program transitions outside the invariant and write a witness cycle
+#          (cheap screen before full analysis, e.g. scc_full also cross checks infinite ranks)
+#     symmetry: full analysis over one config per orbit under graph automorphisms (coloring only,
+#               other programs use the identity), e.g. full_symmetry also cross checks the results
+#     lumping: full analysis over one config per block of the coarsest bisimulation of program transitions,
+#              e.g. full_lumping also cross checks the results
+#     symbolic: max rank and min rank distributions from binary decision diagrams, no config is enumerated
+#               (no rank effects), e.g. full_symbolic also cross checks the distributions
+#     bitmap: max rank and min rank distributions from rank layers kept as compressed bitmaps of configuration
+#             indices (no rank effects), e.g. full_bitmap also cross checks the distributions
+#     distribution: distribution of lengths of all paths to the invariant of every config, giving max rank,
+#                   average rank and p50/p90/p99 path length, e.g. full_distribution also cross checks the results
+#     span: full analysis over the configurations reachable from the invariant by program transitions and at most
+#           fault_span_cvfs cvfs, explored without enumerating the state space, e.g. full_span also cross checks
+#           the ranks of these configurations
+#     diff: with full (e.g. full_diff, edge-free storage), full analysis is updated after the edge edit topology_edit,
+#           recomputing only ranks of configurations reaching one whose actions change; results are of the edited graph
+#     multicvf: with full (e.g. full_multicvf), worst-case rank distributions and recovery times when up to
+#               0, 1, ..., multi_cvfs cvfs strike outside the invariant during recovery
+#     daemon: with full (e.g. full_daemon), expected convergence time under a uniformly random central daemon
+#             where a random cvf follows a program transition with probability fault_probability
+#             (the quantity estimated by simulation, computed exactly by Gauss-Seidel sweeps)
 config_base_analysis_task="full"
 
+## for full analysis, specify how the state graph is stored
+##    successor-lists: successor lists of every configuration are kept in memory
+##    lazy-successor-lists: program transition successors are computed when first needed and kept,
+##               cvf successors are computed whenever needed and not kept
+##    edge-free: only ranks are kept, successors are regenerated from configuration index when needed
+##               (less memory, more computation)
+full_analysis_storage="successor-lists"
+
+## for backward analysis, largest rank to be computed, other configurations are counted as rank > backward_max_distance
+##    2147483647 means no limit
+backward_max_distance=2147483647
+
+## arithmetic for path counts in average rank
+##    exact: 128-bit counters, falling back to big integers on overflow
+##    log-space: logarithm of path counts in double, approximate average rank but never overflows
+path_count_arithmetic="exact"
+
+## for full analysis, number of threads computing rank effects of program transitions and cvfs
+##    1: rank effects are counted during rank computation
+##    more than 1: rank effects are computed after rank computation, configurations are split among threads
+rank_effect_threads=1
+
+## for full analysis, also compute rank effects under the other cvf models, reusing the ranks
+##    (models enumerating other configurations, e.g. topology restriction in max-matching, are skipped)
+##    "--all-cvf-models" or ""
+all_cvf_models=""
+
+## for full analysis, write a longest path to the invariant, with the acting node and action of every step,
+##    from given configuration indices: "--witness-path-configs=<index>,<index>,..." or ""
+witness_path_configs=""
+##    and from that many configurations of largest max rank, 0 means none
+witness_path_top_k=0
+
+## for full analysis, also write rank transition matrices (number of program transitions, cvfs inside and
+##    cvfs outside the invariant from each source rank to each target rank) as CSV files, for max, average
+##    and min rank: "--rank-transition-matrices" or ""
+rank_transition_matrices=""
+
+## for full analysis, write that many cvfs, configurations and perturbation kinds (node, old value, new value)
+##    of worst effect on max rank, 0 means none (rank effects are then computed after rank computation)
+worst_cvfs_top_k=0
+
+## for fault-span analysis, largest number of cvfs on a path from the invariant to an explored configuration
+fault_span_cvfs=1
+
+## for full analysis with edge-free storage, load ranks from a rank snapshot file written by an earlier run
+##    of the same program and topology, so that e.g. other cvf models only count rank effects;
+##    the file is written if it does not exist or is of another configuration encoding
+##    "--rank-snapshot=<file>" or ""
+rank_snapshot=""
+
+## for differential analysis, edge edit of the graph topology: "--topology-edit=add:<node>:<node>",
+##    "--topology-edit=remove:<node>:<node>" or ""
+topology_edit=""
+
+## for multi-cvf analysis, largest number of cvfs striking during recovery
+multi_cvfs=2
+
+## for random daemon analysis, probability that a random cvf follows a program transition, in [0, 1)
+fault_probability=0
+
 
 ## name of distributed program to be analyzed
 ##   dijkstra-3-states-program: dijkstra ring program, the first self-stabilizing program in literature
@@ -239,6 +326,20 @@ do
                             main.AnalyzeCvfs \
                             --analysis-mode=$analysis_mode \
                             --config-base-analysis-task=$config_base_analysis_task \
+                            --full-analysis-storage=$full_analysis_storage \
+                            --backward-max-distance=$backward_max_distance \
+                            --path-count-arithmetic=$path_count_arithmetic \
+                            --rank-effect-threads=$rank_effect_threads \
+                            $all_cvf_models \
+                            $rank_transition_matrices \
+                            $witness_path_configs \
+                            --witness-path-top-k=$witness_path_top_k \
+                            --worst-cvfs-top-k=$worst_cvfs_top_k \
+                            --fault-span-cvfs=$fault_span_cvfs \
+                            $rank_snapshot \
+                            $topology_edit \
+                            --multi-cvfs=$multi_cvfs \
+                            --fault-probability=$fault_probability \
                             --program-name=$program_name \
                             --number-of-nodes=$node_num \
                             --output-filename-prefix=$output_filename_prefix \
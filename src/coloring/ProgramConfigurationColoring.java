@@ -6,6 +6,7 @@ import template.ProgramConfigurationTemplate;
 import template.SuccessorInfo;
 
 import java.util.*;
+import java.util.function.LongConsumer;
 
 import static main.AnalyzeCvfs.graphTopology;
 import static main.AnalyzeCvfs.maxDegree;
@@ -82,6 +83,30 @@ public class ProgramConfigurationColoring  extends ProgramConfigurationTemplate
         return nodeState.getNodeColor();
     }
 
+    /**
+     * Implement super class abstract methods for configuration index.
+     * The color of a node is its index. The number of colors depends on whether
+     * topology is considered, as in moveToNextProgramConfig()
+     */
+    public int getNumberOfNodeStates(int nodeId){
+        if(cvf == CVF_AS_CONSTRAINED_PERTURBATION_AND_TOPOLOGY_RESTRICTION){
+            return graphTopology.get(nodeId).size() + 1;
+        }else{
+            return maxDegree + 1;
+        }
+    }
+
+    public int getNodeStateIndex(int nodeId){
+        int color = getNodeColor(nodeId);
+        if(color < 0 || color >= getNumberOfNodeStates(nodeId))
+            return -1;
+        return color;
+    }
+
+    public void setNodeStateByIndex(int nodeId, int nodeStateIndex){
+        updateStateForANode(nodeId, nodeStateIndex);
+    }
+
 
     /**
      * Perturb arbitrarily the state of a specified node.
@@ -261,6 +286,81 @@ public class ProgramConfigurationColoring  extends ProgramConfigurationTemplate
         return new NodeActionEvaluationResults(nodeId, privilegesCount, listOfSuccessors);
     }
 
+    /**
+     * Implement super class hook: invert the action of evaluateANodeActions().
+     * A node with a color conflict changes to the smallest acceptable color, and neighbor colors are unchanged.
+     * Thus if the current color of a node is the smallest acceptable color,
+     * every unacceptable color of that node gives a predecessor.
+     */
+    @Override
+    public boolean forEachTransPredecessor(LongConsumer predecessorVisitor){
+        long currentIndex = getProgramConfigIndex();
+        if(currentIndex < 0)
+            return true;
+
+        for(int nodeId = 0; nodeId < getNumberOfNodes(); nodeId ++){
+            int nodeColor = getNodeColor(nodeId);
+            int numberOfColors = getNumberOfNodeStates(nodeId);
+
+            // same as in evaluateANodeActions(), colors 0 .. nodeDegree are acceptable unless used by neighbors
+            TreeSet<Integer> acceptableColors = new TreeSet<>();
+            for(int color = 0; color < numberOfColors; color ++){
+                acceptableColors.add(color);
+            }
+            for(int nbr : graphTopology.get(nodeId)){
+                acceptableColors.remove(getNodeColor(nbr));
+            }
+
+            if(acceptableColors.isEmpty() || acceptableColors.first() != nodeColor)
+                continue;
+
+            long nodeIndexWeight = getNodeIndexWeight(nodeId);
+            for(int color = 0; color < numberOfColors; color ++){
+                if(!acceptableColors.contains(color)){
+                    predecessorVisitor.accept(currentIndex + (color - nodeColor) * nodeIndexWeight);
+                }
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Implement super class hook: a node chooses the smallest color not used by its neighbors,
+     * and colors do not refer to node ids, thus coloring is symmetric under graph automorphisms.
+     */
+    @Override
+    public boolean isSymmetricUnderGraphAutomorphisms(){
+        return true;
+    }
+
+    /**
+     * Implement super class hook: a node reads its own state and the states of its neighbors
+     */
+    @Override
+    public int[] getNodesReadByNode(int nodeId){
+        TreeSet<Integer> nodesRead = new TreeSet<>(graphTopology.get(nodeId));
+        nodesRead.add(nodeId);
+        return nodesRead.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Implement super class hook: the invariant consists of the configurations without privileges,
+     * see isInsideInvariant()
+     */
+    @Override
+    public int getNumberOfPrivilegesInsideInvariant(){
+        return 0;
+    }
+
+    /**
+     * Implement super class hook: the only action changes the color of a node with a color conflict
+     */
+    @Override
+    public String getActionName(SuccessorInfo successor){
+        return "change-color";
+    }
+
     /***********************************************************************
      *** Overriding methods
      ************************************************************************/
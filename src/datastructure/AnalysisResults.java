@@ -14,7 +14,7 @@ public class AnalysisResults<PCT extends ProgramConfigurationTemplate> {
     private TreeMap<PCT, ProgramConfigurationInformation<PCT>> progConfigInfoMap;
 
     // mapping a rank to the number of program configs having that rank
-    private TreeMap<Integer, Integer> progConfigRankDistribution;
+    private Histogram progConfigRankDistribution;
 
     // mapping a rank change/effect (should be <=0)
     // to the number of (normal) program transitions having that rank effect.
@@ -22,29 +22,35 @@ public class AnalysisResults<PCT extends ProgramConfigurationTemplate> {
     // (whose rank is 0) will lead to a state in the invariant (rank is 0 too). Thus
     // rank effect of such a transition is 0 - 0 = 0, and we do not include them.
     // We only map program transition outside the invariant.
-    private TreeMap<Integer, Integer> progTransOutsideInvRankEffectDistribution;
-    private int numberOfProgTransOutsideInv;
-    private int progTransOutsideInvTotalRankEffect;
-    private int numberOfProgTransInsideInv;
+    private Histogram progTransOutsideInvRankEffectDistribution;
+    private long numberOfProgTransOutsideInv;
+    private long progTransOutsideInvTotalRankEffect;
+    private long numberOfProgTransInsideInv;
 
     // mapping a rank change/effect (could be negative, positive, 0)
     // to the number of cvfs having that rank effect.
     // We consider two kinds of cvf:
     //   ones occur at a state inside the invariant
     //   ones occur at a state outside the invariant.
-    private TreeMap<Integer, Integer> cvfInsideInvRankEffectDistribution;
-    private TreeMap<Integer, Integer> cvfOutsideInvRankEffectDistribution;
-    private int numberOfCvfInsideInv;
-    private int numberOfCvfOutsideInv;
-    private int cvfInsideInvTotalRankEffect;
-    private int cvfOutsideInvTotalRankEffect;
+    private Histogram cvfInsideInvRankEffectDistribution;
+    private Histogram cvfOutsideInvRankEffectDistribution;
+    private long numberOfCvfInsideInv;
+    private long numberOfCvfOutsideInv;
+    private long cvfInsideInvTotalRankEffect;
+    private long cvfOutsideInvTotalRankEffect;
     // more detail of cvfOutsideInvRankEffectDistribution.
     // Specifically, the element at index nodeId of the vector shows
     // the rank effect of cvfs outside invariant occurring on node nodeId;
-    private Vector<TreeMap<Integer, Integer>> perNodeCvfOutsideInvRankEffectDistribution;
+    private Vector<Histogram> perNodeCvfOutsideInvRankEffectDistribution;
+
+    // number of transitions from each source rank to each target rank,
+    // null unless requested by initRankTransitionMatrices()
+    private RankTransitionMatrix progTransOutsideInvRankTransitionMatrix;
+    private RankTransitionMatrix cvfInsideInvRankTransitionMatrix;
+    private RankTransitionMatrix cvfOutsideInvRankTransitionMatrix;
 
     public AnalysisResults(TreeMap<PCT, ProgramConfigurationInformation<PCT>> progConfigInfoMap,
-                           TreeMap<Integer, Integer> progConfigRankDistribution){
+                           Histogram progConfigRankDistribution){
         this.progConfigInfoMap = progConfigInfoMap;
         this.progConfigRankDistribution = progConfigRankDistribution;
     }
@@ -52,17 +58,17 @@ public class AnalysisResults<PCT extends ProgramConfigurationTemplate> {
     // full constructor
     public AnalysisResults(
             TreeMap<PCT, ProgramConfigurationInformation<PCT>> progConfigInfoMap,
-            TreeMap<Integer, Integer> progConfigRankDistribution,
-            TreeMap<Integer, Integer> progTransOutsideInvRankEffectDistribution,
-            int numberOfProgTransOutsideInv,
-            int progTransOutsideInvTotalRankEffect,
-            int numberOfProgTransInsideInv,
-            TreeMap<Integer, Integer> cvfInsideInvRankEffectDistribution,
-            TreeMap<Integer, Integer> cvfOutsideInvRankEffectDistribution,
-            int numberOfCvfInsideInv,
-            int numberOfCvfOutsideInv,
-            int cvfInsideInvTotalRankEffect,
-            int cvfOutsideInvTotalRankEffect){
+            Histogram progConfigRankDistribution,
+            Histogram progTransOutsideInvRankEffectDistribution,
+            long numberOfProgTransOutsideInv,
+            long progTransOutsideInvTotalRankEffect,
+            long numberOfProgTransInsideInv,
+            Histogram cvfInsideInvRankEffectDistribution,
+            Histogram cvfOutsideInvRankEffectDistribution,
+            long numberOfCvfInsideInv,
+            long numberOfCvfOutsideInv,
+            long cvfInsideInvTotalRankEffect,
+            long cvfOutsideInvTotalRankEffect){
 
         this.progConfigInfoMap = progConfigInfoMap;
         this.progConfigRankDistribution = progConfigRankDistribution;
@@ -84,20 +90,67 @@ public class AnalysisResults<PCT extends ProgramConfigurationTemplate> {
         // program transitions related
         setNumberOfProgTransInsideInv(0);
 
-        setProgTransOutsideInvRankEffectDistribution(new TreeMap<>());
+        setProgTransOutsideInvRankEffectDistribution(new Histogram());
         setNumberOfProgTransOutsideInv(0);
         setProgTransOutsideInvTotalRankEffect(0);
 
         // cvf related
-        setCvfInsideInvRankEffectDistribution(new TreeMap<>());
+        setCvfInsideInvRankEffectDistribution(new Histogram());
         setNumberOfCvfInsideInv(0);
         setCvfInsideInvTotalRankEffect(0);
 
-        setCvfOutsideInvRankEffectDistribution(new TreeMap<>());
+        setCvfOutsideInvRankEffectDistribution(new Histogram());
         setNumberOfCvfOutsideInv(0);
         setCvfOutsideInvTotalRankEffect(0);
 
         setPerNodeCvfOutsideInvRankEffectDistribution(new Vector<>());
+
+        progTransOutsideInvRankTransitionMatrix = null;
+        cvfInsideInvRankTransitionMatrix = null;
+        cvfOutsideInvRankTransitionMatrix = null;
+    }
+
+    /**
+     * Also count transitions by source rank and target rank, after initAnalysisResults()
+     * @param expectedMaxRank expected largest finite rank, matrices grow if a larger rank is counted
+     */
+    public void initRankTransitionMatrices(int expectedMaxRank){
+        progTransOutsideInvRankTransitionMatrix = new RankTransitionMatrix(expectedMaxRank);
+        cvfInsideInvRankTransitionMatrix = new RankTransitionMatrix(expectedMaxRank);
+        cvfOutsideInvRankTransitionMatrix = new RankTransitionMatrix(expectedMaxRank);
+    }
+
+    /**
+     * Add rank effects of program transitions and cvfs counted in other results,
+     * e.g. by another thread over another range of configs.
+     * Both results must have been initialized by initAnalysisResults() with the same number of per-node elements,
+     * and both or none by initRankTransitionMatrices().
+     */
+    public void mergeRankEffects(AnalysisResults<PCT> otherResults){
+        numberOfProgTransInsideInv += otherResults.numberOfProgTransInsideInv;
+
+        progTransOutsideInvRankEffectDistribution.merge(otherResults.progTransOutsideInvRankEffectDistribution);
+        numberOfProgTransOutsideInv += otherResults.numberOfProgTransOutsideInv;
+        progTransOutsideInvTotalRankEffect += otherResults.progTransOutsideInvTotalRankEffect;
+
+        cvfInsideInvRankEffectDistribution.merge(otherResults.cvfInsideInvRankEffectDistribution);
+        numberOfCvfInsideInv += otherResults.numberOfCvfInsideInv;
+        cvfInsideInvTotalRankEffect += otherResults.cvfInsideInvTotalRankEffect;
+
+        cvfOutsideInvRankEffectDistribution.merge(otherResults.cvfOutsideInvRankEffectDistribution);
+        numberOfCvfOutsideInv += otherResults.numberOfCvfOutsideInv;
+        cvfOutsideInvTotalRankEffect += otherResults.cvfOutsideInvTotalRankEffect;
+
+        for(int nodeId = 0; nodeId < perNodeCvfOutsideInvRankEffectDistribution.size(); nodeId ++){
+            perNodeCvfOutsideInvRankEffectDistribution.elementAt(nodeId).merge(
+                    otherResults.perNodeCvfOutsideInvRankEffectDistribution.elementAt(nodeId));
+        }
+
+        if(progTransOutsideInvRankTransitionMatrix != null){
+            progTransOutsideInvRankTransitionMatrix.merge(otherResults.progTransOutsideInvRankTransitionMatrix);
+            cvfInsideInvRankTransitionMatrix.merge(otherResults.cvfInsideInvRankTransitionMatrix);
+            cvfOutsideInvRankTransitionMatrix.merge(otherResults.cvfOutsideInvRankTransitionMatrix);
+        }
     }
 
     public TreeMap<PCT, ProgramConfigurationInformation<PCT>> getProgConfigInfoMap() {
@@ -108,27 +161,27 @@ public class AnalysisResults<PCT extends ProgramConfigurationTemplate> {
         this.progConfigInfoMap = progConfigInfoMap;
     }
 
-    public TreeMap<Integer, Integer> getProgConfigRankDistribution() {
+    public Histogram getProgConfigRankDistribution() {
         return progConfigRankDistribution;
     }
 
-    public void setProgConfigRankDistribution(TreeMap<Integer, Integer> progConfigRankDistribution) {
+    public void setProgConfigRankDistribution(Histogram progConfigRankDistribution) {
         this.progConfigRankDistribution = progConfigRankDistribution;
     }
 
-    public TreeMap<Integer, Integer> getProgTransOutsideInvRankEffectDistribution() {
+    public Histogram getProgTransOutsideInvRankEffectDistribution() {
         return progTransOutsideInvRankEffectDistribution;
     }
 
-    public void setProgTransOutsideInvRankEffectDistribution(TreeMap<Integer, Integer> progTransOutsideInvRankEffectDistribution) {
+    public void setProgTransOutsideInvRankEffectDistribution(Histogram progTransOutsideInvRankEffectDistribution) {
         this.progTransOutsideInvRankEffectDistribution = progTransOutsideInvRankEffectDistribution;
     }
 
-    public int getNumberOfProgTransOutsideInv() {
+    public long getNumberOfProgTransOutsideInv() {
         return numberOfProgTransOutsideInv;
     }
 
-    public void setNumberOfProgTransOutsideInv(int numberOfProgTransOutsideInv) {
+    public void setNumberOfProgTransOutsideInv(long numberOfProgTransOutsideInv) {
         this.numberOfProgTransOutsideInv = numberOfProgTransOutsideInv;
     }
 
@@ -136,11 +189,11 @@ public class AnalysisResults<PCT extends ProgramConfigurationTemplate> {
         this.numberOfProgTransOutsideInv ++;
     }
 
-    public int getProgTransOutsideInvTotalRankEffect() {
+    public long getProgTransOutsideInvTotalRankEffect() {
         return progTransOutsideInvTotalRankEffect;
     }
 
-    public void setProgTransOutsideInvTotalRankEffect(int progTransOutsideInvTotalRankEffect) {
+    public void setProgTransOutsideInvTotalRankEffect(long progTransOutsideInvTotalRankEffect) {
         this.progTransOutsideInvTotalRankEffect = progTransOutsideInvTotalRankEffect;
     }
 
@@ -152,11 +205,11 @@ public class AnalysisResults<PCT extends ProgramConfigurationTemplate> {
         return 1.0*progTransOutsideInvTotalRankEffect/numberOfProgTransOutsideInv;
     }
 
-    public int getNumberOfProgTransInsideInv() {
+    public long getNumberOfProgTransInsideInv() {
         return numberOfProgTransInsideInv;
     }
 
-    public void setNumberOfProgTransInsideInv(int numberOfProgTransInsideInv) {
+    public void setNumberOfProgTransInsideInv(long numberOfProgTransInsideInv) {
         this.numberOfProgTransInsideInv = numberOfProgTransInsideInv;
     }
 
@@ -164,27 +217,27 @@ public class AnalysisResults<PCT extends ProgramConfigurationTemplate> {
         this.numberOfProgTransInsideInv ++;
     }
 
-    public TreeMap<Integer, Integer> getCvfInsideInvRankEffectDistribution() {
+    public Histogram getCvfInsideInvRankEffectDistribution() {
         return cvfInsideInvRankEffectDistribution;
     }
 
-    public void setCvfInsideInvRankEffectDistribution(TreeMap<Integer, Integer> cvfInsideInvRankEffectDistribution) {
+    public void setCvfInsideInvRankEffectDistribution(Histogram cvfInsideInvRankEffectDistribution) {
         this.cvfInsideInvRankEffectDistribution = cvfInsideInvRankEffectDistribution;
     }
 
-    public TreeMap<Integer, Integer> getCvfOutsideInvRankEffectDistribution() {
+    public Histogram getCvfOutsideInvRankEffectDistribution() {
         return cvfOutsideInvRankEffectDistribution;
     }
 
-    public void setCvfOutsideInvRankEffectDistribution(TreeMap<Integer, Integer> cvfOutsideInvRankEffectDistribution) {
+    public void setCvfOutsideInvRankEffectDistribution(Histogram cvfOutsideInvRankEffectDistribution) {
         this.cvfOutsideInvRankEffectDistribution = cvfOutsideInvRankEffectDistribution;
     }
 
-    public int getNumberOfCvfInsideInv() {
+    public long getNumberOfCvfInsideInv() {
         return numberOfCvfInsideInv;
     }
 
-    public void setNumberOfCvfInsideInv(int numberOfCvfInsideInv) {
+    public void setNumberOfCvfInsideInv(long numberOfCvfInsideInv) {
         this.numberOfCvfInsideInv = numberOfCvfInsideInv;
     }
 
@@ -192,11 +245,11 @@ public class AnalysisResults<PCT extends ProgramConfigurationTemplate> {
         this.numberOfCvfInsideInv ++;
     }
 
-    public int getNumberOfCvfOutsideInv() {
+    public long getNumberOfCvfOutsideInv() {
         return numberOfCvfOutsideInv;
     }
 
-    public void setNumberOfCvfOutsideInv(int numberOfCvfOutsideInv) {
+    public void setNumberOfCvfOutsideInv(long numberOfCvfOutsideInv) {
         this.numberOfCvfOutsideInv = numberOfCvfOutsideInv;
     }
 
@@ -204,15 +257,15 @@ public class AnalysisResults<PCT extends ProgramConfigurationTemplate> {
         this.numberOfCvfOutsideInv ++;
     }
 
-    public int getNumberOfCvf(){
+    public long getNumberOfCvf(){
         return numberOfCvfInsideInv + numberOfCvfOutsideInv;
     }
 
-    public int getCvfInsideInvTotalRankEffect() {
+    public long getCvfInsideInvTotalRankEffect() {
         return cvfInsideInvTotalRankEffect;
     }
 
-    public void setCvfInsideInvTotalRankEffect(int cvfInsideInvTotalRankEffect) {
+    public void setCvfInsideInvTotalRankEffect(long cvfInsideInvTotalRankEffect) {
         this.cvfInsideInvTotalRankEffect = cvfInsideInvTotalRankEffect;
     }
 
@@ -224,11 +277,11 @@ public class AnalysisResults<PCT extends ProgramConfigurationTemplate> {
         return 1.0*cvfInsideInvTotalRankEffect/numberOfCvfInsideInv;
     }
 
-    public int getCvfOutsideInvTotalRankEffect() {
+    public long getCvfOutsideInvTotalRankEffect() {
         return cvfOutsideInvTotalRankEffect;
     }
 
-    public void setCvfOutsideInvTotalRankEffect(int cvfOutsideInvTotalRankEffect) {
+    public void setCvfOutsideInvTotalRankEffect(long cvfOutsideInvTotalRankEffect) {
         this.cvfOutsideInvTotalRankEffect = cvfOutsideInvTotalRankEffect;
     }
 
@@ -240,18 +293,30 @@ public class AnalysisResults<PCT extends ProgramConfigurationTemplate> {
         return 1.0*cvfOutsideInvTotalRankEffect/numberOfCvfOutsideInv;
     }
 
-    public int getCvfTotalRankEffect(){
+    public long getCvfTotalRankEffect(){
         return cvfInsideInvTotalRankEffect + cvfOutsideInvTotalRankEffect;
     }
 
-    public Vector<TreeMap<Integer, Integer>> getPerNodeCvfOutsideInvRankEffectDistribution() {
+    public Vector<Histogram> getPerNodeCvfOutsideInvRankEffectDistribution() {
         return perNodeCvfOutsideInvRankEffectDistribution;
     }
 
-    public void setPerNodeCvfOutsideInvRankEffectDistribution(Vector<TreeMap<Integer, Integer>> perNodeCvfOutsideInvRankEffectDistribution) {
+    public void setPerNodeCvfOutsideInvRankEffectDistribution(Vector<Histogram> perNodeCvfOutsideInvRankEffectDistribution) {
         this.perNodeCvfOutsideInvRankEffectDistribution = perNodeCvfOutsideInvRankEffectDistribution;
     }
 
+    public RankTransitionMatrix getProgTransOutsideInvRankTransitionMatrix() {
+        return progTransOutsideInvRankTransitionMatrix;
+    }
+
+    public RankTransitionMatrix getCvfInsideInvRankTransitionMatrix() {
+        return cvfInsideInvRankTransitionMatrix;
+    }
+
+    public RankTransitionMatrix getCvfOutsideInvRankTransitionMatrix() {
+        return cvfOutsideInvRankTransitionMatrix;
+    }
+
     // comparing if the progConfigInfoMap are the same
     public boolean isProgConfigInfoMapEqual(AnalysisResults otherResults){
         TreeMap<PCT, ProgramConfigurationInformation<PCT>> other = otherResults.getProgConfigInfoMap();
@@ -269,18 +334,18 @@ public class AnalysisResults<PCT extends ProgramConfigurationTemplate> {
 
     // compare if the progConfigRankDistribution are the same
     public boolean isProgConfigRankDistributionEqual(AnalysisResults otherResults){
-        TreeMap<Integer, Integer> other = otherResults.getProgConfigRankDistribution();
+        Histogram other = otherResults.getProgConfigRankDistribution();
 
-        if(getProgConfigRankDistribution().size() != other.size()) {
-            System.out.println("size differs: " + getProgConfigRankDistribution().size() + " vs. " + other.size());
+        if(getProgConfigRankDistribution().getNumberOfValues() != other.getNumberOfValues()) {
+            System.out.println("size differs: " + getProgConfigRankDistribution().getNumberOfValues() + " vs. " + other.getNumberOfValues());
 
             return false;
         }
 
-        for(int rankOffset : getProgConfigRankDistribution().keySet()){
-            if(getProgConfigRankDistribution().get(rankOffset).intValue() != other.get(rankOffset).intValue()) {
+        for(int rankOffset : getProgConfigRankDistribution().getValues()){
+            if(getProgConfigRankDistribution().getCount(rankOffset) != other.getCount(rankOffset)) {
                 System.out.println(" count for rankOffset " + rankOffset + " differs: "
-                                    + getProgConfigRankDistribution().get(rankOffset) + " vs. " +  other.get(rankOffset));
+                                    + getProgConfigRankDistribution().getCount(rankOffset) + " vs. " +  other.getCount(rankOffset));
 
                 return false;
             }
@@ -291,8 +356,8 @@ public class AnalysisResults<PCT extends ProgramConfigurationTemplate> {
 
     // compare if progTransOutsideInvRankEffectDistribution are the same
     public boolean isProgTransOutsideInvRankEffectDistributionEqual(AnalysisResults otherResults){
-        TreeMap<Integer, Integer> other = otherResults.getProgTransOutsideInvRankEffectDistribution();
-        TreeMap<Integer, Integer> mine =getProgTransOutsideInvRankEffectDistribution();
+        Histogram other = otherResults.getProgTransOutsideInvRankEffectDistribution();
+        Histogram mine =getProgTransOutsideInvRankEffectDistribution();
 
         if(getNumberOfProgTransOutsideInv() != otherResults.getNumberOfProgTransOutsideInv()) {
 //            System.out.println(" numberOfProgTransOutsideInv differs");
@@ -307,9 +372,9 @@ public class AnalysisResults<PCT extends ProgramConfigurationTemplate> {
             return false;
         }
 
-        for(int re : mine.keySet()){
-            if(mine.get(re).intValue() != other.get(re).intValue()) {
-//                System.out.println(" count for re = " + re + " differs: " + mine.get(re) + " != " + other.get(re));
+        for(int re : mine.getValues()){
+            if(mine.getCount(re) != other.getCount(re)) {
+//                System.out.println(" count for re = " + re + " differs: " + mine.getCount(re) + " != " + other.getCount(re));
 
                 return false;
             }
@@ -320,8 +385,8 @@ public class AnalysisResults<PCT extends ProgramConfigurationTemplate> {
 
     // compare if cvfInsideInvRankEffectDistribution are the same
     public boolean isCvfInsideInvRankEffectDistributionEqual(AnalysisResults otherResult){
-        TreeMap<Integer, Integer> other = otherResult.getCvfInsideInvRankEffectDistribution();
-        TreeMap<Integer, Integer> mine = getCvfInsideInvRankEffectDistribution();
+        Histogram other = otherResult.getCvfInsideInvRankEffectDistribution();
+        Histogram mine = getCvfInsideInvRankEffectDistribution();
 
         if(getNumberOfCvfInsideInv() != otherResult.getNumberOfCvfInsideInv()) {
 //            System.out.println(" numberOfCvfInsideInv differs + " + getNumberOfCvfInsideInv()
@@ -333,9 +398,9 @@ public class AnalysisResults<PCT extends ProgramConfigurationTemplate> {
 //                    + " != " + otherResult.getCvfInsideInvTotalRankEffect());
             return false;
         }
-        for(int re : mine.keySet()){
-            if(mine.get(re).intValue() != other.get(re).intValue()) {
-//                System.out.println(" count for re = " + re + " differs " + mine.get(re) + " != " + other.get(re));
+        for(int re : mine.getValues()){
+            if(mine.getCount(re) != other.getCount(re)) {
+//                System.out.println(" count for re = " + re + " differs " + mine.getCount(re) + " != " + other.getCount(re));
                 return false;
             }
         }
@@ -345,8 +410,8 @@ public class AnalysisResults<PCT extends ProgramConfigurationTemplate> {
 
     // compare if cvfOutsideInvRankEffectDistribution are the same
     public boolean isCvfOutsideInvRankEffectDistributionEqual(AnalysisResults otherResult){
-        TreeMap<Integer, Integer> other = otherResult.getCvfOutsideInvRankEffectDistribution();
-        TreeMap<Integer, Integer> mine = getCvfOutsideInvRankEffectDistribution();
+        Histogram other = otherResult.getCvfOutsideInvRankEffectDistribution();
+        Histogram mine = getCvfOutsideInvRankEffectDistribution();
 
         if(getNumberOfCvfOutsideInv() != otherResult.getNumberOfCvfOutsideInv()) {
             return false;
@@ -354,9 +419,9 @@ public class AnalysisResults<PCT extends ProgramConfigurationTemplate> {
         if(getCvfOutsideInvTotalRankEffect() != otherResult.getCvfOutsideInvTotalRankEffect()) {
             return false;
         }
-        for(int re : mine.keySet()){
-            if(mine.get(re).intValue() != other.get(re).intValue()) {
-//                System.out.println(" count for re = " + re + " differs " + mine.get(re) + " != " + other.get(re));
+        for(int re : mine.getValues()){
+            if(mine.getCount(re) != other.getCount(re)) {
+//                System.out.println(" count for re = " + re + " differs " + mine.getCount(re) + " != " + other.getCount(re));
                 return false;
             }
         }
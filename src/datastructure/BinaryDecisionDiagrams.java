@@ -0,0 +1,368 @@
+package datastructure;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * A table of reduced ordered binary decision diagrams (BDDs) over boolean variables 0 .. numberOfVariables - 1,
+ * with variable 0 at the top. A BDD is identified by the id of its root node;
+ * nodes are unique (same variable and children give the same node), so two BDDs are equal iff their ids are equal.
+ * Results of operations are cached in a direct-mapped cache.
+ * Nodes are never freed, which is fine for the fixpoint computations of one analysis.
+ */
+
+public class BinaryDecisionDiagrams {
+    public static final int FALSE = 0;
+    public static final int TRUE = 1;
+
+    // operations, also used as cache tags
+    private static final int OP_AND = 0;
+    private static final int OP_OR = 1;
+    private static final int OP_XOR = 2;
+    private static final int OP_AND_EXISTS = 3;
+    private static final int OP_REPLACE = 4;
+
+    private static final int INITIAL_NUMBER_OF_NODES = 1 << 16;
+    private static final int CACHE_SIZE = 1 << 20;
+
+    private int numberOfVariables;
+
+    // per node, terminals have variable numberOfVariables
+    private int[] variable;
+    private int[] low;
+    private int[] high;
+    private int numberOfNodes;
+
+    // open addressing, node ids of non-terminal nodes, 0 for empty slot
+    private int[] uniqueTable;
+
+    // direct-mapped cache of operation results
+    private int[] cacheOperation;
+    private int[] cacheFirst;
+    private int[] cacheSecond;
+    private int[] cacheThird;
+    private int[] cacheResult;
+
+    // sets of quantified variables and variable maps, referred to by their position
+    private boolean[][] variableSets;
+    private int[][] variableMaps;
+    private int numberOfVariableSets;
+    private int numberOfVariableMaps;
+
+    public BinaryDecisionDiagrams(int numberOfVariables){
+        this.numberOfVariables = numberOfVariables;
+
+        variable = new int[INITIAL_NUMBER_OF_NODES];
+        low = new int[INITIAL_NUMBER_OF_NODES];
+        high = new int[INITIAL_NUMBER_OF_NODES];
+        variable[FALSE] = numberOfVariables;
+        variable[TRUE] = numberOfVariables;
+        numberOfNodes = 2;
+
+        uniqueTable = new int[2 * INITIAL_NUMBER_OF_NODES];
+
+        cacheOperation = new int[CACHE_SIZE];
+        Arrays.fill(cacheOperation, -1);
+        cacheFirst = new int[CACHE_SIZE];
+        cacheSecond = new int[CACHE_SIZE];
+        cacheThird = new int[CACHE_SIZE];
+        cacheResult = new int[CACHE_SIZE];
+
+        variableSets = new boolean[16][];
+        variableMaps = new int[16][];
+    }
+
+    public int getNumberOfVariables() {
+        return numberOfVariables;
+    }
+
+    /**
+     * @return number of nodes created so far, including the two terminals
+     */
+    public int getNumberOfNodes() {
+        return numberOfNodes;
+    }
+
+    /**
+     * @return the node with given variable and children, created if needed
+     */
+    private int makeNode(int var, int lowChild, int highChild){
+        if(lowChild == highChild)
+            return lowChild;
+
+        int mask = uniqueTable.length - 1;
+        int slot = hash(var, lowChild, highChild) & mask;
+        while(uniqueTable[slot] != 0){
+            int node = uniqueTable[slot];
+            if(variable[node] == var && low[node] == lowChild && high[node] == highChild)
+                return node;
+            slot = (slot + 1) & mask;
+        }
+
+        if(numberOfNodes == variable.length){
+            variable = Arrays.copyOf(variable, 2 * numberOfNodes);
+            low = Arrays.copyOf(low, 2 * numberOfNodes);
+            high = Arrays.copyOf(high, 2 * numberOfNodes);
+        }
+
+        int node = numberOfNodes ++;
+        variable[node] = var;
+        low[node] = lowChild;
+        high[node] = highChild;
+        uniqueTable[slot] = node;
+
+        // keep the unique table at most half full
+        if(2 * numberOfNodes > uniqueTable.length)
+            rehash();
+
+        return node;
+    }
+
+    private void rehash(){
+        uniqueTable = new int[2 * uniqueTable.length];
+        int mask = uniqueTable.length - 1;
+        for(int node = 2; node < numberOfNodes; node ++){
+            int slot = hash(variable[node], low[node], high[node]) & mask;
+            while(uniqueTable[slot] != 0)
+                slot = (slot + 1) & mask;
+            uniqueTable[slot] = node;
+        }
+    }
+
+    private static int hash(int first, int second, int third){
+        int h = first * 0x9E3779B1 + second;
+        h = h * 0x85EBCA6B + third;
+        return h ^ (h >>> 15);
+    }
+
+    private int cacheSlot(int operation, int first, int second, int third){
+        return hash(operation * 31 + first, second, third) & (CACHE_SIZE - 1);
+    }
+
+    private int cacheLookup(int slot, int operation, int first, int second, int third){
+        if(cacheOperation[slot] == operation && cacheFirst[slot] == first && cacheSecond[slot] == second && cacheThird[slot] == third)
+            return cacheResult[slot];
+        return -1;
+    }
+
+    private void cacheStore(int slot, int operation, int first, int second, int third, int result){
+        cacheOperation[slot] = operation;
+        cacheFirst[slot] = first;
+        cacheSecond[slot] = second;
+        cacheThird[slot] = third;
+        cacheResult[slot] = result;
+    }
+
+    /**
+     * @return BDD of a variable, or of its negation if value is false
+     */
+    public int getLiteral(int var, boolean value){
+        return value ? makeNode(var, FALSE, TRUE) : makeNode(var, TRUE, FALSE);
+    }
+
+    public int and(int f, int g){
+        return apply(OP_AND, f, g);
+    }
+
+    public int or(int f, int g){
+        return apply(OP_OR, f, g);
+    }
+
+    public int not(int f){
+        return apply(OP_XOR, f, TRUE);
+    }
+
+    /**
+     * @return f and not g
+     */
+    public int andNot(int f, int g){
+        return apply(OP_AND, f, not(g));
+    }
+
+    private int apply(int operation, int f, int g){
+        // terminal cases
+        switch(operation){
+            case OP_AND:
+                if(f == FALSE || g == FALSE)
+                    return FALSE;
+                if(f == TRUE || f == g)
+                    return g;
+                if(g == TRUE)
+                    return f;
+                break;
+            case OP_OR:
+                if(f == TRUE || g == TRUE)
+                    return TRUE;
+                if(f == FALSE || f == g)
+                    return g;
+                if(g == FALSE)
+                    return f;
+                break;
+            default:
+                // OP_XOR
+                if(f == g)
+                    return FALSE;
+                if(f == FALSE)
+                    return g;
+                if(g == FALSE)
+                    return f;
+                if(f == TRUE && g == TRUE)
+                    return FALSE;
+        }
+
+        int slot = cacheSlot(operation, f, g, 0);
+        int result = cacheLookup(slot, operation, f, g, 0);
+        if(result >= 0)
+            return result;
+
+        int var = Math.min(variable[f], variable[g]);
+        int fLow = (variable[f] == var) ? low[f] : f;
+        int fHigh = (variable[f] == var) ? high[f] : f;
+        int gLow = (variable[g] == var) ? low[g] : g;
+        int gHigh = (variable[g] == var) ? high[g] : g;
+        result = makeNode(var, apply(operation, fLow, gLow), apply(operation, fHigh, gHigh));
+
+        cacheStore(slot, operation, f, g, 0, result);
+        return result;
+    }
+
+    /**
+     * @param quantified per variable, whether it is in the set
+     * @return id of the set, for andExists()
+     */
+    public int addVariableSet(boolean[] quantified){
+        if(numberOfVariableSets == variableSets.length)
+            variableSets = Arrays.copyOf(variableSets, 2 * numberOfVariableSets);
+        variableSets[numberOfVariableSets] = quantified;
+        return numberOfVariableSets ++;
+    }
+
+    /**
+     * Relational product
+     * @param variableSet id of a set of variables from addVariableSet()
+     * @return exists variables of the set: f and g
+     */
+    public int andExists(int f, int g, int variableSet){
+        if(f == FALSE || g == FALSE)
+            return FALSE;
+        if(f == TRUE && g == TRUE)
+            return TRUE;
+
+        int slot = cacheSlot(OP_AND_EXISTS, f, g, variableSet);
+        int result = cacheLookup(slot, OP_AND_EXISTS, f, g, variableSet);
+        if(result >= 0)
+            return result;
+
+        int var = Math.min(variable[f], variable[g]);
+        int fLow = (variable[f] == var) ? low[f] : f;
+        int fHigh = (variable[f] == var) ? high[f] : f;
+        int gLow = (variable[g] == var) ? low[g] : g;
+        int gHigh = (variable[g] == var) ? high[g] : g;
+
+        if(variableSets[variableSet][var]){
+            result = andExists(fLow, gLow, variableSet);
+            if(result != TRUE)
+                result = or(result, andExists(fHigh, gHigh, variableSet));
+        }else{
+            result = makeNode(var, andExists(fLow, gLow, variableSet), andExists(fHigh, gHigh, variableSet));
+        }
+
+        cacheStore(slot, OP_AND_EXISTS, f, g, variableSet, result);
+        return result;
+    }
+
+    /**
+     * @param map per variable, the variable replacing it. It must preserve the order of the variables
+     *            a BDD to be replaced depends on, e.g. swap a variable with its next variable.
+     * @return id of the map, for replace()
+     */
+    public int addVariableMap(int[] map){
+        if(numberOfVariableMaps == variableMaps.length)
+            variableMaps = Arrays.copyOf(variableMaps, 2 * numberOfVariableMaps);
+        variableMaps[numberOfVariableMaps] = map;
+        return numberOfVariableMaps ++;
+    }
+
+    /**
+     * @param variableMap id of a map from addVariableMap()
+     * @return f with every variable replaced as in the map
+     */
+    public int replace(int f, int variableMap){
+        if(f == FALSE || f == TRUE)
+            return f;
+
+        int slot = cacheSlot(OP_REPLACE, f, variableMap, 0);
+        int result = cacheLookup(slot, OP_REPLACE, f, variableMap, 0);
+        if(result >= 0)
+            return result;
+
+        int newVariable = variableMaps[variableMap][variable[f]];
+        int newLow = replace(low[f], variableMap);
+        int newHigh = replace(high[f], variableMap);
+        if(newVariable >= variable[newLow] || newVariable >= variable[newHigh]){
+            System.out.println("ERROR: BinaryDecisionDiagrams.replace: variable map does not preserve variable order");
+            System.exit(1);
+        }
+        result = makeNode(newVariable, newLow, newHigh);
+
+        cacheStore(slot, OP_REPLACE, f, variableMap, 0, result);
+        return result;
+    }
+
+    /**
+     * @param counted per variable, whether it is counted; f must depend on counted variables only
+     * @return number of assignments of counted variables satisfying f
+     */
+    public long getSatisfyingCount(int f, boolean[] counted){
+        // level of a variable: number of counted variables before it
+        int[] level = new int[numberOfVariables + 1];
+        for(int var = 0; var < numberOfVariables; var ++)
+            level[var + 1] = level[var] + (counted[var] ? 1 : 0);
+
+        return multiplyByPowerOfTwo(getSatisfyingCount(f, level, new HashMap<>()), level[variable[f]]);
+    }
+
+    /**
+     * @return number of assignments of counted variables from the level of the variable of f
+     */
+    private long getSatisfyingCount(int f, int[] level, HashMap<Integer, Long> counts){
+        if(f == FALSE)
+            return 0;
+        if(f == TRUE)
+            return 1;
+
+        Long count = counts.get(f);
+        if(count != null)
+            return count;
+
+        int var = variable[f];
+        if(level[var + 1] == level[var]){
+            System.out.println("ERROR: BinaryDecisionDiagrams.getSatisfyingCount: BDD depends on variable " + var + " which is not counted");
+            System.exit(1);
+        }
+        long lowCount = multiplyByPowerOfTwo(getSatisfyingCount(low[f], level, counts), level[variable[low[f]]] - level[var] - 1);
+        long highCount = multiplyByPowerOfTwo(getSatisfyingCount(high[f], level, counts), level[variable[high[f]]] - level[var] - 1);
+        count = addExact(lowCount, highCount);
+
+        counts.put(f, count);
+        return count;
+    }
+
+    private static long multiplyByPowerOfTwo(long value, int exponent){
+        if(value == 0)
+            return 0;
+        if(exponent >= 63 || value > (Long.MAX_VALUE >> exponent)){
+            System.out.println("ERROR: BinaryDecisionDiagrams.getSatisfyingCount: count exceeds " + Long.MAX_VALUE);
+            System.exit(1);
+        }
+        return value << exponent;
+    }
+
+    private static long addExact(long first, long second){
+        if(first > Long.MAX_VALUE - second){
+            System.out.println("ERROR: BinaryDecisionDiagrams.getSatisfyingCount: count exceeds " + Long.MAX_VALUE);
+            System.exit(1);
+        }
+        return first + second;
+    }
+}
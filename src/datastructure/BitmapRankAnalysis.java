@@ -0,0 +1,165 @@
+package datastructure;
+
+import template.ProgramConfigurationTemplate;
+
+import java.util.ArrayList;
+
+/**
+ * Rank layers of the indexed state space as compressed bitmaps of configuration indices (see CompressedBitmap),
+ * for analyses that only need which configs have a given rank, without any per-config result.
+ * Layers are computed backward from the invariant, layer by layer:
+ *   min rank 0: the invariant
+ *   min rank k+1: predecessors of min rank k layer, without min rank at most k
+ *   max rank 0: the invariant and configs outside the invariant without successors, as in full analysis
+ *   max rank k+1: predecessors of max rank k layer, without max rank at most k,
+ *                 whose successors all have max rank at most k
+ * since a config of max rank k+1 has a successor of max rank k.
+ * Configs in no layer have infinite rank.
+ */
+
+public class BitmapRankAnalysis {
+    private ProgramConfigurationTemplate programConfig;
+    private InvertedTransitionIndex invertedIndex;
+    private int numberOfConfigs;
+
+    private CompressedBitmap invariant;
+    private ArrayList<CompressedBitmap> maxRankLayers;
+    private ArrayList<CompressedBitmap> minRankLayers;
+
+    /**
+     * Run the analysis. The given program configuration is used for enumeration and is changed.
+     * @param programConfig any configuration of the program
+     * @param invertedIndex inverted index of program transitions, null if predecessors are generated by program
+     */
+    public BitmapRankAnalysis(ProgramConfigurationTemplate programConfig, InvertedTransitionIndex invertedIndex){
+        this.programConfig = programConfig;
+        this.invertedIndex = invertedIndex;
+        numberOfConfigs = (int) programConfig.getSizeOfIndexedStateSpace();
+
+        // configs are added in increasing order of index
+        invariant = new CompressedBitmap();
+        CompressedBitmap deadlocks = new CompressedBitmap();
+        for(int configIndex = 0; configIndex < numberOfConfigs; configIndex ++){
+            programConfig.moveToProgramConfigIndex(configIndex);
+            if(programConfig.isInsideInvariant())
+                invariant.add(configIndex);
+            else if(programConfig.getProgramConfigTransSuccessorIndices().length == 0)
+                deadlocks.add(configIndex);
+        }
+        invariant.runOptimize();
+
+        computeMinRankLayers();
+        computeMaxRankLayers(invariant.or(deadlocks).runOptimize());
+    }
+
+    private void computeMinRankLayers(){
+        minRankLayers = new ArrayList<>();
+        minRankLayers.add(invariant);
+
+        CompressedBitmap minRankAtMost = invariant;
+        for(CompressedBitmap layer = invariant; ; ){
+            CompressedBitmap nextLayer = getPredecessors(layer).andNot(minRankAtMost).runOptimize();
+            if(nextLayer.isEmpty())
+                break;
+
+            minRankLayers.add(nextLayer);
+            minRankAtMost = minRankAtMost.or(nextLayer).runOptimize();
+            layer = nextLayer;
+        }
+    }
+
+    private void computeMaxRankLayers(CompressedBitmap firstLayer){
+        maxRankLayers = new ArrayList<>();
+        maxRankLayers.add(firstLayer);
+
+        CompressedBitmap maxRankAtMost = firstLayer;
+        for(CompressedBitmap layer = firstLayer; ; ){
+            CompressedBitmap candidates = getPredecessors(layer).andNot(maxRankAtMost);
+
+            CompressedBitmap nextLayer = new CompressedBitmap();
+            CompressedBitmap currentMaxRankAtMost = maxRankAtMost;
+            candidates.forEach(configIndex -> {
+                programConfig.moveToProgramConfigIndex(configIndex);
+                for(long successorIndex : programConfig.getProgramConfigTransSuccessorIndices()){
+                    if(!currentMaxRankAtMost.contains((int) successorIndex))
+                        return;
+                }
+                nextLayer.add(configIndex);
+            });
+            if(nextLayer.isEmpty())
+                break;
+
+            nextLayer.runOptimize();
+            maxRankLayers.add(nextLayer);
+            maxRankAtMost = maxRankAtMost.or(nextLayer).runOptimize();
+            layer = nextLayer;
+        }
+    }
+
+    /**
+     * @return predecessors of the configs of a set
+     */
+    private CompressedBitmap getPredecessors(CompressedBitmap configs){
+        CompressedBitmap predecessors = new CompressedBitmap();
+        configs.forEach(configIndex -> {
+            if(invertedIndex == null){
+                programConfig.moveToProgramConfigIndex(configIndex);
+                programConfig.forEachTransPredecessor(predecessorIndex -> predecessors.add((int) predecessorIndex));
+            }else{
+                invertedIndex.forEachTransPredecessor(configIndex, predecessorIndex -> predecessors.add((int) predecessorIndex));
+            }
+        });
+        return predecessors;
+    }
+
+    public int getNumberOfConfigs() {
+        return numberOfConfigs;
+    }
+
+    public CompressedBitmap getInvariant() {
+        return invariant;
+    }
+
+    /**
+     * @return configs of every max rank, indexed by rank
+     */
+    public ArrayList<CompressedBitmap> getMaxRankLayers() {
+        return maxRankLayers;
+    }
+
+    /**
+     * @return configs of every min rank, indexed by rank
+     */
+    public ArrayList<CompressedBitmap> getMinRankLayers() {
+        return minRankLayers;
+    }
+
+    /**
+     * @return size in bytes of the invariant and all layers
+     */
+    public long getSizeInBytes(){
+        long sizeInBytes = invariant.getSizeInBytes();
+        for(CompressedBitmap layer : maxRankLayers)
+            sizeInBytes += layer.getSizeInBytes();
+        // min rank layer 0 is the invariant
+        for(int rank = 1; rank < minRankLayers.size(); rank ++)
+            sizeInBytes += minRankLayers.get(rank).getSizeInBytes();
+        return sizeInBytes;
+    }
+
+    /**
+     * @return number of containers of every kind in the invariant and all layers: array, bitmap, run
+     */
+    public long[] getNumberOfContainers(){
+        long[] numberOfContainers = new long[3];
+        ArrayList<CompressedBitmap> bitmaps = new ArrayList<>(maxRankLayers);
+        bitmaps.add(invariant);
+        bitmaps.addAll(minRankLayers.subList(1, minRankLayers.size()));
+        for(CompressedBitmap bitmap : bitmaps){
+            numberOfContainers[0] += bitmap.getNumberOfArrayContainers();
+            numberOfContainers[1] += bitmap.getNumberOfBitmapContainers();
+            numberOfContainers[2] += bitmap.getNumberOfRunContainers();
+        }
+        return numberOfContainers;
+    }
+}
@@ -0,0 +1,553 @@
+package datastructure;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Set of non-negative ints (e.g. configuration indices) as a compressed bitmap, in the style of Roaring bitmaps.
+ * Values are split by their high 16 bits into chunks of 65536 values, each chunk that has a value
+ * is kept in a container of the cheapest kind:
+ *   array container:  sorted low 16 bits of the values, for at most 4096 values (2 bytes per value)
+ *   bitmap container: one bit per value of the chunk (8 KB)
+ *   run container:    sorted runs of consecutive values as (start, length - 1) pairs (4 bytes per run)
+ * Array and bitmap containers are converted into each other as values are added or removed by set operations,
+ * run containers are only made by runOptimize(), once a set is built.
+ * Set operations return new sets that share no container with their operands.
+ * Sets of configs that cluster in index space, e.g. rank layers, then take far less than an int per config.
+ */
+
+public class CompressedBitmap {
+    private static final int ARRAY_CONTAINER_MAX_SIZE = 4096;
+    private static final int BITMAP_CONTAINER_WORDS = 1024;
+
+    // containers in increasing order of key (high 16 bits of their values)
+    private char[] keys;
+    private Container[] containers;
+    private int numberOfContainers;
+
+    public CompressedBitmap(){
+        keys = new char[4];
+        containers = new Container[4];
+        numberOfContainers = 0;
+    }
+
+    /**
+     * Add a value, fastest in increasing order
+     */
+    public void add(int value){
+        char key = (char) (value >>> 16);
+        int position = findContainer(key);
+        if(position < 0){
+            position = -position - 1;
+            insertContainer(position, key, new ArrayContainer());
+        }
+        containers[position] = containers[position].add((char) value);
+    }
+
+    public boolean contains(int value){
+        int position = findContainer((char) (value >>> 16));
+        return position >= 0 && containers[position].contains((char) value);
+    }
+
+    public boolean isEmpty(){
+        return numberOfContainers == 0;
+    }
+
+    public long getCardinality(){
+        long cardinality = 0;
+        for(int position = 0; position < numberOfContainers; position ++)
+            cardinality += containers[position].getCardinality();
+        return cardinality;
+    }
+
+    /**
+     * Visit the values in increasing order
+     */
+    public void forEach(IntConsumer visitor){
+        for(int position = 0; position < numberOfContainers; position ++)
+            containers[position].forEach(keys[position] << 16, visitor);
+    }
+
+    /**
+     * @return union of this set and another set, as a new set
+     */
+    public CompressedBitmap or(CompressedBitmap other){
+        CompressedBitmap result = new CompressedBitmap();
+        int position = 0;
+        int otherPosition = 0;
+        while(position < numberOfContainers || otherPosition < other.numberOfContainers){
+            if(otherPosition == other.numberOfContainers ||
+                    (position < numberOfContainers && keys[position] < other.keys[otherPosition])){
+                result.appendContainer(keys[position], containers[position].copy());
+                position ++;
+            }else if(position == numberOfContainers || other.keys[otherPosition] < keys[position]){
+                result.appendContainer(other.keys[otherPosition], other.containers[otherPosition].copy());
+                otherPosition ++;
+            }else{
+                result.appendContainer(keys[position], containers[position].or(other.containers[otherPosition]));
+                position ++;
+                otherPosition ++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return intersection of this set and another set, as a new set
+     */
+    public CompressedBitmap and(CompressedBitmap other){
+        CompressedBitmap result = new CompressedBitmap();
+        int position = 0;
+        int otherPosition = 0;
+        while(position < numberOfContainers && otherPosition < other.numberOfContainers){
+            if(keys[position] < other.keys[otherPosition]){
+                position ++;
+            }else if(other.keys[otherPosition] < keys[position]){
+                otherPosition ++;
+            }else{
+                result.appendContainer(keys[position], containers[position].and(other.containers[otherPosition]));
+                position ++;
+                otherPosition ++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return values of this set that are not in another set, as a new set
+     */
+    public CompressedBitmap andNot(CompressedBitmap other){
+        CompressedBitmap result = new CompressedBitmap();
+        int otherPosition = 0;
+        for(int position = 0; position < numberOfContainers; position ++){
+            while(otherPosition < other.numberOfContainers && other.keys[otherPosition] < keys[position])
+                otherPosition ++;
+
+            if(otherPosition < other.numberOfContainers && other.keys[otherPosition] == keys[position])
+                result.appendContainer(keys[position], containers[position].andNot(other.containers[otherPosition]));
+            else
+                result.appendContainer(keys[position], containers[position].copy());
+        }
+        return result;
+    }
+
+    /**
+     * Convert containers to run containers where it is smaller, once the set is built
+     * @return this set
+     */
+    public CompressedBitmap runOptimize(){
+        for(int position = 0; position < numberOfContainers; position ++)
+            containers[position] = containers[position].runOptimize();
+        return this;
+    }
+
+    /**
+     * @return size of the set in bytes as if serialized: 4 bytes of key and cardinality per container plus its values
+     */
+    public long getSizeInBytes(){
+        long sizeInBytes = 0;
+        for(int position = 0; position < numberOfContainers; position ++)
+            sizeInBytes += 4 + containers[position].getSizeInBytes();
+        return sizeInBytes;
+    }
+
+    public int getNumberOfArrayContainers(){
+        return countContainers(ArrayContainer.class);
+    }
+
+    public int getNumberOfBitmapContainers(){
+        return countContainers(BitmapContainer.class);
+    }
+
+    public int getNumberOfRunContainers(){
+        return countContainers(RunContainer.class);
+    }
+
+    private int countContainers(Class<? extends Container> containerClass){
+        int count = 0;
+        for(int position = 0; position < numberOfContainers; position ++){
+            if(containerClass.isInstance(containers[position]))
+                count ++;
+        }
+        return count;
+    }
+
+    /**
+     * @return position of the container of a key, or (-(insertion position) - 1) if there is none
+     */
+    private int findContainer(char key){
+        // values are mostly added in increasing order
+        if(numberOfContainers > 0 && keys[numberOfContainers - 1] <= key)
+            return (keys[numberOfContainers - 1] == key) ? numberOfContainers - 1 : -numberOfContainers - 1;
+        return Arrays.binarySearch(keys, 0, numberOfContainers, key);
+    }
+
+    private void insertContainer(int position, char key, Container container){
+        if(numberOfContainers == keys.length){
+            keys = Arrays.copyOf(keys, 2 * keys.length);
+            containers = Arrays.copyOf(containers, 2 * containers.length);
+        }
+        System.arraycopy(keys, position, keys, position + 1, numberOfContainers - position);
+        System.arraycopy(containers, position, containers, position + 1, numberOfContainers - position);
+        keys[position] = key;
+        containers[position] = container;
+        numberOfContainers ++;
+    }
+
+    /**
+     * Append a container of a key larger than all keys, nothing if it is empty
+     */
+    private void appendContainer(char key, Container container){
+        if(container == null || container.getCardinality() == 0)
+            return;
+        insertContainer(numberOfContainers, key, container);
+    }
+
+    /**
+     * Low 16 bits of the values of a chunk
+     */
+    private static abstract class Container {
+        /**
+         * @return the container with the value added, this one or one of another kind
+         */
+        abstract Container add(char value);
+
+        abstract boolean contains(char value);
+
+        abstract int getCardinality();
+
+        abstract void forEach(int high, IntConsumer visitor);
+
+        /**
+         * Set the bits of the values in words of a bitmap container
+         */
+        abstract void orInto(long[] words);
+
+        abstract int getSizeInBytes();
+
+        abstract Container copy();
+
+        /**
+         * @return the values as words of a bitmap container, owned by the caller
+         */
+        long[] toWords(){
+            long[] words = new long[BITMAP_CONTAINER_WORDS];
+            orInto(words);
+            return words;
+        }
+
+        Container or(Container other){
+            if(this instanceof ArrayContainer && other instanceof ArrayContainer &&
+                    getCardinality() + other.getCardinality() <= ARRAY_CONTAINER_MAX_SIZE)
+                return ((ArrayContainer) this).merge((ArrayContainer) other);
+
+            long[] words = toWords();
+            other.orInto(words);
+            return fromWords(words);
+        }
+
+        Container and(Container other){
+            if(this instanceof ArrayContainer)
+                return ((ArrayContainer) this).filter(other, true);
+            if(other instanceof ArrayContainer)
+                return ((ArrayContainer) other).filter(this, true);
+
+            long[] words = toWords();
+            long[] otherWords = other.toWords();
+            for(int position = 0; position < BITMAP_CONTAINER_WORDS; position ++)
+                words[position] &= otherWords[position];
+            return fromWords(words);
+        }
+
+        Container andNot(Container other){
+            if(this instanceof ArrayContainer)
+                return ((ArrayContainer) this).filter(other, false);
+
+            long[] words = toWords();
+            long[] otherWords = other.toWords();
+            for(int position = 0; position < BITMAP_CONTAINER_WORDS; position ++)
+                words[position] &= ~otherWords[position];
+            return fromWords(words);
+        }
+
+        /**
+         * @return a run container if it is smaller than this container, otherwise this container
+         */
+        Container runOptimize(){
+            long[] words = toWords();
+            int numberOfRuns = countRuns(words);
+            if(RunContainer.getSizeInBytes(numberOfRuns) >= getSizeInBytes())
+                return this;
+            return new RunContainer(words, numberOfRuns);
+        }
+
+        /**
+         * @return the cheapest of array and bitmap containers holding the values of words, null if there is none
+         */
+        static Container fromWords(long[] words){
+            int cardinality = 0;
+            for(long word : words)
+                cardinality += Long.bitCount(word);
+
+            if(cardinality == 0)
+                return null;
+            if(cardinality > ARRAY_CONTAINER_MAX_SIZE)
+                return new BitmapContainer(words, cardinality);
+
+            char[] values = new char[cardinality];
+            int size = 0;
+            for(int position = 0; position < BITMAP_CONTAINER_WORDS; position ++){
+                for(long word = words[position]; word != 0; word &= word - 1)
+                    values[size ++] = (char) (position * 64 + Long.numberOfTrailingZeros(word));
+            }
+            return new ArrayContainer(values, size);
+        }
+
+        /**
+         * @return number of runs of consecutive set bits
+         */
+        static int countRuns(long[] words){
+            int numberOfRuns = 0;
+            long previousWord = 0;
+            for(long word : words){
+                // a run starts at a set bit whose lower bit is not set
+                numberOfRuns += Long.bitCount(word & ~((word << 1) | (previousWord >>> 63)));
+                previousWord = word;
+            }
+            return numberOfRuns;
+        }
+    }
+
+    private static class ArrayContainer extends Container {
+        private char[] values;
+        private int size;
+
+        ArrayContainer(){
+            values = new char[4];
+            size = 0;
+        }
+
+        ArrayContainer(char[] values, int size){
+            this.values = values;
+            this.size = size;
+        }
+
+        Container add(char value){
+            // values are mostly added in increasing order
+            int position = (size > 0 && values[size - 1] < value) ? -size - 1 : Arrays.binarySearch(values, 0, size, value);
+            if(position >= 0)
+                return this;
+            position = -position - 1;
+
+            if(size == ARRAY_CONTAINER_MAX_SIZE){
+                long[] words = toWords();
+                words[value >>> 6] |= 1L << value;
+                return new BitmapContainer(words, size + 1);
+            }
+
+            if(size == values.length)
+                values = Arrays.copyOf(values, Math.min(2 * values.length, ARRAY_CONTAINER_MAX_SIZE));
+            System.arraycopy(values, position, values, position + 1, size - position);
+            values[position] = value;
+            size ++;
+            return this;
+        }
+
+        boolean contains(char value){
+            return Arrays.binarySearch(values, 0, size, value) >= 0;
+        }
+
+        int getCardinality(){
+            return size;
+        }
+
+        void forEach(int high, IntConsumer visitor){
+            for(int position = 0; position < size; position ++)
+                visitor.accept(high | values[position]);
+        }
+
+        void orInto(long[] words){
+            for(int position = 0; position < size; position ++)
+                words[values[position] >>> 6] |= 1L << values[position];
+        }
+
+        int getSizeInBytes(){
+            return 2 * size;
+        }
+
+        Container copy(){
+            return new ArrayContainer(Arrays.copyOf(values, size), size);
+        }
+
+        /**
+         * @return union with another array container, whose total size is at most ARRAY_CONTAINER_MAX_SIZE
+         */
+        ArrayContainer merge(ArrayContainer other){
+            char[] mergedValues = new char[size + other.size];
+            int mergedSize = 0;
+            int position = 0;
+            int otherPosition = 0;
+            while(position < size || otherPosition < other.size){
+                if(otherPosition == other.size || (position < size && values[position] < other.values[otherPosition])){
+                    mergedValues[mergedSize ++] = values[position ++];
+                }else if(position == size || other.values[otherPosition] < values[position]){
+                    mergedValues[mergedSize ++] = other.values[otherPosition ++];
+                }else{
+                    mergedValues[mergedSize ++] = values[position ++];
+                    otherPosition ++;
+                }
+            }
+            return new ArrayContainer(mergedValues, mergedSize);
+        }
+
+        /**
+         * @param keep true: values in the other container are kept, false: values not in it are kept
+         */
+        ArrayContainer filter(Container other, boolean keep){
+            char[] filteredValues = new char[size];
+            int filteredSize = 0;
+            for(int position = 0; position < size; position ++){
+                if(other.contains(values[position]) == keep)
+                    filteredValues[filteredSize ++] = values[position];
+            }
+            return new ArrayContainer(filteredValues, filteredSize);
+        }
+    }
+
+    private static class BitmapContainer extends Container {
+        private long[] words;
+        private int cardinality;
+
+        BitmapContainer(long[] words, int cardinality){
+            this.words = words;
+            this.cardinality = cardinality;
+        }
+
+        Container add(char value){
+            long bit = 1L << value;
+            if((words[value >>> 6] & bit) == 0){
+                words[value >>> 6] |= bit;
+                cardinality ++;
+            }
+            return this;
+        }
+
+        boolean contains(char value){
+            return (words[value >>> 6] & (1L << value)) != 0;
+        }
+
+        int getCardinality(){
+            return cardinality;
+        }
+
+        void forEach(int high, IntConsumer visitor){
+            for(int position = 0; position < BITMAP_CONTAINER_WORDS; position ++){
+                for(long word = words[position]; word != 0; word &= word - 1)
+                    visitor.accept(high | (position * 64 + Long.numberOfTrailingZeros(word)));
+            }
+        }
+
+        void orInto(long[] words){
+            for(int position = 0; position < BITMAP_CONTAINER_WORDS; position ++)
+                words[position] |= this.words[position];
+        }
+
+        int getSizeInBytes(){
+            return 8 * BITMAP_CONTAINER_WORDS;
+        }
+
+        Container copy(){
+            return new BitmapContainer(words.clone(), cardinality);
+        }
+    }
+
+    private static class RunContainer extends Container {
+        // run i is the values starts[i] .. starts[i] + lengthsMinusOne[i]
+        private char[] starts;
+        private char[] lengthsMinusOne;
+        private int numberOfRuns;
+        private int cardinality;
+
+        RunContainer(long[] words, int numberOfRuns){
+            starts = new char[numberOfRuns];
+            lengthsMinusOne = new char[numberOfRuns];
+            this.numberOfRuns = 0;
+            cardinality = 0;
+
+            int runStart = -1;
+            for(int value = 0; value <= 64 * BITMAP_CONTAINER_WORDS; value ++){
+                boolean set = value < 64 * BITMAP_CONTAINER_WORDS && (words[value >>> 6] & (1L << value)) != 0;
+                if(set && runStart < 0){
+                    runStart = value;
+                }else if(!set && runStart >= 0){
+                    starts[this.numberOfRuns] = (char) runStart;
+                    lengthsMinusOne[this.numberOfRuns] = (char) (value - 1 - runStart);
+                    this.numberOfRuns ++;
+                    cardinality += value - runStart;
+                    runStart = -1;
+                }
+            }
+        }
+
+        private RunContainer(char[] starts, char[] lengthsMinusOne, int numberOfRuns, int cardinality){
+            this.starts = starts;
+            this.lengthsMinusOne = lengthsMinusOne;
+            this.numberOfRuns = numberOfRuns;
+            this.cardinality = cardinality;
+        }
+
+        static int getSizeInBytes(int numberOfRuns){
+            return 4 * numberOfRuns;
+        }
+
+        Container add(char value){
+            if(contains(value))
+                return this;
+
+            long[] words = toWords();
+            words[value >>> 6] |= 1L << value;
+            return fromWords(words);
+        }
+
+        boolean contains(char value){
+            // last run starting at or before value
+            int position = Arrays.binarySearch(starts, 0, numberOfRuns, value);
+            if(position >= 0)
+                return true;
+            position = -position - 2;
+            return position >= 0 && value - starts[position] <= lengthsMinusOne[position];
+        }
+
+        int getCardinality(){
+            return cardinality;
+        }
+
+        void forEach(int high, IntConsumer visitor){
+            for(int run = 0; run < numberOfRuns; run ++){
+                int end = starts[run] + lengthsMinusOne[run];
+                for(int value = starts[run]; value <= end; value ++)
+                    visitor.accept(high | value);
+            }
+        }
+
+        void orInto(long[] words){
+            for(int run = 0; run < numberOfRuns; run ++){
+                int end = starts[run] + lengthsMinusOne[run];
+                for(int value = starts[run]; value <= end; value ++)
+                    words[value >>> 6] |= 1L << value;
+            }
+        }
+
+        int getSizeInBytes(){
+            return getSizeInBytes(numberOfRuns);
+        }
+
+        Container copy(){
+            return new RunContainer(starts.clone(), lengthsMinusOne.clone(), numberOfRuns, cardinality);
+        }
+
+        Container runOptimize(){
+            return this;
+        }
+    }
+}
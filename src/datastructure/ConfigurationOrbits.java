@@ -0,0 +1,164 @@
+package datastructure;
+
+import template.ProgramConfigurationTemplate;
+
+import java.util.Arrays;
+
+/**
+ * Orbits of the configurations of the indexed state space under a group of graph automorphisms.
+ * An automorphism moves the state of every node to its image node.
+ * The representative of an orbit is its configuration with the smallest configuration index.
+ * Only representatives are kept, in increasing order of configuration index, with the size of their orbits.
+ * Configuration indices are permuted arithmetically from the digits of the index,
+ * so this requires that a node and its images have the same number of node states.
+ */
+
+public class ConfigurationOrbits {
+    private GraphAutomorphisms automorphisms;
+    private int numberOfNodes;
+    private long numberOfConfigs;
+    private int[] radix;            // per node, number of node states
+    private long[] weight;          // per node, weight of its digit in configuration index
+    private int[] digits;           // scratch for canonicalization
+
+    private long[] representativeIndex;
+    private int[] orbitSize;
+    private int numberOfRepresentatives;
+
+    // numberOfMappings[v][u]: number of automorphisms mapping node v to node u
+    private int[][] numberOfMappings;
+
+    // stabilizer size of the last canonicalized config
+    private int lastStabilizerSize;
+
+    /**
+     * Enumerate the representatives. The given program configuration provides the indexed state space and is not changed.
+     * @param programConfig any configuration of the program
+     * @param automorphisms group of automorphisms, must be complete
+     */
+    public ConfigurationOrbits(ProgramConfigurationTemplate programConfig, GraphAutomorphisms automorphisms){
+        this.automorphisms = automorphisms;
+        numberOfNodes = programConfig.getNumberOfNodes();
+        numberOfConfigs = programConfig.getSizeOfIndexedStateSpace();
+        radix = new int[numberOfNodes];
+        weight = new long[numberOfNodes];
+        digits = new int[numberOfNodes];
+        for(int nodeId = 0; nodeId < numberOfNodes; nodeId ++){
+            radix[nodeId] = programConfig.getNumberOfNodeStates(nodeId);
+            weight[nodeId] = programConfig.getNodeIndexWeight(nodeId);
+        }
+
+        numberOfMappings = new int[numberOfNodes][numberOfNodes];
+        for(int position = 0; position < automorphisms.getNumberOfAutomorphisms(); position ++){
+            int[] automorphism = automorphisms.getAutomorphism(position);
+            for(int nodeId = 0; nodeId < numberOfNodes; nodeId ++){
+                if(radix[automorphism[nodeId]] != radix[nodeId]){
+                    System.out.println("ERROR: ConfigurationOrbits: node " + nodeId + " and its image " + automorphism[nodeId]
+                            + " have different numbers of node states");
+                    System.exit(1);
+                }
+                numberOfMappings[nodeId][automorphism[nodeId]] ++;
+            }
+        }
+
+        representativeIndex = new long[1024];
+        orbitSize = new int[1024];
+        numberOfRepresentatives = 0;
+        int numberOfAutomorphisms = automorphisms.getNumberOfAutomorphisms();
+        for(long configIndex = 0; configIndex < numberOfConfigs; configIndex ++){
+            if(getRepresentativeIndex(configIndex) != configIndex)
+                continue;
+
+            if(numberOfRepresentatives == representativeIndex.length){
+                representativeIndex = Arrays.copyOf(representativeIndex, 2 * numberOfRepresentatives);
+                orbitSize = Arrays.copyOf(orbitSize, 2 * numberOfRepresentatives);
+            }
+            representativeIndex[numberOfRepresentatives] = configIndex;
+            orbitSize[numberOfRepresentatives] = numberOfAutomorphisms / lastStabilizerSize;
+            numberOfRepresentatives ++;
+        }
+    }
+
+    /**
+     * Also records the number of automorphisms fixing the config, see getLastStabilizerSize()
+     * @param configIndex index of any config
+     * @return index of the representative of the orbit of the config
+     */
+    public long getRepresentativeIndex(long configIndex){
+        long remainder = configIndex;
+        for(int nodeId = numberOfNodes - 1; nodeId >= 0; nodeId --){
+            digits[nodeId] = (int) (remainder % radix[nodeId]);
+            remainder = remainder / radix[nodeId];
+        }
+
+        long smallestIndex = configIndex;
+        lastStabilizerSize = 0;
+        for(int position = 0; position < automorphisms.getNumberOfAutomorphisms(); position ++){
+            int[] automorphism = automorphisms.getAutomorphism(position);
+            long imageIndex = 0;
+            for(int nodeId = 0; nodeId < numberOfNodes; nodeId ++){
+                imageIndex += digits[nodeId] * weight[automorphism[nodeId]];
+            }
+
+            if(imageIndex < smallestIndex){
+                smallestIndex = imageIndex;
+            }else if(imageIndex == configIndex){
+                lastStabilizerSize ++;
+            }
+        }
+        return smallestIndex;
+    }
+
+    /**
+     * @return number of automorphisms fixing the config given to the last call of getRepresentativeIndex()
+     */
+    public int getLastStabilizerSize() {
+        return lastStabilizerSize;
+    }
+
+    /**
+     * @param configIndex index of any config
+     * @return position of the representative of the orbit of the config
+     */
+    public int getRepresentativePosition(long configIndex){
+        int position = Arrays.binarySearch(representativeIndex, 0, numberOfRepresentatives, getRepresentativeIndex(configIndex));
+        if(position < 0){
+            System.out.println("ERROR: ConfigurationOrbits: no representative for config " + configIndex);
+            System.exit(1);
+        }
+        return position;
+    }
+
+    public int getNumberOfRepresentatives() {
+        return numberOfRepresentatives;
+    }
+
+    /**
+     * @param position position of a representative, in [0, getNumberOfRepresentatives())
+     */
+    public long getRepresentativeIndexAt(int position) {
+        return representativeIndex[position];
+    }
+
+    /**
+     * @param position position of a representative, in [0, getNumberOfRepresentatives())
+     */
+    public int getOrbitSizeAt(int position) {
+        return orbitSize[position];
+    }
+
+    public long getNumberOfConfigs() {
+        return numberOfConfigs;
+    }
+
+    public int getNumberOfAutomorphisms() {
+        return automorphisms.getNumberOfAutomorphisms();
+    }
+
+    /**
+     * @return number of automorphisms mapping a node to another node
+     */
+    public int getNumberOfMappings(int nodeId, int imageNodeId) {
+        return numberOfMappings[nodeId][imageNodeId];
+    }
+}
@@ -21,8 +21,8 @@ public class DebugInfo {
     // use BigInteger since RankEvaluationResults change datatype
 //    public static long maxRankTotalRecorded = 0;
 //    public static long maxPathCountRecorded = 0;
-    public static BigInteger maxRankTotalRecorded = BigInteger.ZERO;
-    public static BigInteger maxPathCountRecorded = BigInteger.ZERO;
+    public static PathCount maxRankTotalRecorded = new PathCount(0);
+    public static PathCount maxPathCountRecorded = new PathCount(0);
 
 
     public static String getDebugInfoStr(){
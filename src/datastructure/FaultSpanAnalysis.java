@@ -0,0 +1,596 @@
+package datastructure;
+
+import template.ProgramConfigurationTemplate;
+import template.SuccessorInfo;
+
+import java.util.Arrays;
+import java.util.TreeSet;
+
+/**
+ * The fault span of a program: configs reachable from the invariant by program transitions
+ * and at most a given number of cvfs, explored on the fly without enumerating the indexed state space.
+ * Configs are identified by configuration index (a long, so the indexed state space may exceed the size of arrays)
+ * and numbered in order of discovery; only configs of the fault span are kept.
+ *
+ * The level of a config is the least number of cvfs on a path from the invariant to it.
+ * Levels are explored in increasing order: program transition successors have the level of their source,
+ * cvf successors one more, and a config discovered first by a cvf may still be lowered to the current level.
+ * The fault span is closed under program transitions, so ranks computed over it are those of full analysis.
+ * Cvfs of configs at the last level may leave the fault span and are not followed.
+ *
+ * The invariant is generated by backtracking over the states of nodes if the program tells
+ * the nodes read by every node (getNodesReadByNode()) and defines its invariant by number of privileges
+ * (getNumberOfPrivilegesInsideInvariant()): the privileges of a node are counted once the nodes it reads
+ * in its state (getNodesReadByNodeInCurrentState()) have states, and a partial assignment
+ * with too many privileges is dropped. Nodes are ordered so that privileges are counted as early as possible.
+ * Otherwise the indexed state space is scanned.
+ */
+
+public class FaultSpanAnalysis {
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int MAX_NUMBER_OF_CONFIGS = Integer.MAX_VALUE - 8;
+    // indexed state space that may be scanned for the invariant
+    private static final long MAX_SIZE_OF_SCANNED_STATE_SPACE = Integer.MAX_VALUE - 8;
+    // local states whose number of privileges is kept, per node
+    private static final int MAX_SIZE_OF_PRIVILEGE_CACHE = 1 << 16;
+
+    private ProgramConfigurationTemplate programConfig;
+    private int numberOfNodes;
+    private int maxLevel;
+    private long sizeOfIndexedStateSpace;
+    private boolean invariantGeneratedByBacktracking;
+
+    // configuration index -> local id
+    private LongIntHashMap localIdMap;
+
+    // per local id
+    private int numberOfConfigs;
+    private long[] configIndices;
+    private int[] levels;
+    private int[][] successors;     // local ids of program transition successors
+    private boolean[] insideInvariant;
+    private int[] minRanks;
+
+    private long[] numberOfConfigsOfLevel;
+
+    // for generation of the invariant by backtracking, released afterward
+    private int numberOfPrivilegesInsideInvariant;
+    private int[][] nodesRead;                   // per node, as in getNodesReadByNode()
+    private IntList[] readersOf;                 // per node, nodes reading it
+    private int[] nodeOrder;
+    private boolean[] hasState;
+    private int[][] nodesReadInState;            // per node with state, as in getNodesReadByNodeInCurrentState()
+    private int[] numberOfNodesReadWithoutState; // per node with state
+    private LongIntHashMap[] privilegeCache;     // per node, number of privileges by local state
+
+    /**
+     * Explore the fault span and compute min ranks. The given program configuration is used for exploration and is changed.
+     * @param programConfig any configuration of the program
+     * @param maxLevel largest number of cvfs on a path from the invariant, at least 0
+     */
+    public FaultSpanAnalysis(ProgramConfigurationTemplate programConfig, int maxLevel){
+        this.programConfig = programConfig;
+        this.maxLevel = maxLevel;
+        numberOfNodes = programConfig.getNumberOfNodes();
+
+        // the indexed state space is not enumerated, but configuration indices must fit in a long
+        sizeOfIndexedStateSpace = 1;
+        for(int nodeId = 0; nodeId < numberOfNodes; nodeId ++){
+            try{
+                sizeOfIndexedStateSpace = Math.multiplyExact(sizeOfIndexedStateSpace, (long) programConfig.getNumberOfNodeStates(nodeId));
+            }catch(ArithmeticException e){
+                System.out.println("ERROR: FaultSpanAnalysis: configuration index of " + numberOfNodes + " nodes does not fit in a long");
+                System.exit(1);
+            }
+        }
+
+        localIdMap = new LongIntHashMap();
+        numberOfConfigs = 0;
+        configIndices = new long[INITIAL_CAPACITY];
+        levels = new int[INITIAL_CAPACITY];
+        successors = new int[INITIAL_CAPACITY][];
+        insideInvariant = new boolean[INITIAL_CAPACITY];
+        numberOfConfigsOfLevel = new long[maxLevel + 1];
+
+        IntList currentLevel = new IntList();
+        generateInvariant(currentLevel);
+        explore(currentLevel);
+
+        configIndices = Arrays.copyOf(configIndices, numberOfConfigs);
+        levels = Arrays.copyOf(levels, numberOfConfigs);
+        successors = Arrays.copyOf(successors, numberOfConfigs);
+        insideInvariant = Arrays.copyOf(insideInvariant, numberOfConfigs);
+        for(int localId = 0; localId < numberOfConfigs; localId ++)
+            numberOfConfigsOfLevel[levels[localId]] ++;
+
+        computeMinRanks();
+    }
+
+    /**
+     * Add the configs of the invariant at level 0
+     * @param currentLevel receives local ids of the configs
+     */
+    private void generateInvariant(IntList currentLevel){
+        numberOfPrivilegesInsideInvariant = programConfig.getNumberOfPrivilegesInsideInvariant();
+
+        nodesRead = new int[numberOfNodes][];
+        invariantGeneratedByBacktracking = (numberOfPrivilegesInsideInvariant >= 0);
+        for(int nodeId = 0; nodeId < numberOfNodes && invariantGeneratedByBacktracking; nodeId ++){
+            nodesRead[nodeId] = programConfig.getNodesReadByNode(nodeId);
+            if(nodesRead[nodeId] == null)
+                invariantGeneratedByBacktracking = false;
+        }
+
+        if(invariantGeneratedByBacktracking){
+            readersOf = new IntList[numberOfNodes];
+            for(int nodeId = 0; nodeId < numberOfNodes; nodeId ++)
+                readersOf[nodeId] = new IntList();
+            for(int readerId = 0; readerId < numberOfNodes; readerId ++){
+                for(int readNodeId : nodesRead[readerId])
+                    readersOf[readNodeId].add(readerId);
+            }
+
+            programConfig.moveToProgramConfigIndex(0);
+            computeBacktrackingOrder();
+
+            hasState = new boolean[numberOfNodes];
+            nodesReadInState = new int[numberOfNodes][];
+            numberOfNodesReadWithoutState = new int[numberOfNodes];
+            privilegeCache = new LongIntHashMap[numberOfNodes];
+            for(int nodeId = 0; nodeId < numberOfNodes; nodeId ++)
+                privilegeCache[nodeId] = new LongIntHashMap();
+
+            addInvariantConfigs(0, 0, currentLevel);
+
+            nodesRead = null;
+            readersOf = null;
+            nodesReadInState = null;
+            privilegeCache = null;
+            return;
+        }
+
+        if(sizeOfIndexedStateSpace > MAX_SIZE_OF_SCANNED_STATE_SPACE){
+            System.out.println("ERROR: FaultSpanAnalysis: invariant cannot be generated and indexed state space of "
+                    + sizeOfIndexedStateSpace + " configs exceeds the limit of " + MAX_SIZE_OF_SCANNED_STATE_SPACE);
+            System.exit(1);
+        }
+        for(long configIndex = 0; configIndex < sizeOfIndexedStateSpace; configIndex ++){
+            programConfig.moveToProgramConfigIndex(configIndex);
+            if(programConfig.isInsideInvariant())
+                currentLevel.add(addConfig(configIndex, 0, true));
+        }
+    }
+
+    /**
+     * Order nodes for backtracking so that the privileges of nodes are counted early:
+     * the next node is the one setting the last state read by the most nodes,
+     * then the one read by or reading the most nodes with states, then the smallest node id.
+     * Nodes read are estimated by those read in the current config.
+     */
+    private void computeBacktrackingOrder(){
+        int[][] estimatedNodesRead = new int[numberOfNodes][];
+        for(int nodeId = 0; nodeId < numberOfNodes; nodeId ++)
+            estimatedNodesRead[nodeId] = programConfig.getNodesReadByNodeInCurrentState(nodeId);
+
+        nodeOrder = new int[numberOfNodes];
+        boolean[] ordered = new boolean[numberOfNodes];
+        int[] numberOfNodesReadNotOrdered = new int[numberOfNodes];
+        for(int nodeId = 0; nodeId < numberOfNodes; nodeId ++)
+            numberOfNodesReadNotOrdered[nodeId] = estimatedNodesRead[nodeId].length;
+
+        for(int position = 0; position < numberOfNodes; position ++){
+            int bestNodeId = -1;
+            int bestNumberCompleted = -1;
+            int bestNumberConnected = -1;
+            for(int nodeId = 0; nodeId < numberOfNodes; nodeId ++){
+                if(ordered[nodeId])
+                    continue;
+
+                int numberCompleted = 0;
+                int numberConnected = 0;
+                for(int readerId = 0; readerId < numberOfNodes; readerId ++){
+                    if(Arrays.binarySearch(estimatedNodesRead[readerId], nodeId) < 0)
+                        continue;
+                    if(numberOfNodesReadNotOrdered[readerId] == 1)
+                        numberCompleted ++;
+                    if(ordered[readerId])
+                        numberConnected ++;
+                }
+                for(int readNodeId : estimatedNodesRead[nodeId]){
+                    if(ordered[readNodeId])
+                        numberConnected ++;
+                }
+
+                if(numberCompleted > bestNumberCompleted
+                        || (numberCompleted == bestNumberCompleted && numberConnected > bestNumberConnected)){
+                    bestNodeId = nodeId;
+                    bestNumberCompleted = numberCompleted;
+                    bestNumberConnected = numberConnected;
+                }
+            }
+
+            nodeOrder[position] = bestNodeId;
+            ordered[bestNodeId] = true;
+            for(int readerId = 0; readerId < numberOfNodes; readerId ++){
+                if(Arrays.binarySearch(estimatedNodesRead[readerId], bestNodeId) >= 0)
+                    numberOfNodesReadNotOrdered[readerId] --;
+            }
+        }
+    }
+
+    /**
+     * Set the state of the node at a position of the backtracking order in every way, then of the following nodes,
+     * keeping assignments whose number of privileges so far does not exceed the number inside the invariant.
+     * The privileges of a node are counted once it and the nodes it reads in its state have states.
+     * @param position position in the order of the node whose state is set, nodes before it have states
+     * @param numberOfPrivileges number of privileges of nodes counted so far
+     */
+    private void addInvariantConfigs(int position, int numberOfPrivileges, IntList currentLevel){
+        if(position == numberOfNodes){
+            if(numberOfPrivileges == numberOfPrivilegesInsideInvariant)
+                currentLevel.add(addConfig(programConfig.getProgramConfigIndex(), 0, true));
+            return;
+        }
+
+        int nodeId = nodeOrder[position];
+        hasState[nodeId] = true;
+        // only nodes reading this node may have all their nodes read with states now
+        IntList readers = readersOf[nodeId];
+        int[] completedNodes = new int[readers.size() + 1];
+        int[] decrementedReaders = new int[readers.size()];
+
+        for(int nodeStateIndex = 0; nodeStateIndex < programConfig.getNumberOfNodeStates(nodeId); nodeStateIndex ++){
+            programConfig.setNodeStateByIndex(nodeId, nodeStateIndex);
+
+            int numberOfCompletedNodes = 0;
+            nodesReadInState[nodeId] = programConfig.getNodesReadByNodeInCurrentState(nodeId);
+            numberOfNodesReadWithoutState[nodeId] = 0;
+            for(int readNodeId : nodesReadInState[nodeId]){
+                if(!hasState[readNodeId])
+                    numberOfNodesReadWithoutState[nodeId] ++;
+            }
+            if(numberOfNodesReadWithoutState[nodeId] == 0)
+                completedNodes[numberOfCompletedNodes ++] = nodeId;
+
+            int numberOfDecrementedReaders = 0;
+            for(int readerPosition = 0; readerPosition < readers.size(); readerPosition ++){
+                int readerId = readers.get(readerPosition);
+                if(readerId == nodeId || !hasState[readerId] || Arrays.binarySearch(nodesReadInState[readerId], nodeId) < 0)
+                    continue;
+
+                decrementedReaders[numberOfDecrementedReaders ++] = readerId;
+                numberOfNodesReadWithoutState[readerId] --;
+                if(numberOfNodesReadWithoutState[readerId] == 0)
+                    completedNodes[numberOfCompletedNodes ++] = readerId;
+            }
+
+            int newNumberOfPrivileges = numberOfPrivileges;
+            for(int completedPosition = 0; completedPosition < numberOfCompletedNodes
+                    && newNumberOfPrivileges <= numberOfPrivilegesInsideInvariant; completedPosition ++){
+                newNumberOfPrivileges += getNumberOfPrivileges(completedNodes[completedPosition]);
+            }
+
+            if(newNumberOfPrivileges <= numberOfPrivilegesInsideInvariant)
+                addInvariantConfigs(position + 1, newNumberOfPrivileges, currentLevel);
+
+            for(int decrementedPosition = 0; decrementedPosition < numberOfDecrementedReaders; decrementedPosition ++)
+                numberOfNodesReadWithoutState[decrementedReaders[decrementedPosition]] ++;
+        }
+
+        hasState[nodeId] = false;
+    }
+
+    /**
+     * @return number of privileges of a node whose nodes read in its state have states, from the cache if possible
+     */
+    private int getNumberOfPrivileges(int nodeId){
+        // local state: mixed radix number of the state index of the node, then of the other nodes read,
+        // which depend on the state of the node. Not cached if it does not fit in a long
+        long localStateIndex = programConfig.getNodeStateIndex(nodeId);
+        boolean cached = true;
+        for(int readNodeId : nodesReadInState[nodeId]){
+            if(readNodeId == nodeId)
+                continue;
+
+            int radix = programConfig.getNumberOfNodeStates(readNodeId);
+            if(localStateIndex > (Long.MAX_VALUE - radix) / radix){
+                cached = false;
+                break;
+            }
+            localStateIndex = localStateIndex * radix + programConfig.getNodeStateIndex(readNodeId);
+        }
+
+        int numberOfPrivileges = cached ? privilegeCache[nodeId].get(localStateIndex) : -1;
+        if(numberOfPrivileges < 0){
+            numberOfPrivileges = programConfig.evaluateANodeActions(nodeId).getPrivilegeCount();
+            if(cached && privilegeCache[nodeId].size() < MAX_SIZE_OF_PRIVILEGE_CACHE)
+                privilegeCache[nodeId].put(localStateIndex, numberOfPrivileges);
+        }
+        return numberOfPrivileges;
+    }
+
+    /**
+     * Explore level by level from the invariant
+     * @param currentLevel local ids of configs of level 0
+     */
+    private void explore(IntList currentLevel){
+        for(int level = 0; level <= maxLevel; level ++){
+            IntList nextLevel = new IntList();
+
+            // configs discovered at this level are appended while the list is read
+            for(int position = 0; position < currentLevel.size(); position ++){
+                int localId = currentLevel.get(position);
+                if(levels[localId] != level)
+                    continue;
+
+                programConfig.moveToProgramConfigIndex(configIndices[localId]);
+                long[] successorIndices = programConfig.getProgramConfigTransSuccessorIndices();
+                int[] successorIds = new int[successorIndices.length];
+                for(int successorPosition = 0; successorPosition < successorIndices.length; successorPosition ++){
+                    int numberOfConfigsBefore = numberOfConfigs;
+                    int successorId = findOrAddConfig(successorIndices[successorPosition], level);
+                    if(successorId == numberOfConfigsBefore){
+                        currentLevel.add(successorId);
+                    }else if(levels[successorId] > level){
+                        // discovered by a cvf, waiting in the next level
+                        levels[successorId] = level;
+                        currentLevel.add(successorId);
+                    }
+                    successorIds[successorPosition] = successorId;
+                }
+                successors[localId] = successorIds;
+
+                if(level == maxLevel)
+                    continue;
+
+                // move back, successor configs may have been evaluated on the same object
+                programConfig.moveToProgramConfigIndex(configIndices[localId]);
+                for(SuccessorInfo cvfSuccessor : (TreeSet<SuccessorInfo>) programConfig.getProgramConfigCvfSuccessorList()){
+                    int numberOfConfigsBefore = numberOfConfigs;
+                    int cvfSuccessorId = findOrAddConfig(cvfSuccessor.getSuccessorProgramConfig().getProgramConfigIndex(), level + 1);
+                    if(cvfSuccessorId == numberOfConfigsBefore)
+                        nextLevel.add(cvfSuccessorId);
+                }
+            }
+
+            currentLevel = nextLevel;
+        }
+    }
+
+    /**
+     * @param level level of the config if it is new
+     * @return local id of the config, added if new
+     */
+    private int findOrAddConfig(long configIndex, int level){
+        if(configIndex < 0){
+            System.out.println("ERROR: FaultSpanAnalysis: successor of a config is outside the indexed state space");
+            System.exit(1);
+        }
+
+        int localId = getLocalId(configIndex);
+        if(localId >= 0)
+            return localId;
+
+        programConfig.moveToProgramConfigIndex(configIndex);
+        return addConfig(configIndex, level, programConfig.isInsideInvariant());
+    }
+
+    /**
+     * @return local id of the new config
+     */
+    private int addConfig(long configIndex, int level, boolean configInsideInvariant){
+        if(numberOfConfigs == MAX_NUMBER_OF_CONFIGS){
+            System.out.println("ERROR: FaultSpanAnalysis: fault span exceeds the limit of " + MAX_NUMBER_OF_CONFIGS + " configs");
+            System.exit(1);
+        }
+
+        if(numberOfConfigs == configIndices.length){
+            int capacity = (int) Math.min((long) configIndices.length * 2, MAX_NUMBER_OF_CONFIGS);
+            configIndices = Arrays.copyOf(configIndices, capacity);
+            levels = Arrays.copyOf(levels, capacity);
+            successors = Arrays.copyOf(successors, capacity);
+            insideInvariant = Arrays.copyOf(insideInvariant, capacity);
+        }
+
+        int localId = numberOfConfigs;
+        numberOfConfigs ++;
+        configIndices[localId] = configIndex;
+        levels[localId] = level;
+        insideInvariant[localId] = configInsideInvariant;
+
+        localIdMap.put(configIndex, localId);
+
+        return localId;
+    }
+
+    /**
+     * Min rank is the distance to the invariant, computed backward from the invariant over the fault span
+     */
+    private void computeMinRanks(){
+        // predecessors of every config, in arrays by config
+        int[] predecessorStart = new int[numberOfConfigs + 1];
+        for(int localId = 0; localId < numberOfConfigs; localId ++){
+            for(int successorId : successors[localId])
+                predecessorStart[successorId + 1] ++;
+        }
+        for(int localId = 0; localId < numberOfConfigs; localId ++)
+            predecessorStart[localId + 1] += predecessorStart[localId];
+        int[] predecessors = new int[predecessorStart[numberOfConfigs]];
+        int[] nextPosition = Arrays.copyOf(predecessorStart, numberOfConfigs);
+        for(int localId = 0; localId < numberOfConfigs; localId ++){
+            for(int successorId : successors[localId])
+                predecessors[nextPosition[successorId] ++] = localId;
+        }
+
+        minRanks = new int[numberOfConfigs];
+        Arrays.fill(minRanks, ProgramConfigurationTemplate.INFINITY_RANK);
+        int[] searchQueue = new int[numberOfConfigs];
+        int queueHead = 0;
+        int queueTail = 0;
+        for(int localId = 0; localId < numberOfConfigs; localId ++){
+            if(insideInvariant[localId]){
+                minRanks[localId] = 0;
+                searchQueue[queueTail ++] = localId;
+            }
+        }
+        while(queueHead < queueTail){
+            int localId = searchQueue[queueHead ++];
+            for(int position = predecessorStart[localId]; position < predecessorStart[localId + 1]; position ++){
+                int predecessorId = predecessors[position];
+                if(minRanks[predecessorId] == ProgramConfigurationTemplate.INFINITY_RANK){
+                    minRanks[predecessorId] = minRanks[localId] + 1;
+                    searchQueue[queueTail ++] = predecessorId;
+                }
+            }
+        }
+    }
+
+    public int getNumberOfConfigs() {
+        return numberOfConfigs;
+    }
+
+    public int getMaxLevel() {
+        return maxLevel;
+    }
+
+    /**
+     * @return number of configs of the indexed state space, which is not enumerated
+     */
+    public long getSizeOfIndexedStateSpace() {
+        return sizeOfIndexedStateSpace;
+    }
+
+    /**
+     * @return true if the invariant is generated by backtracking, false if the indexed state space is scanned
+     */
+    public boolean isInvariantGeneratedByBacktracking() {
+        return invariantGeneratedByBacktracking;
+    }
+
+    public long getNumberOfConfigsOfLevel(int level) {
+        return numberOfConfigsOfLevel[level];
+    }
+
+    /**
+     * @return local id of a config, -1 if it is not in the fault span
+     */
+    public int getLocalId(long configIndex){
+        return localIdMap.get(configIndex);
+    }
+
+    public long getConfigIndex(int localId){
+        return configIndices[localId];
+    }
+
+    /**
+     * @return least number of cvfs on a path from the invariant to the config
+     */
+    public int getLevel(int localId){
+        return levels[localId];
+    }
+
+    /**
+     * @return per local id, local ids of program transition successors, as in getProgramConfigTransSuccessorIndices()
+     */
+    public int[][] getSuccessors() {
+        return successors;
+    }
+
+    /**
+     * @return per local id, whether the config is inside the invariant
+     */
+    public boolean[] getInsideInvariant() {
+        return insideInvariant;
+    }
+
+    public int getMinRank(int localId){
+        return minRanks[localId];
+    }
+
+    /**
+     * Map of non-negative longs to non-negative ints, open addressing with linear probing in primitive arrays
+     */
+    private static class LongIntHashMap {
+        // key + 1, 0 for an empty slot
+        private long[] keys = new long[2 * INITIAL_CAPACITY];
+        private int[] values = new int[2 * INITIAL_CAPACITY];
+        private int size = 0;
+
+        /**
+         * @return value of the key, -1 if absent
+         */
+        int get(long key){
+            int mask = keys.length - 1;
+            for(int slot = hash(key) & mask; keys[slot] != 0; slot = (slot + 1) & mask){
+                if(keys[slot] == key + 1)
+                    return values[slot];
+            }
+            return -1;
+        }
+
+        /**
+         * Add a key that is absent
+         */
+        void put(long key, int value){
+            // keep the table at most half full
+            if(2L * (size + 1) > keys.length){
+                if(keys.length > Integer.MAX_VALUE / 4){
+                    System.out.println("ERROR: FaultSpanAnalysis: hash table of " + size + " keys is too large");
+                    System.exit(1);
+                }
+
+                long[] oldKeys = keys;
+                int[] oldValues = values;
+                keys = new long[oldKeys.length * 2];
+                values = new int[oldKeys.length * 2];
+                for(int slot = 0; slot < oldKeys.length; slot ++){
+                    if(oldKeys[slot] != 0)
+                        insert(oldKeys[slot], oldValues[slot]);
+                }
+            }
+
+            insert(key + 1, value);
+            size ++;
+        }
+
+        int size(){
+            return size;
+        }
+
+        private void insert(long storedKey, int value){
+            int mask = keys.length - 1;
+            int slot = hash(storedKey - 1) & mask;
+            while(keys[slot] != 0)
+                slot = (slot + 1) & mask;
+            keys[slot] = storedKey;
+            values[slot] = value;
+        }
+
+        private static int hash(long key){
+            long mixed = key * 0x9E3779B97F4A7C15L;
+            return (int) (mixed ^ (mixed >>> 32));
+        }
+    }
+
+    /**
+     * Growable list of ints
+     */
+    private static class IntList {
+        private int[] values = new int[INITIAL_CAPACITY];
+        private int size = 0;
+
+        void add(int value){
+            if(size == values.length)
+                values = Arrays.copyOf(values, size * 2);
+            values[size ++] = value;
+        }
+
+        int get(int position){
+            return values[position];
+        }
+
+        int size(){
+            return size;
+        }
+    }
+}
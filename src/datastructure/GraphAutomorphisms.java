@@ -0,0 +1,213 @@
+package datastructure;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.TreeMap;
+import java.util.Vector;
+
+/**
+ * All automorphisms of a graph topology, i.e. permutations of nodes that map edges to edges.
+ * They are enumerated by individualization and refinement:
+ * nodes of the graph and of its image are colored in pairs, colors are refined by the colors of neighbors
+ * until they are stable, then a node with a non-unique color is mapped to every node of the same color in the image,
+ * and so on until every color is unique, which gives one automorphism.
+ * A branch is dropped as soon as the refined colors of the graph and of its image differ in number of nodes.
+ * The identity is always the first automorphism.
+ */
+
+public class GraphAutomorphisms {
+    // enumeration stops beyond this number, the group is then incomplete
+    public static final int MAX_NUMBER_OF_AUTOMORPHISMS = 100000;
+
+    private int numberOfNodes;
+    private int[][] neighbors;
+    private boolean[][] adjacent;
+
+    private ArrayList<int[]> automorphisms;
+    private boolean complete;
+
+    /**
+     * @param graphTopology neighbors of every node
+     * @param numberOfNodes nodes are 0 .. numberOfNodes - 1
+     */
+    public GraphAutomorphisms(HashMap<Integer, Vector<Integer>> graphTopology, int numberOfNodes){
+        this.numberOfNodes = numberOfNodes;
+        neighbors = new int[numberOfNodes][];
+        adjacent = new boolean[numberOfNodes][numberOfNodes];
+        for(int nodeId = 0; nodeId < numberOfNodes; nodeId ++){
+            Vector<Integer> nbrList = graphTopology.get(nodeId);
+            neighbors[nodeId] = new int[nbrList.size()];
+            for(int position = 0; position < nbrList.size(); position ++){
+                neighbors[nodeId][position] = nbrList.elementAt(position);
+                adjacent[nodeId][nbrList.elementAt(position)] = true;
+            }
+        }
+
+        automorphisms = new ArrayList<>();
+        complete = true;
+        search(new int[numberOfNodes], new int[numberOfNodes]);
+    }
+
+    /**
+     * Only the identity, e.g. for programs that are not symmetric
+     * @param numberOfNodes nodes are 0 .. numberOfNodes - 1
+     */
+    public GraphAutomorphisms(int numberOfNodes){
+        this.numberOfNodes = numberOfNodes;
+        int[] identity = new int[numberOfNodes];
+        for(int nodeId = 0; nodeId < numberOfNodes; nodeId ++)
+            identity[nodeId] = nodeId;
+
+        automorphisms = new ArrayList<>();
+        automorphisms.add(identity);
+        complete = true;
+    }
+
+    /**
+     * Search automorphisms mapping nodes of a color in the graph to nodes of the same color in the image
+     * @param colors colors of nodes in the graph, changed
+     * @param imageColors colors of nodes in the image, changed
+     */
+    private void search(int[] colors, int[] imageColors){
+        if(!complete)
+            return;
+
+        int numberOfColors = refine(colors, imageColors);
+        if(numberOfColors < 0)
+            return;
+
+        if(numberOfColors == numberOfNodes){
+            // every color is unique
+            int[] nodeOfImageColor = new int[numberOfNodes];
+            for(int nodeId = 0; nodeId < numberOfNodes; nodeId ++)
+                nodeOfImageColor[imageColors[nodeId]] = nodeId;
+            int[] automorphism = new int[numberOfNodes];
+            for(int nodeId = 0; nodeId < numberOfNodes; nodeId ++)
+                automorphism[nodeId] = nodeOfImageColor[colors[nodeId]];
+
+            if(isAutomorphism(automorphism)){
+                if(automorphisms.size() == MAX_NUMBER_OF_AUTOMORPHISMS){
+                    complete = false;
+                    return;
+                }
+                automorphisms.add(automorphism);
+            }
+            return;
+        }
+
+        // first node whose color is not unique, mapped to every node of that color in the image
+        int[] colorSize = new int[numberOfNodes];
+        for(int nodeId = 0; nodeId < numberOfNodes; nodeId ++)
+            colorSize[colors[nodeId]] ++;
+        int individualizedNode = 0;
+        while(colorSize[colors[individualizedNode]] == 1)
+            individualizedNode ++;
+        int individualizedColor = colors[individualizedNode];
+
+        // image nodes are tried in increasing order, so the identity is found first
+        for(int imageNode = 0; imageNode < numberOfNodes; imageNode ++){
+            if(imageColors[imageNode] != individualizedColor)
+                continue;
+
+            int[] newColors = Arrays.copyOf(colors, numberOfNodes);
+            int[] newImageColors = Arrays.copyOf(imageColors, numberOfNodes);
+            // a new color, larger than any color in use
+            newColors[individualizedNode] = numberOfNodes;
+            newImageColors[imageNode] = numberOfNodes;
+            search(newColors, newImageColors);
+        }
+    }
+
+    /**
+     * Refine colors of the graph and of its image until they are stable.
+     * A node gets a new color from its color and the colors of its neighbors;
+     * new colors are numbered 0, 1, ... in the order of these signatures in the graph,
+     * and the image uses the same numbering.
+     * @return number of colors, or -1 if the image cannot be mapped to the graph
+     */
+    private int refine(int[] colors, int[] imageColors){
+        int numberOfColors = -1;
+        while(true){
+            String[] signatures = getSignatures(colors);
+            String[] imageSignatures = getSignatures(imageColors);
+
+            TreeMap<String, Integer> signatureCount = new TreeMap<>();
+            for(String signature : signatures)
+                signatureCount.merge(signature, 1, Integer::sum);
+            for(String signature : imageSignatures){
+                Integer count = signatureCount.get(signature);
+                if(count == null || count == 0)
+                    return -1;
+                signatureCount.put(signature, count - 1);
+            }
+
+            TreeMap<String, Integer> signatureColor = new TreeMap<>();
+            for(String signature : signatureCount.keySet())
+                signatureColor.put(signature, signatureColor.size());
+            for(int nodeId = 0; nodeId < numberOfNodes; nodeId ++){
+                colors[nodeId] = signatureColor.get(signatures[nodeId]);
+                imageColors[nodeId] = signatureColor.get(imageSignatures[nodeId]);
+            }
+
+            if(signatureColor.size() == numberOfColors)
+                return numberOfColors;
+            numberOfColors = signatureColor.size();
+        }
+    }
+
+    /**
+     * @return for every node, its color followed by the sorted colors of its neighbors
+     */
+    private String[] getSignatures(int[] colors){
+        String[] signatures = new String[numberOfNodes];
+        int[] nbrColors = new int[numberOfNodes];
+        for(int nodeId = 0; nodeId < numberOfNodes; nodeId ++){
+            int degree = neighbors[nodeId].length;
+            for(int position = 0; position < degree; position ++)
+                nbrColors[position] = colors[neighbors[nodeId][position]];
+            Arrays.sort(nbrColors, 0, degree);
+
+            StringBuilder signature = new StringBuilder();
+            signature.append(String.format("%08d:", colors[nodeId]));
+            for(int position = 0; position < degree; position ++)
+                signature.append(String.format("%08d,", nbrColors[position]));
+            signatures[nodeId] = signature.toString();
+        }
+        return signatures;
+    }
+
+    private boolean isAutomorphism(int[] permutation){
+        for(int nodeId = 0; nodeId < numberOfNodes; nodeId ++){
+            for(int nbr : neighbors[nodeId]){
+                if(!adjacent[permutation[nodeId]][permutation[nbr]])
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return false if there are more than MAX_NUMBER_OF_AUTOMORPHISMS automorphisms
+     *         and only some of them are enumerated
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    public int getNumberOfAutomorphisms() {
+        return automorphisms.size();
+    }
+
+    /**
+     * @param position position of the automorphism, 0 for the identity
+     * @return image of every node
+     */
+    public int[] getAutomorphism(int position) {
+        return automorphisms.get(position);
+    }
+
+    public int getNumberOfNodes() {
+        return numberOfNodes;
+    }
+}
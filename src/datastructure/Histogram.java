@@ -0,0 +1,224 @@
+package datastructure;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Distribution of int values (ranks, rank effects) with long counts.
+ * Counts are kept in a long array indexed by (value - offset), which grows in both directions
+ * as values are added, so adding a value costs an array access instead of a boxed map lookup.
+ * The dense array never spans more than MAX_DENSE_RANGE values; values that would make it
+ * span more (e.g. rank effects involving INFINITY_RANK) are counted in a sparse map instead.
+ */
+
+public class Histogram {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int MAX_DENSE_RANGE = 1 << 20;
+
+    private long[] counts;          // counts[i] is the count of value offset + i, null if nothing added yet
+    private long offset;
+    private TreeMap<Integer, Long> sparseCounts;  // values outside the dense array
+
+    private int minValue;           // only meaningful if numberOfSamples > 0
+    private int maxValue;
+    private int numberOfValues;     // number of distinct values with non-zero count
+    private long numberOfSamples;
+    private long totalValue;        // sum of value * count
+
+    public Histogram(){
+        counts = null;
+        offset = 0;
+        sparseCounts = new TreeMap<>();
+        numberOfValues = 0;
+        numberOfSamples = 0;
+        totalValue = 0;
+    }
+
+    /**
+     * Increment the count of a value
+     */
+    public void add(int value){
+        add(value, 1);
+    }
+
+    /**
+     * Increase the count of a value
+     * @param value the value
+     * @param count positive count to be added
+     */
+    public void add(int value, long count){
+        if(counts == null){
+            counts = new long[INITIAL_CAPACITY];
+            offset = (long) value - INITIAL_CAPACITY/2;
+        }
+
+        long position = value - offset;
+        if((position < 0 || position >= counts.length) && growToInclude(value)){
+            position = value - offset;
+        }
+
+        if(position >= 0 && position < counts.length){
+            if(counts[(int) position] == 0)
+                numberOfValues ++;
+            counts[(int) position] += count;
+        }else{
+            Long currentCount = sparseCounts.get(value);
+            if(currentCount == null){
+                numberOfValues ++;
+                sparseCounts.put(value, count);
+            }else{
+                sparseCounts.put(value, currentCount + count);
+            }
+        }
+
+        if(numberOfSamples == 0 || value < minValue)
+            minValue = value;
+        if(numberOfSamples == 0 || value > maxValue)
+            maxValue = value;
+        numberOfSamples += count;
+        totalValue += value * count;
+    }
+
+    /**
+     * Add all counts of another histogram to this histogram
+     */
+    public void merge(Histogram other){
+        if(other.counts != null){
+            for(int position = 0; position < other.counts.length; position ++){
+                if(other.counts[position] != 0)
+                    add((int) (other.offset + position), other.counts[position]);
+            }
+        }
+        for(Map.Entry<Integer, Long> entry : other.sparseCounts.entrySet()){
+            add(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * @return count of a value, 0 if the value has never been added
+     */
+    public long getCount(int value){
+        long position = value - offset;
+        if(counts != null && position >= 0 && position < counts.length)
+            return counts[(int) position];
+
+        Long count = sparseCounts.get(value);
+        return (count == null) ? 0 : count;
+    }
+
+    public boolean isEmpty(){
+        return numberOfSamples == 0;
+    }
+
+    /**
+     * @return smallest value with non-zero count, the histogram must not be empty
+     */
+    public int getMinValue(){
+        return minValue;
+    }
+
+    /**
+     * @return largest value with non-zero count, the histogram must not be empty
+     */
+    public int getMaxValue(){
+        return maxValue;
+    }
+
+    public int getNumberOfValues(){
+        return numberOfValues;
+    }
+
+    public long getNumberOfSamples(){
+        return numberOfSamples;
+    }
+
+    public long getTotalValue(){
+        return totalValue;
+    }
+
+    public double getMean(){
+        return 1.0*totalValue/numberOfSamples;
+    }
+
+    /**
+     * @return distinct values with non-zero count, in ascending order
+     */
+    public int[] getValues(){
+        int[] values = new int[numberOfValues];
+        int valueCount = 0;
+
+        // sparse values are outside the dense array, either below or above it
+        for(int value : sparseCounts.headMap((int) Math.max(offset, Integer.MIN_VALUE)).keySet()){
+            values[valueCount ++] = value;
+        }
+        if(counts != null){
+            for(int position = 0; position < counts.length; position ++){
+                if(counts[position] != 0)
+                    values[valueCount ++] = (int) (offset + position);
+            }
+        }
+        for(int value : sparseCounts.keySet()){
+            if(value >= offset)
+                values[valueCount ++] = value;
+        }
+
+        return values;
+    }
+
+    // compare if both histograms have the same counts
+    public boolean isEqualToOther(Histogram other){
+        if(numberOfValues != other.numberOfValues || numberOfSamples != other.numberOfSamples)
+            return false;
+
+        for(int value : getValues()){
+            if(getCount(value) != other.getCount(value))
+                return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Grow the dense array so that it covers a value, unless it would span more than MAX_DENSE_RANGE values
+     * @return true if the value is now covered by the dense array
+     */
+    private boolean growToInclude(int value){
+        long newLow = Math.min(offset, value);
+        long newHigh = Math.max(offset + counts.length - 1, value);
+        long neededLength = newHigh - newLow + 1;
+        if(neededLength > MAX_DENSE_RANGE)
+            return false;
+
+        int newLength = (int) Math.min(Math.max(neededLength, 2L * counts.length), MAX_DENSE_RANGE);
+        // leave the extra room on the side that is growing
+        long newOffset = (value < offset) ? newHigh - newLength + 1 : newLow;
+
+        long[] newCounts = new long[newLength];
+        System.arraycopy(counts, 0, newCounts, (int) (offset - newOffset), counts.length);
+        counts = newCounts;
+        offset = newOffset;
+
+        // sparse values now covered by the dense array are moved into it
+        if(!sparseCounts.isEmpty()){
+            long coveredLow = Math.max(offset, Integer.MIN_VALUE);
+            long coveredHigh = Math.min(offset + counts.length - 1, Integer.MAX_VALUE);
+            Map<Integer, Long> coveredCounts = sparseCounts.subMap((int) coveredLow, true, (int) coveredHigh, true);
+            for(Map.Entry<Integer, Long> entry : coveredCounts.entrySet()){
+                counts[(int) (entry.getKey() - offset)] = entry.getValue();
+            }
+            coveredCounts.clear();
+        }
+
+        return true;
+    }
+
+    public String toString(){
+        StringBuilder result = new StringBuilder("{");
+        for(int value : getValues()){
+            if(result.length() > 1)
+                result.append(", ");
+            result.append(value).append("=").append(getCount(value));
+        }
+        return result.append("}").toString();
+    }
+}
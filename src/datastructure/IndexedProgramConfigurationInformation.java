@@ -0,0 +1,76 @@
+package datastructure;
+
+import static template.ProgramConfigurationTemplate.INFINITY_RANK;
+
+/**
+ * This class encapsulates information about all program configurations of the state space
+ * similar to ProgramConfigurationInformation, except that
+ *   configurations are identified by their configuration index instead of configuration objects, and
+ *   successor lists are not stored, they are regenerated from the configuration index whenever needed, and
+ *   max ranks are packed into as few bits as they need (see PackedRankArray).
+ * Thus only primitive per-configuration results are kept, which saves a lot of memory in full analysis.
+ */
+
+public class IndexedProgramConfigurationInformation {
+    private int numberOfConfigs;
+
+    private PackedRankArray maxRank; // maximum length to invariant
+    // for average rank
+    private PathCountArray totalPathLength;
+    private PathCountArray numberOfPaths;
+
+    /**
+     * @param numberOfConfigs number of configs
+     * @param rankUpperBound expected largest finite max rank, ranks are packed accordingly
+     */
+    public IndexedProgramConfigurationInformation(int numberOfConfigs, int rankUpperBound){
+        this.numberOfConfigs = numberOfConfigs;
+
+        // rank of every config is unknown (infinity) until computed
+        maxRank = new PackedRankArray(numberOfConfigs, rankUpperBound);
+
+        // path counts are 0
+        totalPathLength = new PathCountArray(numberOfConfigs);
+        numberOfPaths = new PathCountArray(numberOfConfigs);
+    }
+
+    public int getNumberOfConfigs() {
+        return numberOfConfigs;
+    }
+
+    public int getMaxRank(int configIndex) {
+        return maxRank.get(configIndex);
+    }
+
+    public void setMaxRank(int configIndex, int rank) {
+        maxRank.set(configIndex, rank);
+    }
+
+    public int getBitsPerMaxRank() {
+        return maxRank.getBitsPerRank();
+    }
+
+    public PathCount getTotalPathLength(int configIndex, PathCount result) {
+        return totalPathLength.get(configIndex, result);
+    }
+
+    public void setTotalPathLength(int configIndex, PathCount pathLength) {
+        totalPathLength.set(configIndex, pathLength);
+    }
+
+    public PathCount getNumberOfPaths(int configIndex, PathCount result) {
+        return numberOfPaths.get(configIndex, result);
+    }
+
+    public void setNumberOfPaths(int configIndex, PathCount paths) {
+        numberOfPaths.set(configIndex, paths);
+    }
+
+    public int getAvgRank(int configIndex){
+        // as in ProgramConfigurationInformation, average rank is infinity if max rank is
+        if(maxRank.get(configIndex) == INFINITY_RANK)
+            return INFINITY_RANK;
+
+        return PathCountArray.getAvgRank(totalPathLength, numberOfPaths, configIndex);
+    }
+}
@@ -0,0 +1,78 @@
+package datastructure;
+
+import template.ProgramConfigurationTemplate;
+
+import java.util.function.LongConsumer;
+
+/**
+ * Predecessors of every configuration in the indexed state space, obtained by inverting
+ * the successor lists of normal program transitions.
+ * This is the generic fallback for programs that do not implement
+ * ProgramConfigurationTemplate.forEachTransPredecessor().
+ * Predecessors of config i are predecessorIndices[predecessorOffsets[i] .. predecessorOffsets[i+1]).
+ * The index is built in two passes over the state space (count, then fill), so only
+ * the inverted edges themselves are kept in memory.
+ */
+
+public class InvertedTransitionIndex {
+    private int[] predecessorOffsets;
+    private int[] predecessorIndices;
+
+    /**
+     * Build the index. The given program configuration is used for enumeration and is changed.
+     * @param programConfig any configuration of the program
+     */
+    public InvertedTransitionIndex(ProgramConfigurationTemplate programConfig){
+        int numberOfConfigs = (int) programConfig.getSizeOfIndexedStateSpace();
+        predecessorOffsets = new int[numberOfConfigs + 1];
+
+        // pass 1: count predecessors of each config
+        for(int configIndex = 0; configIndex < numberOfConfigs; configIndex ++){
+            programConfig.moveToProgramConfigIndex(configIndex);
+            for(long successorIndex : programConfig.getProgramConfigTransSuccessorIndices()){
+                if(successorIndex >= 0){
+                    predecessorOffsets[(int) successorIndex + 1] ++;
+                }
+            }
+        }
+
+        long numberOfEdges = 0;
+        for(int configIndex = 0; configIndex < numberOfConfigs; configIndex ++){
+            numberOfEdges += predecessorOffsets[configIndex + 1];
+            if(numberOfEdges > Integer.MAX_VALUE - 8){
+                System.out.println("ERROR: InvertedTransitionIndex: too many transitions to be indexed");
+                System.exit(1);
+            }
+            predecessorOffsets[configIndex + 1] = (int) numberOfEdges;
+        }
+
+        // pass 2: fill predecessors
+        predecessorIndices = new int[(int) numberOfEdges];
+        int[] nextPosition = new int[numberOfConfigs];
+        System.arraycopy(predecessorOffsets, 0, nextPosition, 0, numberOfConfigs);
+        for(int configIndex = 0; configIndex < numberOfConfigs; configIndex ++){
+            programConfig.moveToProgramConfigIndex(configIndex);
+            for(long successorIndex : programConfig.getProgramConfigTransSuccessorIndices()){
+                if(successorIndex >= 0){
+                    predecessorIndices[nextPosition[(int) successorIndex]] = configIndex;
+                    nextPosition[(int) successorIndex] ++;
+                }
+            }
+        }
+    }
+
+    public int getNumberOfEdges(){
+        return predecessorIndices.length;
+    }
+
+    /**
+     * Visit every predecessor of a config, same as ProgramConfigurationTemplate.forEachTransPredecessor()
+     * @param configIndex index of the config
+     * @param predecessorVisitor receives configuration index of every predecessor
+     */
+    public void forEachTransPredecessor(int configIndex, LongConsumer predecessorVisitor){
+        for(int position = predecessorOffsets[configIndex]; position < predecessorOffsets[configIndex + 1]; position ++){
+            predecessorVisitor.accept(predecessorIndices[position]);
+        }
+    }
+}
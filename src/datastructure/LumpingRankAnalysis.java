@@ -0,0 +1,126 @@
+package datastructure;
+
+import template.ProgramConfigurationTemplate;
+import template.SuccessorInfo;
+
+import java.util.TreeSet;
+
+/**
+ * Ranks and rank effects computed over the blocks of the coarsest bisimulation of program transitions
+ * counted with multiplicity (see TransitionBisimulation).
+ * Configs of a block have the same ranks and the same multiset of successor blocks,
+ * so one config per block gives the program transitions of the quotient graph (see QuotientRankAnalysis),
+ * and blocks are counted with their sizes.
+ * Cvfs are not part of the bisimulation, so they are regenerated for every config
+ * and the rank of a config is taken from its block.
+ * The results are the same as those of full analysis, including the per-node distributions.
+ */
+
+public class LumpingRankAnalysis {
+    private ProgramConfigurationTemplate programConfig;
+
+    private TransitionBisimulation bisimulation;
+    private IndexedProgramConfigurationInformation blockInfo; // indexed by block
+    private int[][] blockSuccessors; // blocks of program transition successors of a config of the block
+    private boolean[] blockInsideInvariant;
+
+    /**
+     * Compute the bisimulation and the program transitions of the quotient graph.
+     * The given program configuration is used for enumeration and is changed.
+     * @param programConfig any configuration of the program
+     * @param invertedIndex inverted index of program transitions, null if predecessors are generated by program
+     */
+    public LumpingRankAnalysis(ProgramConfigurationTemplate programConfig, InvertedTransitionIndex invertedIndex){
+        this.programConfig = programConfig;
+        int numberOfNodes = programConfig.getNumberOfNodes();
+
+        bisimulation = new TransitionBisimulation(programConfig, invertedIndex);
+        int numberOfBlocks = bisimulation.getNumberOfBlocks();
+
+        blockInfo = new IndexedProgramConfigurationInformation(numberOfBlocks, numberOfNodes * numberOfNodes);
+        blockSuccessors = new int[numberOfBlocks][];
+        blockInsideInvariant = new boolean[numberOfBlocks];
+        for(int block = 0; block < numberOfBlocks; block ++){
+            blockInsideInvariant[block] = bisimulation.isBlockInsideInvariant(block);
+            if(blockInsideInvariant[block]){
+                blockSuccessors[block] = new int[0];
+                continue;
+            }
+
+            programConfig.moveToProgramConfigIndex(bisimulation.getBlockRepresentative(block));
+            long[] successorIndices = programConfig.getProgramConfigTransSuccessorIndices();
+            blockSuccessors[block] = new int[successorIndices.length];
+            for(int successorPosition = 0; successorPosition < successorIndices.length; successorPosition ++){
+                if(successorIndices[successorPosition] < 0){
+                    System.out.println("ERROR: LumpingRankAnalysis: successor of config index "
+                            + bisimulation.getBlockRepresentative(block) + " is outside the indexed state space");
+                    System.exit(1);
+                }
+                blockSuccessors[block][successorPosition] = bisimulation.getBlockOf((int) successorIndices[successorPosition]);
+            }
+        }
+    }
+
+    /**
+     * compute maximum rank and average rank for every block
+     * (see QuotientRankAnalysis.computeMaxAndAverageRanks()), weighted by block size
+     * @param maxAnaResults receives max rank distribution
+     * @param avgAnaResults receives average rank distribution
+     * @return number of blocks outside the invariant whose ranks are computed
+     */
+    public int computeMaxAndAverageRanks(AnalysisResults<?> maxAnaResults, AnalysisResults<?> avgAnaResults){
+        return QuotientRankAnalysis.computeMaxAndAverageRanks(blockSuccessors, blockInsideInvariant,
+                bisimulation::getBlockSize, blockInfo, maxAnaResults, avgAnaResults);
+    }
+
+    /**
+     * compute the rank effect of program transitions and cvfs, all ranks must be final.
+     * Program transitions are counted on the quotient graph, with block sizes as multiplicity.
+     * Cvfs are counted per config.
+     * @param maxAnaResults receives rank effects on max rank, rank effect distributions must be initialized
+     * @param avgAnaResults receives rank effects on average rank, rank effect distributions must be initialized
+     */
+    public void computeRankEffectOfProgramTransitionsAndCvfs(AnalysisResults<?> maxAnaResults, AnalysisResults<?> avgAnaResults){
+        QuotientRankAnalysis.addRankEffectOfProgramTransitions(blockSuccessors, blockInsideInvariant,
+                bisimulation::getBlockSize, blockInfo, maxAnaResults, avgAnaResults);
+
+        for(int configIndex = 0; configIndex < bisimulation.getNumberOfConfigs(); configIndex ++){
+            programConfig.moveToProgramConfigIndex(configIndex);
+            int block = bisimulation.getBlockOf(configIndex);
+            int progConfigMaxRank = blockInfo.getMaxRank(block);
+            int progConfigAvgRank = blockInfo.getAvgRank(block);
+
+            int cvfTransitionKind = blockInsideInvariant[block] ? PendingRankEffects.CVF_INSIDE_INV : PendingRankEffects.CVF_OUTSIDE_INV;
+            for (SuccessorInfo cvfSuccessor : (TreeSet<SuccessorInfo>) programConfig.getProgramConfigCvfSuccessorList()) {
+                long cvfSuccessorIndex = cvfSuccessor.getSuccessorProgramConfig().getProgramConfigIndex();
+                if(cvfSuccessorIndex < 0){
+                    System.out.println("  ERROR: cvfSuccessor " + cvfSuccessor.toString() + " is outside the indexed state space");
+                    System.exit(1);
+                }
+
+                int cvfSuccessorBlock = bisimulation.getBlockOf((int) cvfSuccessorIndex);
+                addCvfRankEffect(maxAnaResults, cvfTransitionKind, cvfSuccessor.getIdOfChangedNode(),
+                        blockInfo.getMaxRank(cvfSuccessorBlock) - progConfigMaxRank);
+                addCvfRankEffect(avgAnaResults, cvfTransitionKind, cvfSuccessor.getIdOfChangedNode(),
+                        blockInfo.getAvgRank(cvfSuccessorBlock) - progConfigAvgRank);
+            }
+        }
+    }
+
+    /**
+     * Count the rank effect of one cvf of one config, including the per-node distribution
+     * @param anaResults receives the rank effect
+     * @param transitionKind CVF_INSIDE_INV or CVF_OUTSIDE_INV as in PendingRankEffects
+     * @param idOfChangedNode node changed by the cvf
+     * @param rankEffect rank of target - rank of source
+     */
+    private static void addCvfRankEffect(AnalysisResults<?> anaResults, int transitionKind, int idOfChangedNode, int rankEffect){
+        QuotientRankAnalysis.addWeightedRankEffect(anaResults, transitionKind, rankEffect, 1);
+        if(transitionKind == PendingRankEffects.CVF_OUTSIDE_INV)
+            anaResults.getPerNodeCvfOutsideInvRankEffectDistribution().elementAt(idOfChangedNode).add(rankEffect);
+    }
+
+    public int getNumberOfBlocks() {
+        return bisimulation.getNumberOfBlocks();
+    }
+}
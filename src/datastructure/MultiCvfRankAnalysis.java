@@ -0,0 +1,141 @@
+package datastructure;
+
+import template.ProgramConfigurationTemplate;
+import template.SuccessorInfo;
+
+import java.util.ArrayList;
+import java.util.TreeSet;
+import java.util.function.IntUnaryOperator;
+
+import static template.ProgramConfigurationTemplate.INFINITY_RANK;
+
+/**
+ * Worst-case rank when up to k cvfs strike during recovery, for k = 0 .. maxNumberOfCvfs:
+ *   R_0(c) = max rank of c
+ *   R_k(c) = 0 if c is inside the invariant, otherwise
+ *            max(1 + R_k(s) over program successors s, R_{k-1}(s) over cvf successors s)
+ * i.e. the length of a longest path of program transitions to the invariant, where an adversary may insert
+ * at most k cvfs outside the invariant; cvfs are not counted as steps.
+ * A program successor of a config of finite max rank has a smaller max rank, so configs in increasing order of
+ * max rank are in topological order of program transitions, and every R_k is one pass over configs,
+ * their program successors and their cvf successors: O(k (V + E)) in total.
+ * Configs of infinite max rank have infinite R_k. Only R_{k-1} and R_k are kept, packed as in full analysis.
+ */
+
+public class MultiCvfRankAnalysis {
+    private int numberOfConfigs;
+    private int maxNumberOfCvfs;
+
+    private ArrayList<Histogram> rankDistributions; // indexed by k
+    private long[] numberOfConfigsOfInfiniteRank; // indexed by k
+
+    /**
+     * Run the analysis. The given program configuration is used for enumeration and is changed.
+     * @param programConfig any configuration of the program
+     * @param maxRank max rank of every configuration index
+     * @param maxNumberOfCvfs largest k
+     */
+    public MultiCvfRankAnalysis(ProgramConfigurationTemplate programConfig, IntUnaryOperator maxRank, int maxNumberOfCvfs){
+        numberOfConfigs = (int) programConfig.getSizeOfIndexedStateSpace();
+        this.maxNumberOfCvfs = maxNumberOfCvfs;
+        rankDistributions = new ArrayList<>();
+        numberOfConfigsOfInfiniteRank = new long[maxNumberOfCvfs + 1];
+
+        // R_0, and configs of finite max rank in increasing order of max rank (counting sort)
+        PackedRankArray previousRanks = new PackedRankArray(numberOfConfigs, programConfig.getNumberOfNodes() * programConfig.getNumberOfNodes());
+        Histogram maxRankDistribution = new Histogram();
+        for(int configIndex = 0; configIndex < numberOfConfigs; configIndex ++){
+            int configMaxRank = maxRank.applyAsInt(configIndex);
+            previousRanks.set(configIndex, configMaxRank);
+            if(configMaxRank != INFINITY_RANK){
+                maxRankDistribution.add(configMaxRank);
+            }else{
+                numberOfConfigsOfInfiniteRank[0] ++;
+            }
+        }
+        rankDistributions.add(maxRankDistribution);
+
+        int[] configOrder = new int[(int) maxRankDistribution.getNumberOfSamples()];
+        int[] nextPosition = new int[maxRankDistribution.isEmpty() ? 1 : maxRankDistribution.getMaxValue() + 2];
+        for(int configIndex = 0; configIndex < numberOfConfigs; configIndex ++){
+            if(previousRanks.get(configIndex) != INFINITY_RANK)
+                nextPosition[previousRanks.get(configIndex) + 1] ++;
+        }
+        for(int rank = 1; rank < nextPosition.length; rank ++)
+            nextPosition[rank] += nextPosition[rank - 1];
+        for(int configIndex = 0; configIndex < numberOfConfigs; configIndex ++){
+            if(previousRanks.get(configIndex) != INFINITY_RANK)
+                configOrder[nextPosition[previousRanks.get(configIndex)] ++] = configIndex;
+        }
+
+        for(int numberOfCvfs = 1; numberOfCvfs <= maxNumberOfCvfs; numberOfCvfs ++){
+            // R_k is at least R_{k-1}
+            Histogram previousRankDistribution = rankDistributions.get(numberOfCvfs - 1);
+            PackedRankArray currentRanks = new PackedRankArray(numberOfConfigs,
+                    previousRankDistribution.isEmpty() ? 0 : previousRankDistribution.getMaxValue());
+            Histogram rankDistribution = new Histogram();
+
+            for(int configIndex : configOrder){
+                programConfig.moveToProgramConfigIndex(configIndex);
+                int rank = computeRank(programConfig, previousRanks, currentRanks);
+                currentRanks.set(configIndex, rank);
+                if(rank != INFINITY_RANK)
+                    rankDistribution.add(rank);
+            }
+
+            rankDistributions.add(rankDistribution);
+            numberOfConfigsOfInfiniteRank[numberOfCvfs] = numberOfConfigs - rankDistribution.getNumberOfSamples();
+            previousRanks = currentRanks;
+        }
+    }
+
+    /**
+     * @return R_k of the current config, R_k of its program successors must be final
+     */
+    private static int computeRank(ProgramConfigurationTemplate programConfig, PackedRankArray previousRanks, PackedRankArray currentRanks){
+        if(programConfig.isInsideInvariant())
+            return 0;
+
+        int rank = 0;
+        for(long successorIndex : programConfig.getProgramConfigTransSuccessorIndices()){
+            int successorRank = currentRanks.get((int) successorIndex);
+            if(successorRank == INFINITY_RANK)
+                return INFINITY_RANK;
+            rank = Math.max(rank, successorRank + 1);
+        }
+
+        for(SuccessorInfo cvfSuccessor : (TreeSet<SuccessorInfo>) programConfig.getProgramConfigCvfSuccessorList()){
+            long cvfSuccessorIndex = cvfSuccessor.getSuccessorProgramConfig().getProgramConfigIndex();
+            if(cvfSuccessorIndex < 0){
+                System.out.println("ERROR: MultiCvfRankAnalysis: cvf successor " + cvfSuccessor.toString() + " is outside the indexed state space");
+                System.exit(1);
+            }
+
+            int successorRank = previousRanks.get((int) cvfSuccessorIndex);
+            if(successorRank == INFINITY_RANK)
+                return INFINITY_RANK;
+            rank = Math.max(rank, successorRank);
+        }
+
+        return rank;
+    }
+
+    public int getNumberOfConfigs() {
+        return numberOfConfigs;
+    }
+
+    public int getMaxNumberOfCvfs() {
+        return maxNumberOfCvfs;
+    }
+
+    /**
+     * @return distribution of finite R_k over configs
+     */
+    public Histogram getRankDistribution(int numberOfCvfs){
+        return rankDistributions.get(numberOfCvfs);
+    }
+
+    public long getNumberOfConfigsOfInfiniteRank(int numberOfCvfs){
+        return numberOfConfigsOfInfiniteRank[numberOfCvfs];
+    }
+}
@@ -0,0 +1,163 @@
+package datastructure;
+
+import java.util.Arrays;
+
+import static template.ProgramConfigurationTemplate.INFINITY_RANK;
+
+/**
+ * An array of ranks, one element per program configuration, packed into 4, 8, 16 or 32 bits per rank.
+ * The width is chosen from an upper bound on rank given at construction and is widened automatically
+ * when a larger rank is stored, so the bound is only a hint.
+ * In every width the largest value (all bits set) stands for INFINITY_RANK, which is also the initial value.
+ */
+
+public class PackedRankArray {
+    private int length;
+    private int bitsPerRank;        // 4, 8, 16 or 32
+
+    // only the array of the current width is allocated
+    private byte[] nibblesOrBytes;  // 4 bits: two ranks per byte, low nibble first; 8 bits: one rank per byte
+    private char[] shorts;          // 16 bits
+    private int[] ints;             // 32 bits
+
+    /**
+     * @param length number of ranks
+     * @param rankUpperBound expected largest finite rank
+     */
+    public PackedRankArray(int length, int rankUpperBound){
+        this.length = length;
+        allocate(getBitsPerRankFor(rankUpperBound));
+    }
+
+    /**
+     * Shallow copy, sharing the array of the other
+     */
+    private PackedRankArray(PackedRankArray other){
+        this.length = other.length;
+        this.bitsPerRank = other.bitsPerRank;
+        this.nibblesOrBytes = other.nibblesOrBytes;
+        this.shorts = other.shorts;
+        this.ints = other.ints;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    public int getBitsPerRank() {
+        return bitsPerRank;
+    }
+
+    public int get(int index){
+        int value;
+        switch(bitsPerRank){
+            case 4:
+                value = (nibblesOrBytes[index >> 1] >> ((index & 1) << 2)) & 0xF;
+                return (value == 0xF) ? INFINITY_RANK : value;
+            case 8:
+                value = nibblesOrBytes[index] & 0xFF;
+                return (value == 0xFF) ? INFINITY_RANK : value;
+            case 16:
+                value = shorts[index];
+                return (value == 0xFFFF) ? INFINITY_RANK : value;
+            default:
+                return ints[index];
+        }
+    }
+
+    /**
+     * @param index position of the rank
+     * @param rank non-negative rank or INFINITY_RANK
+     */
+    public void set(int index, int rank){
+        if(rank < 0){
+            System.out.println("ERROR: PackedRankArray.set: negative rank " + rank);
+            System.exit(1);
+        }
+
+        if(rank != INFINITY_RANK && rank >= getInfinityValue(bitsPerRank)){
+            widen(getBitsPerRankFor(rank));
+        }
+
+        int value = (rank == INFINITY_RANK) ? getInfinityValue(bitsPerRank) : rank;
+        switch(bitsPerRank){
+            case 4:
+                int shift = (index & 1) << 2;
+                nibblesOrBytes[index >> 1] = (byte) ((nibblesOrBytes[index >> 1] & ~(0xF << shift)) | (value << shift));
+                break;
+            case 8:
+                nibblesOrBytes[index] = (byte) value;
+                break;
+            case 16:
+                shorts[index] = (char) value;
+                break;
+            default:
+                ints[index] = value;
+        }
+    }
+
+    /**
+     * @return smallest width in which a rank is not taken for INFINITY_RANK
+     */
+    private static int getBitsPerRankFor(int rank){
+        if(rank < 0xF)
+            return 4;
+        if(rank < 0xFF)
+            return 8;
+        if(rank < 0xFFFF)
+            return 16;
+        return 32;
+    }
+
+    private static int getInfinityValue(int bitsPerRank){
+        switch(bitsPerRank){
+            case 4:
+                return 0xF;
+            case 8:
+                return 0xFF;
+            case 16:
+                return 0xFFFF;
+            default:
+                return INFINITY_RANK;
+        }
+    }
+
+    /**
+     * Allocate the array of a width, all ranks are INFINITY_RANK
+     */
+    private void allocate(int newBitsPerRank){
+        bitsPerRank = newBitsPerRank;
+        nibblesOrBytes = null;
+        shorts = null;
+        ints = null;
+
+        switch(bitsPerRank){
+            case 4:
+                nibblesOrBytes = new byte[(int) ((length + 1L) / 2)];
+                Arrays.fill(nibblesOrBytes, (byte) 0xFF);
+                break;
+            case 8:
+                nibblesOrBytes = new byte[length];
+                Arrays.fill(nibblesOrBytes, (byte) 0xFF);
+                break;
+            case 16:
+                shorts = new char[length];
+                Arrays.fill(shorts, (char) 0xFFFF);
+                break;
+            default:
+                ints = new int[length];
+                Arrays.fill(ints, INFINITY_RANK);
+        }
+    }
+
+    /**
+     * Copy all ranks into an array of a larger width
+     */
+    private void widen(int newBitsPerRank){
+        PackedRankArray current = new PackedRankArray(this);
+        allocate(newBitsPerRank);
+        for(int index = 0; index < length; index ++){
+            set(index, current.get(index));
+        }
+    }
+}
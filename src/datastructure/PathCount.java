@@ -0,0 +1,269 @@
+package datastructure;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+
+/**
+ * Counter for the number of paths and the total path length used in average rank computation.
+ * Exact mode (default):
+ *   the value is an unsigned 128-bit integer kept in two longs.
+ *   Only when an addition overflows 128 bits, the value is moved to a BigInteger.
+ * Log-space mode (logSpace == true):
+ *   the natural logarithm of the value is kept in a double.
+ *   It never overflows but average ranks are approximate.
+ * Unlike BigInteger, a counter is updated in place, so accumulation does not allocate objects.
+ */
+
+public class PathCount implements Comparable<PathCount> {
+    // arithmetic mode, selected once per run before any counter is created
+    public static boolean logSpace = false;
+
+    // tolerance when rounding up an average computed in log space
+    private static final double LOG_SPACE_ROUNDING_TOLERANCE = 1e-9;
+
+    // exact mode
+    long high;
+    long low;
+    BigInteger big; // not null once the value exceeds 128 bits
+
+    // log-space mode
+    double logValue; // negative infinity for 0, only maintained in log-space mode
+
+    public PathCount(){
+        setValue(0);
+    }
+
+    public PathCount(long value){
+        setValue(value);
+    }
+
+    public PathCount(PathCount other){
+        setValue(other);
+    }
+
+    /**
+     * @param value a non-negative value
+     * @return this object
+     */
+    public PathCount setValue(long value){
+        high = 0;
+        low = value;
+        big = null;
+        if(logSpace)
+            logValue = Math.log(value);
+        return this;
+    }
+
+    /**
+     * @return this object
+     */
+    public PathCount setValue(PathCount other){
+        high = other.high;
+        low = other.low;
+        big = other.big;
+        logValue = other.logValue;
+        return this;
+    }
+
+    /**
+     * Add another counter to this counter
+     * @return this object
+     */
+    public PathCount add(PathCount other){
+        if(logSpace){
+            logValue = logAdd(logValue, other.logValue);
+            return this;
+        }
+
+        if(big != null || other.big != null){
+            big = toBigInteger().add(other.toBigInteger());
+            return this;
+        }
+
+        long newLow = low + other.low;
+        long carry = (Long.compareUnsigned(newLow, low) < 0) ? 1 : 0;
+        long newHigh = high + other.high;
+        boolean overflow = (Long.compareUnsigned(newHigh, high) < 0);
+        newHigh += carry;
+        overflow = overflow || (carry == 1 && newHigh == 0);
+
+        if(overflow){
+            // exceeds 128 bits, fall back to BigInteger
+            big = toBigInteger().add(other.toBigInteger());
+        }else{
+            high = newHigh;
+            low = newLow;
+        }
+
+        return this;
+    }
+
+    public boolean isZero(){
+        if(logSpace)
+            return logValue == Double.NEGATIVE_INFINITY;
+
+        if(big != null)
+            return big.signum() == 0;
+
+        return high == 0 && low == 0;
+    }
+
+    /**
+     * @return the value, only approximate in log-space mode
+     */
+    public BigInteger toBigInteger(){
+        if(logSpace)
+            return BigInteger.valueOf(Math.round(Math.exp(logValue)));
+
+        if(big != null)
+            return big;
+
+        return new BigInteger(1, ByteBuffer.allocate(16).putLong(high).putLong(low).array());
+    }
+
+    /**
+     * @return the value if it fits an int, otherwise Integer.MAX_VALUE
+     */
+    public int intValue(){
+        if(logSpace)
+            return (int) Math.min(Math.round(Math.exp(logValue)), Integer.MAX_VALUE);
+
+        if(big != null || high != 0 || low < 0 || low > Integer.MAX_VALUE)
+            return Integer.MAX_VALUE;
+
+        return (int) low;
+    }
+
+    // implement Comparable interface
+    public int compareTo(PathCount other){
+        if(logSpace)
+            return Double.compare(logValue, other.logValue);
+
+        if(big != null || other.big != null)
+            return toBigInteger().compareTo(other.toBigInteger());
+
+        int compareResult = Long.compareUnsigned(high, other.high);
+        if(compareResult != 0)
+            return compareResult;
+
+        return Long.compareUnsigned(low, other.low);
+    }
+
+    public String toString(){
+        if(logSpace)
+            return String.format("e^%.6f", logValue);
+
+        return toBigInteger().toString();
+    }
+
+    /**
+     * Write the counter to a stream in the arithmetic mode of this run, see read()
+     */
+    public void write(DataOutput output) throws IOException {
+        if(logSpace){
+            output.writeDouble(logValue);
+            return;
+        }
+
+        if(big != null){
+            byte[] bigBytes = big.toByteArray();
+            output.writeInt(bigBytes.length);
+            output.write(bigBytes);
+        }else{
+            output.writeInt(0);
+            output.writeLong(high);
+            output.writeLong(low);
+        }
+    }
+
+    /**
+     * Read a counter written by write() in the same arithmetic mode
+     * @return this object
+     */
+    public PathCount read(DataInput input) throws IOException {
+        if(logSpace){
+            logValue = input.readDouble();
+            return this;
+        }
+
+        int bigLength = input.readInt();
+        if(bigLength > 0){
+            byte[] bigBytes = new byte[bigLength];
+            input.readFully(bigBytes);
+            big = new BigInteger(bigBytes);
+        }else{
+            high = input.readLong();
+            low = input.readLong();
+            big = null;
+        }
+        return this;
+    }
+
+    /**
+     * Average rank = ceiling of totalPathLength / numberOfPaths
+     * A config without successors outside the invariant has no paths, its average rank is 0 as its max rank
+     * @param totalPathLength total length of all paths
+     * @param numberOfPaths number of paths
+     * @return the average rank
+     */
+    public static int getAvgRank(PathCount totalPathLength, PathCount numberOfPaths){
+        if(numberOfPaths.isZero())
+            return 0;
+
+        if(logSpace)
+            return getAvgRankFromLogValues(totalPathLength.logValue, numberOfPaths.logValue);
+
+        if(totalPathLength.big == null && numberOfPaths.big == null)
+            return getAvgRank(totalPathLength.high, totalPathLength.low, numberOfPaths.high, numberOfPaths.low);
+
+        return totalPathLength.toBigInteger().add(numberOfPaths.toBigInteger()).subtract(BigInteger.ONE)
+                .divide(numberOfPaths.toBigInteger()).intValue();
+    }
+
+    /**
+     * Same as getAvgRank(PathCount, PathCount) for values given as 128-bit words
+     */
+    static int getAvgRank(long totalHigh, long totalLow, long pathsHigh, long pathsLow){
+        if(pathsHigh == 0 && pathsLow == 0)
+            return 0;
+
+        if(totalHigh == 0 && pathsHigh == 0 && totalLow >= 0 && pathsLow >= 0){
+            // both fit in long
+            long avgRank = totalLow / pathsLow;
+            if(totalLow % pathsLow != 0){
+                avgRank ++;
+            }
+            return (int) avgRank;
+        }
+
+        BigInteger total = new BigInteger(1, ByteBuffer.allocate(16).putLong(totalHigh).putLong(totalLow).array());
+        BigInteger paths = new BigInteger(1, ByteBuffer.allocate(16).putLong(pathsHigh).putLong(pathsLow).array());
+        return total.add(paths).subtract(BigInteger.ONE).divide(paths).intValue();
+    }
+
+    /**
+     * Same as getAvgRank(PathCount, PathCount) for values given in log space
+     */
+    static int getAvgRankFromLogValues(double totalLogValue, double pathsLogValue){
+        if(pathsLogValue == Double.NEGATIVE_INFINITY)
+            return 0;
+
+        return (int) Math.ceil(Math.exp(totalLogValue - pathsLogValue) - LOG_SPACE_ROUNDING_TOLERANCE);
+    }
+
+    /**
+     * @return log(exp(a) + exp(b))
+     */
+    private static double logAdd(double a, double b){
+        if(a == Double.NEGATIVE_INFINITY)
+            return b;
+        if(b == Double.NEGATIVE_INFINITY)
+            return a;
+
+        double larger = Math.max(a, b);
+        return larger + Math.log1p(Math.exp(-Math.abs(a - b)));
+    }
+}
@@ -0,0 +1,82 @@
+package datastructure;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * An array of PathCount values kept in primitive arrays, one element per program configuration.
+ * Exact mode: two long arrays for the 128-bit words, plus a map for the rare values beyond 128 bits.
+ * Log-space mode: one double array.
+ */
+
+public class PathCountArray {
+    private long[] high;
+    private long[] low;
+    private HashMap<Integer, BigInteger> bigValueMap;
+
+    private double[] logValue;
+
+    public PathCountArray(int size){
+        if(PathCount.logSpace){
+            logValue = new double[size];
+            Arrays.fill(logValue, Double.NEGATIVE_INFINITY);
+        }else{
+            high = new long[size];
+            low = new long[size];
+            bigValueMap = new HashMap<>();
+        }
+    }
+
+    /**
+     * Copy an element to a counter
+     * @param index position of element
+     * @param result counter to receive the element value
+     * @return result
+     */
+    public PathCount get(int index, PathCount result){
+        if(PathCount.logSpace){
+            result.logValue = logValue[index];
+            return result;
+        }
+
+        result.high = high[index];
+        result.low = low[index];
+        result.big = bigValueMap.isEmpty() ? null : bigValueMap.get(index);
+        return result;
+    }
+
+    public void set(int index, PathCount value){
+        if(PathCount.logSpace){
+            logValue[index] = value.logValue;
+            return;
+        }
+
+        high[index] = value.high;
+        low[index] = value.low;
+        if(value.big != null){
+            bigValueMap.put(index, value.big);
+        }else if(!bigValueMap.isEmpty()){
+            bigValueMap.remove(index);
+        }
+    }
+
+    /**
+     * Same as PathCount.getAvgRank() for elements at the same position in two arrays, without creating counters
+     * @param totalPathLength array of total path lengths
+     * @param numberOfPaths array of numbers of paths
+     * @param index position of elements
+     * @return the average rank
+     */
+    public static int getAvgRank(PathCountArray totalPathLength, PathCountArray numberOfPaths, int index){
+        if(PathCount.logSpace)
+            return PathCount.getAvgRankFromLogValues(totalPathLength.logValue[index], numberOfPaths.logValue[index]);
+
+        if(totalPathLength.bigValueMap.isEmpty() && numberOfPaths.bigValueMap.isEmpty())
+            return PathCount.getAvgRank(
+                    totalPathLength.high[index], totalPathLength.low[index],
+                    numberOfPaths.high[index], numberOfPaths.low[index]);
+
+        return PathCount.getAvgRank(totalPathLength.get(index, new PathCount()), numberOfPaths.get(index, new PathCount()));
+    }
+}
@@ -0,0 +1,215 @@
+package datastructure;
+
+import template.ProgramConfigurationTemplate;
+
+import static template.ProgramConfigurationTemplate.INFINITY_RANK;
+
+/**
+ * Distribution of the lengths of all paths of program transitions to the invariant for every configuration
+ * of the indexed state space (see PathLengthDistribution), by dynamic programming instead of enumerating paths.
+ * Configs are processed in reverse topological order (Kahn's algorithm on predecessors):
+ * a config outside the invariant is ready once all its successors are done.
+ * Configs that can reach a cycle are never ready, all their ranks are infinity.
+ * The distribution of a config is released once all its predecessors are done,
+ * only ranks derived from it are kept per config:
+ *   max rank (longest path), average rank (rounded up mean path length) and percentiles of path length.
+ */
+
+public class PathLengthAnalysis {
+    private ProgramConfigurationTemplate programConfig;
+    private InvertedTransitionIndex invertedIndex;
+    private int numberOfConfigs;
+    private int[] percentiles;
+
+    // per config
+    private boolean[] insideInvariant;
+    private int[] numberOfUnfinishedSuccessors;     // successor edges whose distribution is not computed
+    private int[] numberOfUnfinishedPredecessors;   // predecessor edges outside the invariant whose distribution is not computed
+    private PathLengthDistribution[] distributions; // null once released
+
+    // configs that are ready, in order of readiness
+    private int[] readyConfigs;
+    private int numberOfReadyConfigs;
+
+    // ranks per config
+    private int[] maxRank;
+    private int[] avgRank;
+    private int[][] percentileRank; // per percentile
+
+    // summary over configs outside the invariant with at least one path
+    private long numberOfConfigsWithPaths;
+    private long numberOfApproximateDistributions;
+    private double totalStandardDeviation;
+    private double maxStandardDeviation;
+
+    /**
+     * Compute the distributions. The given program configuration is used for enumeration and is changed.
+     * @param programConfig any configuration of the program
+     * @param invertedIndex inverted index of program transitions, null if predecessors are generated by program
+     * @param percentiles percentiles of path length kept for every config, each between 1 and 100
+     */
+    public PathLengthAnalysis(ProgramConfigurationTemplate programConfig, InvertedTransitionIndex invertedIndex, int[] percentiles){
+        this.programConfig = programConfig;
+        this.invertedIndex = invertedIndex;
+        this.percentiles = percentiles;
+        numberOfConfigs = (int) programConfig.getSizeOfIndexedStateSpace();
+
+        insideInvariant = new boolean[numberOfConfigs];
+        numberOfUnfinishedSuccessors = new int[numberOfConfigs];
+        numberOfUnfinishedPredecessors = new int[numberOfConfigs];
+        distributions = new PathLengthDistribution[numberOfConfigs];
+        readyConfigs = new int[numberOfConfigs];
+        numberOfReadyConfigs = 0;
+
+        maxRank = new int[numberOfConfigs];
+        avgRank = new int[numberOfConfigs];
+        percentileRank = new int[percentiles.length][numberOfConfigs];
+
+        // count successors and predecessors, configs inside the invariant and deadlocks are ready
+        for(int configIndex = 0; configIndex < numberOfConfigs; configIndex ++){
+            maxRank[configIndex] = INFINITY_RANK;
+            avgRank[configIndex] = INFINITY_RANK;
+            for(int[] ranks : percentileRank)
+                ranks[configIndex] = INFINITY_RANK;
+
+            programConfig.moveToProgramConfigIndex(configIndex);
+            insideInvariant[configIndex] = programConfig.isInsideInvariant();
+            if(insideInvariant[configIndex]){
+                readyConfigs[numberOfReadyConfigs ++] = configIndex;
+                continue;
+            }
+
+            long[] successorIndices = programConfig.getProgramConfigTransSuccessorIndices();
+            numberOfUnfinishedSuccessors[configIndex] = successorIndices.length;
+            for(long successorIndex : successorIndices){
+                if(successorIndex < 0){
+                    System.out.println("ERROR: PathLengthAnalysis: successor of config index " + configIndex
+                            + " is outside the indexed state space");
+                    System.exit(1);
+                }
+                numberOfUnfinishedPredecessors[(int) successorIndex] ++;
+            }
+            if(successorIndices.length == 0)
+                readyConfigs[numberOfReadyConfigs ++] = configIndex;
+        }
+
+        // configs are appended while being processed
+        for(int position = 0; position < numberOfReadyConfigs; position ++){
+            int configIndex = readyConfigs[position];
+            PathLengthDistribution distribution = insideInvariant[configIndex] ?
+                    new PathLengthDistribution() : computeDistribution(configIndex);
+            setRanks(configIndex, distribution);
+
+            if(numberOfUnfinishedPredecessors[configIndex] > 0)
+                distributions[configIndex] = distribution;
+
+            if(invertedIndex == null){
+                programConfig.moveToProgramConfigIndex(configIndex);
+                programConfig.forEachTransPredecessor(this::finishSuccessor);
+            }else{
+                invertedIndex.forEachTransPredecessor(configIndex, this::finishSuccessor);
+            }
+        }
+
+        distributions = null;
+    }
+
+    /**
+     * @return distribution of a config outside the invariant whose successors are all done,
+     *         distributions of successors without other unfinished predecessors are released
+     */
+    private PathLengthDistribution computeDistribution(int configIndex){
+        programConfig.moveToProgramConfigIndex(configIndex);
+        long[] successorIndices = programConfig.getProgramConfigTransSuccessorIndices();
+
+        PathLengthDistribution[] successorDistributions = new PathLengthDistribution[successorIndices.length];
+        for(int position = 0; position < successorIndices.length; position ++)
+            successorDistributions[position] = distributions[(int) successorIndices[position]];
+        PathLengthDistribution distribution = new PathLengthDistribution(successorDistributions);
+
+        for(long successorIndex : successorIndices){
+            if(-- numberOfUnfinishedPredecessors[(int) successorIndex] == 0)
+                distributions[(int) successorIndex] = null;
+        }
+
+        if(distribution.hasPath()){
+            double standardDeviation = Math.sqrt(distribution.getVariance());
+            numberOfConfigsWithPaths ++;
+            totalStandardDeviation += standardDeviation;
+            maxStandardDeviation = Math.max(maxStandardDeviation, standardDeviation);
+        }
+        if(!distribution.isExact())
+            numberOfApproximateDistributions ++;
+
+        return distribution;
+    }
+
+    private void setRanks(int configIndex, PathLengthDistribution distribution){
+        maxRank[configIndex] = distribution.getMaxLength();
+        avgRank[configIndex] = distribution.getAvgRank();
+        for(int position = 0; position < percentiles.length; position ++)
+            percentileRank[position][configIndex] = distribution.getPercentile(percentiles[position]);
+    }
+
+    /**
+     * A successor of a predecessor is done, the predecessor is ready once all its successors are done
+     */
+    private void finishSuccessor(long predecessorIndex){
+        int configIndex = (int) predecessorIndex;
+        if(insideInvariant[configIndex])
+            return;
+
+        if(-- numberOfUnfinishedSuccessors[configIndex] == 0)
+            readyConfigs[numberOfReadyConfigs ++] = configIndex;
+    }
+
+    public int getNumberOfConfigs() {
+        return numberOfConfigs;
+    }
+
+    public boolean isInsideInvariant(int configIndex) {
+        return insideInvariant[configIndex];
+    }
+
+    /**
+     * @return number of configs with finite ranks, i.e. not reaching a cycle
+     */
+    public int getNumberOfConfigsWithRanks() {
+        return numberOfReadyConfigs;
+    }
+
+    public int[] getPercentiles() {
+        return percentiles;
+    }
+
+    public int getMaxRank(int configIndex) {
+        return maxRank[configIndex];
+    }
+
+    public int getAvgRank(int configIndex) {
+        return avgRank[configIndex];
+    }
+
+    /**
+     * @param position position of the percentile in getPercentiles()
+     */
+    public int getPercentileRank(int position, int configIndex) {
+        return percentileRank[position][configIndex];
+    }
+
+    public long getNumberOfApproximateDistributions() {
+        return numberOfApproximateDistributions;
+    }
+
+    /**
+     * @return average over configs outside the invariant with at least one path
+     *         of the standard deviation of path length, 0 if there is no such config
+     */
+    public double getAverageStandardDeviation() {
+        return (numberOfConfigsWithPaths == 0) ? 0 : totalStandardDeviation / numberOfConfigsWithPaths;
+    }
+
+    public double getMaxStandardDeviation() {
+        return maxStandardDeviation;
+    }
+}
@@ -0,0 +1,232 @@
+package datastructure;
+
+import java.math.BigInteger;
+
+/**
+ * Distribution of the lengths of all paths of program transitions from a configuration to the invariant.
+ * Only lengths from the shortest to the longest path are kept, as a vector starting at minLength.
+ * Exact mode (default):
+ *   the vector holds the number of paths of every length as a long, and so does the total number of paths.
+ *   Only when the total number of paths overflows a long, the distribution is moved to approximate mode.
+ * Approximate mode:
+ *   the vector holds the fraction of paths of every length,
+ *   and the natural logarithm of the number of paths is kept in a double.
+ *   Mean, variance and percentiles are then approximate.
+ * A distribution is computed from the distributions of the successors of the configuration,
+ * so distributions of all configs are obtained in reverse topological order without enumerating paths.
+ */
+
+public class PathLengthDistribution {
+    // tolerance when rounding up or comparing values computed in approximate mode
+    private static final double ROUNDING_TOLERANCE = 1e-9;
+
+    private int minLength;
+
+    // exact mode, counts is null in approximate mode
+    private long[] counts;
+    private long numberOfPaths;
+
+    // approximate mode, fractions is null in exact mode
+    private double[] fractions;
+    private double logNumberOfPaths;
+
+    /**
+     * Distribution of a configuration inside the invariant: one path of length 0
+     */
+    public PathLengthDistribution(){
+        minLength = 0;
+        counts = new long[]{1};
+        numberOfPaths = 1;
+    }
+
+    /**
+     * Distribution of a configuration outside the invariant:
+     * the distributions of its successors are added and every length is increased by 1.
+     * A configuration without successors has no path, its only length is 0 with count 0,
+     * as its max rank is 0 in full analysis.
+     * @param successors distributions of program transition successors, with multiplicity
+     */
+    public PathLengthDistribution(PathLengthDistribution[] successors){
+        if(successors.length == 0){
+            minLength = 0;
+            counts = new long[1];
+            numberOfPaths = 0;
+            return;
+        }
+
+        int minSuccessorLength = Integer.MAX_VALUE;
+        int maxSuccessorLength = Integer.MIN_VALUE;
+        boolean exact = true;
+        long totalNumberOfPaths = 0;
+        for(PathLengthDistribution successor : successors){
+            minSuccessorLength = Math.min(minSuccessorLength, successor.minLength);
+            maxSuccessorLength = Math.max(maxSuccessorLength, successor.getMaxLength());
+
+            if(!successor.isExact() || totalNumberOfPaths > Long.MAX_VALUE - successor.numberOfPaths)
+                exact = false;
+            else
+                totalNumberOfPaths += successor.numberOfPaths;
+        }
+
+        minLength = minSuccessorLength + 1;
+        int size = maxSuccessorLength - minSuccessorLength + 1;
+
+        if(exact){
+            // no count can overflow since every count is at most the total
+            counts = new long[size];
+            for(PathLengthDistribution successor : successors){
+                int offset = successor.minLength - minSuccessorLength;
+                for(int position = 0; position < successor.counts.length; position ++)
+                    counts[offset + position] += successor.counts[position];
+            }
+            numberOfPaths = totalNumberOfPaths;
+            return;
+        }
+
+        // approximate mode: successors are weighted relative to the one with the most paths
+        double maxLogNumberOfPaths = Double.NEGATIVE_INFINITY;
+        for(PathLengthDistribution successor : successors)
+            maxLogNumberOfPaths = Math.max(maxLogNumberOfPaths, successor.getLogNumberOfPaths());
+
+        fractions = new double[size];
+        double totalWeight = 0;
+        for(PathLengthDistribution successor : successors){
+            double weight = Math.exp(successor.getLogNumberOfPaths() - maxLogNumberOfPaths);
+            if(weight == 0)
+                continue;
+
+            totalWeight += weight;
+            int offset = successor.minLength - minSuccessorLength;
+            for(int position = 0; position < successor.getVectorLength(); position ++)
+                fractions[offset + position] += weight * successor.getFraction(position);
+        }
+        for(int position = 0; position < size; position ++)
+            fractions[position] /= totalWeight;
+        logNumberOfPaths = maxLogNumberOfPaths + Math.log(totalWeight);
+    }
+
+    public boolean isExact(){
+        return counts != null;
+    }
+
+    public int getMinLength(){
+        return minLength;
+    }
+
+    /**
+     * @return length of the longest path, i.e. the max rank
+     */
+    public int getMaxLength(){
+        return minLength + getVectorLength() - 1;
+    }
+
+    private int getVectorLength(){
+        return isExact() ? counts.length : fractions.length;
+    }
+
+    /**
+     * @return fraction of paths with length minLength + position
+     */
+    private double getFraction(int position){
+        return isExact() ? (double) counts[position] / numberOfPaths : fractions[position];
+    }
+
+    /**
+     * @return natural logarithm of the number of paths, negative infinity if there is no path
+     */
+    public double getLogNumberOfPaths(){
+        return isExact() ? Math.log(numberOfPaths) : logNumberOfPaths;
+    }
+
+    public boolean hasPath(){
+        return !isExact() || numberOfPaths > 0;
+    }
+
+    /**
+     * @return mean path length, 0 if there is no path
+     */
+    public double getMean(){
+        if(!hasPath())
+            return 0;
+
+        double mean = 0;
+        for(int position = 0; position < getVectorLength(); position ++)
+            mean += (minLength + position) * getFraction(position);
+        return mean;
+    }
+
+    /**
+     * @return variance of path length, 0 if there is no path
+     */
+    public double getVariance(){
+        if(!hasPath())
+            return 0;
+
+        double mean = getMean();
+        double variance = 0;
+        for(int position = 0; position < getVectorLength(); position ++){
+            double deviation = minLength + position - mean;
+            variance += deviation * deviation * getFraction(position);
+        }
+        return variance;
+    }
+
+    /**
+     * @return the average rank, i.e. the mean path length rounded up as in PathCount.getAvgRank(),
+     *         0 if there is no path
+     */
+    public int getAvgRank(){
+        if(!hasPath())
+            return 0;
+        if(!isExact())
+            return (int) Math.ceil(getMean() - ROUNDING_TOLERANCE);
+
+        long totalPathLength = 0;
+        try{
+            for(int position = 0; position < counts.length; position ++)
+                totalPathLength = Math.addExact(totalPathLength, Math.multiplyExact((long) (minLength + position), counts[position]));
+        }catch(ArithmeticException e){
+            BigInteger bigTotalPathLength = BigInteger.ZERO;
+            for(int position = 0; position < counts.length; position ++)
+                bigTotalPathLength = bigTotalPathLength.add(
+                        BigInteger.valueOf(minLength + position).multiply(BigInteger.valueOf(counts[position])));
+            BigInteger bigNumberOfPaths = BigInteger.valueOf(numberOfPaths);
+            return bigTotalPathLength.add(bigNumberOfPaths).subtract(BigInteger.ONE).divide(bigNumberOfPaths).intValue();
+        }
+
+        long avgRank = totalPathLength / numberOfPaths;
+        if(totalPathLength % numberOfPaths != 0)
+            avgRank ++;
+        return (int) avgRank;
+    }
+
+    /**
+     * Nearest-rank percentile: the shortest length such that at least percentile % of the paths are not longer
+     * @param percentile between 1 and 100
+     * @return the percentile of path length, the max length if there is no path
+     */
+    public int getPercentile(int percentile){
+        if(!hasPath())
+            return getMaxLength();
+
+        if(isExact()){
+            // ceil(numberOfPaths * percentile / 100) without overflow
+            long threshold = numberOfPaths / 100 * percentile + ((numberOfPaths % 100) * percentile + 99) / 100;
+            long cumulativeCount = 0;
+            for(int position = 0; position < counts.length; position ++){
+                cumulativeCount += counts[position];
+                if(cumulativeCount >= threshold)
+                    return minLength + position;
+            }
+        }else{
+            double cumulativeFraction = 0;
+            for(int position = 0; position < fractions.length; position ++){
+                cumulativeFraction += fractions[position];
+                if(cumulativeFraction >= percentile / 100.0 - ROUNDING_TOLERANCE)
+                    return minLength + position;
+            }
+        }
+
+        return getMaxLength();
+    }
+}
@@ -0,0 +1,113 @@
+package datastructure;
+
+import java.util.Arrays;
+
+/**
+ * Rank effects of transitions (program transitions or cvfs) whose source configuration has final ranks
+ * but whose target configuration does not yet.
+ * Each effect waits at its target and is emitted once the ranks of the target are final,
+ * so that rank effects can be computed during rank propagation, without a second pass over the state graph.
+ * Targets are identified by an int id (e.g. configuration index).
+ * The effects waiting at a target form a linked list in primitive arrays;
+ * entries are recycled once emitted.
+ */
+
+public class PendingRankEffects {
+    // kind of transition
+    public static final int PROG_TRANS_OUTSIDE_INV = 0;
+    public static final int CVF_INSIDE_INV = 1;
+    public static final int CVF_OUTSIDE_INV = 2;
+
+    private static final int NO_ENTRY = -1;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private int[] firstEntryOfTarget;   // per target, NO_ENTRY if nothing is waiting
+
+    // per entry
+    private int[] nextEntry;
+    private int[] sourceMaxRank;
+    private int[] sourceAvgRank;
+    private int[] transitionKind;
+    private int[] idOfChangedNode;
+
+    private int numberOfUsedEntries;    // entries in [0, numberOfUsedEntries) were used at least once
+    private int firstFreeEntry;         // recycled entries
+
+    /**
+     * Handler of a rank effect when the ranks of its target are final
+     */
+    public interface RankEffectVisitor {
+        void visit(int targetId, int sourceMaxRank, int sourceAvgRank, int transitionKind, int idOfChangedNode);
+    }
+
+    public PendingRankEffects(int numberOfTargets){
+        firstEntryOfTarget = new int[numberOfTargets];
+        Arrays.fill(firstEntryOfTarget, NO_ENTRY);
+
+        nextEntry = new int[INITIAL_CAPACITY];
+        sourceMaxRank = new int[INITIAL_CAPACITY];
+        sourceAvgRank = new int[INITIAL_CAPACITY];
+        transitionKind = new int[INITIAL_CAPACITY];
+        idOfChangedNode = new int[INITIAL_CAPACITY];
+
+        numberOfUsedEntries = 0;
+        firstFreeEntry = NO_ENTRY;
+    }
+
+    /**
+     * Let a rank effect wait at its target
+     */
+    public void add(int targetId, int sourceMaxRank, int sourceAvgRank, int transitionKind, int idOfChangedNode){
+        int entry;
+        if(firstFreeEntry != NO_ENTRY){
+            entry = firstFreeEntry;
+            firstFreeEntry = nextEntry[entry];
+        }else{
+            if(numberOfUsedEntries == nextEntry.length){
+                int newCapacity = nextEntry.length * 2;
+                nextEntry = Arrays.copyOf(nextEntry, newCapacity);
+                this.sourceMaxRank = Arrays.copyOf(this.sourceMaxRank, newCapacity);
+                this.sourceAvgRank = Arrays.copyOf(this.sourceAvgRank, newCapacity);
+                this.transitionKind = Arrays.copyOf(this.transitionKind, newCapacity);
+                this.idOfChangedNode = Arrays.copyOf(this.idOfChangedNode, newCapacity);
+            }
+            entry = numberOfUsedEntries;
+            numberOfUsedEntries ++;
+        }
+
+        this.sourceMaxRank[entry] = sourceMaxRank;
+        this.sourceAvgRank[entry] = sourceAvgRank;
+        this.transitionKind[entry] = transitionKind;
+        this.idOfChangedNode[entry] = idOfChangedNode;
+
+        nextEntry[entry] = firstEntryOfTarget[targetId];
+        firstEntryOfTarget[targetId] = entry;
+    }
+
+    /**
+     * Emit and remove all rank effects waiting at a target
+     */
+    public void emit(int targetId, RankEffectVisitor visitor){
+        int entry = firstEntryOfTarget[targetId];
+        while(entry != NO_ENTRY){
+            visitor.visit(targetId, sourceMaxRank[entry], sourceAvgRank[entry], transitionKind[entry], idOfChangedNode[entry]);
+
+            int next = nextEntry[entry];
+            nextEntry[entry] = firstFreeEntry;
+            firstFreeEntry = entry;
+            entry = next;
+        }
+        firstEntryOfTarget[targetId] = NO_ENTRY;
+    }
+
+    /**
+     * Emit and remove all rank effects still waiting, e.g. at targets whose ranks never become finite
+     */
+    public void emitAll(RankEffectVisitor visitor){
+        for(int targetId = 0; targetId < firstEntryOfTarget.length; targetId ++){
+            if(firstEntryOfTarget[targetId] != NO_ENTRY){
+                emit(targetId, visitor);
+            }
+        }
+    }
+}
@@ -3,7 +3,6 @@ package datastructure;
 import template.ProgramConfigurationTemplate;
 import template.SuccessorInfo;
 
-import java.math.BigInteger;
 import java.util.TreeMap;
 import java.util.TreeSet;
 
@@ -13,6 +12,10 @@ import static template.ProgramConfigurationTemplate.INFINITY_RANK;
  * This class encapsulates information about a program configuration
  * such as its max rank and list of successors
  *
+ * Successor lists are either given at construction, or computed from the config on demand (lazy).
+ * When lazy, the list of program transition successors is kept from its first use until it is released,
+ * while the list of cvf successors is computed at every use and never kept,
+ * since it is needed only once in each pass over the configs.
  */
 
 public class ProgramConfigurationInformation<PCT extends ProgramConfigurationTemplate> {
@@ -21,8 +24,8 @@ public class ProgramConfigurationInformation<PCT extends ProgramConfigurationTem
     private int maxRank; // maximum length to invariant
     private int minRank; // minimum length to invariant
     // for average rank
-    private BigInteger totalPathLength;
-    private BigInteger numberOfPaths;
+    private PathCount totalPathLength;
+    private PathCount numberOfPaths;
 
     // list of successors obtained by program transitions
     private TreeSet<SuccessorInfo> progSuccessorList;
@@ -31,11 +34,17 @@ public class ProgramConfigurationInformation<PCT extends ProgramConfigurationTem
     private TreeSet<SuccessorInfo> cvfSuccessorList;
     private int totalCvfMaxRankOffset;
 
+    // position of the config in the enumeration of full analysis, -1 if not assigned
+    private int configId;
+
+    // config whose successors are computed on demand, null if successor lists are given
+    private PCT programConfig;
+
     public ProgramConfigurationInformation(
             int maxRank,
             int minRank,
-            BigInteger totalPathLength,
-            BigInteger numberOfPaths,
+            PathCount totalPathLength,
+            PathCount numberOfPaths,
             TreeSet<SuccessorInfo> successorList,
             TreeSet<SuccessorInfo> cvfSuccessorList){
         this.maxRank = maxRank;
@@ -46,6 +55,22 @@ public class ProgramConfigurationInformation<PCT extends ProgramConfigurationTem
         this.progSuccessorList = successorList;
         this.cvfSuccessorList = cvfSuccessorList;
         this.totalCvfMaxRankOffset = 0;
+        this.configId = -1;
+        this.programConfig = null;
+    }
+
+    /**
+     * Successor lists are computed from the config on demand
+     * @param programConfig the config, it must not be changed afterward
+     */
+    public ProgramConfigurationInformation(
+            int maxRank,
+            int minRank,
+            PathCount totalPathLength,
+            PathCount numberOfPaths,
+            PCT programConfig){
+        this(maxRank, minRank, totalPathLength, numberOfPaths, null, null);
+        this.programConfig = programConfig;
     }
 
     public boolean isEqualToOther(ProgramConfigurationInformation<PCT> other){
@@ -80,6 +105,9 @@ public class ProgramConfigurationInformation<PCT extends ProgramConfigurationTem
     }
 
     public TreeSet<SuccessorInfo> getProgSuccessorList() {
+        if(progSuccessorList == null && programConfig != null){
+            progSuccessorList = programConfig.getProgramConfigTransSuccessorList();
+        }
         return progSuccessorList;
     }
 
@@ -88,6 +116,10 @@ public class ProgramConfigurationInformation<PCT extends ProgramConfigurationTem
     }
 
     public TreeSet<SuccessorInfo> getCvfSuccessorList() {
+        if(cvfSuccessorList == null && programConfig != null){
+            // not kept
+            return programConfig.getProgramConfigCvfSuccessorList();
+        }
         return cvfSuccessorList;
     }
 
@@ -95,6 +127,17 @@ public class ProgramConfigurationInformation<PCT extends ProgramConfigurationTem
         this.cvfSuccessorList = cvfSuccessorList;
     }
 
+    /**
+     * Release successor lists that are computed on demand, they are computed again if needed.
+     * Successor lists given at construction are kept.
+     */
+    public void releaseSuccessorLists() {
+        if(programConfig != null){
+            progSuccessorList = null;
+            cvfSuccessorList = null;
+        }
+    }
+
     public int getTotalCvfMaxRankOffset() {
         return totalCvfMaxRankOffset;
     }
@@ -103,6 +146,14 @@ public class ProgramConfigurationInformation<PCT extends ProgramConfigurationTem
         this.totalCvfMaxRankOffset = totalCvfMaxRankOffset;
     }
 
+    public int getConfigId() {
+        return configId;
+    }
+
+    public void setConfigId(int configId) {
+        this.configId = configId;
+    }
+
     public int getMinRank() {
         return minRank;
     }
@@ -111,25 +162,25 @@ public class ProgramConfigurationInformation<PCT extends ProgramConfigurationTem
         this.minRank = minRank;
     }
 
-    public BigInteger getTotalPathLength() {
+    public PathCount getTotalPathLength() {
         return totalPathLength;
     }
 
-    public void setTotalPathLength(BigInteger totalPathLength) {
+    public void setTotalPathLength(PathCount totalPathLength) {
         this.totalPathLength = totalPathLength;
     }
 
-    public BigInteger getNumberOfPaths() {
+    public PathCount getNumberOfPaths() {
         return numberOfPaths;
     }
 
-    public void setNumberOfPaths(BigInteger numberOfPaths) {
+    public void setNumberOfPaths(PathCount numberOfPaths) {
         this.numberOfPaths = numberOfPaths;
     }
 
     public int getAvgRank(){
         //return (int) ((totalPathLength + numberOfPaths - 1)/numberOfPaths);
-        return totalPathLength.add(numberOfPaths).subtract(BigInteger.ONE).divide(numberOfPaths).intValue();
+        return PathCount.getAvgRank(totalPathLength, numberOfPaths);
     }
 
     public String toString(TreeMap<SuccessorInfo, ProgramConfigurationInformation<PCT>> progConfigInfoMap, int oneRankIndent, boolean displayCvfInfo){
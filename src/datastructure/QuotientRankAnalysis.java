@@ -0,0 +1,172 @@
+package datastructure;
+
+import java.util.function.IntUnaryOperator;
+
+import static template.ProgramConfigurationTemplate.INFINITY_RANK;
+
+/**
+ * Ranks and rank effects of program transitions over a quotient of the state graph,
+ * shared by the symmetry-reduced analysis (SymmetricRankAnalysis), the lumping analysis (LumpingRankAnalysis)
+ * and the fault-span analysis, where every config stands for itself.
+ * A quotient config stands for a set of configs with the same ranks and is identified by its position.
+ * Per quotient config, the successors of its program transitions are given as positions with multiplicity,
+ * and its weight is the number of configs it stands for.
+ * Histograms are weighted, so the results are those of the unreduced state graph.
+ */
+
+public class QuotientRankAnalysis {
+
+    /**
+     * compute maximum rank and average rank for every config of a quotient of the state graph,
+     * in rounds as full analysis but over quotient configs.
+     * A quotient config is counted in the rank distributions as many times as its weight.
+     * @param successors per quotient config, quotient configs of its program transition successors with multiplicity
+     * @param insideInvariant per quotient config, whether it is inside the invariant
+     * @param weight per quotient config, number of configs it stands for
+     * @param quotientInfo receives ranks of quotient configs
+     * @param maxAnaResults receives max rank distribution
+     * @param avgAnaResults receives average rank distribution
+     * @return number of quotient configs outside the invariant whose ranks are computed
+     */
+    public static int computeMaxAndAverageRanks(int[][] successors, boolean[] insideInvariant, IntUnaryOperator weight,
+                                                IndexedProgramConfigurationInformation quotientInfo,
+                                                AnalysisResults<?> maxAnaResults, AnalysisResults<?> avgAnaResults){
+        int totalRankUpdateCount = 0;
+        int currentRoundRankUpdateCount;
+
+        Histogram maxProgConfigRankDistribution = maxAnaResults.getProgConfigRankDistribution();
+        Histogram avgProgConfigRankDistribution = avgAnaResults.getProgConfigRankDistribution();
+        int numberOfQuotientConfigs = quotientInfo.getNumberOfConfigs();
+
+        PathCount invariantTotalPathLength = new PathCount(0);
+        PathCount invariantNumberOfPaths = new PathCount(1);
+        for(int position = 0; position < numberOfQuotientConfigs; position ++){
+            if(insideInvariant[position]){
+                quotientInfo.setMaxRank(position, 0);
+                quotientInfo.setTotalPathLength(position, invariantTotalPathLength);
+                quotientInfo.setNumberOfPaths(position, invariantNumberOfPaths);
+
+                maxProgConfigRankDistribution.add(0, weight.applyAsInt(position));
+                avgProgConfigRankDistribution.add(0, weight.applyAsInt(position));
+            }
+        }
+
+        // accumulators for successors, reused for every quotient config
+        PathCount successorPathCount = new PathCount();
+        PathCount allSuccTotalPathLength = new PathCount();
+        PathCount allSuccTotalNumberOfPaths = new PathCount();
+
+        // repeat until no rank update
+        do{
+            currentRoundRankUpdateCount = 0;
+
+            for(int position = 0; position < numberOfQuotientConfigs; position ++){
+                if(quotientInfo.getMaxRank(position) != INFINITY_RANK)
+                    continue;
+
+                int maxRankOfSuccessors = -1;
+                allSuccTotalPathLength.setValue(0);
+                allSuccTotalNumberOfPaths.setValue(0);
+                for(int successorPosition : successors[position]){
+                    int successorRank = quotientInfo.getMaxRank(successorPosition);
+                    if(successorRank == INFINITY_RANK){
+                        maxRankOfSuccessors = INFINITY_RANK;
+                        break;
+                    }
+
+                    if(maxRankOfSuccessors < successorRank)
+                        maxRankOfSuccessors = successorRank;
+
+                    allSuccTotalPathLength.add(quotientInfo.getTotalPathLength(successorPosition, successorPathCount));
+                    allSuccTotalNumberOfPaths.add(quotientInfo.getNumberOfPaths(successorPosition, successorPathCount));
+                }
+
+                if(maxRankOfSuccessors != INFINITY_RANK){
+                    // all successors have finite ranks, i.e. been computed
+                    int nodeNewMaxRank = maxRankOfSuccessors + 1;
+                    quotientInfo.setMaxRank(position, nodeNewMaxRank);
+                    maxProgConfigRankDistribution.add(nodeNewMaxRank, weight.applyAsInt(position));
+
+                    quotientInfo.setTotalPathLength(position, allSuccTotalPathLength.add(allSuccTotalNumberOfPaths));
+                    quotientInfo.setNumberOfPaths(position, allSuccTotalNumberOfPaths);
+                    avgProgConfigRankDistribution.add(quotientInfo.getAvgRank(position), weight.applyAsInt(position));
+
+                    currentRoundRankUpdateCount ++;
+                }
+            }
+
+            totalRankUpdateCount += currentRoundRankUpdateCount;
+        }while(currentRoundRankUpdateCount > 0);
+
+        return totalRankUpdateCount;
+    }
+
+    /**
+     * Count the rank effect of program transitions of every config of a quotient of the state graph,
+     * as many times as its weight
+     * @param successors per quotient config, quotient configs of its program transition successors with multiplicity
+     * @param insideInvariant per quotient config, whether it is inside the invariant
+     * @param weight per quotient config, number of configs it stands for
+     * @param quotientInfo ranks of quotient configs, must be final
+     * @param maxAnaResults receives rank effects on max rank
+     * @param avgAnaResults receives rank effects on average rank
+     */
+    public static void addRankEffectOfProgramTransitions(int[][] successors, boolean[] insideInvariant, IntUnaryOperator weight,
+                                                         IndexedProgramConfigurationInformation quotientInfo,
+                                                         AnalysisResults<?> maxAnaResults, AnalysisResults<?> avgAnaResults){
+        for(int position = 0; position < quotientInfo.getNumberOfConfigs(); position ++){
+            int configWeight = weight.applyAsInt(position);
+            if(insideInvariant[position]){
+                maxAnaResults.setNumberOfProgTransInsideInv(maxAnaResults.getNumberOfProgTransInsideInv() + configWeight);
+                avgAnaResults.setNumberOfProgTransInsideInv(avgAnaResults.getNumberOfProgTransInsideInv() + configWeight);
+                continue;
+            }
+
+            int progConfigMaxRank = quotientInfo.getMaxRank(position);
+            int progConfigAvgRank = quotientInfo.getAvgRank(position);
+            for(int successorPosition : successors[position]){
+                addWeightedRankEffect(maxAnaResults, PendingRankEffects.PROG_TRANS_OUTSIDE_INV,
+                        quotientInfo.getMaxRank(successorPosition) - progConfigMaxRank, configWeight);
+                addWeightedRankEffect(avgAnaResults, PendingRankEffects.PROG_TRANS_OUTSIDE_INV,
+                        quotientInfo.getAvgRank(successorPosition) - progConfigAvgRank, configWeight);
+            }
+        }
+    }
+
+    /**
+     * Count the rank effect of one transition of a quotient config for every config it stands for,
+     * per-node distributions are not counted
+     * @param anaResults receives the rank effect
+     * @param transitionKind kind of transition as in PendingRankEffects
+     * @param rankEffect rank of target - rank of source
+     * @param weight number of configs the quotient config stands for
+     */
+    public static void addWeightedRankEffect(AnalysisResults<?> anaResults, int transitionKind, int rankEffect, int weight){
+        switch(transitionKind){
+            case PendingRankEffects.PROG_TRANS_OUTSIDE_INV:
+                anaResults.getProgTransOutsideInvRankEffectDistribution().add(rankEffect, weight);
+                anaResults.setNumberOfProgTransOutsideInv(anaResults.getNumberOfProgTransOutsideInv() + weight);
+                anaResults.setProgTransOutsideInvTotalRankEffect(
+                        anaResults.getProgTransOutsideInvTotalRankEffect() + (long) rankEffect * weight);
+                break;
+
+            case PendingRankEffects.CVF_INSIDE_INV:
+                anaResults.getCvfInsideInvRankEffectDistribution().add(rankEffect, weight);
+                anaResults.setNumberOfCvfInsideInv(anaResults.getNumberOfCvfInsideInv() + weight);
+                anaResults.setCvfInsideInvTotalRankEffect(
+                        anaResults.getCvfInsideInvTotalRankEffect() + (long) rankEffect * weight);
+                break;
+
+            case PendingRankEffects.CVF_OUTSIDE_INV:
+                anaResults.getCvfOutsideInvRankEffectDistribution().add(rankEffect, weight);
+                anaResults.setNumberOfCvfOutsideInv(anaResults.getNumberOfCvfOutsideInv() + weight);
+                anaResults.setCvfOutsideInvTotalRankEffect(
+                        anaResults.getCvfOutsideInvTotalRankEffect() + (long) rankEffect * weight);
+                break;
+
+            default:
+                System.out.println("ERROR: QuotientRankAnalysis.addWeightedRankEffect: unknown transition kind " + transitionKind);
+                System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,321 @@
+package datastructure;
+
+import template.ProgramConfigurationTemplate;
+import template.SuccessorInfo;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.TreeSet;
+import java.util.function.IntUnaryOperator;
+
+import static template.ProgramConfigurationTemplate.INFINITY_RANK;
+
+/**
+ * Expected number of program transitions to reach the invariant under a uniformly random central daemon,
+ * as estimated by Simulation: at every step a program transition successor is chosen uniformly at random,
+ * and then, with probability faultProbability, a cvf successor of the new config is chosen uniformly at random.
+ *   E(c) = 0 if c is inside the invariant, otherwise
+ *   E(c) = 1 + average over program successors s of ((1 - p) E(s) + p F(s))
+ *   F(s) = average of E over cvf successors of s, E(s) if s has no cvf successor
+ * E(c) is infinite if the invariant is not reached from c with probability 1, i.e. if c can reach a config
+ * from which the invariant cannot be reached at all. These configs are found before sweeping by two backward
+ * searches (see markConfigsNotReachingInvariant()) and are not swept, otherwise a closed cycle outside the
+ * invariant would only grow their values by about one per sweep.
+ * The system of the other configs is solved by Gauss-Seidel sweeps over configs in increasing order of max rank
+ * (configs of infinite max rank last), so that successors are usually updated before their predecessors.
+ * Without cvfs and without configs of infinite max rank this order is topological and one sweep is exact.
+ * Program and cvf successors are kept in compressed arrays.
+ */
+
+public class RandomDaemonAnalysis {
+    // sweeps stop when no expected value changes by more than this, relative to the value
+    public static final double TOLERANCE = 1e-9;
+    public static final int MAX_NUMBER_OF_SWEEPS = 100000;
+
+    private int numberOfConfigs;
+    private double faultProbability;
+
+    private double[] expectedSteps; // indexed by config index
+    private int numberOfConfigsNotReachingInvariant; // configs of infinite expected steps
+    private int numberOfSweeps;
+    private double lastChange; // largest relative change of the last sweep
+    private boolean converged;
+
+    /**
+     * Run the analysis. The given program configuration is used for enumeration and is changed.
+     * @param programConfig any configuration of the program
+     * @param maxRank max rank of every configuration index
+     * @param faultProbability probability that a cvf follows a program transition, in [0, 1)
+     */
+    public RandomDaemonAnalysis(ProgramConfigurationTemplate programConfig, IntUnaryOperator maxRank, double faultProbability){
+        numberOfConfigs = (int) programConfig.getSizeOfIndexedStateSpace();
+        this.faultProbability = faultProbability;
+
+        // sweep order (counting sort by max rank, configs of infinite max rank last)
+        int[] configMaxRanks = new int[numberOfConfigs];
+        int largestFiniteRank = 0;
+        boolean hasInfiniteRank = false;
+        for(int configIndex = 0; configIndex < numberOfConfigs; configIndex ++){
+            configMaxRanks[configIndex] = maxRank.applyAsInt(configIndex);
+            if(configMaxRanks[configIndex] == INFINITY_RANK)
+                hasInfiniteRank = true;
+            else
+                largestFiniteRank = Math.max(largestFiniteRank, configMaxRanks[configIndex]);
+        }
+        int[] nextPosition = new int[largestFiniteRank + 3]; // last bucket is infinite max rank
+        for(int configMaxRank : configMaxRanks)
+            nextPosition[getBucket(configMaxRank, largestFiniteRank) + 1] ++;
+        for(int bucket = 1; bucket < nextPosition.length; bucket ++)
+            nextPosition[bucket] += nextPosition[bucket - 1];
+        int[] sweepOrder = new int[numberOfConfigs];
+        for(int configIndex = 0; configIndex < numberOfConfigs; configIndex ++)
+            sweepOrder[nextPosition[getBucket(configMaxRanks[configIndex], largestFiniteRank)] ++] = configIndex;
+        configMaxRanks = null;
+
+        // program successors in compressed arrays, configs inside the invariant have none
+        expectedSteps = new double[numberOfConfigs];
+        BitSet insideInvariant = new BitSet(numberOfConfigs);
+        int[] successorOffsets = new int[numberOfConfigs + 1];
+        int[] successors = new int[numberOfConfigs];
+        for(int configIndex = 0; configIndex < numberOfConfigs; configIndex ++){
+            programConfig.moveToProgramConfigIndex(configIndex);
+            int offset = successorOffsets[configIndex];
+            if(programConfig.isInsideInvariant()){
+                insideInvariant.set(configIndex);
+            }else{
+                for(long successorIndex : programConfig.getProgramConfigTransSuccessorIndices()){
+                    if(successorIndex < 0){
+                        System.out.println("ERROR: RandomDaemonAnalysis: program successor of config " + configIndex
+                                + " is outside the indexed state space");
+                        System.exit(1);
+                    }
+                    if(offset == successors.length)
+                        successors = Arrays.copyOf(successors, (int) Math.min(Integer.MAX_VALUE - 8, 2L * successors.length));
+                    successors[offset ++] = (int) successorIndex;
+                }
+            }
+            successorOffsets[configIndex + 1] = offset;
+        }
+
+        // cvf successors of every config in compressed arrays, only needed with cvfs
+        int[] cvfSuccessorOffsets = null;
+        int[] cvfSuccessors = null;
+        if(faultProbability > 0){
+            cvfSuccessorOffsets = new int[numberOfConfigs + 1];
+            cvfSuccessors = new int[numberOfConfigs];
+            for(int configIndex = 0; configIndex < numberOfConfigs; configIndex ++){
+                programConfig.moveToProgramConfigIndex(configIndex);
+                int offset = cvfSuccessorOffsets[configIndex];
+                for(SuccessorInfo cvfSuccessor : (TreeSet<SuccessorInfo>) programConfig.getProgramConfigCvfSuccessorList()){
+                    long cvfSuccessorIndex = cvfSuccessor.getSuccessorProgramConfig().getProgramConfigIndex();
+                    if(cvfSuccessorIndex < 0){
+                        System.out.println("ERROR: RandomDaemonAnalysis: cvf successor " + cvfSuccessor.toString() + " is outside the indexed state space");
+                        System.exit(1);
+                    }
+                    if(offset == cvfSuccessors.length)
+                        cvfSuccessors = Arrays.copyOf(cvfSuccessors, (int) Math.min(Integer.MAX_VALUE - 8, 2L * cvfSuccessors.length));
+                    cvfSuccessors[offset ++] = (int) cvfSuccessorIndex;
+                }
+                cvfSuccessorOffsets[configIndex + 1] = offset;
+            }
+        }
+
+        markConfigsNotReachingInvariant(insideInvariant, successorOffsets, successors, cvfSuccessorOffsets, cvfSuccessors);
+        insideInvariant = null;
+
+        // average of expected steps over cvf successors of every config, only needed with cvfs
+        double[] cvfSuccessorExpectedSteps = faultProbability > 0 ? new double[numberOfConfigs] : null;
+
+        boolean exactInOneSweep = faultProbability == 0 && !hasInfiniteRank;
+        numberOfSweeps = 0;
+        converged = false;
+        while(!converged && numberOfSweeps < MAX_NUMBER_OF_SWEEPS){
+            lastChange = 0;
+            for(int configIndex : sweepOrder){
+                // only read by predecessors, which are infinite as well
+                if(expectedSteps[configIndex] == Double.POSITIVE_INFINITY)
+                    continue;
+
+                int firstSuccessor = successorOffsets[configIndex];
+                int endSuccessor = successorOffsets[configIndex + 1];
+
+                if(firstSuccessor < endSuccessor){
+                    double sum = 0;
+                    for(int position = firstSuccessor; position < endSuccessor; position ++){
+                        int successorIndex = successors[position];
+                        sum += cvfSuccessorExpectedSteps == null ? expectedSteps[successorIndex] :
+                                (1 - faultProbability) * expectedSteps[successorIndex]
+                                        + faultProbability * cvfSuccessorExpectedSteps[successorIndex];
+                    }
+                    double newExpectedSteps = 1 + sum / (endSuccessor - firstSuccessor);
+                    lastChange = Math.max(lastChange, getRelativeChange(expectedSteps[configIndex], newExpectedSteps));
+                    expectedSteps[configIndex] = newExpectedSteps;
+                }
+
+                if(cvfSuccessorExpectedSteps != null){
+                    int firstCvfSuccessor = cvfSuccessorOffsets[configIndex];
+                    int endCvfSuccessor = cvfSuccessorOffsets[configIndex + 1];
+                    if(firstCvfSuccessor == endCvfSuccessor){
+                        cvfSuccessorExpectedSteps[configIndex] = expectedSteps[configIndex];
+                    }else{
+                        double sum = 0;
+                        for(int position = firstCvfSuccessor; position < endCvfSuccessor; position ++)
+                            sum += expectedSteps[cvfSuccessors[position]];
+                        cvfSuccessorExpectedSteps[configIndex] = sum / (endCvfSuccessor - firstCvfSuccessor);
+                    }
+                }
+            }
+            numberOfSweeps ++;
+
+            converged = exactInOneSweep || lastChange <= TOLERANCE;
+        }
+    }
+
+    private static int getBucket(int maxRank, int largestFiniteRank){
+        return maxRank == INFINITY_RANK ? largestFiniteRank + 1 : maxRank;
+    }
+
+    private static double getRelativeChange(double oldValue, double newValue){
+        if(oldValue == newValue)
+            return 0;
+        if(Double.isInfinite(oldValue) || Double.isInfinite(newValue))
+            return Double.POSITIVE_INFINITY;
+        return Math.abs(newValue - oldValue) / Math.max(1, Math.abs(newValue));
+    }
+
+    /**
+     * Set expected steps to positive infinity for every config from which the invariant is not reached with
+     * probability 1. A step goes from config c to a program successor s of c, and with cvfs also to a cvf successor
+     * of s. In a finite chain, the invariant is reached with probability 1 from c exactly when every config
+     * reachable from c can still reach the invariant. So the configs that cannot reach the invariant are found by
+     * a backward search from the invariant, and the infinite ones by a backward search from those.
+     * @param cvfSuccessorOffsets null without cvfs
+     * @param cvfSuccessors null without cvfs
+     */
+    private void markConfigsNotReachingInvariant(BitSet insideInvariant, int[] successorOffsets, int[] successors,
+                                                 int[] cvfSuccessorOffsets, int[] cvfSuccessors){
+        int[] predecessorOffsets = new int[numberOfConfigs + 1];
+        int[] predecessors = getPredecessors(successorOffsets, successors, predecessorOffsets);
+        int[] cvfPredecessorOffsets = null;
+        int[] cvfPredecessors = null;
+        if(cvfSuccessorOffsets != null){
+            cvfPredecessorOffsets = new int[numberOfConfigs + 1];
+            cvfPredecessors = getPredecessors(cvfSuccessorOffsets, cvfSuccessors, cvfPredecessorOffsets);
+        }
+
+        BitSet reachingInvariant = getBackwardClosure(insideInvariant, predecessorOffsets, predecessors,
+                cvfPredecessorOffsets, cvfPredecessors);
+        BitSet notReachingInvariant = new BitSet(numberOfConfigs);
+        notReachingInvariant.set(0, numberOfConfigs);
+        notReachingInvariant.andNot(reachingInvariant);
+        reachingInvariant = null;
+
+        BitSet infinite = getBackwardClosure(notReachingInvariant, predecessorOffsets, predecessors,
+                cvfPredecessorOffsets, cvfPredecessors);
+        for(int configIndex = infinite.nextSetBit(0); configIndex >= 0; configIndex = infinite.nextSetBit(configIndex + 1))
+            expectedSteps[configIndex] = Double.POSITIVE_INFINITY;
+        numberOfConfigsNotReachingInvariant = infinite.cardinality();
+    }
+
+    /**
+     * @param predecessorOffsets filled with offsets of predecessors of every config in the returned array
+     * @return predecessors of every config in compressed arrays, reversing the given successors
+     */
+    private int[] getPredecessors(int[] successorOffsets, int[] successors, int[] predecessorOffsets){
+        for(int configIndex = 0; configIndex < numberOfConfigs; configIndex ++){
+            for(int position = successorOffsets[configIndex]; position < successorOffsets[configIndex + 1]; position ++)
+                predecessorOffsets[successors[position] + 1] ++;
+        }
+        for(int configIndex = 0; configIndex < numberOfConfigs; configIndex ++)
+            predecessorOffsets[configIndex + 1] += predecessorOffsets[configIndex];
+
+        int[] predecessors = new int[predecessorOffsets[numberOfConfigs]];
+        int[] nextPosition = Arrays.copyOf(predecessorOffsets, numberOfConfigs);
+        for(int configIndex = 0; configIndex < numberOfConfigs; configIndex ++){
+            for(int position = successorOffsets[configIndex]; position < successorOffsets[configIndex + 1]; position ++)
+                predecessors[nextPosition[successors[position]] ++] = configIndex;
+        }
+        return predecessors;
+    }
+
+    /**
+     * @return the given configs and every config with a step to one of them, directly or through other configs.
+     *         A step to t is a program transition to t, or with cvfs a program transition to s followed by a cvf
+     *         from s to t
+     */
+    private BitSet getBackwardClosure(BitSet configs, int[] predecessorOffsets, int[] predecessors,
+                                      int[] cvfPredecessorOffsets, int[] cvfPredecessors){
+        BitSet closure = (BitSet) configs.clone();
+        int[] stack = new int[numberOfConfigs];
+        int stackSize = 0;
+        for(int configIndex = configs.nextSetBit(0); configIndex >= 0; configIndex = configs.nextSetBit(configIndex + 1))
+            stack[stackSize ++] = configIndex;
+
+        while(stackSize > 0){
+            int configIndex = stack[-- stackSize];
+            stackSize = pushPredecessors(configIndex, predecessorOffsets, predecessors, closure, stack, stackSize);
+            if(cvfPredecessorOffsets != null){
+                for(int position = cvfPredecessorOffsets[configIndex]; position < cvfPredecessorOffsets[configIndex + 1]; position ++)
+                    stackSize = pushPredecessors(cvfPredecessors[position], predecessorOffsets, predecessors, closure, stack, stackSize);
+            }
+        }
+        return closure;
+    }
+
+    /**
+     * Add program predecessors of a config not yet in closure to closure and stack
+     * @return new stack size
+     */
+    private static int pushPredecessors(int configIndex, int[] predecessorOffsets, int[] predecessors,
+                                        BitSet closure, int[] stack, int stackSize){
+        for(int position = predecessorOffsets[configIndex]; position < predecessorOffsets[configIndex + 1]; position ++){
+            int predecessor = predecessors[position];
+            if(!closure.get(predecessor)){
+                closure.set(predecessor);
+                stack[stackSize ++] = predecessor;
+            }
+        }
+        return stackSize;
+    }
+
+    public int getNumberOfConfigs() {
+        return numberOfConfigs;
+    }
+
+    public double getFaultProbability() {
+        return faultProbability;
+    }
+
+    /**
+     * @return expected number of program transitions to reach the invariant from a config,
+     *         positive infinity if the invariant may never be reached
+     */
+    public double getExpectedSteps(int configIndex){
+        return expectedSteps[configIndex];
+    }
+
+    /**
+     * @return number of configs from which the invariant is not reached with probability 1
+     */
+    public int getNumberOfConfigsNotReachingInvariant() {
+        return numberOfConfigsNotReachingInvariant;
+    }
+
+    public int getNumberOfSweeps() {
+        return numberOfSweeps;
+    }
+
+    /**
+     * @return largest change of an expected value in the last sweep, relative to the value
+     */
+    public double getLastChange() {
+        return lastChange;
+    }
+
+    /**
+     * @return whether sweeps stopped because expected values no longer change
+     */
+    public boolean isConverged() {
+        return converged;
+    }
+}
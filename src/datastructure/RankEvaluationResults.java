@@ -2,8 +2,6 @@ package datastructure;
 
 import template.ProgramConfigurationTemplate;
 
-import java.math.BigInteger;
-
 /**
  * This class encapsulates the results of rank evaluation of a program configuration
  */
@@ -25,15 +23,15 @@ public class RankEvaluationResults<T extends ProgramConfigurationTemplate> {
 //    private long rankTotal; // total of all ranks along all paths
 //    private long pathCount; // number of paths
 
-    private BigInteger rankTotal;
-    private BigInteger pathCount;
+    private PathCount rankTotal;
+    private PathCount pathCount;
 
 
     public RankEvaluationResults(){
         this.maxRank = -1; // for marking this instance is kind of null
     }
 
-    public RankEvaluationResults(int maxRank, int minRank, BigInteger rankTotal, BigInteger pathCount){
+    public RankEvaluationResults(int maxRank, int minRank, PathCount rankTotal, PathCount pathCount){
         this.maxRank = maxRank;
         this.minRank = minRank;
         this.rankTotal = rankTotal;
@@ -46,8 +44,8 @@ public class RankEvaluationResults<T extends ProgramConfigurationTemplate> {
         this.minRank = rank;
 //        this.rankTotal = rank;
 //        this.pathCount = 1;
-        this.rankTotal = BigInteger.valueOf(rank);
-        this.pathCount = BigInteger.valueOf(1);
+        this.rankTotal = new PathCount(rank);
+        this.pathCount = new PathCount(1);
 
     }
 
@@ -102,25 +100,25 @@ public class RankEvaluationResults<T extends ProgramConfigurationTemplate> {
 //    }
 
 
-    public BigInteger getRankTotal() {
+    public PathCount getRankTotal() {
         return rankTotal;
     }
 
-    public void setRankTotal(BigInteger rankTotal) {
+    public void setRankTotal(PathCount rankTotal) {
         this.rankTotal = rankTotal;
     }
 
-    public BigInteger getPathCount() {
+    public PathCount getPathCount() {
         return pathCount;
     }
 
-    public void setPathCount(BigInteger pathCount) {
+    public void setPathCount(PathCount pathCount) {
         this.pathCount = pathCount;
     }
 
     public int getAvgRank(){
 //        return (int) ((rankTotal + pathCount - 1)/pathCount);
-        return rankTotal.add(pathCount).subtract(BigInteger.ONE).divide(pathCount).intValue();
+        return PathCount.getAvgRank(rankTotal, pathCount);
     }
 
     public String toString(){
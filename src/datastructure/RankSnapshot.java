@@ -0,0 +1,145 @@
+package datastructure;
+
+import template.ProgramConfigurationTemplate;
+
+import java.io.*;
+import java.util.HashMap;
+import java.util.TreeMap;
+import java.util.Vector;
+
+/**
+ * Ranks of full analysis (edge-free storage) persisted in a binary file, so that a later run of the same program
+ * on the same topology, e.g. under another cvf model, loads them instead of computing them again.
+ * Ranks only depend on program transitions and the invariant, so they are valid as long as configuration indices
+ * mean the same configurations. This is checked with a fingerprint of the configuration encoding:
+ * program name, number of nodes, number of node states of every node (the radices of configuration index),
+ * graph topology and path count arithmetic.
+ * A cvf model enumerating other configurations (e.g. topology restriction in max-matching) has another fingerprint.
+ * File content:
+ *   magic string, fingerprint, number of configs, whether successors on longest paths are kept,
+ *   then for every configuration index: max rank, total path length, number of paths, min rank,
+ *   and successor on a longest path if kept.
+ * Path counts are kept rather than average ranks, so that ranks of other configs can still be derived from them.
+ * Successors on longest paths are only kept by runs writing witness paths.
+ */
+
+public class RankSnapshot {
+    private static final String MAGIC = "cvf-rank-snapshot-3";
+
+    /**
+     * @param programConfig any configuration of the program
+     * @param programName name of the program
+     * @param graphTopology neighbors of every node, null if topology is implicit
+     * @return fingerprint of the configuration encoding
+     */
+    public static String getFingerprint(ProgramConfigurationTemplate programConfig, String programName,
+                                        HashMap<Integer, Vector<Integer>> graphTopology){
+        StringBuilder fingerprint = new StringBuilder();
+        fingerprint.append("program=").append(programName);
+        fingerprint.append(" nodes=").append(programConfig.getNumberOfNodes());
+
+        fingerprint.append(" node-states=");
+        for(int nodeId = 0; nodeId < programConfig.getNumberOfNodes(); nodeId ++){
+            if(nodeId > 0)
+                fingerprint.append(',');
+            fingerprint.append(programConfig.getNumberOfNodeStates(nodeId));
+        }
+
+        // sorted by node, so that the fingerprint does not depend on hash order
+        fingerprint.append(" topology=").append(graphTopology == null ? "implicit" : new TreeMap<>(graphTopology).toString());
+        fingerprint.append(" path-count=").append(PathCount.logSpace ? "log-space" : "exact");
+
+        return fingerprint.toString();
+    }
+
+    /**
+     * Load ranks from a snapshot file into the given arrays, all of the size of the indexed state space
+     * @param maxRankSuccessor receives successors on longest paths, null if not needed
+     * @return true if loaded, false if the file does not exist, cannot be read, has another fingerprint,
+     *         or has no successors on longest paths while they are needed
+     */
+    public static boolean read(String fileName, String fingerprint,
+                               IndexedProgramConfigurationInformation configInfo,
+                               PackedRankArray minRank,
+                               int[] maxRankSuccessor){
+        File file = new File(fileName);
+        if(!file.exists()){
+            System.out.println("     rank snapshot " + fileName + " does not exist");
+            return false;
+        }
+
+        try(DataInputStream inputStream = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))){
+            if(!inputStream.readUTF().equals(MAGIC)){
+                System.out.println("     rank snapshot " + fileName + " is not a rank snapshot");
+                return false;
+            }
+
+            String snapshotFingerprint = inputStream.readUTF();
+            if(!snapshotFingerprint.equals(fingerprint)){
+                System.out.println("     rank snapshot " + fileName + " is of another configuration encoding:");
+                System.out.println("       snapshot: " + snapshotFingerprint);
+                System.out.println("       this run: " + fingerprint);
+                return false;
+            }
+
+            int numberOfConfigs = inputStream.readInt();
+            if(numberOfConfigs != configInfo.getNumberOfConfigs()){
+                System.out.println("     rank snapshot " + fileName + " has " + numberOfConfigs
+                        + " configs instead of " + configInfo.getNumberOfConfigs());
+                return false;
+            }
+
+            boolean hasMaxRankSuccessors = inputStream.readBoolean();
+            if(maxRankSuccessor != null && !hasMaxRankSuccessors){
+                System.out.println("     rank snapshot " + fileName + " has no successors on longest paths");
+                return false;
+            }
+
+            PathCount pathCount = new PathCount();
+            for(int configIndex = 0; configIndex < numberOfConfigs; configIndex ++){
+                configInfo.setMaxRank(configIndex, inputStream.readInt());
+                configInfo.setTotalPathLength(configIndex, pathCount.read(inputStream));
+                configInfo.setNumberOfPaths(configIndex, pathCount.read(inputStream));
+                minRank.set(configIndex, inputStream.readInt());
+                if(hasMaxRankSuccessors){
+                    int successorIndex = inputStream.readInt();
+                    if(maxRankSuccessor != null)
+                        maxRankSuccessor[configIndex] = successorIndex;
+                }
+            }
+        }catch(IOException e){
+            System.out.println("     rank snapshot " + fileName + " cannot be read: " + e.getMessage());
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Write ranks of every configuration index to a snapshot file, ranks must be final
+     * @param maxRankSuccessor successors on longest paths, null if not kept
+     */
+    public static void write(String fileName, String fingerprint,
+                             IndexedProgramConfigurationInformation configInfo,
+                             PackedRankArray minRank,
+                             int[] maxRankSuccessor){
+        try(DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(fileName)))){
+            outputStream.writeUTF(MAGIC);
+            outputStream.writeUTF(fingerprint);
+            outputStream.writeInt(configInfo.getNumberOfConfigs());
+            outputStream.writeBoolean(maxRankSuccessor != null);
+            PathCount pathCount = new PathCount();
+            for(int configIndex = 0; configIndex < configInfo.getNumberOfConfigs(); configIndex ++){
+                outputStream.writeInt(configInfo.getMaxRank(configIndex));
+                configInfo.getTotalPathLength(configIndex, pathCount).write(outputStream);
+                configInfo.getNumberOfPaths(configIndex, pathCount).write(outputStream);
+                outputStream.writeInt(minRank.get(configIndex));
+                if(maxRankSuccessor != null)
+                    outputStream.writeInt(maxRankSuccessor[configIndex]);
+            }
+        }catch(IOException e){
+            System.out.println("ERROR: RankSnapshot.write: cannot write " + fileName + ": " + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
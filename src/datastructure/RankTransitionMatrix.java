@@ -0,0 +1,141 @@
+package datastructure;
+
+import java.util.Arrays;
+
+import static template.ProgramConfigurationTemplate.INFINITY_RANK;
+
+/**
+ * Number of transitions from each source rank to each target rank, i.e. a rank effect distribution that keeps
+ * the ranks themselves (a +2 effect from rank 0 and one from rank 30 are counted apart).
+ * Counts are kept in a dense matrix indexed by [source rank][target rank], grown when a larger rank is added.
+ * Infinite rank is kept as an extra rank after the largest finite one.
+ * Counts are sums, so matrices counted over disjoint sets of transitions (e.g. by several threads) can be merged.
+ */
+
+public class RankTransitionMatrix {
+    private long[][] counts; // [source rank][target rank], finite ranks only
+    private long[] countsToInfinity; // [source rank]
+    private long[] countsFromInfinity; // [target rank]
+    private long countFromInfinityToInfinity;
+    private int maxRank; // largest finite rank added, -1 if none
+    private long numberOfTransitions;
+
+    /**
+     * @param expectedMaxRank expected largest finite rank, the matrix grows if a larger rank is added
+     */
+    public RankTransitionMatrix(int expectedMaxRank){
+        int size = Math.max(expectedMaxRank, 0) + 1;
+        counts = new long[size][size];
+        countsToInfinity = new long[size];
+        countsFromInfinity = new long[size];
+        maxRank = -1;
+    }
+
+    public RankTransitionMatrix(){
+        this(0);
+    }
+
+    /**
+     * Count one transition
+     * @param sourceRank rank of source config, INFINITY_RANK if infinite
+     * @param targetRank rank of target config, INFINITY_RANK if infinite
+     */
+    public void add(int sourceRank, int targetRank){
+        add(sourceRank, targetRank, 1);
+    }
+
+    public void add(int sourceRank, int targetRank, long count){
+        numberOfTransitions += count;
+
+        if(sourceRank == INFINITY_RANK){
+            if(targetRank == INFINITY_RANK){
+                countFromInfinityToInfinity += count;
+            }else{
+                ensureRank(targetRank);
+                countsFromInfinity[targetRank] += count;
+            }
+        }else if(targetRank == INFINITY_RANK){
+            ensureRank(sourceRank);
+            countsToInfinity[sourceRank] += count;
+        }else{
+            ensureRank(Math.max(sourceRank, targetRank));
+            counts[sourceRank][targetRank] += count;
+        }
+    }
+
+    /**
+     * Add counts of another matrix, e.g. counted by another thread over another range of configs
+     */
+    public void merge(RankTransitionMatrix other){
+        if(other.maxRank >= 0)
+            ensureRank(other.maxRank);
+
+        for(int sourceRank = 0; sourceRank <= other.maxRank; sourceRank ++){
+            for(int targetRank = 0; targetRank <= other.maxRank; targetRank ++)
+                counts[sourceRank][targetRank] += other.counts[sourceRank][targetRank];
+            countsToInfinity[sourceRank] += other.countsToInfinity[sourceRank];
+            countsFromInfinity[sourceRank] += other.countsFromInfinity[sourceRank];
+        }
+        countFromInfinityToInfinity += other.countFromInfinityToInfinity;
+        numberOfTransitions += other.numberOfTransitions;
+    }
+
+    private void ensureRank(int rank){
+        if(rank < 0){
+            System.out.println("ERROR: RankTransitionMatrix: negative rank " + rank);
+            System.exit(1);
+        }
+
+        if(rank >= counts.length){
+            int size = Math.max(rank + 1, 2 * counts.length);
+            long[][] newCounts = new long[size][];
+            for(int sourceRank = 0; sourceRank < size; sourceRank ++)
+                newCounts[sourceRank] = sourceRank < counts.length ? Arrays.copyOf(counts[sourceRank], size) : new long[size];
+            counts = newCounts;
+            countsToInfinity = Arrays.copyOf(countsToInfinity, size);
+            countsFromInfinity = Arrays.copyOf(countsFromInfinity, size);
+        }
+
+        maxRank = Math.max(maxRank, rank);
+    }
+
+    /**
+     * @return largest finite rank of a source or target, -1 if there is none
+     */
+    public int getMaxRank() {
+        return maxRank;
+    }
+
+    public long getNumberOfTransitions() {
+        return numberOfTransitions;
+    }
+
+    /**
+     * @param sourceRank rank of source, INFINITY_RANK if infinite
+     * @param targetRank rank of target, INFINITY_RANK if infinite
+     * @return number of transitions from sourceRank to targetRank
+     */
+    public long getCount(int sourceRank, int targetRank){
+        if(sourceRank == INFINITY_RANK)
+            return targetRank == INFINITY_RANK ? countFromInfinityToInfinity :
+                    (targetRank <= maxRank ? countsFromInfinity[targetRank] : 0);
+        if(sourceRank > maxRank)
+            return 0;
+        if(targetRank == INFINITY_RANK)
+            return countsToInfinity[sourceRank];
+        return targetRank <= maxRank ? counts[sourceRank][targetRank] : 0;
+    }
+
+    /**
+     * @return whether some source or target has infinite rank
+     */
+    public boolean hasInfiniteRank(){
+        if(countFromInfinityToInfinity > 0)
+            return true;
+        for(int rank = 0; rank <= maxRank; rank ++){
+            if(countsToInfinity[rank] > 0 || countsFromInfinity[rank] > 0)
+                return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,319 @@
+package datastructure;
+
+import template.ProgramConfigurationTemplate;
+import template.SuccessorInfo;
+
+import java.util.ArrayList;
+import java.util.TreeSet;
+
+/**
+ * Rank layers of the indexed state space computed symbolically with binary decision diagrams,
+ * without enumerating configurations.
+ * The state index of every node is encoded in binary; the variable of a bit of the current config
+ * is followed by the variable of the same bit of the successor config, and nodes are in order of node id.
+ *
+ * The program transitions of a node are a local relation between the states of the nodes it reads
+ * (getNodesReadByNode()) and its own next state. It is built from evaluateANodeActions() of the node
+ * over all states of the nodes it reads, which is small since actions are local.
+ * The invariant is built from the number of privileges of every node (getNumberOfPrivilegesInsideInvariant()).
+ *
+ * Predecessors of a set X are the union over nodes v of
+ *   exists next state of v: local relation of v and X with the state of v renamed to its next state
+ * Sets of configs by rank are then least fixpoints:
+ *   max rank at most k+1: max rank at most k, or outside the invariant with every successor of max rank at most k
+ *   min rank at most k+1: min rank at most k, or some successor of min rank at most k
+ * where max rank 0 also includes configs outside the invariant without successors, as in full analysis.
+ */
+
+public class SymbolicRankAnalysis {
+    // largest number of states of the nodes read by a node, they are enumerated to build local relations
+    public static final long MAX_SIZE_OF_LOCAL_STATE_SPACE = 1L << 24;
+
+    private ProgramConfigurationTemplate programConfig;
+    private BinaryDecisionDiagrams bdds;
+    private int numberOfNodes;
+
+    // per node
+    private int[] radix;
+    private long[] weight;
+    private int[] firstBit;        // bits of a node are firstBit .. firstBit + numberOfBits - 1
+    private int[] numberOfBits;
+    private int[] localRelation;   // program transitions of the node
+    private int[] nextStateSet;    // id of the set of next state variables of the node
+    private int[] toNextStateMap;  // id of the map renaming current state variables of the node to next state variables
+
+    private boolean[] currentStateVariables;
+
+    private int validConfigs;
+    private int invariant;
+
+    private long numberOfConfigsInsideInvariant;
+    private long numberOfConfigsReachingInvariant;
+    private ArrayList<Long> maxRankLayerSizes;
+    private ArrayList<Long> minRankLayerSizes;
+
+    /**
+     * Run the analysis. The given program configuration is used to build local relations and is changed.
+     * @param programConfig any configuration of the program,
+     *                      the program must implement getNodesReadByNode() and getNumberOfPrivilegesInsideInvariant()
+     */
+    public SymbolicRankAnalysis(ProgramConfigurationTemplate programConfig){
+        this.programConfig = programConfig;
+        numberOfNodes = programConfig.getNumberOfNodes();
+
+        radix = new int[numberOfNodes];
+        weight = new long[numberOfNodes];
+        firstBit = new int[numberOfNodes];
+        numberOfBits = new int[numberOfNodes];
+        int totalNumberOfBits = 0;
+        for(int nodeId = 0; nodeId < numberOfNodes; nodeId ++){
+            radix[nodeId] = programConfig.getNumberOfNodeStates(nodeId);
+            weight[nodeId] = programConfig.getNodeIndexWeight(nodeId);
+            firstBit[nodeId] = totalNumberOfBits;
+            numberOfBits[nodeId] = 32 - Integer.numberOfLeadingZeros(radix[nodeId] - 1);
+            totalNumberOfBits += numberOfBits[nodeId];
+        }
+
+        bdds = new BinaryDecisionDiagrams(2 * totalNumberOfBits);
+        currentStateVariables = new boolean[2 * totalNumberOfBits];
+        for(int bit = 0; bit < totalNumberOfBits; bit ++)
+            currentStateVariables[getVariable(bit, false)] = true;
+
+        validConfigs = BinaryDecisionDiagrams.TRUE;
+        for(int nodeId = 0; nodeId < numberOfNodes; nodeId ++){
+            int validNodeStates = BinaryDecisionDiagrams.FALSE;
+            for(int nodeStateIndex = 0; nodeStateIndex < radix[nodeId]; nodeStateIndex ++)
+                validNodeStates = bdds.or(validNodeStates, getNodeStateBdd(nodeId, nodeStateIndex, false));
+            validConfigs = bdds.and(validConfigs, validNodeStates);
+        }
+
+        buildLocalRelationsAndInvariant();
+        computeMaxRankLayers();
+        computeMinRankLayers();
+    }
+
+    /**
+     * @param bit position of the bit among the bits of all nodes
+     * @param next whether the bit is of the successor config
+     */
+    private static int getVariable(int bit, boolean next){
+        return 2 * bit + (next ? 1 : 0);
+    }
+
+    /**
+     * @return BDD of the configs where a node has a given state index, most significant bit first
+     */
+    private int getNodeStateBdd(int nodeId, int nodeStateIndex, boolean next){
+        int result = BinaryDecisionDiagrams.TRUE;
+        for(int position = 0; position < numberOfBits[nodeId]; position ++){
+            boolean value = ((nodeStateIndex >> (numberOfBits[nodeId] - 1 - position)) & 1) == 1;
+            result = bdds.and(result, bdds.getLiteral(getVariable(firstBit[nodeId] + position, next), value));
+        }
+        return result;
+    }
+
+    /**
+     * Build the local relation and the BDDs of number of privileges of every node,
+     * then the invariant as the configs whose total number of privileges is as required
+     */
+    private void buildLocalRelationsAndInvariant(){
+        int numberOfPrivilegesInsideInvariant = programConfig.getNumberOfPrivilegesInsideInvariant();
+        if(numberOfPrivilegesInsideInvariant < 0){
+            System.out.println("ERROR: SymbolicRankAnalysis: invariant of the program is not defined by its number of privileges");
+            System.exit(1);
+        }
+
+        localRelation = new int[numberOfNodes];
+        nextStateSet = new int[numberOfNodes];
+        toNextStateMap = new int[numberOfNodes];
+
+        // configs where the number of privileges of nodes so far is count, the last one for more than required
+        int[] privilegeCountSoFar = new int[numberOfPrivilegesInsideInvariant + 2];
+        privilegeCountSoFar[0] = BinaryDecisionDiagrams.TRUE;
+        for(int count = 1; count < privilegeCountSoFar.length; count ++)
+            privilegeCountSoFar[count] = BinaryDecisionDiagrams.FALSE;
+
+        for(int nodeId = 0; nodeId < numberOfNodes; nodeId ++){
+            int[] nodesRead = programConfig.getNodesReadByNode(nodeId);
+            if(nodesRead == null){
+                System.out.println("ERROR: SymbolicRankAnalysis: program does not tell the nodes read by node " + nodeId);
+                System.exit(1);
+            }
+
+            long sizeOfLocalStateSpace = 1;
+            for(int readNodeId : nodesRead){
+                sizeOfLocalStateSpace *= radix[readNodeId];
+                if(sizeOfLocalStateSpace > MAX_SIZE_OF_LOCAL_STATE_SPACE){
+                    System.out.println("ERROR: SymbolicRankAnalysis: states of nodes read by node " + nodeId
+                            + " exceed the limit of " + MAX_SIZE_OF_LOCAL_STATE_SPACE);
+                    System.exit(1);
+                }
+            }
+
+            // configs where this node has a number of privileges, capped as privilegeCountSoFar
+            int[] nodePrivilegeCount = new int[privilegeCountSoFar.length];
+            for(int count = 0; count < nodePrivilegeCount.length; count ++)
+                nodePrivilegeCount[count] = BinaryDecisionDiagrams.FALSE;
+
+            // enumerate the states of nodes read, other nodes are in state index 0
+            int relation = BinaryDecisionDiagrams.FALSE;
+            int[] localStateIndex = new int[nodesRead.length];
+            for(long localIndex = 0; localIndex < sizeOfLocalStateSpace; localIndex ++){
+                long remainder = localIndex;
+                long configIndex = 0;
+                int localStateBdd = BinaryDecisionDiagrams.TRUE;
+                for(int position = nodesRead.length - 1; position >= 0; position --){
+                    int readNodeId = nodesRead[position];
+                    localStateIndex[position] = (int) (remainder % radix[readNodeId]);
+                    remainder = remainder / radix[readNodeId];
+                    configIndex += localStateIndex[position] * weight[readNodeId];
+                    localStateBdd = bdds.and(localStateBdd, getNodeStateBdd(readNodeId, localStateIndex[position], false));
+                }
+
+                programConfig.moveToProgramConfigIndex(configIndex);
+                NodeActionEvaluationResults evaluationResults = programConfig.evaluateANodeActions(nodeId);
+                int count = Math.min(evaluationResults.getPrivilegeCount(), nodePrivilegeCount.length - 1);
+                nodePrivilegeCount[count] = bdds.or(nodePrivilegeCount[count], localStateBdd);
+
+                for(SuccessorInfo successor : (TreeSet<SuccessorInfo>) evaluationResults.getSuccessorList()){
+                    ProgramConfigurationTemplate successorConfig = successor.getSuccessorProgramConfig();
+                    int nextStateIndex = successorConfig.getNodeStateIndex(nodeId);
+                    long successorIndex = successorConfig.getProgramConfigIndex();
+                    if(nextStateIndex < 0 || successorIndex < 0){
+                        System.out.println("ERROR: SymbolicRankAnalysis: successor of node " + nodeId + " is outside the indexed state space");
+                        System.exit(1);
+                    }
+                    if(successorIndex - configIndex != (nextStateIndex - programConfig.getNodeStateIndex(nodeId)) * weight[nodeId]){
+                        System.out.println("ERROR: SymbolicRankAnalysis: action of node " + nodeId + " changes other nodes");
+                        System.exit(1);
+                    }
+
+                    relation = bdds.or(relation, bdds.and(localStateBdd, getNodeStateBdd(nodeId, nextStateIndex, true)));
+                }
+            }
+            localRelation[nodeId] = relation;
+
+            int[] newPrivilegeCountSoFar = new int[privilegeCountSoFar.length];
+            for(int count = 0; count < newPrivilegeCountSoFar.length; count ++)
+                newPrivilegeCountSoFar[count] = BinaryDecisionDiagrams.FALSE;
+            for(int countSoFar = 0; countSoFar < privilegeCountSoFar.length; countSoFar ++){
+                for(int count = 0; count < nodePrivilegeCount.length; count ++){
+                    int newCount = Math.min(countSoFar + count, newPrivilegeCountSoFar.length - 1);
+                    newPrivilegeCountSoFar[newCount] = bdds.or(newPrivilegeCountSoFar[newCount],
+                            bdds.and(privilegeCountSoFar[countSoFar], nodePrivilegeCount[count]));
+                }
+            }
+            privilegeCountSoFar = newPrivilegeCountSoFar;
+
+            // quantification and renaming of the state of this node
+            boolean[] nextStateVariables = new boolean[bdds.getNumberOfVariables()];
+            int[] variableMap = new int[bdds.getNumberOfVariables()];
+            for(int var = 0; var < variableMap.length; var ++)
+                variableMap[var] = var;
+            for(int position = 0; position < numberOfBits[nodeId]; position ++){
+                int bit = firstBit[nodeId] + position;
+                nextStateVariables[getVariable(bit, true)] = true;
+                variableMap[getVariable(bit, false)] = getVariable(bit, true);
+            }
+            nextStateSet[nodeId] = bdds.addVariableSet(nextStateVariables);
+            toNextStateMap[nodeId] = bdds.addVariableMap(variableMap);
+        }
+
+        invariant = bdds.and(validConfigs, privilegeCountSoFar[numberOfPrivilegesInsideInvariant]);
+        numberOfConfigsInsideInvariant = bdds.getSatisfyingCount(invariant, currentStateVariables);
+    }
+
+    /**
+     * @param configs set of configs, over current state variables
+     * @return set of configs with some successor in the given set
+     */
+    private int getPredecessors(int configs){
+        int predecessors = BinaryDecisionDiagrams.FALSE;
+        for(int nodeId = 0; nodeId < numberOfNodes; nodeId ++){
+            int renamedConfigs = bdds.replace(configs, toNextStateMap[nodeId]);
+            predecessors = bdds.or(predecessors, bdds.andExists(localRelation[nodeId], renamedConfigs, nextStateSet[nodeId]));
+        }
+        return bdds.and(validConfigs, predecessors);
+    }
+
+    private void computeMaxRankLayers(){
+        maxRankLayerSizes = new ArrayList<>();
+
+        int outsideInvariant = bdds.andNot(validConfigs, invariant);
+        int withoutSuccessor = bdds.andNot(outsideInvariant, getPredecessors(validConfigs));
+        int rankAtMost = bdds.or(invariant, withoutSuccessor);
+        long countAtMost = bdds.getSatisfyingCount(rankAtMost, currentStateVariables);
+        maxRankLayerSizes.add(countAtMost);
+
+        while(true){
+            // outside the invariant and every successor is of rank at most the current rank
+            int someSuccessorOfLargerRank = getPredecessors(bdds.andNot(validConfigs, rankAtMost));
+            int newRankAtMost = bdds.or(rankAtMost, bdds.andNot(outsideInvariant, someSuccessorOfLargerRank));
+            if(newRankAtMost == rankAtMost)
+                break;
+
+            long newCountAtMost = bdds.getSatisfyingCount(newRankAtMost, currentStateVariables);
+            maxRankLayerSizes.add(newCountAtMost - countAtMost);
+            rankAtMost = newRankAtMost;
+            countAtMost = newCountAtMost;
+        }
+    }
+
+    private void computeMinRankLayers(){
+        minRankLayerSizes = new ArrayList<>();
+
+        int rankAtMost = invariant;
+        long countAtMost = numberOfConfigsInsideInvariant;
+        minRankLayerSizes.add(countAtMost);
+
+        while(true){
+            int newRankAtMost = bdds.or(rankAtMost, getPredecessors(rankAtMost));
+            if(newRankAtMost == rankAtMost)
+                break;
+
+            long newCountAtMost = bdds.getSatisfyingCount(newRankAtMost, currentStateVariables);
+            minRankLayerSizes.add(newCountAtMost - countAtMost);
+            rankAtMost = newRankAtMost;
+            countAtMost = newCountAtMost;
+        }
+
+        numberOfConfigsReachingInvariant = countAtMost;
+    }
+
+    public long getNumberOfConfigs() {
+        return bdds.getSatisfyingCount(validConfigs, currentStateVariables);
+    }
+
+    public long getNumberOfConfigsInsideInvariant() {
+        return numberOfConfigsInsideInvariant;
+    }
+
+    /**
+     * @return number of configs from which the invariant is reachable, i.e. of finite min rank
+     */
+    public long getNumberOfConfigsReachingInvariant() {
+        return numberOfConfigsReachingInvariant;
+    }
+
+    /**
+     * @return per max rank, number of configs of that max rank
+     */
+    public ArrayList<Long> getMaxRankLayerSizes() {
+        return maxRankLayerSizes;
+    }
+
+    /**
+     * @return per min rank, number of configs of that min rank
+     */
+    public ArrayList<Long> getMinRankLayerSizes() {
+        return minRankLayerSizes;
+    }
+
+    public int getNumberOfBddNodes() {
+        return bdds.getNumberOfNodes();
+    }
+
+    public int getNumberOfBddVariables() {
+        return bdds.getNumberOfVariables();
+    }
+}
@@ -0,0 +1,173 @@
+package datastructure;
+
+import template.ProgramConfigurationTemplate;
+import template.SuccessorInfo;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Ranks and rank effects computed over one representative config per orbit under graph automorphisms
+ * (see ConfigurationOrbits). Configs of an orbit have the same ranks and the same rank effects up to renaming
+ * of nodes, so ranks are computed for representatives only and counted with the sizes of their orbits.
+ * Successors of program transitions are kept as positions of their representatives, with multiplicity,
+ * so representatives form a quotient of the state graph (see QuotientRankAnalysis).
+ * The results are the same as those of full analysis, including the per-node distributions.
+ */
+
+public class SymmetricRankAnalysis {
+    private ProgramConfigurationTemplate programConfig;
+    private int numberOfNodes;
+
+    private ConfigurationOrbits configOrbits;
+    private IndexedProgramConfigurationInformation representativeInfo; // indexed by position of representative
+    private int[][] representativeSuccessors; // positions of representatives of program transition successors
+    private boolean[] representativeInsideInvariant;
+
+    /**
+     * Enumerate the representatives and their program transition successors.
+     * The given program configuration is used for enumeration and is changed.
+     * @param programConfig any configuration of the program
+     * @param automorphisms group of automorphisms, must be complete
+     */
+    public SymmetricRankAnalysis(ProgramConfigurationTemplate programConfig, GraphAutomorphisms automorphisms){
+        this.programConfig = programConfig;
+        numberOfNodes = programConfig.getNumberOfNodes();
+
+        configOrbits = new ConfigurationOrbits(programConfig, automorphisms);
+        int numberOfRepresentatives = configOrbits.getNumberOfRepresentatives();
+
+        representativeInfo = new IndexedProgramConfigurationInformation(numberOfRepresentatives, numberOfNodes * numberOfNodes);
+        representativeSuccessors = new int[numberOfRepresentatives][];
+        representativeInsideInvariant = new boolean[numberOfRepresentatives];
+        for(int position = 0; position < numberOfRepresentatives; position ++){
+            programConfig.moveToProgramConfigIndex(configOrbits.getRepresentativeIndexAt(position));
+            representativeInsideInvariant[position] = programConfig.isInsideInvariant();
+            if(representativeInsideInvariant[position]){
+                representativeSuccessors[position] = new int[0];
+                continue;
+            }
+
+            long[] successorIndices = programConfig.getProgramConfigTransSuccessorIndices();
+            representativeSuccessors[position] = new int[successorIndices.length];
+            for(int successorPosition = 0; successorPosition < successorIndices.length; successorPosition ++){
+                if(successorIndices[successorPosition] < 0){
+                    System.out.println("ERROR: SymmetricRankAnalysis: successor of config index "
+                            + configOrbits.getRepresentativeIndexAt(position) + " is outside the indexed state space");
+                    System.exit(1);
+                }
+                representativeSuccessors[position][successorPosition] =
+                        configOrbits.getRepresentativePosition(successorIndices[successorPosition]);
+            }
+        }
+    }
+
+    /**
+     * compute maximum rank and average rank for every representative config
+     * (see QuotientRankAnalysis.computeMaxAndAverageRanks()), weighted by orbit size
+     * @param maxAnaResults receives max rank distribution
+     * @param avgAnaResults receives average rank distribution
+     * @return number of representatives outside the invariant whose ranks are computed
+     */
+    public int computeMaxAndAverageRanks(AnalysisResults<?> maxAnaResults, AnalysisResults<?> avgAnaResults){
+        return QuotientRankAnalysis.computeMaxAndAverageRanks(representativeSuccessors, representativeInsideInvariant,
+                configOrbits::getOrbitSizeAt, representativeInfo, maxAnaResults, avgAnaResults);
+    }
+
+    /**
+     * compute the rank effect of program transitions and cvfs of every representative, all ranks must be final.
+     * Transitions of a representative are counted as many times as the size of its orbit
+     * (see QuotientRankAnalysis.addRankEffectOfProgramTransitions()).
+     * For the per-node distributions, a cvf changing node v of the representative stands for
+     * the cvfs changing the images of v under all automorphisms, so it is counted for every node u
+     * as many times as automorphisms map v to u; every config of the orbit is then counted
+     * (number of automorphisms / size of orbit) times, which is divided out.
+     * @param maxAnaResults receives rank effects on max rank, rank effect distributions must be initialized
+     * @param avgAnaResults receives rank effects on average rank, rank effect distributions must be initialized
+     */
+    public void computeRankEffectOfProgramTransitionsAndCvfs(AnalysisResults<?> maxAnaResults, AnalysisResults<?> avgAnaResults){
+        QuotientRankAnalysis.addRankEffectOfProgramTransitions(representativeSuccessors, representativeInsideInvariant,
+                configOrbits::getOrbitSizeAt, representativeInfo, maxAnaResults, avgAnaResults);
+
+        // per-node counts of the cvfs outside the invariant of one representative, keyed by rank effect
+        TreeMap<Integer, long[]> maxPerNodeCounts = new TreeMap<>();
+        TreeMap<Integer, long[]> avgPerNodeCounts = new TreeMap<>();
+
+        for(int position = 0; position < configOrbits.getNumberOfRepresentatives(); position ++){
+            programConfig.moveToProgramConfigIndex(configOrbits.getRepresentativeIndexAt(position));
+            int orbitSize = configOrbits.getOrbitSizeAt(position);
+            int progConfigMaxRank = representativeInfo.getMaxRank(position);
+            int progConfigAvgRank = representativeInfo.getAvgRank(position);
+
+            // cvf transitions
+            int cvfTransitionKind = representativeInsideInvariant[position] ?
+                    PendingRankEffects.CVF_INSIDE_INV : PendingRankEffects.CVF_OUTSIDE_INV;
+            maxPerNodeCounts.clear();
+            avgPerNodeCounts.clear();
+            for (SuccessorInfo cvfSuccessor : (TreeSet<SuccessorInfo>) programConfig.getProgramConfigCvfSuccessorList()) {
+                long cvfSuccessorIndex = cvfSuccessor.getSuccessorProgramConfig().getProgramConfigIndex();
+                if(cvfSuccessorIndex < 0){
+                    System.out.println("  ERROR: cvfSuccessor " + cvfSuccessor.toString() + " is outside the indexed state space");
+                    System.exit(1);
+                }
+
+                int cvfSuccessorPosition = configOrbits.getRepresentativePosition(cvfSuccessorIndex);
+                int maxRankEffect = representativeInfo.getMaxRank(cvfSuccessorPosition) - progConfigMaxRank;
+                int avgRankEffect = representativeInfo.getAvgRank(cvfSuccessorPosition) - progConfigAvgRank;
+                QuotientRankAnalysis.addWeightedRankEffect(maxAnaResults, cvfTransitionKind, maxRankEffect, orbitSize);
+                QuotientRankAnalysis.addWeightedRankEffect(avgAnaResults, cvfTransitionKind, avgRankEffect, orbitSize);
+
+                if(cvfTransitionKind == PendingRankEffects.CVF_OUTSIDE_INV){
+                    addPerNodeCounts(maxPerNodeCounts, cvfSuccessor.getIdOfChangedNode(), maxRankEffect);
+                    addPerNodeCounts(avgPerNodeCounts, cvfSuccessor.getIdOfChangedNode(), avgRankEffect);
+                }
+            }
+
+            int stabilizerSize = configOrbits.getNumberOfAutomorphisms() / orbitSize;
+            addPerNodeRankEffects(maxAnaResults, maxPerNodeCounts, stabilizerSize);
+            addPerNodeRankEffects(avgAnaResults, avgPerNodeCounts, stabilizerSize);
+        }
+    }
+
+    /**
+     * Count a cvf outside the invariant changing a node of a representative for every image of the node
+     * @param perNodeCounts counts per node, keyed by rank effect
+     * @param idOfChangedNode node changed by the cvf
+     * @param rankEffect rank of target - rank of source
+     */
+    private void addPerNodeCounts(TreeMap<Integer, long[]> perNodeCounts, int idOfChangedNode, int rankEffect){
+        long[] counts = perNodeCounts.computeIfAbsent(rankEffect, effect -> new long[numberOfNodes]);
+        for(int nodeId = 0; nodeId < numberOfNodes; nodeId ++)
+            counts[nodeId] += configOrbits.getNumberOfMappings(idOfChangedNode, nodeId);
+    }
+
+    /**
+     * Add per-node counts of the cvfs outside the invariant of one representative to per-node distributions
+     * @param anaResults receives the rank effects
+     * @param perNodeCounts counts per node, keyed by rank effect
+     * @param stabilizerSize number of automorphisms fixing the representative
+     */
+    private void addPerNodeRankEffects(AnalysisResults<?> anaResults, TreeMap<Integer, long[]> perNodeCounts, int stabilizerSize){
+        for(Map.Entry<Integer, long[]> entry : perNodeCounts.entrySet()){
+            for(int nodeId = 0; nodeId < numberOfNodes; nodeId ++){
+                long count = entry.getValue()[nodeId];
+                if(count % stabilizerSize != 0){
+                    System.out.println("ERROR: SymmetricRankAnalysis: count " + count + " of node " + nodeId
+                            + " is not a multiple of stabilizer size " + stabilizerSize);
+                    System.exit(1);
+                }
+                if(count > 0)
+                    anaResults.getPerNodeCvfOutsideInvRankEffectDistribution().elementAt(nodeId).add(entry.getKey(), count / stabilizerSize);
+            }
+        }
+    }
+
+    public int getNumberOfAutomorphisms() {
+        return configOrbits.getNumberOfAutomorphisms();
+    }
+
+    public int getNumberOfRepresentatives() {
+        return configOrbits.getNumberOfRepresentatives();
+    }
+}
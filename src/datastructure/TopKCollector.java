@@ -0,0 +1,136 @@
+package datastructure;
+
+import java.util.Arrays;
+
+/**
+ * The k items of largest priority among a stream of (priority, item) pairs, where an item is a long
+ * (e.g. a configuration index, or two indices packed in one long).
+ * Items are kept in a bounded min-heap in primitive arrays: the root is the smallest kept item,
+ * and a new item replaces it only if it is larger, so adding an item is O(log k) and mostly O(1).
+ * Items of equal priority are ordered by item, the smaller item is larger,
+ * so the kept items do not depend on the order in which they are added.
+ * Hence collectors filled by several threads can be merged into the same result as one collector.
+ */
+
+public class TopKCollector {
+    private int capacity;
+    private int size;
+
+    // heap in arrays, children of position p are at 2p + 1 and 2p + 2
+    private double[] priorities;
+    private long[] items;
+
+    /**
+     * @param capacity k, at least 0
+     */
+    public TopKCollector(int capacity){
+        this.capacity = capacity;
+        size = 0;
+        priorities = new double[capacity];
+        items = new long[capacity];
+    }
+
+    public int getCapacity(){
+        return capacity;
+    }
+
+    public int getSize(){
+        return size;
+    }
+
+    /**
+     * Add an item, it is dropped if k larger items are kept
+     */
+    public void add(double priority, long item){
+        if(size < capacity){
+            priorities[size] = priority;
+            items[size] = item;
+            siftUp(size);
+            size ++;
+            return;
+        }
+
+        if(capacity == 0 || !isLarger(priority, item, priorities[0], items[0]))
+            return;
+
+        priorities[0] = priority;
+        items[0] = item;
+        siftDown(0);
+    }
+
+    /**
+     * Add all items of another collector
+     */
+    public void merge(TopKCollector other){
+        for(int position = 0; position < other.size; position ++)
+            add(other.priorities[position], other.items[position]);
+    }
+
+    /**
+     * @return positions of the kept items in decreasing order, see getPriority() and getItem()
+     */
+    public int[] getOrder(){
+        Integer[] order = new Integer[size];
+        for(int position = 0; position < size; position ++)
+            order[position] = position;
+        Arrays.sort(order, (first, second) -> {
+            if(isLarger(priorities[first], items[first], priorities[second], items[second]))
+                return -1;
+            if(isLarger(priorities[second], items[second], priorities[first], items[first]))
+                return 1;
+            return 0;
+        });
+
+        int[] result = new int[size];
+        for(int position = 0; position < size; position ++)
+            result[position] = order[position];
+        return result;
+    }
+
+    public double getPriority(int position){
+        return priorities[position];
+    }
+
+    public long getItem(int position){
+        return items[position];
+    }
+
+    private static boolean isLarger(double priority, long item, double otherPriority, long otherItem){
+        int comparison = Double.compare(priority, otherPriority);
+        return (comparison > 0) || (comparison == 0 && item < otherItem);
+    }
+
+    private void siftUp(int position){
+        while(position > 0){
+            int parent = (position - 1) / 2;
+            if(!isLarger(priorities[parent], items[parent], priorities[position], items[position]))
+                return;
+            swap(parent, position);
+            position = parent;
+        }
+    }
+
+    private void siftDown(int position){
+        while(true){
+            int smallest = position;
+            for(int child = 2 * position + 1; child <= 2 * position + 2 && child < size; child ++){
+                if(isLarger(priorities[smallest], items[smallest], priorities[child], items[child]))
+                    smallest = child;
+            }
+            if(smallest == position)
+                return;
+            swap(smallest, position);
+            position = smallest;
+        }
+    }
+
+    private void swap(int first, int second){
+        double priority = priorities[first];
+        priorities[first] = priorities[second];
+        priorities[second] = priority;
+
+        long item = items[first];
+        items[first] = items[second];
+        items[second] = item;
+    }
+}
@@ -0,0 +1,292 @@
+package datastructure;
+
+import template.ProgramConfigurationTemplate;
+
+import java.util.Arrays;
+
+/**
+ * Coarsest partition of the configurations of the indexed state space such that
+ * configs of a block are all inside or all outside the invariant, and configs of a block outside the invariant
+ * have the same number of program transitions into every block, i.e. a bisimulation of the
+ * program transition graph where edges are counted with multiplicity (lumping).
+ * Configs of a block have the same max rank and the same average rank, so ranks can be computed
+ * on the quotient graph with one config per block and weighted by block size.
+ * Transitions of configs inside the invariant are not considered, as in rank computation.
+ *
+ * The partition is refined Paige-Tarjan style: starting from {outside invariant, inside invariant},
+ * a block taken from a worklist is used as splitter, the number of edges into it is counted
+ * for every predecessor and every block is split by this count.
+ * When a block that is not in the worklist is split, all parts but the largest are added to the worklist,
+ * since counts into the largest part follow from counts into the other parts and into the block.
+ * Configs of a block are kept in a contiguous range of one array so that splitting moves configs in place.
+ */
+
+public class TransitionBisimulation {
+    private static final int INITIAL_NUMBER_OF_BLOCKS = 1024;
+
+    private ProgramConfigurationTemplate programConfig;
+    private InvertedTransitionIndex invertedIndex;
+    private int numberOfConfigs;
+
+    // per position, configs of a block are in [blockStart, blockEnd)
+    private int[] configs;
+
+    // per config
+    private int[] positionOf;
+    private int[] blockOf;
+    private int[] edgeCount;        // number of edges into the current splitter
+    private boolean[] insideInvariant;
+
+    // predecessors of the current splitter with edgeCount > 0
+    private int[] touchedConfigs;
+    private int numberOfTouchedConfigs;
+
+    // per block
+    private int[] blockStart;
+    private int[] blockEnd;
+    private boolean[] blockInWorklist;
+    private int numberOfBlocks;
+
+    private int[] worklist;
+    private int worklistSize;
+
+    /**
+     * Compute the partition. The given program configuration is used for enumeration and is changed.
+     * @param programConfig any configuration of the program
+     * @param invertedIndex inverted index of program transitions, null if predecessors are generated by program
+     */
+    public TransitionBisimulation(ProgramConfigurationTemplate programConfig, InvertedTransitionIndex invertedIndex){
+        this.programConfig = programConfig;
+        this.invertedIndex = invertedIndex;
+        numberOfConfigs = (int) programConfig.getSizeOfIndexedStateSpace();
+
+        configs = new int[numberOfConfigs];
+        positionOf = new int[numberOfConfigs];
+        blockOf = new int[numberOfConfigs];
+        edgeCount = new int[numberOfConfigs];
+        insideInvariant = new boolean[numberOfConfigs];
+        touchedConfigs = new int[numberOfConfigs];
+
+        blockStart = new int[INITIAL_NUMBER_OF_BLOCKS];
+        blockEnd = new int[INITIAL_NUMBER_OF_BLOCKS];
+        blockInWorklist = new boolean[INITIAL_NUMBER_OF_BLOCKS];
+        worklist = new int[INITIAL_NUMBER_OF_BLOCKS];
+        numberOfBlocks = 0;
+        worklistSize = 0;
+
+        // initial partition: configs outside the invariant, then configs inside the invariant
+        int numberOfConfigsOutsideInvariant = 0;
+        for(int configIndex = 0; configIndex < numberOfConfigs; configIndex ++){
+            programConfig.moveToProgramConfigIndex(configIndex);
+            insideInvariant[configIndex] = programConfig.isInsideInvariant();
+            if(!insideInvariant[configIndex])
+                placeConfig(configIndex, numberOfConfigsOutsideInvariant ++);
+        }
+        int position = numberOfConfigsOutsideInvariant;
+        for(int configIndex = 0; configIndex < numberOfConfigs; configIndex ++){
+            if(insideInvariant[configIndex])
+                placeConfig(configIndex, position ++);
+        }
+
+        if(numberOfConfigsOutsideInvariant > 0)
+            addToWorklist(newBlock(0, numberOfConfigsOutsideInvariant));
+        if(numberOfConfigsOutsideInvariant < numberOfConfigs)
+            addToWorklist(newBlock(numberOfConfigsOutsideInvariant, numberOfConfigs));
+
+        while(worklistSize > 0){
+            int splitter = worklist[-- worklistSize];
+            blockInWorklist[splitter] = false;
+            refine(splitter);
+        }
+    }
+
+    private void placeConfig(int configIndex, int position){
+        configs[position] = configIndex;
+        positionOf[configIndex] = position;
+    }
+
+    /**
+     * @return id of a new block of configs in [start, end)
+     */
+    private int newBlock(int start, int end){
+        if(numberOfBlocks == blockStart.length){
+            blockStart = Arrays.copyOf(blockStart, 2 * numberOfBlocks);
+            blockEnd = Arrays.copyOf(blockEnd, 2 * numberOfBlocks);
+            blockInWorklist = Arrays.copyOf(blockInWorklist, 2 * numberOfBlocks);
+            worklist = Arrays.copyOf(worklist, 2 * numberOfBlocks);
+        }
+
+        int block = numberOfBlocks ++;
+        blockStart[block] = start;
+        blockEnd[block] = end;
+        for(int position = start; position < end; position ++)
+            blockOf[configs[position]] = block;
+        return block;
+    }
+
+    private void addToWorklist(int block){
+        if(!blockInWorklist[block]){
+            blockInWorklist[block] = true;
+            worklist[worklistSize ++] = block;
+        }
+    }
+
+    /**
+     * Split every block by the number of edges of its configs into the splitter
+     */
+    private void refine(int splitter){
+        // the splitter itself may be split below
+        int[] splitterConfigs = Arrays.copyOfRange(configs, blockStart[splitter], blockEnd[splitter]);
+
+        numberOfTouchedConfigs = 0;
+        for(int configIndex : splitterConfigs){
+            if(invertedIndex == null){
+                programConfig.moveToProgramConfigIndex(configIndex);
+                programConfig.forEachTransPredecessor(this::countEdge);
+            }else{
+                invertedIndex.forEachTransPredecessor(configIndex, this::countEdge);
+            }
+        }
+
+        // group predecessors by block
+        long[] blockAndConfig = new long[numberOfTouchedConfigs];
+        for(int position = 0; position < numberOfTouchedConfigs; position ++){
+            int configIndex = touchedConfigs[position];
+            blockAndConfig[position] = ((long) blockOf[configIndex] << 32) | configIndex;
+        }
+        Arrays.sort(blockAndConfig);
+
+        int groupStart = 0;
+        while(groupStart < blockAndConfig.length){
+            int block = (int) (blockAndConfig[groupStart] >>> 32);
+            int groupEnd = groupStart;
+            while(groupEnd < blockAndConfig.length && (int) (blockAndConfig[groupEnd] >>> 32) == block)
+                groupEnd ++;
+
+            splitBlock(block, blockAndConfig, groupStart, groupEnd);
+            groupStart = groupEnd;
+        }
+
+        for(int position = 0; position < numberOfTouchedConfigs; position ++)
+            edgeCount[touchedConfigs[position]] = 0;
+    }
+
+    private void countEdge(long predecessorIndex){
+        int configIndex = (int) predecessorIndex;
+        if(insideInvariant[configIndex])
+            return;
+
+        if(edgeCount[configIndex] == 0)
+            touchedConfigs[numberOfTouchedConfigs ++] = configIndex;
+        edgeCount[configIndex] ++;
+    }
+
+    /**
+     * Split a block by edge counts of its configs: configs without edges into the splitter stay in front,
+     * configs with edges are moved to the end of the block in increasing order of edge count
+     * @param block block to be split
+     * @param blockAndConfig block and config of touched configs
+     * @param groupStart first touched config of the block
+     * @param groupEnd end of touched configs of the block
+     */
+    private void splitBlock(int block, long[] blockAndConfig, int groupStart, int groupEnd){
+        int numberOfTouchedInBlock = groupEnd - groupStart;
+        long[] countAndConfig = new long[numberOfTouchedInBlock];
+        for(int position = 0; position < numberOfTouchedInBlock; position ++){
+            int configIndex = (int) blockAndConfig[groupStart + position];
+            countAndConfig[position] = ((long) edgeCount[configIndex] << 32) | configIndex;
+        }
+        Arrays.sort(countAndConfig);
+
+        int start = blockStart[block];
+        int end = blockEnd[block];
+        if(numberOfTouchedInBlock == end - start && (countAndConfig[0] >>> 32) == (countAndConfig[numberOfTouchedInBlock - 1] >>> 32)){
+            // every config has the same number of edges into the splitter
+            return;
+        }
+
+        // move touched configs to the end of the block
+        int firstTouchedPosition = end - numberOfTouchedInBlock;
+        for(int position = 0; position < numberOfTouchedInBlock; position ++){
+            int configIndex = (int) countAndConfig[position];
+            int targetPosition = firstTouchedPosition + position;
+            int displacedConfig = configs[targetPosition];
+            placeConfig(displacedConfig, positionOf[configIndex]);
+            placeConfig(configIndex, targetPosition);
+        }
+
+        // parts in order: untouched configs (if any), then one part per edge count
+        boolean wasInWorklist = blockInWorklist[block];
+        int firstNewPart = numberOfBlocks;
+        int largestPart = block;
+        int largestPartSize = 0;
+        int partStart = start;
+        int partEnd = firstTouchedPosition;
+        int touchedPosition = 0;
+        boolean firstPart = true;
+        while(partStart < end){
+            if(partEnd == partStart){
+                // next part: configs with the same edge count
+                long count = countAndConfig[touchedPosition] >>> 32;
+                while(touchedPosition < numberOfTouchedInBlock && (countAndConfig[touchedPosition] >>> 32) == count)
+                    touchedPosition ++;
+                partEnd = firstTouchedPosition + touchedPosition;
+            }
+
+            int part;
+            if(firstPart){
+                // the first part keeps the id of the block
+                part = block;
+                blockEnd[block] = partEnd;
+                firstPart = false;
+            }else{
+                part = newBlock(partStart, partEnd);
+                if(wasInWorklist)
+                    addToWorklist(part);
+            }
+
+            if(partEnd - partStart > largestPartSize){
+                largestPart = part;
+                largestPartSize = partEnd - partStart;
+            }
+            partStart = partEnd;
+        }
+
+        if(!wasInWorklist){
+            // all parts but the largest
+            if(block != largestPart)
+                addToWorklist(block);
+            for(int part = firstNewPart; part < numberOfBlocks; part ++){
+                if(part != largestPart)
+                    addToWorklist(part);
+            }
+        }
+    }
+
+    public int getNumberOfConfigs() {
+        return numberOfConfigs;
+    }
+
+    public int getNumberOfBlocks() {
+        return numberOfBlocks;
+    }
+
+    public int getBlockOf(int configIndex) {
+        return blockOf[configIndex];
+    }
+
+    public int getBlockSize(int block) {
+        return blockEnd[block] - blockStart[block];
+    }
+
+    /**
+     * @return some config of the block
+     */
+    public int getBlockRepresentative(int block) {
+        return configs[blockStart[block]];
+    }
+
+    public boolean isBlockInsideInvariant(int block) {
+        return insideInvariant[getBlockRepresentative(block)];
+    }
+}
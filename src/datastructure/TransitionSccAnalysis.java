@@ -0,0 +1,316 @@
+package datastructure;
+
+import template.ProgramConfigurationTemplate;
+
+import java.util.Arrays;
+
+/**
+ * Strongly connected components of the graph of normal program transitions,
+ * restricted to configurations outside the invariant of the indexed state space.
+ * A component is non-trivial if it contains a cycle (more than one config, or a config with a self loop).
+ * From a config in a non-trivial component the program may never reach the invariant,
+ * so every config that can reach such a component has rank infinity.
+ * Components are found by an iterative Tarjan search; per-config results are kept in primitive arrays
+ * and successors are regenerated from configuration index, so no successor lists are stored.
+ * Tarjan completes components in reverse topological order, so whether a component reaches a cycle
+ * is known from the components it leads to, which are already completed.
+ */
+
+public class TransitionSccAnalysis {
+    // search index of a config that is not searched
+    private static final int UNVISITED = -1;
+    private static final int INSIDE_INVARIANT = -2;
+
+    private static final int INITIAL_STACK_CAPACITY = 1024;
+
+    private ProgramConfigurationTemplate programConfig;
+    private int numberOfConfigs;
+
+    // per config
+    private int[] searchIndex;      // order of visit, or UNVISITED, or INSIDE_INVARIANT
+    private int[] lowLink;
+    private boolean[] onSccStack;
+    private boolean[] reachesCycle; // final once the component of the config is completed
+
+    // configs whose components are not yet completed
+    private int[] sccStack;
+    private int sccStackSize;
+
+    // search frames: config, its successors, position of the next successor to be explored
+    private int[] frameConfig;
+    private long[][] frameSuccessors;
+    private int[] frameNextSuccessor;
+    private boolean[] frameHasSelfLoop;
+    private int frameCount;
+
+    private int nextSearchIndex;
+
+    // summary
+    private int numberOfConfigsOutsideInvariant;
+    private int numberOfNonTrivialSccs;
+    private int numberOfConfigsInNonTrivialSccs;
+    private int largestSccSize;
+    private int numberOfConfigsReachingCycle;
+    private int[] witnessCycle;     // config indices along a cycle, empty if there is no cycle
+
+    /**
+     * Run the analysis. The given program configuration is used for enumeration and is changed.
+     * @param programConfig any configuration of the program
+     */
+    public TransitionSccAnalysis(ProgramConfigurationTemplate programConfig){
+        this.programConfig = programConfig;
+        numberOfConfigs = (int) programConfig.getSizeOfIndexedStateSpace();
+
+        searchIndex = new int[numberOfConfigs];
+        Arrays.fill(searchIndex, UNVISITED);
+        lowLink = new int[numberOfConfigs];
+        onSccStack = new boolean[numberOfConfigs];
+        reachesCycle = new boolean[numberOfConfigs];
+
+        sccStack = new int[INITIAL_STACK_CAPACITY];
+        sccStackSize = 0;
+        frameConfig = new int[INITIAL_STACK_CAPACITY];
+        frameSuccessors = new long[INITIAL_STACK_CAPACITY][];
+        frameNextSuccessor = new int[INITIAL_STACK_CAPACITY];
+        frameHasSelfLoop = new boolean[INITIAL_STACK_CAPACITY];
+        frameCount = 0;
+        nextSearchIndex = 0;
+
+        numberOfConfigsOutsideInvariant = 0;
+        numberOfNonTrivialSccs = 0;
+        numberOfConfigsInNonTrivialSccs = 0;
+        largestSccSize = 0;
+        numberOfConfigsReachingCycle = 0;
+        witnessCycle = null;
+
+        for(int rootIndex = 0; rootIndex < numberOfConfigs; rootIndex ++){
+            if(searchIndex[rootIndex] == UNVISITED){
+                search(rootIndex);
+            }
+        }
+
+        if(witnessCycle == null)
+            witnessCycle = new int[0];
+
+        // search structures are no longer needed
+        searchIndex = null;
+        lowLink = null;
+        onSccStack = null;
+        sccStack = null;
+        frameConfig = null;
+        frameSuccessors = null;
+        frameNextSuccessor = null;
+        frameHasSelfLoop = null;
+    }
+
+    /**
+     * Iterative Tarjan search from a config that is not yet visited
+     */
+    private void search(int rootIndex){
+        if(!visit(rootIndex))
+            return;
+
+        while(frameCount > 0){
+            int top = frameCount - 1;
+            int configIndex = frameConfig[top];
+            long[] successors = frameSuccessors[top];
+
+            if(frameNextSuccessor[top] < successors.length){
+                long successorIndex = successors[frameNextSuccessor[top]];
+                frameNextSuccessor[top] ++;
+
+                if(successorIndex < 0)
+                    continue;   // outside the indexed state space
+
+                int successor = (int) successorIndex;
+                if(successor == configIndex){
+                    frameHasSelfLoop[top] = true;
+                }else if(searchIndex[successor] == UNVISITED){
+                    visit(successor);
+                }else if(searchIndex[successor] == INSIDE_INVARIANT){
+                    // the program converges along this transition
+                }else if(onSccStack[successor]){
+                    lowLink[configIndex] = Math.min(lowLink[configIndex], searchIndex[successor]);
+                }else if(reachesCycle[successor]){
+                    // component of successor is completed
+                    reachesCycle[configIndex] = true;
+                }
+            }else{
+                // all successors are explored
+                boolean hasSelfLoop = frameHasSelfLoop[top];
+                frameSuccessors[top] = null;
+                frameCount --;
+
+                if(lowLink[configIndex] == searchIndex[configIndex]){
+                    completeScc(configIndex, hasSelfLoop);
+                }
+
+                if(frameCount > 0){
+                    int parentIndex = frameConfig[frameCount - 1];
+                    lowLink[parentIndex] = Math.min(lowLink[parentIndex], lowLink[configIndex]);
+                    if(!onSccStack[configIndex] && reachesCycle[configIndex]){
+                        reachesCycle[parentIndex] = true;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Visit a config: configs inside the invariant are only marked,
+     * other configs get a search index and a search frame with their successors.
+     * @return true if a search frame is pushed
+     */
+    private boolean visit(int configIndex){
+        programConfig.moveToProgramConfigIndex(configIndex);
+        if(programConfig.isInsideInvariant()){
+            searchIndex[configIndex] = INSIDE_INVARIANT;
+            return false;
+        }
+
+        numberOfConfigsOutsideInvariant ++;
+        searchIndex[configIndex] = nextSearchIndex;
+        lowLink[configIndex] = nextSearchIndex;
+        nextSearchIndex ++;
+
+        if(sccStackSize == sccStack.length)
+            sccStack = Arrays.copyOf(sccStack, 2 * sccStack.length);
+        sccStack[sccStackSize] = configIndex;
+        sccStackSize ++;
+        onSccStack[configIndex] = true;
+
+        if(frameCount == frameConfig.length){
+            int newCapacity = 2 * frameConfig.length;
+            frameConfig = Arrays.copyOf(frameConfig, newCapacity);
+            frameSuccessors = Arrays.copyOf(frameSuccessors, newCapacity);
+            frameNextSuccessor = Arrays.copyOf(frameNextSuccessor, newCapacity);
+            frameHasSelfLoop = Arrays.copyOf(frameHasSelfLoop, newCapacity);
+        }
+        frameConfig[frameCount] = configIndex;
+        frameSuccessors[frameCount] = programConfig.getProgramConfigTransSuccessorIndices();
+        frameNextSuccessor[frameCount] = 0;
+        frameHasSelfLoop[frameCount] = false;
+        frameCount ++;
+
+        return true;
+    }
+
+    /**
+     * Pop the component whose root is the given config from the stack and record whether it reaches a cycle
+     */
+    private void completeScc(int rootIndex, boolean rootHasSelfLoop){
+        int firstPosition = sccStackSize;
+        boolean sccReachesCycle = false;
+        int member;
+        do{
+            firstPosition --;
+            member = sccStack[firstPosition];
+            sccReachesCycle |= reachesCycle[member];
+        }while(member != rootIndex);
+
+        int sccSize = sccStackSize - firstPosition;
+        if(sccSize > 1 || rootHasSelfLoop){
+            sccReachesCycle = true;
+            numberOfNonTrivialSccs ++;
+            numberOfConfigsInNonTrivialSccs += sccSize;
+            largestSccSize = Math.max(largestSccSize, sccSize);
+
+            if(witnessCycle == null){
+                witnessCycle = findCycle(Arrays.copyOfRange(sccStack, firstPosition, sccStackSize));
+            }
+        }
+
+        for(int position = firstPosition; position < sccStackSize; position ++){
+            member = sccStack[position];
+            onSccStack[member] = false;
+            reachesCycle[member] = sccReachesCycle;
+        }
+        if(sccReachesCycle)
+            numberOfConfigsReachingCycle += sccSize;
+
+        sccStackSize = firstPosition;
+    }
+
+    /**
+     * Find a cycle through the smallest config of a non-trivial component,
+     * by a breadth first search inside the component
+     * @param members configs of the component
+     * @return config indices along the cycle, the last config has a transition to the first one
+     */
+    private int[] findCycle(int[] members){
+        Arrays.sort(members);
+        int start = members[0];
+        if(members.length == 1)
+            return new int[]{start};    // self loop
+
+        int[] parentPosition = new int[members.length];
+        Arrays.fill(parentPosition, UNVISITED);
+        int[] queue = new int[members.length];
+        int queueHead = 0;
+        int queueTail = 0;
+        queue[queueTail ++] = 0;
+        parentPosition[0] = 0;
+
+        while(queueHead < queueTail){
+            int position = queue[queueHead ++];
+            programConfig.moveToProgramConfigIndex(members[position]);
+            for(long successorIndex : programConfig.getProgramConfigTransSuccessorIndices()){
+                if(successorIndex == start){
+                    // back at start, collect the path start -> ... -> members[position]
+                    int pathLength = 1;
+                    for(int p = position; p != 0; p = parentPosition[p])
+                        pathLength ++;
+                    int[] cycle = new int[pathLength];
+                    for(int p = position, i = pathLength - 1; i >= 0; p = parentPosition[p], i --)
+                        cycle[i] = members[p];
+                    return cycle;
+                }
+
+                int successorPosition = (successorIndex < 0) ? -1 : Arrays.binarySearch(members, (int) successorIndex);
+                if(successorPosition >= 0 && parentPosition[successorPosition] == UNVISITED){
+                    parentPosition[successorPosition] = position;
+                    queue[queueTail ++] = successorPosition;
+                }
+            }
+        }
+
+        System.out.println("ERROR: TransitionSccAnalysis: no cycle inside a strongly connected component");
+        System.exit(1);
+        return null;
+    }
+
+    public int getNumberOfConfigs() {
+        return numberOfConfigs;
+    }
+
+    public int getNumberOfConfigsOutsideInvariant() {
+        return numberOfConfigsOutsideInvariant;
+    }
+
+    public int getNumberOfNonTrivialSccs() {
+        return numberOfNonTrivialSccs;
+    }
+
+    public int getNumberOfConfigsInNonTrivialSccs() {
+        return numberOfConfigsInNonTrivialSccs;
+    }
+
+    public int getLargestSccSize() {
+        return largestSccSize;
+    }
+
+    public int getNumberOfConfigsReachingCycle() {
+        return numberOfConfigsReachingCycle;
+    }
+
+    /**
+     * @return true if the config can reach a cycle outside the invariant, i.e. its rank is infinity
+     */
+    public boolean isRankInfinity(int configIndex) {
+        return reachesCycle[configIndex];
+    }
+
+    public int[] getWitnessCycle() {
+        return witnessCycle;
+    }
+}
@@ -0,0 +1,175 @@
+package datastructure;
+
+import template.ProgramConfigurationTemplate;
+
+/**
+ * The cvfs with the worst effect on max rank, collected while rank effects are counted:
+ *   the k cvfs (source config, target config) of largest rank increase,
+ *   the k configs of largest total rank increase over all their cvfs,
+ *   the k perturbation kinds (node, source node state, target node state) of largest average rank increase.
+ * Configs are identified by configuration index and node states by node state index.
+ * Cvfs from or to configs of infinite max rank are only counted, they are left out of the lists
+ * and of the totals of their source configs.
+ * Each thread of the rank-effect pass fills its own instance, instances are merged at the end.
+ */
+
+public class WorstCvfs {
+    // node states of a perturbation kind are packed in an item with this many bits each
+    private static final int NODE_STATE_BITS = 21;
+    private static final long NODE_STATE_MASK = (1L << NODE_STATE_BITS) - 1;
+
+    private int topK;
+    private TopKCollector worstCvfList;     // item: source index in high 32 bits, target index in low 32 bits
+    private TopKCollector worstConfigList;  // item: config index
+
+    // per node, per (source node state index * number of node states + target node state index)
+    private int[] numberOfNodeStates;
+    private long[][] kindTotalRankEffect;
+    private long[][] kindNumberOfCvfs;
+
+    private long numberOfCvfs;
+    private long numberOfCvfsWithInfiniteRank;
+
+    /**
+     * @param programConfig any configuration of the program, for the number of node states
+     * @param topK length of every list
+     */
+    public WorstCvfs(ProgramConfigurationTemplate programConfig, int topK){
+        this.topK = topK;
+        worstCvfList = new TopKCollector(topK);
+        worstConfigList = new TopKCollector(topK);
+
+        int numberOfNodes = programConfig.getNumberOfNodes();
+        numberOfNodeStates = new int[numberOfNodes];
+        kindTotalRankEffect = new long[numberOfNodes][];
+        kindNumberOfCvfs = new long[numberOfNodes][];
+        for(int nodeId = 0; nodeId < numberOfNodes; nodeId ++){
+            numberOfNodeStates[nodeId] = programConfig.getNumberOfNodeStates(nodeId);
+            if(numberOfNodeStates[nodeId] > NODE_STATE_MASK){
+                System.out.println("ERROR: WorstCvfs: node " + nodeId + " has too many node states: " + numberOfNodeStates[nodeId]);
+                System.exit(1);
+            }
+            kindTotalRankEffect[nodeId] = new long[numberOfNodeStates[nodeId] * numberOfNodeStates[nodeId]];
+            kindNumberOfCvfs[nodeId] = new long[numberOfNodeStates[nodeId] * numberOfNodeStates[nodeId]];
+        }
+    }
+
+    /**
+     * Count a cvf whose source and target have finite max ranks
+     * @param rankEffect max rank of target - max rank of source
+     */
+    public void addCvf(int sourceIndex, int targetIndex, int idOfChangedNode,
+                       int sourceNodeStateIndex, int targetNodeStateIndex, int rankEffect){
+        numberOfCvfs ++;
+        worstCvfList.add(rankEffect, ((long) sourceIndex << 32) | targetIndex);
+
+        if(sourceNodeStateIndex < 0 || targetNodeStateIndex < 0)
+            return;
+        int kind = sourceNodeStateIndex * numberOfNodeStates[idOfChangedNode] + targetNodeStateIndex;
+        kindTotalRankEffect[idOfChangedNode][kind] += rankEffect;
+        kindNumberOfCvfs[idOfChangedNode][kind] ++;
+    }
+
+    /**
+     * Count a cvf from or to a config of infinite max rank
+     */
+    public void addCvfWithInfiniteRank(){
+        numberOfCvfs ++;
+        numberOfCvfsWithInfiniteRank ++;
+    }
+
+    /**
+     * @param totalRankEffect sum of the rank effects of the cvfs of the config passed to addCvf()
+     */
+    public void addConfig(int configIndex, long totalRankEffect){
+        worstConfigList.add(totalRankEffect, configIndex);
+    }
+
+    public void merge(WorstCvfs other){
+        worstCvfList.merge(other.worstCvfList);
+        worstConfigList.merge(other.worstConfigList);
+        for(int nodeId = 0; nodeId < numberOfNodeStates.length; nodeId ++){
+            for(int kind = 0; kind < kindTotalRankEffect[nodeId].length; kind ++){
+                kindTotalRankEffect[nodeId][kind] += other.kindTotalRankEffect[nodeId][kind];
+                kindNumberOfCvfs[nodeId][kind] += other.kindNumberOfCvfs[nodeId][kind];
+            }
+        }
+        numberOfCvfs += other.numberOfCvfs;
+        numberOfCvfsWithInfiniteRank += other.numberOfCvfsWithInfiniteRank;
+    }
+
+    public int getTopK() {
+        return topK;
+    }
+
+    public long getNumberOfCvfs() {
+        return numberOfCvfs;
+    }
+
+    public long getNumberOfCvfsWithInfiniteRank() {
+        return numberOfCvfsWithInfiniteRank;
+    }
+
+    /**
+     * @return cvfs of largest rank increase, see getCvfSourceIndex() and getCvfTargetIndex() for items
+     */
+    public TopKCollector getWorstCvfList() {
+        return worstCvfList;
+    }
+
+    public static int getCvfSourceIndex(long item){
+        return (int) (item >>> 32);
+    }
+
+    public static int getCvfTargetIndex(long item){
+        return (int) item;
+    }
+
+    /**
+     * @return configs of largest total rank increase of their cvfs, items are config indices
+     */
+    public TopKCollector getWorstConfigList() {
+        return worstConfigList;
+    }
+
+    /**
+     * @return perturbation kinds of largest average rank increase,
+     *         see getKindNode(), getKindSourceNodeStateIndex() and getKindTargetNodeStateIndex() for items
+     */
+    public TopKCollector getWorstKindList(){
+        TopKCollector worstKindList = new TopKCollector(topK);
+        for(int nodeId = 0; nodeId < numberOfNodeStates.length; nodeId ++){
+            for(int kind = 0; kind < kindTotalRankEffect[nodeId].length; kind ++){
+                if(kindNumberOfCvfs[nodeId][kind] == 0)
+                    continue;
+
+                long item = ((long) nodeId << (2 * NODE_STATE_BITS))
+                        | ((long) (kind / numberOfNodeStates[nodeId]) << NODE_STATE_BITS)
+                        | (kind % numberOfNodeStates[nodeId]);
+                worstKindList.add((double) kindTotalRankEffect[nodeId][kind] / kindNumberOfCvfs[nodeId][kind], item);
+            }
+        }
+        return worstKindList;
+    }
+
+    public static int getKindNode(long item){
+        return (int) (item >>> (2 * NODE_STATE_BITS));
+    }
+
+    public static int getKindSourceNodeStateIndex(long item){
+        return (int) ((item >>> NODE_STATE_BITS) & NODE_STATE_MASK);
+    }
+
+    public static int getKindTargetNodeStateIndex(long item){
+        return (int) (item & NODE_STATE_MASK);
+    }
+
+    /**
+     * @return number of cvfs of a perturbation kind
+     */
+    public long getKindNumberOfCvfs(long item){
+        int nodeId = getKindNode(item);
+        return kindNumberOfCvfs[nodeId][getKindSourceNodeStateIndex(item) * numberOfNodeStates[nodeId]
+                + getKindTargetNodeStateIndex(item)];
+    }
+}
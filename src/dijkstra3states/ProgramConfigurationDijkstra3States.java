@@ -8,6 +8,7 @@ import template.SuccessorInfo;
 import java.util.Map;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.function.LongConsumer;
 
 import static dijkstra3states.NodeStateDijkstra3States.*;
 
@@ -119,6 +120,22 @@ public class ProgramConfigurationDijkstra3States extends ProgramConfigurationTem
         return (long) Math.pow(3, getNumberOfNodes());
     }
 
+    /**
+     * Implement super class abstract methods for configuration index.
+     * Every node has 3 states and the state value is also its index.
+     */
+    public int getNumberOfNodeStates(int nodeId){
+        return DIJKSTRA_3_STATES_NUMBER_OF_NODE_STATES;
+    }
+
+    public int getNodeStateIndex(int nodeId){
+        return getNodeValue(nodeId);
+    }
+
+    public void setNodeStateByIndex(int nodeId, int nodeStateIndex){
+        updateStateForANode(nodeId, nodeStateIndex);
+    }
+
     /**
      * Implement super class abstract method
      */
@@ -217,6 +234,88 @@ public class ProgramConfigurationDijkstra3States extends ProgramConfigurationTem
 
     }
 
+    /**
+     * Implement super class hook: actions as in evaluateANodeActions()
+     */
+    @Override
+    public String getActionName(SuccessorInfo successor){
+        int nodeId = successor.getIdOfChangedNode();
+        if(nodeId == 0)
+            return "bottom-decrease";
+        if(nodeId == getNumberOfNodes() - 1)
+            return "top-exceed-left";
+
+        int newValueForNodeId = successor.getSuccessorProgramConfig().getNodeStateIndex(nodeId);
+        return (newValueForNodeId == getLeftHandNeighborValue(nodeId)) ? "copy-left" : "copy-right";
+    }
+
+    /**
+     * Implement super class hook: a node reads its own value and the values of its left and right neighbors
+     */
+    @Override
+    public int[] getNodesReadByNode(int nodeId){
+        TreeSet<Integer> nodesRead = new TreeSet<>();
+        nodesRead.add(getLeftHandNeighborPosition(nodeId));
+        nodesRead.add(nodeId);
+        nodesRead.add(getRightHandNeighborPosition(nodeId));
+        return nodesRead.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Implement super class hook: the invariant consists of the configurations with exactly one privilege,
+     * see isInsideInvariant()
+     */
+    @Override
+    public int getNumberOfPrivilegesInsideInvariant(){
+        return 1;
+    }
+
+    /**
+     * Implement super class hook: invert the actions of evaluateANodeActions().
+     * An action of a node only changes its own value, so a predecessor differs from
+     * the current configuration only at the node executing the action, and the neighbor values are the same.
+     * Let S be the current value of the node. Its value P in the predecessor is
+     *   bottom node: P = (S+1) mod 3, provided (P+1) mod 3 == R
+     *   top node:    any P != S, provided L == R and S == (L+1) mod 3
+     *   other nodes: P = (S-1) mod 3, provided S == L or S == R
+     */
+    @Override
+    public boolean forEachTransPredecessor(LongConsumer predecessorVisitor){
+        long currentIndex = getProgramConfigIndex();
+        if(currentIndex < 0)
+            return true;
+
+        for(int nodeId = 0; nodeId < getNumberOfNodes(); nodeId ++){
+            int R = getRightHandNeighborValue(nodeId);
+            int L = getLeftHandNeighborValue(nodeId);
+            int S = getNodeValue(nodeId);
+            long nodeIndexWeight = getNodeIndexWeight(nodeId);
+
+            if(nodeId == 0){
+                int P = (S + 1) % DIJKSTRA_3_STATES_NUMBER_OF_NODE_STATES;
+                if((P + 1) % DIJKSTRA_3_STATES_NUMBER_OF_NODE_STATES == R){
+                    predecessorVisitor.accept(currentIndex + (P - S) * nodeIndexWeight);
+                }
+            }else if(nodeId == getNumberOfNodes() - 1){
+                if((L == R) && (S == (L + 1) % DIJKSTRA_3_STATES_NUMBER_OF_NODE_STATES)){
+                    for(int P = 0; P < DIJKSTRA_3_STATES_NUMBER_OF_NODE_STATES; P ++){
+                        if(P != S){
+                            predecessorVisitor.accept(currentIndex + (P - S) * nodeIndexWeight);
+                        }
+                    }
+                }
+            }else{
+                if((S == L) || (S == R)){
+                    // both actions lead to the same successor if L == R
+                    int P = (S - 1 + DIJKSTRA_3_STATES_NUMBER_OF_NODE_STATES) % DIJKSTRA_3_STATES_NUMBER_OF_NODE_STATES;
+                    predecessorVisitor.accept(currentIndex + (P - S) * nodeIndexWeight);
+                }
+            }
+        }
+
+        return true;
+    }
+
     /**
      *  Implement abstract method of superclass
      */
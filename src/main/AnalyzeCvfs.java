@@ -3,18 +3,27 @@ package main;
 import coloring.ProgramConfigurationColoring;
 import datastructure.AnalysisResults;
 import datastructure.DebugInfo;
+import datastructure.Histogram;
+import datastructure.PathCount;
+import datastructure.RankTransitionMatrix;
+import datastructure.TopKCollector;
+import datastructure.TransitionSccAnalysis;
+import datastructure.WorstCvfs;
 import dijkstra3states.ProgramConfigurationDijkstra3States;
 import joptsimple.OptionParser;
 import joptsimple.OptionSet;
 import joptsimple.OptionSpec;
 import maxmatching.ProgramConfigurationMaxMatching;
 import template.ProgramConfigurationTemplate;
+import template.SuccessorInfo;
 
 import java.io.*;
 import java.text.DateFormat;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.TreeSet;
 import java.util.Vector;
 
 import static main.Utility.averageToStr;
@@ -30,9 +39,24 @@ public class AnalyzeCvfs<PCT extends ProgramConfigurationTemplate> {
     public static final String PROGRAM_NAME_MAX_MATCHING = "max-matching";
     public static final String PROGRAM_NAME_COLORING = "coloring";
 
+    // values of option cvf
+    public static final String CVF_NAME_ARBITRARY_PERTURBATION = "arbitrary-perturb";
+    public static final String CVF_NAME_CONSTRAINED_PERTURBATION = "constrained-perturb";
+    public static final String CVF_NAME_CONSTRAINED_PERTURBATION_AND_TOPOLOGY_RESTRICTION = "constrained-perturb-and-topology-restriction";
+
     public static final String ANALYSIS_MODE_CONFIG_BASE = "config-base";
     public static final String ANALYSIS_MODE_TRANS_BASE = "trans-base";
 
+    // how full analysis stores the state graph
+    public static final String FULL_ANALYSIS_STORAGE_SUCCESSOR_LISTS = "successor-lists";
+    public static final String FULL_ANALYSIS_STORAGE_EDGE_FREE = "edge-free";
+    // successor lists computed on demand: transition successors are kept once computed, cvf successors are not
+    public static final String FULL_ANALYSIS_STORAGE_LAZY_SUCCESSOR_LISTS = "lazy-successor-lists";
+
+    // how path counts for average rank are computed
+    public static final String PATH_COUNT_ARITHMETIC_EXACT = "exact";
+    public static final String PATH_COUNT_ARITHMETIC_LOG_SPACE = "log-space";
+
     // If some tree map structure reaches this size, we should clear it
     // to avoid out of memory error.
     public static final int TREE_MAP_THRESHOLD_FOR_CLEARANCE = 2_000_000;
@@ -77,6 +101,23 @@ public class AnalyzeCvfs<PCT extends ProgramConfigurationTemplate> {
         this.firstProgramConfig = firstProgramConfig;
 
     }
+
+    /**
+     * @param cvf one of CVF_MODELS
+     * @return value of option cvf for the cvf model
+     */
+    protected static String getCvfName(int cvf){
+        switch(cvf){
+            case CVF_AS_ARBITRARY_PERTURBATION:
+                return CVF_NAME_ARBITRARY_PERTURBATION;
+            case CVF_AS_CONSTRAINED_PERTURBATION:
+                return CVF_NAME_CONSTRAINED_PERTURBATION;
+            case CVF_AS_CONSTRAINED_PERTURBATION_AND_TOPOLOGY_RESTRICTION:
+                return CVF_NAME_CONSTRAINED_PERTURBATION_AND_TOPOLOGY_RESTRICTION;
+            default:
+                return "unknown-cvf-" + cvf;
+        }
+    }
     // main program
     public static void main(String args[]) throws Exception {
 
@@ -87,6 +128,52 @@ public class AnalyzeCvfs<PCT extends ProgramConfigurationTemplate> {
                 .withRequiredArg();
         OptionSpec configBaseAnalysisTaskSpec = mainParser.accepts("config-base-analysis-task")
                 .withRequiredArg();
+        OptionSpec<String> fullAnalysisStorageSpec = mainParser.accepts("full-analysis-storage")
+                .withRequiredArg()
+                .defaultsTo(FULL_ANALYSIS_STORAGE_SUCCESSOR_LISTS);
+        OptionSpec<Integer> backwardMaxDistanceSpec = mainParser.accepts("backward-max-distance")
+                .withRequiredArg()
+                .ofType(Integer.class)
+                .defaultsTo(INFINITY_RANK);
+        OptionSpec<Integer> rankEffectThreadsSpec = mainParser.accepts("rank-effect-threads")
+                .withRequiredArg()
+                .ofType(Integer.class)
+                .defaultsTo(1);
+        OptionSpec allCvfModelsSpec = mainParser.accepts("all-cvf-models");
+        OptionSpec<Long> witnessPathConfigsSpec = mainParser.accepts("witness-path-configs")
+                .withRequiredArg()
+                .ofType(Long.class)
+                .withValuesSeparatedBy(',');
+        OptionSpec<Integer> witnessPathTopKSpec = mainParser.accepts("witness-path-top-k")
+                .withRequiredArg()
+                .ofType(Integer.class)
+                .defaultsTo(0);
+        OptionSpec<Integer> worstCvfsTopKSpec = mainParser.accepts("worst-cvfs-top-k")
+                .withRequiredArg()
+                .ofType(Integer.class)
+                .defaultsTo(0);
+        OptionSpec<Integer> faultSpanCvfsSpec = mainParser.accepts("fault-span-cvfs")
+                .withRequiredArg()
+                .ofType(Integer.class)
+                .defaultsTo(1);
+        OptionSpec<String> rankSnapshotSpec = mainParser.accepts("rank-snapshot")
+                .withRequiredArg()
+                .defaultsTo("");
+        OptionSpec<String> topologyEditSpec = mainParser.accepts("topology-edit")
+                .withRequiredArg()
+                .defaultsTo("");
+        OptionSpec<Integer> multiCvfsSpec = mainParser.accepts("multi-cvfs")
+                .withRequiredArg()
+                .ofType(Integer.class)
+                .defaultsTo(2);
+        OptionSpec<Double> faultProbabilitySpec = mainParser.accepts("fault-probability")
+                .withRequiredArg()
+                .ofType(Double.class)
+                .defaultsTo(0.0);
+        OptionSpec rankTransitionMatricesSpec = mainParser.accepts("rank-transition-matrices");
+        OptionSpec<String> pathCountArithmeticSpec = mainParser.accepts("path-count-arithmetic")
+                .withRequiredArg()
+                .defaultsTo(PATH_COUNT_ARITHMETIC_EXACT);
 
         OptionSpec programNameSpec = mainParser.accepts("program-name")
                 .withRequiredArg();
@@ -124,13 +211,13 @@ public class AnalyzeCvfs<PCT extends ProgramConfigurationTemplate> {
         long sampleSize = mainOption.valueOf(sampleSizeSpec);
         int cvf;
         switch(mainOption.valueOf(cvfStrSpec)){
-            case "arbitrary-perturb":
+            case CVF_NAME_ARBITRARY_PERTURBATION:
                 cvf = CVF_AS_ARBITRARY_PERTURBATION;
                 break;
-            case "constrained-perturb":
+            case CVF_NAME_CONSTRAINED_PERTURBATION:
                 cvf = CVF_AS_CONSTRAINED_PERTURBATION;
                 break;
-            case "constrained-perturb-and-topology-restriction":
+            case CVF_NAME_CONSTRAINED_PERTURBATION_AND_TOPOLOGY_RESTRICTION:
                 cvf = CVF_AS_CONSTRAINED_PERTURBATION_AND_TOPOLOGY_RESTRICTION;
                 break;
             default:
@@ -139,6 +226,60 @@ public class AnalyzeCvfs<PCT extends ProgramConfigurationTemplate> {
         }
         String analysisMode = (String) mainOption.valueOf(analysisModeSpec);
         String configBaseAnalysisTask = (String) mainOption.valueOf(configBaseAnalysisTaskSpec);
+        String fullAnalysisStorage = mainOption.valueOf(fullAnalysisStorageSpec);
+        int backwardMaxDistance = mainOption.valueOf(backwardMaxDistanceSpec);
+        int rankEffectThreads = mainOption.valueOf(rankEffectThreadsSpec);
+        if(rankEffectThreads < 1){
+            throw new Exception("Number of rank effect threads must be at least 1: " + rankEffectThreads);
+        }
+        boolean allCvfModels = mainOption.has(allCvfModelsSpec);
+        List<Long> witnessPathConfigList = mainOption.valuesOf(witnessPathConfigsSpec);
+        long[] witnessPathConfigs = new long[witnessPathConfigList.size()];
+        for(int position = 0; position < witnessPathConfigs.length; position ++){
+            witnessPathConfigs[position] = witnessPathConfigList.get(position);
+        }
+        int witnessPathTopK = mainOption.valueOf(witnessPathTopKSpec);
+        int worstCvfsTopK = mainOption.valueOf(worstCvfsTopKSpec);
+        if(worstCvfsTopK < 0){
+            throw new Exception("Number of worst cvfs must be at least 0: " + worstCvfsTopK);
+        }
+        int faultSpanCvfs = mainOption.valueOf(faultSpanCvfsSpec);
+        if(faultSpanCvfs < 0){
+            throw new Exception("Number of cvfs of fault span must be at least 0: " + faultSpanCvfs);
+        }
+        String rankSnapshotFileName = mainOption.valueOf(rankSnapshotSpec);
+        if(!rankSnapshotFileName.isEmpty() && !fullAnalysisStorage.equals(FULL_ANALYSIS_STORAGE_EDGE_FREE)){
+            throw new Exception("Rank snapshot requires full analysis storage " + FULL_ANALYSIS_STORAGE_EDGE_FREE);
+        }
+        String topologyEdit = mainOption.valueOf(topologyEditSpec);
+        if(!topologyEdit.isEmpty() && !topologyEdit.matches("(add|remove):[0-9]+:[0-9]+")){
+            throw new Exception("Topology edit must be add:<node>:<node> or remove:<node>:<node>: " + topologyEdit);
+        }
+        int multiCvfs = mainOption.valueOf(multiCvfsSpec);
+        if(multiCvfs < 0){
+            throw new Exception("Number of cvfs during recovery must be at least 0: " + multiCvfs);
+        }
+        double faultProbability = mainOption.valueOf(faultProbabilitySpec);
+        if(faultProbability < 0 || faultProbability >= 1){
+            throw new Exception("Fault probability must be in [0, 1): " + faultProbability);
+        }
+        boolean rankTransitionMatrices = mainOption.has(rankTransitionMatricesSpec);
+        String pathCountArithmetic = mainOption.valueOf(pathCountArithmeticSpec);
+        switch(pathCountArithmetic){
+            case PATH_COUNT_ARITHMETIC_EXACT:
+                PathCount.logSpace = false;
+                break;
+            case PATH_COUNT_ARITHMETIC_LOG_SPACE:
+                PathCount.logSpace = true;
+                break;
+            default:
+                throw new Exception("Unknown path count arithmetic: " + pathCountArithmetic);
+        }
+        if(!fullAnalysisStorage.equals(FULL_ANALYSIS_STORAGE_SUCCESSOR_LISTS) &&
+                !fullAnalysisStorage.equals(FULL_ANALYSIS_STORAGE_EDGE_FREE) &&
+                !fullAnalysisStorage.equals(FULL_ANALYSIS_STORAGE_LAZY_SUCCESSOR_LISTS)){
+            throw new Exception("Unknown full analysis storage: " + fullAnalysisStorage);
+        }
         String programName = (String) mainOption.valueOf(programNameSpec);
         String graphTopologyFileName = (String) mainOption.valueOf(graphTopologyFileNameSpec);
         String outputFileNamePrefix = (String) mainOption.valueOf(outputFileNamePrefixSpec);
@@ -174,6 +315,26 @@ public class AnalyzeCvfs<PCT extends ProgramConfigurationTemplate> {
             }
         }
 
+        if(configBaseAnalysisTask != null && configBaseAnalysisTask.contains("diff")){
+            // differential analysis updates full analysis after an edge edit of an explicit topology
+            if(!configBaseAnalysisTask.contains("full") || !fullAnalysisStorage.equals(FULL_ANALYSIS_STORAGE_EDGE_FREE)){
+                throw new Exception("Differential analysis requires full analysis with storage " + FULL_ANALYSIS_STORAGE_EDGE_FREE);
+            }
+            if(topologyEdit.isEmpty() || graphTopology == null){
+                throw new Exception("Differential analysis requires a topology edit of an explicit graph topology");
+            }
+        }
+
+        if(configBaseAnalysisTask != null && configBaseAnalysisTask.contains("multicvf") && !configBaseAnalysisTask.contains("full")){
+            // worst-case ranks under several cvfs start from max ranks of full analysis
+            throw new Exception("Multi-cvf analysis requires full analysis");
+        }
+
+        if(configBaseAnalysisTask != null && configBaseAnalysisTask.contains("daemon") && !configBaseAnalysisTask.contains("full")){
+            // random daemon analysis sweeps configs in order of max rank of full analysis
+            throw new Exception("Random daemon analysis requires full analysis");
+        }
+
         if(numberOfNodes <= 1){
             throw new Exception("The number of nodes = " + numberOfNodes + ". Distributed system has at least 2 nodes");
         }
@@ -184,6 +345,19 @@ public class AnalyzeCvfs<PCT extends ProgramConfigurationTemplate> {
         System.out.println("     analysis mode:         " + analysisMode);
         if(analysisMode.equals(ANALYSIS_MODE_CONFIG_BASE)){
             System.out.println("       config base analysis task:  " + configBaseAnalysisTask);
+            System.out.println("       full analysis storage:      " + fullAnalysisStorage);
+            System.out.println("       backward max distance:      " + backwardMaxDistance);
+            System.out.println("       rank effect threads:        " + rankEffectThreads);
+            System.out.println("       all cvf models:             " + allCvfModels);
+            System.out.println("       witness path configs:       " + witnessPathConfigList);
+            System.out.println("       witness path top k:         " + witnessPathTopK);
+            System.out.println("       worst cvfs top k:           " + worstCvfsTopK);
+            System.out.println("       fault span cvfs:            " + faultSpanCvfs);
+            System.out.println("       rank snapshot:              " + rankSnapshotFileName);
+            System.out.println("       topology edit:              " + topologyEdit);
+            System.out.println("       multi cvfs:                 " + multiCvfs);
+            System.out.println("       fault probability:          " + faultProbability);
+            System.out.println("       rank transition matrices:   " + rankTransitionMatrices);
         }
 
         System.out.println("     program name:          " + programName);
@@ -195,6 +369,7 @@ public class AnalyzeCvfs<PCT extends ProgramConfigurationTemplate> {
         System.out.println("     probeLimit:            " + probeLimit);
         System.out.println("     randomCvfNbrProb:      " + randomCvfNbrProb);
         System.out.println("     randomTransNbrProb:    " + randomTransNbrProb);
+        System.out.println("     path count arithmetic: " + pathCountArithmetic);
         System.out.println();
 
 
@@ -263,7 +438,20 @@ public class AnalyzeCvfs<PCT extends ProgramConfigurationTemplate> {
                         firstConfig,
                         randomTransNbrProb,
                         randomCvfNbrProb,
-                        configBaseAnalysisTask);
+                        configBaseAnalysisTask,
+                        fullAnalysisStorage,
+                        backwardMaxDistance,
+                        rankEffectThreads,
+                        allCvfModels,
+                        witnessPathConfigs,
+                        witnessPathTopK,
+                        worstCvfsTopK,
+                        faultSpanCvfs,
+                        rankSnapshotFileName,
+                        topologyEdit,
+                        multiCvfs,
+                        faultProbability,
+                        rankTransitionMatrices);
 
                 break;
             default:
@@ -293,12 +481,59 @@ public class AnalyzeCvfs<PCT extends ProgramConfigurationTemplate> {
      *                  i.e. whether it is random max, or random average, or full
      */
     public void displayProgConfigRankDistribution(AnalysisResults<PCT> anaResults, String resultType){
-        TreeMap<Integer, Integer> progConfigRankDistribution = anaResults.getProgConfigRankDistribution();
+        displayProgConfigRankDistribution(anaResults, resultType, "");
+    }
+
+    /**
+     * Display the rank distribution of an analysis that computes ranks up to a depth only,
+     * every other config has rank larger than the depth (or infinite)
+     * @param depth ranks up to this value are computed
+     * @param numberOfConfigsBeyondDepth number of configs of rank larger than depth
+     */
+    public void displayPartialProgConfigRankDistribution(AnalysisResults<PCT> anaResults, String resultType,
+                                                         int depth, long numberOfConfigsBeyondDepth){
+        displayProgConfigRankDistribution(anaResults, resultType,
+                "#   ranks computed up to:             " + depth + "\n" +
+                "#   configurations of rank > " + String.format("%-9d", depth) + numberOfConfigsBeyondDepth + "\n");
+    }
+
+    /**
+     * Display the distribution of worst-case rank when up to a number of cvfs strike during recovery
+     * @param numberOfCvfs largest number of cvfs during recovery
+     * @param numberOfConfigsOfInfiniteRank number of configs whose rank is infinite, not in the distribution
+     */
+    public void displayMultiCvfRankDistribution(AnalysisResults<PCT> anaResults, String resultType,
+                                                int numberOfCvfs, long numberOfConfigsOfInfiniteRank){
+        Histogram progConfigRankDistribution = anaResults.getProgConfigRankDistribution();
+        displayProgConfigRankDistribution(anaResults, resultType,
+                "#   cvfs during recovery:             " + numberOfCvfs + "\n" +
+                "#   configurations of infinite rank:  " + numberOfConfigsOfInfiniteRank + "\n" +
+                "#   average rank:                     " +
+                        (progConfigRankDistribution.isEmpty() ? "n/a" : String.format("%.4f", progConfigRankDistribution.getMean())) + "\n");
+    }
+
+    /**
+     * Display the distribution of expected convergence time under a random daemon, rounded to the nearest step
+     * @param faultProbability probability that a cvf follows a program transition
+     * @param numberOfConfigsOfInfiniteTime number of configs that may never reach the invariant, not in the distribution
+     * @param meanOutsideInvariant mean expected convergence time of configs outside the invariant
+     */
+    public void displayRandomDaemonDistribution(AnalysisResults<PCT> anaResults, String resultType,
+                                                double faultProbability, long numberOfConfigsOfInfiniteTime,
+                                                double meanOutsideInvariant){
+        displayProgConfigRankDistribution(anaResults, resultType,
+                "#   fault probability:                " + faultProbability + "\n" +
+                "#   configurations of infinite time:  " + numberOfConfigsOfInfiniteTime + "\n" +
+                "#   mean time outside invariant:      " + String.format("%.4f", meanOutsideInvariant) + "\n");
+    }
+
+    /**
+     * @param extraHeader header lines written after the number of program configurations
+     */
+    private void displayProgConfigRankDistribution(AnalysisResults<PCT> anaResults, String resultType, String extraHeader){
+        Histogram progConfigRankDistribution = anaResults.getProgConfigRankDistribution();
         //TreeMap<T, ProgramConfigurationInformation<T>> progConfigInfoMap = anaResults.getProgConfigInfoMap();
-        int numberOfPcs = 0;
-        for(Map.Entry<Integer,Integer> entry : progConfigRankDistribution.entrySet()){
-            numberOfPcs += entry.getValue();
-        }
+        long numberOfPcs = progConfigRankDistribution.getNumberOfSamples();
 
         BufferedWriter bufferedWriter;
 
@@ -308,21 +543,309 @@ public class AnalyzeCvfs<PCT extends ProgramConfigurationTemplate> {
             else
                 bufferedWriter = new BufferedWriter(new PrintWriter(outputFileNamePrefix + "-rank-dist-prog-config-" + resultType + ".txt"));
 
-            int maxRank = progConfigRankDistribution.lastKey();
+            int maxRank = progConfigRankDistribution.getMaxValue();
 
             bufferedWriter.write("#   program name:                     " + programName + "\n");
             bufferedWriter.write("#   number of nodes:                  " + numberOfNodes + "\n");
             bufferedWriter.write("#   number of program configurations: " + numberOfPcs + "\n");
+            bufferedWriter.write(extraHeader);
             bufferedWriter.write("#   max rank:                         " + maxRank + "\n");
             bufferedWriter.write("#         rank       count\n");
             bufferedWriter.write("#   ----------  ----------\n");
-            for(Map.Entry<Integer, Integer> entry : progConfigRankDistribution.entrySet()){
-                int progConfigRank = entry.getKey();
-
+            for(int progConfigRank : progConfigRankDistribution.getValues()){
                 bufferedWriter.write(String.format("    %10d  %10d\n",
                         progConfigRank,
-                        entry.getValue()));
+                        progConfigRankDistribution.getCount(progConfigRank)));
+
+            }
+
+            bufferedWriter.flush();
+
+            // you probably do not want to close stdout
+            // since all latter invocation of System.out.println() will go nowhere
+            if(!outputFileNamePrefix.equals("stdout"))
+                bufferedWriter.close();
+
+        } catch (IOException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+    /**
+     * Display, for every rank effect, the number of program transitions and cvfs with that rank effect
+     * on each percentile rank, i.e. a percentile of the lengths of all paths to the invariant
+     * @param percentileAnaResults results of the analysis, keyed by percentile
+     * @param resultType type of results, part of the output file name
+     */
+    public void displayRankEffectOfPercentileRanks(TreeMap<Integer, AnalysisResults<PCT>> percentileAnaResults, String resultType){
+        BufferedWriter bufferedWriter;
+
+        try{
+            if (outputFileNamePrefix.equals("stdout")) {
+                bufferedWriter = new BufferedWriter(new OutputStreamWriter(System.out));
+            }else {
+                bufferedWriter = new BufferedWriter(new PrintWriter(outputFileNamePrefix +
+                        "-rank-effect-dist-percentiles-" + resultType + ".txt"));
+            }
 
+            // only visit rank effects that occur
+            TreeSet<Integer> rankEffects = new TreeSet<>();
+            for(AnalysisResults<PCT> anaResults : percentileAnaResults.values()){
+                for(Histogram distribution : new Histogram[]{anaResults.getProgTransOutsideInvRankEffectDistribution(),
+                        anaResults.getCvfInsideInvRankEffectDistribution(), anaResults.getCvfOutsideInvRankEffectDistribution()}){
+                    for(int rankEffect : distribution.getValues())
+                        rankEffects.add(rankEffect);
+                }
+            }
+
+            bufferedWriter.write("#   program name:             " + programName + "\n");
+            bufferedWriter.write("#     number of nodes:        " + numberOfNodes + "\n");
+            bufferedWriter.write("#   percentiles of path length: " + percentileAnaResults.keySet() + "\n");
+            bufferedWriter.write("#   cvfs count:               " + percentileAnaResults.firstEntry().getValue().getNumberOfCvf() + "\n");
+            bufferedWriter.write("#\n");
+            bufferedWriter.write("#    rank effect");
+            for(int percentile : percentileAnaResults.keySet())
+                bufferedWriter.write(String.format("  %16s  %16s", "p" + percentile + "_trans_count", "p" + percentile + "_cvfs_count"));
+            bufferedWriter.write("\n");
+            bufferedWriter.write("#   ------------");
+            for(int percentile : percentileAnaResults.keySet())
+                bufferedWriter.write("  ----------------  ----------------");
+            bufferedWriter.write("\n");
+
+            for(int rankEffect : rankEffects){
+                bufferedWriter.write(String.format("    %12d", rankEffect));
+                for(AnalysisResults<PCT> anaResults : percentileAnaResults.values()){
+                    bufferedWriter.write(String.format("  %16d  %16d",
+                            anaResults.getProgTransOutsideInvRankEffectDistribution().getCount(rankEffect),
+                            anaResults.getCvfInsideInvRankEffectDistribution().getCount(rankEffect)
+                                    + anaResults.getCvfOutsideInvRankEffectDistribution().getCount(rankEffect)));
+                }
+                bufferedWriter.write("\n");
+            }
+
+            bufferedWriter.flush();
+
+            // you probably do not want to close stdout
+            // since all latter invocation of System.out.println() will go nowhere
+            if(!outputFileNamePrefix.equals("stdout"))
+                bufferedWriter.close();
+
+        } catch (IOException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+    /**
+     * Display summary of strongly connected components of program transitions outside the invariant
+     * and a witness cycle, if any
+     * @param sccAnalysis: results of the analysis
+     */
+    public void displayNonConvergence(TransitionSccAnalysis sccAnalysis){
+        int[] witnessCycle = sccAnalysis.getWitnessCycle();
+
+        BufferedWriter bufferedWriter;
+
+        try{
+            if (outputFileNamePrefix.equals("stdout"))
+                bufferedWriter = new BufferedWriter(new OutputStreamWriter(System.out));
+            else
+                bufferedWriter = new BufferedWriter(new PrintWriter(outputFileNamePrefix + "-non-convergence.txt"));
+
+            bufferedWriter.write("#   program name:                     " + programName + "\n");
+            bufferedWriter.write("#   number of nodes:                  " + numberOfNodes + "\n");
+            bufferedWriter.write("#   number of program configurations: " + sccAnalysis.getNumberOfConfigs() + "\n");
+            bufferedWriter.write("#   configurations outside invariant: " + sccAnalysis.getNumberOfConfigsOutsideInvariant() + "\n");
+            bufferedWriter.write("#   non-trivial sccs:                 " + sccAnalysis.getNumberOfNonTrivialSccs() + "\n");
+            bufferedWriter.write("#   configurations in them:           " + sccAnalysis.getNumberOfConfigsInNonTrivialSccs() + "\n");
+            bufferedWriter.write("#   largest scc size:                 " + sccAnalysis.getLargestSccSize() + "\n");
+            bufferedWriter.write("#   configurations of rank infinity:  " + sccAnalysis.getNumberOfConfigsReachingCycle() + "\n");
+            bufferedWriter.write("#   witness cycle length:             " + witnessCycle.length + "\n");
+            bufferedWriter.write("#     position  config index  configuration\n");
+            bufferedWriter.write("#   ----------  ------------  -------------\n");
+
+            ProgramConfigurationTemplate programConfig = currentProgramConfig.getDeepCopy();
+            for(int position = 0; position < witnessCycle.length; position ++){
+                programConfig.moveToProgramConfigIndex(witnessCycle[position]);
+                bufferedWriter.write(String.format("    %10d  %12d  %s\n",
+                        position,
+                        witnessCycle[position],
+                        programConfig.toString()));
+            }
+
+            bufferedWriter.flush();
+
+            // you probably do not want to close stdout
+            // since all latter invocation of System.out.println() will go nowhere
+            if(!outputFileNamePrefix.equals("stdout"))
+                bufferedWriter.close();
+
+        } catch (IOException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+    /**
+     * Display a longest path of program transitions to the invariant from every given config,
+     * with the acting node and the action of every step
+     * @param maxRankSuccessor per configuration index, index of the next config on a longest path,
+     *                         -1 if there is none
+     * @param sourceConfigs indices of the first configs of the paths
+     * @param resultType type of results, part of the output file name
+     */
+    public void displayWitnessPaths(int[] maxRankSuccessor, int[] sourceConfigs, String resultType){
+        BufferedWriter bufferedWriter;
+
+        try{
+            if (outputFileNamePrefix.equals("stdout"))
+                bufferedWriter = new BufferedWriter(new OutputStreamWriter(System.out));
+            else
+                bufferedWriter = new BufferedWriter(new PrintWriter(outputFileNamePrefix + "-witness-paths-" + resultType + ".txt"));
+
+            bufferedWriter.write("#   program name:                     " + programName + "\n");
+            bufferedWriter.write("#   number of nodes:                  " + numberOfNodes + "\n");
+            bufferedWriter.write("#   number of witness paths:          " + sourceConfigs.length + "\n");
+
+            ProgramConfigurationTemplate programConfig = currentProgramConfig.getDeepCopy();
+            for(int sourceConfig : sourceConfigs){
+                int pathLength = 0;
+                for(int configIndex = sourceConfig; maxRankSuccessor[configIndex] >= 0; configIndex = maxRankSuccessor[configIndex])
+                    pathLength ++;
+
+                bufferedWriter.write("#\n");
+                bufferedWriter.write("#   path from config index " + sourceConfig + ", length " + pathLength + "\n");
+                bufferedWriter.write("#         step  config index  acting node  action              configuration\n");
+                bufferedWriter.write("#   ----------  ------------  -----------  ------------------  -------------\n");
+
+                int step = 0;
+                for(int configIndex = sourceConfig; ; configIndex = maxRankSuccessor[configIndex]){
+                    programConfig.moveToProgramConfigIndex(configIndex);
+                    int nextConfigIndex = maxRankSuccessor[configIndex];
+
+                    String actingNode = "-";
+                    String action;
+                    if(nextConfigIndex >= 0){
+                        action = "?";
+                        for(SuccessorInfo successor : (TreeSet<SuccessorInfo>) programConfig.getProgramConfigTransSuccessorList()){
+                            if(successor.getSuccessorProgramConfig().getProgramConfigIndex() == nextConfigIndex){
+                                actingNode = Integer.toString(successor.getIdOfChangedNode());
+                                action = programConfig.getActionName(successor);
+                                break;
+                            }
+                        }
+                    }else if(programConfig.isInsideInvariant()){
+                        action = "(invariant)";
+                    }else if(programConfig.getProgramConfigTransSuccessorList().isEmpty()){
+                        action = "(deadlock)";
+                    }else{
+                        action = "(rank infinity)";
+                    }
+
+                    bufferedWriter.write(String.format("    %10d  %12d  %11s  %-18s  %s\n",
+                            step, configIndex, actingNode, action, programConfig.toString()));
+
+                    if(nextConfigIndex < 0)
+                        break;
+                    step ++;
+                }
+            }
+
+            bufferedWriter.flush();
+
+            // you probably do not want to close stdout
+            // since all latter invocation of System.out.println() will go nowhere
+            if(!outputFileNamePrefix.equals("stdout"))
+                bufferedWriter.close();
+
+        } catch (IOException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+    /**
+     * Display the cvfs, configurations and perturbation kinds of worst effect on max rank
+     * @param worstCvfs results of the rank-effect pass
+     * @param resultType type of results, part of the output file name
+     */
+    public void displayWorstCvfs(WorstCvfs worstCvfs, String resultType){
+        BufferedWriter bufferedWriter;
+
+        try{
+            if (outputFileNamePrefix.equals("stdout"))
+                bufferedWriter = new BufferedWriter(new OutputStreamWriter(System.out));
+            else
+                bufferedWriter = new BufferedWriter(new PrintWriter(outputFileNamePrefix + "-worst-cvfs-" + resultType + ".txt"));
+
+            bufferedWriter.write("#   program name:                     " + programName + "\n");
+            bufferedWriter.write("#   number of nodes:                  " + numberOfNodes + "\n");
+            bufferedWriter.write("#   number of cvfs:                   " + worstCvfs.getNumberOfCvfs() + "\n");
+            bufferedWriter.write("#   cvfs of rank infinity, skipped:   " + worstCvfs.getNumberOfCvfsWithInfiniteRank() + "\n");
+            bufferedWriter.write("#   top k:                            " + worstCvfs.getTopK() + "\n");
+
+            ProgramConfigurationTemplate programConfig = currentProgramConfig.getDeepCopy();
+            ProgramConfigurationTemplate cvfSuccessorConfig = currentProgramConfig.getDeepCopy();
+
+            TopKCollector worstCvfList = worstCvfs.getWorstCvfList();
+            bufferedWriter.write("#\n");
+            bufferedWriter.write("#   cvfs of largest rank increase\n");
+            bufferedWriter.write("#   rank effect  source index  target index  node  inside inv  source configuration -> target configuration\n");
+            bufferedWriter.write("#   -----------  ------------  ------------  ----  ----------  ------------------------------------------\n");
+            for(int position : worstCvfList.getOrder()){
+                long item = worstCvfList.getItem(position);
+                int sourceIndex = WorstCvfs.getCvfSourceIndex(item);
+                int targetIndex = WorstCvfs.getCvfTargetIndex(item);
+                programConfig.moveToProgramConfigIndex(sourceIndex);
+                cvfSuccessorConfig.moveToProgramConfigIndex(targetIndex);
+
+                // a cvf changes one node
+                int changedNode = -1;
+                for(int nodeId = 0; nodeId < numberOfNodes; nodeId ++){
+                    if(programConfig.getNodeStateIndex(nodeId) != cvfSuccessorConfig.getNodeStateIndex(nodeId)){
+                        changedNode = nodeId;
+                        break;
+                    }
+                }
+
+                bufferedWriter.write(String.format("    %11d  %12d  %12d  %4d  %10s  %s -> %s\n",
+                        (long) worstCvfList.getPriority(position),
+                        sourceIndex,
+                        targetIndex,
+                        changedNode,
+                        programConfig.isInsideInvariant(),
+                        programConfig.toString(),
+                        cvfSuccessorConfig.toString()));
+            }
+
+            TopKCollector worstConfigList = worstCvfs.getWorstConfigList();
+            bufferedWriter.write("#\n");
+            bufferedWriter.write("#   configurations of largest total rank increase of their cvfs\n");
+            bufferedWriter.write("#   total effect  config index  inside inv  configuration\n");
+            bufferedWriter.write("#   ------------  ------------  ----------  -------------\n");
+            for(int position : worstConfigList.getOrder()){
+                int configIndex = (int) worstConfigList.getItem(position);
+                programConfig.moveToProgramConfigIndex(configIndex);
+                bufferedWriter.write(String.format("    %12d  %12d  %10s  %s\n",
+                        (long) worstConfigList.getPriority(position),
+                        configIndex,
+                        programConfig.isInsideInvariant(),
+                        programConfig.toString()));
+            }
+
+            TopKCollector worstKindList = worstCvfs.getWorstKindList();
+            bufferedWriter.write("#\n");
+            bufferedWriter.write("#   perturbation kinds of largest average rank increase\n");
+            bufferedWriter.write("#   avg effect  number of cvfs  node  source state  target state\n");
+            bufferedWriter.write("#   ----------  --------------  ----  ------------  ------------\n");
+            for(int position : worstKindList.getOrder()){
+                long item = worstKindList.getItem(position);
+                int nodeId = WorstCvfs.getKindNode(item);
+                programConfig.setNodeStateByIndex(nodeId, WorstCvfs.getKindSourceNodeStateIndex(item));
+                cvfSuccessorConfig.setNodeStateByIndex(nodeId, WorstCvfs.getKindTargetNodeStateIndex(item));
+                bufferedWriter.write(String.format("    %10.3f  %14d  %4d  %12s  %12s\n",
+                        worstKindList.getPriority(position),
+                        worstCvfs.getKindNumberOfCvfs(item),
+                        nodeId,
+                        programConfig.getNodeStateMap().get(nodeId).toString(),
+                        cvfSuccessorConfig.getNodeStateMap().get(nodeId).toString()));
             }
 
             bufferedWriter.flush();
@@ -344,9 +867,9 @@ public class AnalyzeCvfs<PCT extends ProgramConfigurationTemplate> {
      *                  i.e. whether it is full max, full average, random max, or random average, etc.
      */
     public void displayRankEffectOfProgramTransitionsAndCvfs(AnalysisResults<PCT> anaResults, String resultType) {
-        TreeMap<Integer, Integer> progTransOutsideInvRankEffectDistribution = anaResults.getProgTransOutsideInvRankEffectDistribution();
-        TreeMap<Integer, Integer> cvfInsideInvRankEffectDistribution = anaResults.getCvfInsideInvRankEffectDistribution();
-        TreeMap<Integer, Integer> cvfOutsideInvRankEffectDistribution = anaResults.getCvfOutsideInvRankEffectDistribution();
+        Histogram progTransOutsideInvRankEffectDistribution = anaResults.getProgTransOutsideInvRankEffectDistribution();
+        Histogram cvfInsideInvRankEffectDistribution = anaResults.getCvfInsideInvRankEffectDistribution();
+        Histogram cvfOutsideInvRankEffectDistribution = anaResults.getCvfOutsideInvRankEffectDistribution();
 
         if(progTransOutsideInvRankEffectDistribution == null){
             System.out.println("Rank effect of program transitions has not been computed");
@@ -382,51 +905,51 @@ public class AnalyzeCvfs<PCT extends ProgramConfigurationTemplate> {
                 minProgTransOutsideInvRankEffect = Integer.MAX_VALUE;
                 maxProgTransOutsideInvRankEffect = Integer.MIN_VALUE;
             }else{
-                minProgTransOutsideInvRankEffect = progTransOutsideInvRankEffectDistribution.firstKey();
-                maxProgTransOutsideInvRankEffect = progTransOutsideInvRankEffectDistribution.lastKey();
+                minProgTransOutsideInvRankEffect = progTransOutsideInvRankEffectDistribution.getMinValue();
+                maxProgTransOutsideInvRankEffect = progTransOutsideInvRankEffectDistribution.getMaxValue();
             }
             if(cvfInsideInvRankEffectDistribution.isEmpty()){
                 minCvfInsideInvRankEffect = Integer.MAX_VALUE;
                 maxCvfInsideInvRankEffect = Integer.MIN_VALUE;
             }else{
-                minCvfInsideInvRankEffect = cvfInsideInvRankEffectDistribution.firstKey();
-                maxCvfInsideInvRankEffect = cvfInsideInvRankEffectDistribution.lastKey();
+                minCvfInsideInvRankEffect = cvfInsideInvRankEffectDistribution.getMinValue();
+                maxCvfInsideInvRankEffect = cvfInsideInvRankEffectDistribution.getMaxValue();
             }
             if(cvfOutsideInvRankEffectDistribution.isEmpty()){
                 minCvfOutsideInvRankEffect = Integer.MAX_VALUE;
                 maxCvfOutsideInvRankEffect = Integer.MIN_VALUE;
             }else {
-                minCvfOutsideInvRankEffect = cvfOutsideInvRankEffectDistribution.firstKey();
-                maxCvfOutsideInvRankEffect = cvfOutsideInvRankEffectDistribution.lastKey();
+                minCvfOutsideInvRankEffect = cvfOutsideInvRankEffectDistribution.getMinValue();
+                maxCvfOutsideInvRankEffect = cvfOutsideInvRankEffectDistribution.getMaxValue();
             }
 
             int minCvfRankEffect = Math.min(minCvfInsideInvRankEffect, minCvfOutsideInvRankEffect);
             int minRankEffect = Math.min(minCvfRankEffect, minProgTransOutsideInvRankEffect);
             int maxCvfRankEffect = Math.max(maxCvfInsideInvRankEffect, maxCvfOutsideInvRankEffect);
             int maxRankEffect = Math.max(maxCvfRankEffect, maxProgTransOutsideInvRankEffect);
-            int numberOfCvfs = anaResults.getNumberOfCvf();
-            int cvfTotalRankEffect = anaResults.getCvfTotalRankEffect();
+            long numberOfCvfs = anaResults.getNumberOfCvf();
+            long cvfTotalRankEffect = anaResults.getCvfTotalRankEffect();
 
             // compute effect of adverse cvf
             double adverseCvfInsideInvTotalRankEffect = 0;
-            int adverseCvfInsideInvCount = 0;
+            long adverseCvfInsideInvCount = 0;
             double adverseCvfOutsideInvTotalRankEffect = 0;
-            int adverseCvfOutsideInvCount = 0;
-            int adverseCvfsCount = 0;
+            long adverseCvfOutsideInvCount = 0;
+            long adverseCvfsCount = 0;
             double adverseCvfTotalRankEffect = 0;
-            for(Map.Entry<Integer, Integer> entry : cvfInsideInvRankEffectDistribution.entrySet()){
-                int rankEffect = entry.getKey();
+            for(int rankEffect : cvfInsideInvRankEffectDistribution.getValues()){
                 if(rankEffect > 0){
-                    adverseCvfInsideInvCount += entry.getValue();
-                    adverseCvfInsideInvTotalRankEffect += rankEffect * entry.getValue();
+                    long count = cvfInsideInvRankEffectDistribution.getCount(rankEffect);
+                    adverseCvfInsideInvCount += count;
+                    adverseCvfInsideInvTotalRankEffect += rankEffect * count;
                 }
             }
 
-            for(Map.Entry<Integer, Integer> entry: cvfOutsideInvRankEffectDistribution.entrySet()){
-                int rankEffect = entry.getKey();
+            for(int rankEffect : cvfOutsideInvRankEffectDistribution.getValues()){
                 if(rankEffect > 0){
-                    adverseCvfOutsideInvCount += entry.getValue();
-                    adverseCvfOutsideInvTotalRankEffect += rankEffect * entry.getValue();
+                    long count = cvfOutsideInvRankEffectDistribution.getCount(rankEffect);
+                    adverseCvfOutsideInvCount += count;
+                    adverseCvfOutsideInvTotalRankEffect += rankEffect * count;
                 }
             }
             adverseCvfsCount = adverseCvfInsideInvCount + adverseCvfOutsideInvCount;
@@ -477,19 +1000,18 @@ public class AnalyzeCvfs<PCT extends ProgramConfigurationTemplate> {
             bufferedWriter.flush();
 
 
-            for(int rankEffect = minRankEffect; rankEffect <= maxCvfRankEffect; rankEffect ++){
-                int progTransCount = 0;
-                int cvfInInvCount = 0;
-                int cvfOutInvCount = 0;
-                if(progTransOutsideInvRankEffectDistribution.containsKey(rankEffect)){
-                    progTransCount = progTransOutsideInvRankEffectDistribution.get(rankEffect);
-                }
-                if(cvfInsideInvRankEffectDistribution.containsKey(rankEffect)){
-                    cvfInInvCount = cvfInsideInvRankEffectDistribution.get(rankEffect);
-                }
-                if(cvfOutsideInvRankEffectDistribution.containsKey(rankEffect)){
-                    cvfOutInvCount = cvfOutsideInvRankEffectDistribution.get(rankEffect);
-                }
+            // only visit rank effects that occur, the range may be huge if some ranks are infinity
+            TreeSet<Integer> rankEffects = new TreeSet<>();
+            for(Histogram distribution : new Histogram[]{progTransOutsideInvRankEffectDistribution,
+                    cvfInsideInvRankEffectDistribution, cvfOutsideInvRankEffectDistribution}){
+                for(int rankEffect : distribution.getValues())
+                    rankEffects.add(rankEffect);
+            }
+
+            for(int rankEffect : rankEffects.headSet(maxCvfRankEffect, true)){
+                long progTransCount = progTransOutsideInvRankEffectDistribution.getCount(rankEffect);
+                long cvfInInvCount = cvfInsideInvRankEffectDistribution.getCount(rankEffect);
+                long cvfOutInvCount = cvfOutsideInvRankEffectDistribution.getCount(rankEffect);
 
                 if(progTransCount == 0 && cvfInInvCount == 0 && cvfOutInvCount ==0) {
                     // all maps have no entry for this key, skip
@@ -512,13 +1034,82 @@ public class AnalyzeCvfs<PCT extends ProgramConfigurationTemplate> {
 
             displayPerNodeRankEffectOfProgramTransitionsAndCvfs(anaResults, resultType);
 
+            displayRankTransitionMatrices(anaResults, resultType);
+
+        } catch (IOException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+    /**
+     * Display rank transition matrices of program transitions, cvfs inside and cvfs outside the invariant,
+     * if they have been counted, one CSV file per matrix:
+     *   a row per source rank, a column per target rank, "inf" for infinite rank (only if it occurs).
+     * Counts of matrices of other shards of the same program can be added cell by cell (matching rank labels).
+     */
+    public void displayRankTransitionMatrices(AnalysisResults<PCT> anaResults, String resultType){
+        if(anaResults.getProgTransOutsideInvRankTransitionMatrix() == null)
+            return;
+
+        displayRankTransitionMatrix(anaResults.getProgTransOutsideInvRankTransitionMatrix(),
+                "prog trans outside Inv", "prog-transition", resultType);
+        displayRankTransitionMatrix(anaResults.getCvfInsideInvRankTransitionMatrix(),
+                "cvfs inside Inv", "cvf-inside-inv", resultType);
+        displayRankTransitionMatrix(anaResults.getCvfOutsideInvRankTransitionMatrix(),
+                "cvfs outside Inv", "cvf-outside-inv", resultType);
+    }
+
+    private void displayRankTransitionMatrix(RankTransitionMatrix matrix, String transitionName, String transitionType,
+                                             String resultType){
+        BufferedWriter bufferedWriter;
+
+        try{
+            if (outputFileNamePrefix.equals("stdout"))
+                bufferedWriter = new BufferedWriter(new OutputStreamWriter(System.out));
+            else
+                bufferedWriter = new BufferedWriter(new PrintWriter(outputFileNamePrefix +
+                        "-rank-transition-matrix-" + transitionType + "-" + resultType + ".csv"));
+
+            // ranks of rows and columns, infinite rank last
+            Vector<Integer> ranks = new Vector<>();
+            for(int rank = 0; rank <= matrix.getMaxRank(); rank ++)
+                ranks.addElement(rank);
+            if(matrix.hasInfiniteRank())
+                ranks.addElement(INFINITY_RANK);
+
+            bufferedWriter.write("#   program name:             " + programName + "\n");
+            bufferedWriter.write("#     number of nodes:        " + numberOfNodes + "\n");
+            bufferedWriter.write("#   transitions:              " + transitionName + "\n");
+            bufferedWriter.write("#   transitions count:        " + matrix.getNumberOfTransitions() + "\n");
+            bufferedWriter.write("#   max finite rank:          " + matrix.getMaxRank() + "\n");
+            bufferedWriter.write("#   rows are source ranks, columns are target ranks\n");
+
+            StringBuilder line = new StringBuilder("source\\target");
+            for(int targetRank : ranks)
+                line.append(',').append(targetRank == INFINITY_RANK ? "inf" : Integer.toString(targetRank));
+            bufferedWriter.write(line.append('\n').toString());
+
+            for(int sourceRank : ranks){
+                line.setLength(0);
+                line.append(sourceRank == INFINITY_RANK ? "inf" : Integer.toString(sourceRank));
+                for(int targetRank : ranks)
+                    line.append(',').append(matrix.getCount(sourceRank, targetRank));
+                bufferedWriter.write(line.append('\n').toString());
+            }
+
+            bufferedWriter.flush();
+
+            // you probably do not want to close stdout
+            if(!outputFileNamePrefix.equals("stdout"))
+                bufferedWriter.close();
+
         } catch (IOException e) {
             System.out.println(e.getMessage());
         }
     }
 
     public void displayPerNodeRankEffectOfProgramTransitionsAndCvfs(AnalysisResults<PCT> anaResults, String resultType){
-        Vector<TreeMap<Integer, Integer>> perNodeCvfOutsideInvRankEffectDistribution = anaResults.getPerNodeCvfOutsideInvRankEffectDistribution();
+        Vector<Histogram> perNodeCvfOutsideInvRankEffectDistribution = anaResults.getPerNodeCvfOutsideInvRankEffectDistribution();
 
         if(perNodeCvfOutsideInvRankEffectDistribution == null){
             System.out.println("Rank effect of cvfs per node has not been computed");
@@ -541,7 +1132,7 @@ public class AnalyzeCvfs<PCT extends ProgramConfigurationTemplate> {
         }
 
         for(int nodeId = 0; nodeId < numberOfNodes; nodeId ++){
-            TreeMap<Integer, Integer> cvfOutsideInvRankEffectDistribution = perNodeCvfOutsideInvRankEffectDistribution.elementAt(nodeId);
+            Histogram cvfOutsideInvRankEffectDistribution = perNodeCvfOutsideInvRankEffectDistribution.elementAt(nodeId);
             BufferedWriter bufferedWriter = perNodeBufferedWriter.elementAt(nodeId);
 
             try{
@@ -552,8 +1143,8 @@ public class AnalyzeCvfs<PCT extends ProgramConfigurationTemplate> {
                     minCvfOutsideInvRankEffect = Integer.MAX_VALUE;
                     maxCvfOutsideInvRankEffect = Integer.MIN_VALUE;
                 }else {
-                    minCvfOutsideInvRankEffect = cvfOutsideInvRankEffectDistribution.firstKey();
-                    maxCvfOutsideInvRankEffect = cvfOutsideInvRankEffectDistribution.lastKey();
+                    minCvfOutsideInvRankEffect = cvfOutsideInvRankEffectDistribution.getMinValue();
+                    maxCvfOutsideInvRankEffect = cvfOutsideInvRankEffectDistribution.getMaxValue();
                 }
 
                 int minCvfRankEffect = minCvfOutsideInvRankEffect;
@@ -561,24 +1152,21 @@ public class AnalyzeCvfs<PCT extends ProgramConfigurationTemplate> {
                 int minRankEffect = minCvfRankEffect;
                 int maxRankEffect = maxCvfRankEffect;
 
-                int numberOfCvfOutsideInv = 0;
-                int cvfOutsideInvTotalRankEffect = 0;
-                int adverseCvfOutsideInvCount = 0;
+                long numberOfCvfOutsideInv = cvfOutsideInvRankEffectDistribution.getNumberOfSamples();
+                long cvfOutsideInvTotalRankEffect = cvfOutsideInvRankEffectDistribution.getTotalValue();
+                long adverseCvfOutsideInvCount = 0;
                 double adverseCvfOutsideInvTotalRankEffect = 0;
-                for(Map.Entry<Integer, Integer> entry : cvfOutsideInvRankEffectDistribution.entrySet()){
-                    int rankEffect = entry.getKey();
-                    int count = entry.getValue();
-                    numberOfCvfOutsideInv += count;
-                    cvfOutsideInvTotalRankEffect += rankEffect * count;
+                for(int rankEffect : cvfOutsideInvRankEffectDistribution.getValues()){
                     if(rankEffect > 0){
+                        long count = cvfOutsideInvRankEffectDistribution.getCount(rankEffect);
                         adverseCvfOutsideInvCount += count;
                         adverseCvfOutsideInvTotalRankEffect += rankEffect * count;
                     }
                 }
 
-                int numberOfCvfs = numberOfCvfOutsideInv;
-                int cvfTotalRankEffect = cvfOutsideInvTotalRankEffect;
-                int adverseCvfCount = adverseCvfOutsideInvCount;
+                long numberOfCvfs = numberOfCvfOutsideInv;
+                long cvfTotalRankEffect = cvfOutsideInvTotalRankEffect;
+                long adverseCvfCount = adverseCvfOutsideInvCount;
                 double adverseCvfTotalRankEffect = adverseCvfOutsideInvTotalRankEffect;
 
                 bufferedWriter.write("#   program name:             " + programName + "\n");
@@ -606,11 +1194,8 @@ public class AnalyzeCvfs<PCT extends ProgramConfigurationTemplate> {
                 bufferedWriter.flush();
 
 
-                for(int rankEffect = minRankEffect; rankEffect <= maxCvfRankEffect; rankEffect ++){
-                    int cvfOutInvCount = 0;
-                    if(cvfOutsideInvRankEffectDistribution.containsKey(rankEffect)){
-                        cvfOutInvCount = cvfOutsideInvRankEffectDistribution.get(rankEffect);
-                    }
+                for(int rankEffect : cvfOutsideInvRankEffectDistribution.getValues()){
+                    long cvfOutInvCount = cvfOutsideInvRankEffectDistribution.getCount(rankEffect);
 
                     if(cvfOutInvCount == 0) {
                         // all maps have no entry for this key, skip
@@ -1,17 +1,38 @@
 package main;
 
 import datastructure.AnalysisResults;
+import datastructure.BitmapRankAnalysis;
+import datastructure.CompressedBitmap;
 import datastructure.DebugInfo;
+import datastructure.FaultSpanAnalysis;
+import datastructure.GraphAutomorphisms;
+import datastructure.Histogram;
+import datastructure.IndexedProgramConfigurationInformation;
+import datastructure.InvertedTransitionIndex;
+import datastructure.LumpingRankAnalysis;
+import datastructure.MultiCvfRankAnalysis;
+import datastructure.NodeActionEvaluationResults;
+import datastructure.PackedRankArray;
+import datastructure.PathCount;
+import datastructure.PathLengthAnalysis;
+import datastructure.PendingRankEffects;
 import datastructure.ProgramConfigurationInformation;
+import datastructure.QuotientRankAnalysis;
+import datastructure.RandomDaemonAnalysis;
 import datastructure.RankEvaluationResults;
+import datastructure.RankSnapshot;
+import datastructure.SymbolicRankAnalysis;
+import datastructure.SymmetricRankAnalysis;
+import datastructure.TransitionSccAnalysis;
+import datastructure.WorstCvfs;
 import template.ProgramConfigurationTemplate;
 import template.SuccessorInfo;
 
 import java.io.*;
-import java.math.BigInteger;
 import java.text.DateFormat;
 import java.util.*;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongConsumer;
 
 import static datastructure.ProgramConfigurationInformation.DEFAULT_MIN_RANK;
 import static template.ProgramConfigurationTemplate.*;
@@ -33,14 +54,124 @@ public class AnalyzeProgramBasedOnConfigurations<PCT extends ProgramConfiguratio
     // for full analysis
     AnalysisResults<PCT> fullMaxAnaResults; // for max rank
     AnalysisResults<PCT> fullAvgAnaResults; // for average rank
+    AnalysisResults<PCT> fullMinAnaResults; // for min rank
+    PackedRankArray fullMinRank; // min rank of every config, indexed by configuration index
+    // per configuration index, index of a successor of largest max rank, i.e. the next config on a longest path,
+    // -1 if the config is inside the invariant, has no successor or has infinite max rank,
+    // null unless witness paths are written
+    int[] fullMaxRankSuccessor;
+    WorstCvfs fullWorstCvfs; // cvfs of worst effect on max rank, null if not requested
+    // rank effects under cvf models other than cvf (all-cvf-models), keyed by cvf model
+    TreeMap<Integer, AnalysisResults<PCT>> fullMaxCvfModelAnaResults;
+    TreeMap<Integer, AnalysisResults<PCT>> fullAvgCvfModelAnaResults;
+
+    // for backward analysis (search from the invariant)
+    AnalysisResults<PCT> backwardMaxAnaResults;
+    AnalysisResults<PCT> backwardAvgAnaResults;
+    InvertedTransitionIndex backwardInvertedIndex; // null if predecessors are generated by program
+    // search state, kept so that the search can be deepened
+    HashMap<Long, BackwardSearchInfo> backwardSearchInfoMap;
+    ArrayList<Long> backwardCurrentLayer; // configs of max rank backwardDistance
+    int backwardDistance; // ranks up to this value are computed
+    int backwardNumberOfConfigsWithRanks;
+    BufferedWriter backwardLayerWriter; // partial results after every layer, null if written to stdout
+
+    // for symmetry-reduced analysis (one representative config per orbit under graph automorphisms)
+    AnalysisResults<PCT> symMaxAnaResults;
+    AnalysisResults<PCT> symAvgAnaResults;
+    SymmetricRankAnalysis symmetricAnalysis;
+
+    // for lumping analysis (one config per block of the coarsest bisimulation of program transitions)
+    AnalysisResults<PCT> lumpMaxAnaResults;
+    AnalysisResults<PCT> lumpAvgAnaResults;
+    LumpingRankAnalysis lumpingAnalysis;
+
+    // for fault-span analysis (configs reachable from the invariant by program transitions and at most faultSpanCvfs cvfs)
+    AnalysisResults<PCT> spanMaxAnaResults;
+    AnalysisResults<PCT> spanAvgAnaResults;
+    AnalysisResults<PCT> spanMinAnaResults; // only rank distribution
+    FaultSpanAnalysis faultSpanAnalysis;
+    IndexedProgramConfigurationInformation spanConfigInfo; // indexed by local id in the fault span
+
+    // for symbolic analysis (rank layers as sets of configs in binary decision diagrams)
+    AnalysisResults<PCT> bddMaxAnaResults; // only rank distribution
+    AnalysisResults<PCT> bddMinAnaResults; // only rank distribution
+    SymbolicRankAnalysis symbolicAnalysis;
+
+    // for bitmap analysis (rank layers as compressed bitmaps of configuration indices)
+    AnalysisResults<PCT> bitmapMaxAnaResults; // only rank distribution
+    AnalysisResults<PCT> bitmapMinAnaResults; // only rank distribution
+    BitmapRankAnalysis bitmapAnalysis;
+
+    // for path-length distribution analysis (distribution of lengths of all paths to the invariant of every config)
+    AnalysisResults<PCT> distMaxAnaResults;
+    AnalysisResults<PCT> distAvgAnaResults;
+    TreeMap<Integer, AnalysisResults<PCT>> distPercentileAnaResults; // keyed by percentile
+    PathLengthAnalysis pathLengthAnalysis;
+
+    // for differential analysis (full analysis updated after an edge edit of the graph topology)
+    boolean diffAddsEdge; // whether the edit adds or removes the edge
+    int[] diffEdgeNodes; // ends of the edited edge
+    Vector<Integer>[] diffOriginalNbrLists; // neighbors of both ends before the edit
+    Vector<Integer>[] diffEditedNbrLists; // neighbors of both ends after the edit
+    int diffOriginalMaxDegree;
+    int diffEditedMaxDegree;
+    // predecessors before the edit, kept from min rank computation, null if generated by program
+    InvertedTransitionIndex fullInvertedIndex;
+
+    // for multi-cvf analysis (worst-case ranks when up to multiCvfs cvfs strike during recovery)
+    MultiCvfRankAnalysis multiCvfAnalysis;
+
+    // for random daemon analysis (expected convergence time under a uniformly random central daemon)
+    AnalysisResults<PCT> daemonAnaResults; // only distribution of expected time, rounded
+    RandomDaemonAnalysis randomDaemonAnalysis;
+
+    // for non-convergence analysis (cycles of program transitions outside the invariant)
+    TransitionSccAnalysis sccAnalysis;
 
     // for random analysis
     AnalysisResults<PCT> randMaxAnaResults; // select max from random paths
     AnalysisResults<PCT> randAvgAnaResults; // select average from random paths
+    AnalysisResults<PCT> randMinAnaResults; // select min from random paths
 
     private double randomTransNbrProb;  // probability to select a transition nbr to evaluate effect of transitions
     private double randomCvfNbrProb;    // probability to select a cvf nbr to evaluate effect of cvfs
     private String configBaseAnalysisTask; // perform full or statistical analysis or both
+    private String fullAnalysisStorage; // store successor lists, compute them on demand, or regenerate them (edge-free) in full analysis
+    private int backwardMaxDistance; // backward analysis computes ranks up to this value
+    private int rankEffectThreads; // 1: rank effects are counted during rank computation, otherwise by that many threads afterwards
+    private boolean allCvfModels; // full analysis also computes rank effects under the other cvf models
+    private long[] witnessPathConfigs; // full analysis writes a longest path to the invariant from these configs
+    private int witnessPathTopK; // and from that many configs of largest max rank
+    private int worstCvfsTopK; // full analysis reports that many cvfs, configs and perturbation kinds of worst rank effect
+    private int faultSpanCvfs; // fault-span analysis follows at most that many cvfs from the invariant
+    private String rankSnapshotFileName; // full analysis loads ranks from this file, or writes them to it, "" if none
+    private String topologyEdit; // differential analysis updates full analysis after this edge edit, e.g. "add:2:5"
+    private int multiCvfs; // multi-cvf analysis computes worst-case ranks when up to that many cvfs strike during recovery
+    private double faultProbability; // random daemon analysis: probability that a cvf follows a program transition
+    private boolean rankTransitionMatrices; // full analysis also counts transitions by source rank and target rank
+
+    // for full analysis with edge-free storage
+    IndexedProgramConfigurationInformation fullIndexedConfigInfo;
+
+    // percentiles of path length reported by path-length distribution analysis
+    static final int[] PATH_LENGTH_PERCENTILES = {50, 90, 99};
+
+    // indexed state space is kept in arrays
+    static final long MAX_SIZE_OF_INDEXED_STATE_SPACE = Integer.MAX_VALUE - 8;
+
+    // search status of a config in edge-free rank computation
+    private static final byte EDGE_FREE_UNVISITED = 0;
+    private static final byte EDGE_FREE_ON_STACK = 1;
+    private static final byte EDGE_FREE_DONE = 2;
+    // path counts of a config inside the invariant
+    private static final PathCount INVARIANT_TOTAL_PATH_LENGTH = new PathCount(0);
+    private static final PathCount INVARIANT_NUMBER_OF_PATHS = new PathCount(1);
+
+    // status of a config in differential analysis
+    private static final byte DIFF_UNCHANGED = 0;   // ranks are kept
+    private static final byte DIFF_INVALIDATED = 1; // ranks are recomputed since an affected config is reachable
+    private static final byte DIFF_AFFECTED = 2;    // program transitions are changed by the edit
 
     public AnalyzeProgramBasedOnConfigurations(
             int runId,
@@ -54,7 +185,20 @@ public class AnalyzeProgramBasedOnConfigurations<PCT extends ProgramConfiguratio
             PCT firstProgramConfig,
             double randomTransNbrProb,
             double randomCvfNbrProb,
-            String configBaseAnalysisTask){
+            String configBaseAnalysisTask,
+            String fullAnalysisStorage,
+            int backwardMaxDistance,
+            int rankEffectThreads,
+            boolean allCvfModels,
+            long[] witnessPathConfigs,
+            int witnessPathTopK,
+            int worstCvfsTopK,
+            int faultSpanCvfs,
+            String rankSnapshotFileName,
+            String topologyEdit,
+            int multiCvfs,
+            double faultProbability,
+            boolean rankTransitionMatrices){
 
         super(runId,
                 numberOfNodes,
@@ -69,6 +213,19 @@ public class AnalyzeProgramBasedOnConfigurations<PCT extends ProgramConfiguratio
         this.randomTransNbrProb = randomTransNbrProb;
         this.randomCvfNbrProb = randomCvfNbrProb;
         this.configBaseAnalysisTask = configBaseAnalysisTask;
+        this.fullAnalysisStorage = fullAnalysisStorage;
+        this.backwardMaxDistance = backwardMaxDistance;
+        this.rankEffectThreads = rankEffectThreads;
+        this.allCvfModels = allCvfModels;
+        this.witnessPathConfigs = witnessPathConfigs;
+        this.witnessPathTopK = witnessPathTopK;
+        this.worstCvfsTopK = worstCvfsTopK;
+        this.faultSpanCvfs = faultSpanCvfs;
+        this.rankSnapshotFileName = rankSnapshotFileName;
+        this.topologyEdit = topologyEdit;
+        this.multiCvfs = multiCvfs;
+        this.faultProbability = faultProbability;
+        this.rankTransitionMatrices = rankTransitionMatrices;
     }
 
 
@@ -77,17 +234,22 @@ public class AnalyzeProgramBasedOnConfigurations<PCT extends ProgramConfiguratio
      *   an initial rank.
      *     if a config is in the invariant, its initial rank is 0 and permanent
      *     if a config is outside the invariant, its initial rank is infinity and to be updated
-     *   and list of its successors
+     *   and list of its successors, or nothing if successor lists are computed on demand
      */
     void init() {
-        fullMaxAnaResults = new AnalysisResults<>(new TreeMap<>(), new TreeMap<>());
-        fullAvgAnaResults = new AnalysisResults<>(new TreeMap<>(), new TreeMap<>());
+        fullMaxAnaResults = new AnalysisResults<>(new TreeMap<>(), new Histogram());
+        fullAvgAnaResults = new AnalysisResults<>(new TreeMap<>(), new Histogram());
 
-        TreeMap<Integer, Integer> max_fullProgConfigRankDistribution = fullMaxAnaResults.getProgConfigRankDistribution();
+        Histogram max_fullProgConfigRankDistribution = fullMaxAnaResults.getProgConfigRankDistribution();
         TreeMap<PCT, ProgramConfigurationInformation<PCT>> max_fullProgConfigInfoMap = fullMaxAnaResults.getProgConfigInfoMap();
-        TreeMap<Integer, Integer> avg_fullProgConfigRankDistribution = fullAvgAnaResults.getProgConfigRankDistribution();
+        Histogram avg_fullProgConfigRankDistribution = fullAvgAnaResults.getProgConfigRankDistribution();
 //        TreeMap<PCT, ProgramConfigurationInformation<PCT>> avg_fullProgConfigInfoMap = fullAvgAnaResults.getProgConfigInfoMap();
 
+        fullInitMaxRankSuccessors("init");
+
+        // lazy: successor lists are computed when first needed
+        boolean lazySuccessorLists = fullAnalysisStorage.equals(FULL_ANALYSIS_STORAGE_LAZY_SUCCESSOR_LISTS);
+
         currentProgramConfig.moveToFirstProgramConfig();
         firstProgramConfig.moveToFirstProgramConfig();
 
@@ -112,14 +274,25 @@ public class AnalyzeProgramBasedOnConfigurations<PCT extends ProgramConfiguratio
             }
 
 
-            max_fullProgConfigInfoMap.put(currentConfigCopy,
-                    new ProgramConfigurationInformation<PCT>(
+            ProgramConfigurationInformation<PCT> currentConfigInfo;
+            if(lazySuccessorLists){
+                currentConfigInfo = new ProgramConfigurationInformation<PCT>(
+                            initRank,
+                            DEFAULT_MIN_RANK,
+                            new PathCount(initRank),
+                            new PathCount(1),
+                            currentConfigCopy);
+            }else{
+                currentConfigInfo = new ProgramConfigurationInformation<PCT>(
                             initRank,
                             DEFAULT_MIN_RANK,
-                            BigInteger.valueOf(initRank),
-                            BigInteger.ONE,
+                            new PathCount(initRank),
+                            new PathCount(1),
                             currentConfigCopy.getProgramConfigTransSuccessorList(),
-                            currentConfigCopy.getProgramConfigCvfSuccessorList()));
+                            currentConfigCopy.getProgramConfigCvfSuccessorList());
+            }
+            currentConfigInfo.setConfigId(configCount);
+            max_fullProgConfigInfoMap.put(currentConfigCopy, currentConfigInfo);
 
             // no need this code since info about average rank
             // can also be stored in max_fullProgConfigInfoMap
@@ -127,8 +300,8 @@ public class AnalyzeProgramBasedOnConfigurations<PCT extends ProgramConfiguratio
 //                    new ProgramConfigurationInformation<PCT>(
 //                            initRank,
 //                            DEFAULT_MIN_RANK,
-//                            BigInteger.valueOf(initRank),
-//                            BigInteger.ONE,
+//                            new PathCount(initRank),
+//                            new PathCount(1),
 //                            currentConfigCopy.getProgramConfigTransSuccessorList(),
 //                            currentConfigCopy.getProgramConfigCvfSuccessorList()));
 
@@ -147,6 +320,18 @@ public class AnalyzeProgramBasedOnConfigurations<PCT extends ProgramConfiguratio
         System.out.println();
     }
 
+    /**
+     * (full analysis, successor-list storage)
+     * Release successor lists that are computed on demand once they are no longer used.
+     * Rank propagation and the rank-effect passes keep the program transition successors of every config,
+     * cvf successors are never kept.
+     */
+    void fullReleaseSuccessorLists(){
+        for(ProgramConfigurationInformation<PCT> progConfigInfo : fullMaxAnaResults.getProgConfigInfoMap().values()){
+            progConfigInfo.releaseSuccessorLists();
+        }
+    }
+
     /**
      * (full analysis)
      * compute maximum rank (length of the longest path to the invariant) for every program configuration:
@@ -161,7 +346,7 @@ public class AnalyzeProgramBasedOnConfigurations<PCT extends ProgramConfiguratio
         int currentRoundRankUpdateCount = 0;
         int roundCount = 0;
 
-        TreeMap<Integer, Integer> fullProgConfigRankDistribution = fullMaxAnaResults.getProgConfigRankDistribution();
+        Histogram fullProgConfigRankDistribution = fullMaxAnaResults.getProgConfigRankDistribution();
         TreeMap<PCT, ProgramConfigurationInformation<PCT>> fullProgConfigInfoMap = fullMaxAnaResults.getProgConfigInfoMap();
 
         // repeat until no rank update
@@ -205,13 +390,7 @@ public class AnalyzeProgramBasedOnConfigurations<PCT extends ProgramConfiguratio
                         int nodeNewRank = maxRankOfSuccessors + 1;
                         entry.getValue().setMaxRank(nodeNewRank);
 
-                        if(!fullProgConfigRankDistribution.containsKey(nodeNewRank)){
-                            fullProgConfigRankDistribution.put(nodeNewRank, 1);
-                        }else{
-                            fullProgConfigRankDistribution.put(
-                                    nodeNewRank,
-                                    fullProgConfigRankDistribution.get(nodeNewRank) + 1);
-                        }
+                        addValueToDistribution(fullProgConfigRankDistribution, nodeNewRank);
 
                         currentRoundRankUpdateCount ++;
 
@@ -248,6 +427,13 @@ public class AnalyzeProgramBasedOnConfigurations<PCT extends ProgramConfiguratio
      *          totalPathLength = sum of total path length of all successors + number of successors
      *          totalPathCount = sum of total path count of all successors
      *          its average rank can be derived as totalPathLength/totalPathCount
+     * Rank effects of program transitions and cvfs are computed along the way:
+     * the effect of a transition is counted as soon as both of its end configs have final ranks,
+     * so no second pass over all configs and successor lists is needed (see fullAddRankEffect()).
+     * Transitions to configs whose ranks never become finite are counted after the last round.
+     * If rank effects are computed by several threads (rankEffectThreads > 1) or worst cvfs are requested,
+     * they are not counted here but by fullComputeRankEffectOfProgramTransitionsAndCvfs() afterwards
+     * (see fullCountsRankEffectsAfterRanks()).
      * @return number of rank updates
      */
     int fullComputeMaxAndAverageRankForConfigs(){
@@ -255,12 +441,35 @@ public class AnalyzeProgramBasedOnConfigurations<PCT extends ProgramConfiguratio
         int currentRoundRankUpdateCount = 0;
         int roundCount = 0;
 
-        TreeMap<Integer, Integer> fullMaxProgConfigRankDistribution = fullMaxAnaResults.getProgConfigRankDistribution();
+        Histogram fullMaxProgConfigRankDistribution = fullMaxAnaResults.getProgConfigRankDistribution();
         TreeMap<PCT, ProgramConfigurationInformation<PCT>> fullMaxProgConfigInfoMap = fullMaxAnaResults.getProgConfigInfoMap();
 
-        TreeMap<Integer, Integer> fullAvgProgConfigRankDistribution = fullAvgAnaResults.getProgConfigRankDistribution();
+        Histogram fullAvgProgConfigRankDistribution = fullAvgAnaResults.getProgConfigRankDistribution();
 //        TreeMap<PCT, ProgramConfigurationInformation<PCT>> fullAvgProgConfigInfoMap = fullAvgAnaResults.getProgConfigInfoMap();
 
+        // accumulators for successors, reused for every config
+        PathCount allSuccTotalPathLength = new PathCount();
+        PathCount allSuccTotalNumberOfPaths = new PathCount();
+        ArrayList<ProgramConfigurationInformation<PCT>> successorInfoList = new ArrayList<>();
+
+        // rank effects whose source has final ranks, waiting for the ranks of their target;
+        // null if rank effects are computed by fullComputeRankEffectOfProgramTransitionsAndCvfs() afterwards
+        PendingRankEffects pendingRankEffects =
+                fullCountsRankEffectsAfterRanks() ? null : new PendingRankEffects(fullMaxProgConfigInfoMap.size());
+
+        if(pendingRankEffects != null) {
+            fullInitRankEffects();
+
+            // configs inside the invariant have final ranks from the start
+            for (ProgramConfigurationInformation<PCT> progConfigInfo : fullMaxProgConfigInfoMap.values()) {
+                if (progConfigInfo.getMaxRank() == 0) {
+                    fullMaxAnaResults.incrementNumberOfProgTransInsideInv();
+                    fullAvgAnaResults.incrementNumberOfProgTransInsideInv();
+                    fullAddCvfRankEffects(progConfigInfo, PendingRankEffects.CVF_INSIDE_INV, fullMaxProgConfigInfoMap, pendingRankEffects);
+                }
+            }
+        }
+
         // repeat until no rank update
         do{
             currentRoundRankUpdateCount = 0;
@@ -280,12 +489,15 @@ public class AnalyzeProgramBasedOnConfigurations<PCT extends ProgramConfiguratio
 
                     int maxRankOfSuccessors = -1;
                     ProgramConfigurationTemplate maxSuccessor = null;
-                    BigInteger allSuccTotalPathLength = BigInteger.ZERO;
-                    BigInteger allSuccTotalNumberOfPaths = BigInteger.ZERO;
+                    allSuccTotalPathLength.setValue(0);
+                    allSuccTotalNumberOfPaths.setValue(0);
+                    successorInfoList.clear();
 
                     for(SuccessorInfo successor : successorList){
                         ProgramConfigurationTemplate successorPC = successor.getSuccessorProgramConfig();
-                        int successorRank = fullMaxProgConfigInfoMap.get(successorPC).getMaxRank();
+                        ProgramConfigurationInformation<PCT> successorInfo = fullMaxProgConfigInfoMap.get(successorPC);
+                        int successorRank = successorInfo.getMaxRank();
+                        successorInfoList.add(successorInfo);
 
 //                        System.out.println("successor " + successor);
 //                        ProgramConfigurationInformation<PCT> successorInfo = fullMaxProgConfigInfoMap.get(successor);
@@ -299,10 +511,8 @@ public class AnalyzeProgramBasedOnConfigurations<PCT extends ProgramConfiguratio
 
                         if(successorRank != INFINITY_RANK) {
                             // only do big integer calculation with successors with finite rank
-                            BigInteger successorTotalPathLength = fullMaxProgConfigInfoMap.get(successorPC).getTotalPathLength();
-                            BigInteger successorNumberOfPaths = fullMaxProgConfigInfoMap.get(successorPC).getNumberOfPaths();
-                            allSuccTotalPathLength = allSuccTotalPathLength.add(successorTotalPathLength);
-                            allSuccTotalNumberOfPaths = allSuccTotalNumberOfPaths.add(successorNumberOfPaths);
+                            allSuccTotalPathLength.add(successorInfo.getTotalPathLength());
+                            allSuccTotalNumberOfPaths.add(successorInfo.getNumberOfPaths());
                         }
                     }
 
@@ -311,28 +521,31 @@ public class AnalyzeProgramBasedOnConfigurations<PCT extends ProgramConfiguratio
                         int nodeNewMaxRank = maxRankOfSuccessors + 1;
                         entry.getValue().setMaxRank(nodeNewMaxRank);
 
-                        if(!fullMaxProgConfigRankDistribution.containsKey(nodeNewMaxRank)){
-                            fullMaxProgConfigRankDistribution.put(nodeNewMaxRank, 1);
-                        }else{
-                            fullMaxProgConfigRankDistribution.put(
-                                    nodeNewMaxRank,
-                                    fullMaxProgConfigRankDistribution.get(nodeNewMaxRank) + 1);
-                        }
+                        addValueToDistribution(fullMaxProgConfigRankDistribution, nodeNewMaxRank);
+                        if(fullMaxRankSuccessor != null && maxSuccessor != null)
+                            fullMaxRankSuccessor[(int) entry.getKey().getProgramConfigIndex()] = (int) maxSuccessor.getProgramConfigIndex();
 
                         currentRoundRankUpdateCount ++;
 
                         // update average rank
-                        BigInteger nodeNewTotalPathLength = allSuccTotalPathLength.add(allSuccTotalNumberOfPaths);
-                        BigInteger nodeNewNumberOfPaths = allSuccTotalNumberOfPaths;
-                        entry.getValue().setTotalPathLength(nodeNewTotalPathLength);
-                        entry.getValue().setNumberOfPaths(nodeNewNumberOfPaths);
+                        // counters of a config are owned by that config, update in place
+                        entry.getValue().getTotalPathLength().setValue(allSuccTotalPathLength).add(allSuccTotalNumberOfPaths);
+                        entry.getValue().getNumberOfPaths().setValue(allSuccTotalNumberOfPaths);
                         int nodeNewAvgRank = entry.getValue().getAvgRank();
-                        if(!fullAvgProgConfigRankDistribution.containsKey(nodeNewAvgRank)){
-                            fullAvgProgConfigRankDistribution.put(nodeNewAvgRank, 1);
-                        }else{
-                            fullAvgProgConfigRankDistribution.put(
-                                    nodeNewAvgRank,
-                                    fullAvgProgConfigRankDistribution.get(nodeNewAvgRank) + 1);
+                        addValueToDistribution(fullAvgProgConfigRankDistribution, nodeNewAvgRank);
+
+                        if(pendingRankEffects != null) {
+                            // ranks of this config and of all its successors are final
+                            for (ProgramConfigurationInformation<PCT> successorInfo : successorInfoList) {
+                                fullAddRankEffect(PendingRankEffects.PROG_TRANS_OUTSIDE_INV, -1,
+                                        nodeNewMaxRank, successorInfo.getMaxRank(),
+                                        nodeNewAvgRank, successorInfo.getAvgRank());
+                            }
+                            fullAddCvfRankEffects(entry.getValue(), PendingRankEffects.CVF_OUTSIDE_INV, fullMaxProgConfigInfoMap, pendingRankEffects);
+                            pendingRankEffects.emit(entry.getValue().getConfigId(),
+                                    (targetId, sourceMaxRank, sourceAvgRank, transitionKind, idOfChangedNode) ->
+                                            fullAddRankEffect(transitionKind, idOfChangedNode,
+                                                    sourceMaxRank, nodeNewMaxRank, sourceAvgRank, nodeNewAvgRank));
                         }
 
 //                        System.out.println("node: " + entry.getKey().toString() + "\n" +
@@ -356,130 +569,1992 @@ public class AnalyzeProgramBasedOnConfigurations<PCT extends ProgramConfiguratio
 
             }
 
-            totalRankUpdateCount += currentRoundRankUpdateCount;
+            totalRankUpdateCount += currentRoundRankUpdateCount;
+
+//            System.out.println("  " + currentRoundRankUpdateCount + " rank updates in this round");
+//            System.out.println("  " + totalRankUpdateCount + " configs have rank updated");
+
+        }while(currentRoundRankUpdateCount != 0);
+
+        if(pendingRankEffects == null)
+            return totalRankUpdateCount;
+
+        // remaining configs have infinite rank, count their transitions
+        for(ProgramConfigurationInformation<PCT> progConfigInfo : fullMaxProgConfigInfoMap.values()){
+            if(progConfigInfo.getMaxRank() != INFINITY_RANK)
+                continue;
+
+            for(SuccessorInfo successor : progConfigInfo.getProgSuccessorList()){
+                ProgramConfigurationInformation<PCT> successorInfo = fullMaxProgConfigInfoMap.get(successor.getSuccessorProgramConfig());
+                fullAddRankEffect(PendingRankEffects.PROG_TRANS_OUTSIDE_INV, -1,
+                        progConfigInfo.getMaxRank(), successorInfo.getMaxRank(),
+                        progConfigInfo.getAvgRank(), successorInfo.getAvgRank());
+            }
+            fullAddCvfRankEffects(progConfigInfo, PendingRankEffects.CVF_OUTSIDE_INV, fullMaxProgConfigInfoMap, pendingRankEffects);
+        }
+        pendingRankEffects.emitAll(
+                (targetId, sourceMaxRank, sourceAvgRank, transitionKind, idOfChangedNode) ->
+                        fullAddRankEffect(transitionKind, idOfChangedNode,
+                                sourceMaxRank, INFINITY_RANK, sourceAvgRank, INFINITY_RANK));
+
+        return totalRankUpdateCount;
+    }
+
+    /**
+     * (full analysis)
+     * Count the rank effect of every cvf of a config whose ranks are final.
+     * If the ranks of the cvf successor are not final yet, the rank effect waits at the successor.
+     * @param progConfigInfo info of the config
+     * @param transitionKind PendingRankEffects.CVF_INSIDE_INV or PendingRankEffects.CVF_OUTSIDE_INV
+     * @param progConfigInfoMap info of all configs
+     * @param pendingRankEffects rank effects waiting for their target
+     */
+    private void fullAddCvfRankEffects(ProgramConfigurationInformation<PCT> progConfigInfo,
+                                       int transitionKind,
+                                       TreeMap<PCT, ProgramConfigurationInformation<PCT>> progConfigInfoMap,
+                                       PendingRankEffects pendingRankEffects){
+        int progConfigMaxRank = progConfigInfo.getMaxRank();
+        int progConfigAvgRank = progConfigInfo.getAvgRank();
+
+        for (SuccessorInfo cvfSuccessor : progConfigInfo.getCvfSuccessorList()) {
+            ProgramConfigurationInformation<PCT> cvfSuccessorInfo = progConfigInfoMap.get(cvfSuccessor.getSuccessorProgramConfig());
+            if(cvfSuccessorInfo == null){
+                System.out.println("  ERROR: no info for cvfSuccessor " + cvfSuccessor.toString());
+                System.out.println("progConfigInfoMap: (" + progConfigInfoMap.size() + " entries)");
+                for(Map.Entry<PCT, ProgramConfigurationInformation<PCT>> e : progConfigInfoMap.entrySet()){
+                    System.out.println("   " + e.getKey().toString() + " ==> " + e.getValue().toString());
+                }
+                System.exit(1);
+            }
+
+            if(cvfSuccessorInfo.getMaxRank() != INFINITY_RANK){
+                fullAddRankEffect(transitionKind, cvfSuccessor.getIdOfChangedNode(),
+                        progConfigMaxRank, cvfSuccessorInfo.getMaxRank(),
+                        progConfigAvgRank, cvfSuccessorInfo.getAvgRank());
+            }else{
+                pendingRankEffects.add(cvfSuccessorInfo.getConfigId(), progConfigMaxRank, progConfigAvgRank,
+                        transitionKind, cvfSuccessor.getIdOfChangedNode());
+            }
+        }
+    }
+
+    /**
+     * (full analysis)
+     * Initialize the successor of largest max rank of every config (see fullMaxRankSuccessor), 4 bytes per config,
+     * only if witness paths are written
+     * @param callerName name of the calling method, for error messages
+     */
+    private void fullInitMaxRankSuccessors(String callerName){
+        if(witnessPathConfigs.length == 0 && witnessPathTopK <= 0)
+            return;
+
+        long sizeOfIndexedStateSpace = currentProgramConfig.getSizeOfIndexedStateSpace();
+        if(sizeOfIndexedStateSpace > MAX_SIZE_OF_INDEXED_STATE_SPACE){
+            System.out.println("ERROR: " + callerName + ": indexed state space of " + sizeOfIndexedStateSpace
+                    + " configs exceeds the limit of " + MAX_SIZE_OF_INDEXED_STATE_SPACE);
+            System.exit(1);
+        }
+
+        fullMaxRankSuccessor = new int[(int) sizeOfIndexedStateSpace];
+        Arrays.fill(fullMaxRankSuccessor, -1);
+    }
+
+    /**
+     * (full analysis)
+     * Select the configs whose longest paths to the invariant are written:
+     * the given configs, then the witnessPathTopK configs of largest finite max rank
+     * (ties broken by configuration index) in decreasing order of max rank
+     * @return indices of the selected configs
+     */
+    int[] fullSelectWitnessPathConfigs(){
+        int numberOfConfigs = fullMaxRankSuccessor.length;
+        ArrayList<Integer> selectedConfigs = new ArrayList<>();
+        for(long configIndex : witnessPathConfigs){
+            if(configIndex < 0 || configIndex >= numberOfConfigs){
+                System.out.println("ERROR: fullSelectWitnessPathConfigs: config index " + configIndex
+                        + " is outside the indexed state space of " + numberOfConfigs + " configs");
+                System.exit(1);
+            }
+            selectedConfigs.add((int) configIndex);
+        }
+
+        int[] ranks = fullMaxAnaResults.getProgConfigRankDistribution().getValues();
+        if(witnessPathTopK > 0 && ranks.length > 0)
+            selectedConfigs.addAll(fullSelectTopMaxRankConfigs(ranks));
+
+        int[] selectedConfigIndices = new int[selectedConfigs.size()];
+        for(int position = 0; position < selectedConfigIndices.length; position ++)
+            selectedConfigIndices[position] = selectedConfigs.get(position);
+        return selectedConfigIndices;
+    }
+
+    /**
+     * (full analysis)
+     * The smallest rank among the top configs is taken from the max rank distribution,
+     * so one scan over all configs is enough.
+     * @param ranks distinct finite max ranks, in ascending order
+     * @return the witnessPathTopK configs of largest finite max rank, in decreasing order of max rank
+     */
+    private ArrayList<Integer> fullSelectTopMaxRankConfigs(int[] ranks){
+        Histogram fullMaxProgConfigRankDistribution = fullMaxAnaResults.getProgConfigRankDistribution();
+        int numberOfConfigs = fullMaxRankSuccessor.length;
+
+        // smallest rank among the top configs, and number of top configs above it
+        int thresholdRank = ranks[0];
+        long numberOfConfigsAboveThreshold = 0;
+        for(int position = ranks.length - 1; position >= 0; position --){
+            long count = fullMaxProgConfigRankDistribution.getCount(ranks[position]);
+            thresholdRank = ranks[position];
+            if(numberOfConfigsAboveThreshold + count >= witnessPathTopK)
+                break;
+            numberOfConfigsAboveThreshold += count;
+        }
+
+        ArrayList<Integer> topConfigs = new ArrayList<>();
+        long numberOfConfigsAtThreshold = 0;
+        for(int configIndex = 0; configIndex < numberOfConfigs; configIndex ++){
+            int maxRank = fullGetMaxRank(configIndex);
+            if(maxRank == INFINITY_RANK || maxRank < thresholdRank)
+                continue;
+            if(maxRank == thresholdRank){
+                if(numberOfConfigsAboveThreshold + numberOfConfigsAtThreshold >= witnessPathTopK)
+                    continue;
+                numberOfConfigsAtThreshold ++;
+            }
+            topConfigs.add(configIndex);
+        }
+
+        // configs are found in increasing order of index, the sort is stable
+        topConfigs.sort((first, second) -> fullGetMaxRank(second) - fullGetMaxRank(first));
+        return topConfigs;
+    }
+
+    /**
+     * (full analysis)
+     * Rank effects are counted in a separate pass after all ranks are computed, rather than during rank computation,
+     * if they are counted by several threads, or if worst cvfs are collected since they need the indices of both ends of a cvf
+     */
+    private boolean fullCountsRankEffectsAfterRanks(){
+        return rankEffectThreads > 1 || worstCvfsTopK > 0;
+    }
+
+    /**
+     * (full analysis)
+     * Initialize rank effect results before they are counted during rank computation
+     */
+    private void fullInitRankEffects(){
+        initRankEffects(fullMaxAnaResults, fullAvgAnaResults);
+        fullInitRankTransitionMatrices(fullMaxAnaResults, fullMaxAnaResults.getProgConfigRankDistribution());
+        fullInitRankTransitionMatrices(fullAvgAnaResults, fullAvgAnaResults.getProgConfigRankDistribution());
+    }
+
+    /**
+     * (full analysis)
+     * Also count transitions by source rank and target rank if rank transition matrices are requested,
+     * after rank effect results are initialized
+     * @param rankDistribution rank distribution so far, sizes the matrices (they grow as ranks are computed)
+     */
+    private void fullInitRankTransitionMatrices(AnalysisResults<PCT> anaResults, Histogram rankDistribution){
+        if(rankTransitionMatrices)
+            anaResults.initRankTransitionMatrices(rankDistribution.isEmpty() ? 0 : rankDistribution.getMaxValue());
+    }
+
+    /**
+     * Initialize rank effect results, including one per-node distribution for each node
+     */
+    private void initRankEffects(AnalysisResults<PCT> maxAnaResults, AnalysisResults<PCT> avgAnaResults){
+        initRankEffects(maxAnaResults);
+        initRankEffects(avgAnaResults);
+    }
+
+    private void initRankEffects(AnalysisResults<PCT> anaResults){
+        anaResults.initAnalysisResults();
+
+        for(int nodeId = 0; nodeId < numberOfNodes; nodeId ++){
+            // one element per node
+            anaResults.getPerNodeCvfOutsideInvRankEffectDistribution().addElement(new Histogram());
+        }
+    }
+
+    /**
+     * (full analysis)
+     * Count the rank effect of one transition, for both max rank and average rank
+     * @param transitionKind kind of transition as in PendingRankEffects
+     * @param idOfChangedNode node changed by a cvf outside the invariant, ignored for other kinds
+     * @param sourceMaxRank max rank of source
+     * @param targetMaxRank max rank of target
+     * @param sourceAvgRank average rank of source
+     * @param targetAvgRank average rank of target
+     */
+    private void fullAddRankEffect(int transitionKind, int idOfChangedNode,
+                                   int sourceMaxRank, int targetMaxRank, int sourceAvgRank, int targetAvgRank){
+        addRankEffect(fullMaxAnaResults, fullAvgAnaResults, transitionKind, idOfChangedNode,
+                sourceMaxRank, targetMaxRank, sourceAvgRank, targetAvgRank);
+    }
+
+    /**
+     * Same as fullAddRankEffect() with given results
+     */
+    private static void addRankEffect(AnalysisResults<?> maxAnaResults, AnalysisResults<?> avgAnaResults,
+                                      int transitionKind, int idOfChangedNode,
+                                      int sourceMaxRank, int targetMaxRank, int sourceAvgRank, int targetAvgRank){
+        addRankEffect(maxAnaResults, transitionKind, idOfChangedNode, sourceMaxRank, targetMaxRank);
+
+        // for average rank
+        addRankEffect(avgAnaResults, transitionKind, idOfChangedNode, sourceAvgRank, targetAvgRank);
+    }
+
+    /**
+     * Count the rank effect of one transition in one analysis results,
+     * and the transition in its rank transition matrix if it has one
+     * @param anaResults receives the rank effect
+     * @param transitionKind kind of transition as in PendingRankEffects
+     * @param idOfChangedNode node changed by a cvf outside the invariant, ignored for other kinds
+     * @param sourceRank rank of source
+     * @param targetRank rank of target
+     */
+    private static void addRankEffect(AnalysisResults<?> anaResults,
+                                      int transitionKind, int idOfChangedNode, int sourceRank, int targetRank){
+        int rankEffect = targetRank - sourceRank;
+        switch(transitionKind){
+            case PendingRankEffects.PROG_TRANS_OUTSIDE_INV:
+                addValueToDistribution(anaResults.getProgTransOutsideInvRankEffectDistribution(), rankEffect);
+                anaResults.incrementNumberOfProgTransOutsideInv();
+                anaResults.increaseProgTransOutsideInvTotalRankEffect(rankEffect);
+                if(anaResults.getProgTransOutsideInvRankTransitionMatrix() != null)
+                    anaResults.getProgTransOutsideInvRankTransitionMatrix().add(sourceRank, targetRank);
+                break;
+
+            case PendingRankEffects.CVF_INSIDE_INV:
+                addValueToDistribution(anaResults.getCvfInsideInvRankEffectDistribution(), rankEffect);
+                anaResults.incrementNumberOfCvfInsideInv();
+                anaResults.increaseCvfInsideInvTotalRankEffect(rankEffect);
+                if(anaResults.getCvfInsideInvRankTransitionMatrix() != null)
+                    anaResults.getCvfInsideInvRankTransitionMatrix().add(sourceRank, targetRank);
+                break;
+
+            case PendingRankEffects.CVF_OUTSIDE_INV:
+                addValueToDistribution(anaResults.getCvfOutsideInvRankEffectDistribution(), rankEffect);
+                anaResults.incrementNumberOfCvfOutsideInv();
+                anaResults.increaseCvfOutsideInvTotalRankEffect(rankEffect);
+                addValueToDistribution(anaResults.getPerNodeCvfOutsideInvRankEffectDistribution().elementAt(idOfChangedNode), rankEffect);
+                if(anaResults.getCvfOutsideInvRankTransitionMatrix() != null)
+                    anaResults.getCvfOutsideInvRankTransitionMatrix().add(sourceRank, targetRank);
+                break;
+
+            default:
+                System.out.println("ERROR: addRankEffect: unknown transition kind " + transitionKind);
+                System.exit(1);
+        }
+    }
+
+    /**
+     * (full analysis)
+     * Fully compute the rank effect of program transitions and cvf in a separate pass after all ranks are computed.
+     * It is used instead of counting rank effects during rank computation when rankEffectThreads > 1:
+     * configs are split into rankEffectThreads disjoint ranges, each range is processed by one thread
+     * with its own histograms (including per-node ones), and the results of all threads are merged at the end.
+     * Counts and totals are sums, so the results do not depend on the number of threads.
+     * Worst cvfs are collected along the way if requested (worstCvfsTopK > 0), also per thread and merged.
+     * Works with both successor-list storage and edge-free storage.
+     */
+    public void fullComputeRankEffectOfProgramTransitionsAndCvfs() {
+        boolean edgeFree = (fullIndexedConfigInfo != null);
+        ArrayList<Map.Entry<PCT, ProgramConfigurationInformation<PCT>>> progConfigEntryList =
+                edgeFree ? null : new ArrayList<>(fullMaxAnaResults.getProgConfigInfoMap().entrySet());
+        int numberOfConfigs = edgeFree ? fullIndexedConfigInfo.getNumberOfConfigs() : progConfigEntryList.size();
+
+        Vector<AnalysisResults<PCT>> threadMaxAnaResults = new Vector<>();
+        Vector<AnalysisResults<PCT>> threadAvgAnaResults = new Vector<>();
+        Vector<WorstCvfs> threadWorstCvfs = new Vector<>();
+        Thread[] threads = new Thread[rankEffectThreads];
+
+        for(int threadId = 0; threadId < rankEffectThreads; threadId ++){
+            // configs in [firstConfigIndex, endConfigIndex)
+            int firstConfigIndex = (int) ((long) numberOfConfigs * threadId / rankEffectThreads);
+            int endConfigIndex = (int) ((long) numberOfConfigs * (threadId + 1) / rankEffectThreads);
+
+            AnalysisResults<PCT> maxAnaResults = new AnalysisResults<>(null, null);
+            AnalysisResults<PCT> avgAnaResults = new AnalysisResults<>(null, null);
+            initRankEffects(maxAnaResults, avgAnaResults);
+            fullInitRankTransitionMatrices(maxAnaResults, fullMaxAnaResults.getProgConfigRankDistribution());
+            fullInitRankTransitionMatrices(avgAnaResults, fullAvgAnaResults.getProgConfigRankDistribution());
+            threadMaxAnaResults.addElement(maxAnaResults);
+            threadAvgAnaResults.addElement(avgAnaResults);
+            WorstCvfs worstCvfs = (worstCvfsTopK > 0) ? new WorstCvfs(currentProgramConfig, worstCvfsTopK) : null;
+            threadWorstCvfs.addElement(worstCvfs);
+
+            // edge-free storage regenerates successors, each thread needs its own config to move around
+            ProgramConfigurationTemplate threadProgramConfig = edgeFree ? currentProgramConfig.getDeepCopy() : null;
+
+            threads[threadId] = new Thread(() -> {
+                for(int configIndex = firstConfigIndex; configIndex < endConfigIndex; configIndex ++){
+                    if(edgeFree){
+                        edgeFreeComputeRankEffectOfConfig(threadProgramConfig, configIndex, maxAnaResults, avgAnaResults, worstCvfs);
+                    }else{
+                        fullComputeRankEffectOfConfig(progConfigEntryList.get(configIndex), maxAnaResults, avgAnaResults, worstCvfs);
+                    }
+                }
+            });
+            threads[threadId].start();
+        }
+
+        fullInitRankEffects();
+        fullWorstCvfs = (worstCvfsTopK > 0) ? new WorstCvfs(currentProgramConfig, worstCvfsTopK) : null;
+        for(int threadId = 0; threadId < rankEffectThreads; threadId ++){
+            try {
+                threads[threadId].join();
+            } catch (InterruptedException e) {
+                System.out.println("ERROR: fullComputeRankEffectOfProgramTransitionsAndCvfs: interrupted: " + e.getMessage());
+                System.exit(1);
+            }
+
+            fullMaxAnaResults.mergeRankEffects(threadMaxAnaResults.elementAt(threadId));
+            fullAvgAnaResults.mergeRankEffects(threadAvgAnaResults.elementAt(threadId));
+            if(fullWorstCvfs != null)
+                fullWorstCvfs.merge(threadWorstCvfs.elementAt(threadId));
+        }
+    }
+
+    /**
+     * (full analysis, successor-list storage)
+     * Count the rank effect of program transitions and cvfs of one config, all ranks must be final
+     * @param entry the config and its info
+     * @param maxAnaResults receives rank effects on max rank
+     * @param avgAnaResults receives rank effects on average rank
+     * @param worstCvfs receives cvfs and their rank effects on max rank, null if not requested
+     */
+    private void fullComputeRankEffectOfConfig(Map.Entry<PCT, ProgramConfigurationInformation<PCT>> entry,
+                                               AnalysisResults<PCT> maxAnaResults,
+                                               AnalysisResults<PCT> avgAnaResults,
+                                               WorstCvfs worstCvfs){
+        TreeMap<PCT, ProgramConfigurationInformation<PCT>> progConfigInfoMap = fullMaxAnaResults.getProgConfigInfoMap();
+        ProgramConfigurationInformation<PCT> progConfigInfo = entry.getValue();
+        int progConfigMaxRank = progConfigInfo.getMaxRank();
+        int progConfigAvgRank = progConfigInfo.getAvgRank();
+        boolean progConfigInsideInvariant = entry.getKey().isInsideInvariant();
+
+        // program transitions
+        if (progConfigInsideInvariant) {
+            // invariant state, count
+            maxAnaResults.incrementNumberOfProgTransInsideInv();
+            avgAnaResults.incrementNumberOfProgTransInsideInv();
+        } else {
+            for (SuccessorInfo successor : progConfigInfo.getProgSuccessorList()) {
+                ProgramConfigurationInformation<PCT> successorInfo = progConfigInfoMap.get(successor.getSuccessorProgramConfig());
+                addRankEffect(maxAnaResults, avgAnaResults, PendingRankEffects.PROG_TRANS_OUTSIDE_INV, -1,
+                        progConfigMaxRank, successorInfo.getMaxRank(),
+                        progConfigAvgRank, successorInfo.getAvgRank());
+            }
+        }
+
+        // cvf transitions
+        int cvfTransitionKind = progConfigInsideInvariant ? PendingRankEffects.CVF_INSIDE_INV : PendingRankEffects.CVF_OUTSIDE_INV;
+        int progConfigIndex = (worstCvfs != null) ? (int) entry.getKey().getProgramConfigIndex() : -1;
+        long totalCvfMaxRankOffset = 0;
+        for (SuccessorInfo cvfSuccessor : progConfigInfo.getCvfSuccessorList()) {
+            ProgramConfigurationInformation<PCT> cvfSuccessorInfo = progConfigInfoMap.get(cvfSuccessor.getSuccessorProgramConfig());
+            if(cvfSuccessorInfo == null){
+                System.out.println("  ERROR: no info for cvfSuccessor " + cvfSuccessor.toString());
+                System.exit(1);
+            }
+
+            addRankEffect(maxAnaResults, avgAnaResults, cvfTransitionKind, cvfSuccessor.getIdOfChangedNode(),
+                    progConfigMaxRank, cvfSuccessorInfo.getMaxRank(),
+                    progConfigAvgRank, cvfSuccessorInfo.getAvgRank());
+
+            if(worstCvfs != null)
+                totalCvfMaxRankOffset += addWorstCvf(worstCvfs, entry.getKey(), progConfigIndex, progConfigMaxRank,
+                        cvfSuccessor, (int) cvfSuccessor.getSuccessorProgramConfig().getProgramConfigIndex(), cvfSuccessorInfo.getMaxRank());
+        }
+        if(worstCvfs != null && progConfigMaxRank != INFINITY_RANK)
+            worstCvfs.addConfig(progConfigIndex, totalCvfMaxRankOffset);
+    }
+
+    /**
+     * (full analysis)
+     * Count a cvf in worst cvfs
+     * @param programConfig source of the cvf
+     * @param cvfSuccessor the cvf
+     * @return rank effect of the cvf on max rank, 0 if the max rank of either end is infinity
+     */
+    private static int addWorstCvf(WorstCvfs worstCvfs,
+                                   ProgramConfigurationTemplate programConfig, int progConfigIndex, int progConfigMaxRank,
+                                   SuccessorInfo cvfSuccessor, int cvfSuccessorIndex, int cvfSuccessorMaxRank){
+        if(progConfigMaxRank == INFINITY_RANK || cvfSuccessorMaxRank == INFINITY_RANK){
+            worstCvfs.addCvfWithInfiniteRank();
+            return 0;
+        }
+
+        int idOfChangedNode = cvfSuccessor.getIdOfChangedNode();
+        int rankEffect = cvfSuccessorMaxRank - progConfigMaxRank;
+        worstCvfs.addCvf(progConfigIndex, cvfSuccessorIndex, idOfChangedNode,
+                programConfig.getNodeStateIndex(idOfChangedNode),
+                cvfSuccessor.getSuccessorProgramConfig().getNodeStateIndex(idOfChangedNode),
+                rankEffect);
+        return rankEffect;
+    }
+
+    /**
+     * (full analysis, edge-free storage)
+     * Count the rank effect of program transitions and cvfs of one config, all ranks must be final.
+     * Successors are regenerated from the configuration index.
+     * @param programConfig config used for regeneration, it is moved to the config
+     * @param configIndex index of the config
+     * @param maxAnaResults receives rank effects on max rank
+     * @param avgAnaResults receives rank effects on average rank
+     * @param worstCvfs receives cvfs and their rank effects on max rank, null if not requested
+     */
+    private void edgeFreeComputeRankEffectOfConfig(ProgramConfigurationTemplate programConfig,
+                                                   int configIndex,
+                                                   AnalysisResults<PCT> maxAnaResults,
+                                                   AnalysisResults<PCT> avgAnaResults,
+                                                   WorstCvfs worstCvfs){
+        programConfig.moveToProgramConfigIndex(configIndex);
+        int progConfigMaxRank = fullIndexedConfigInfo.getMaxRank(configIndex);
+        int progConfigAvgRank = fullIndexedConfigInfo.getAvgRank(configIndex);
+        boolean progConfigInsideInvariant = programConfig.isInsideInvariant();
+
+        // program transitions
+        if (progConfigInsideInvariant) {
+            // invariant state, count
+            maxAnaResults.incrementNumberOfProgTransInsideInv();
+            avgAnaResults.incrementNumberOfProgTransInsideInv();
+        } else {
+            for (long successorIndex : programConfig.getProgramConfigTransSuccessorIndices()) {
+                addRankEffect(maxAnaResults, avgAnaResults, PendingRankEffects.PROG_TRANS_OUTSIDE_INV, -1,
+                        progConfigMaxRank, fullIndexedConfigInfo.getMaxRank((int) successorIndex),
+                        progConfigAvgRank, fullIndexedConfigInfo.getAvgRank((int) successorIndex));
+            }
+        }
+
+        // cvf transitions
+        int cvfTransitionKind = progConfigInsideInvariant ? PendingRankEffects.CVF_INSIDE_INV : PendingRankEffects.CVF_OUTSIDE_INV;
+        long totalCvfMaxRankOffset = 0;
+        for (SuccessorInfo cvfSuccessor : (TreeSet<SuccessorInfo>) programConfig.getProgramConfigCvfSuccessorList()) {
+            long cvfSuccessorIndex = cvfSuccessor.getSuccessorProgramConfig().getProgramConfigIndex();
+            if(cvfSuccessorIndex < 0){
+                System.out.println("  ERROR: cvfSuccessor " + cvfSuccessor.toString() + " is outside the indexed state space");
+                System.exit(1);
+            }
+
+            addRankEffect(maxAnaResults, avgAnaResults, cvfTransitionKind, cvfSuccessor.getIdOfChangedNode(),
+                    progConfigMaxRank, fullIndexedConfigInfo.getMaxRank((int) cvfSuccessorIndex),
+                    progConfigAvgRank, fullIndexedConfigInfo.getAvgRank((int) cvfSuccessorIndex));
+
+            if(worstCvfs != null)
+                totalCvfMaxRankOffset += addWorstCvf(worstCvfs, programConfig, configIndex, progConfigMaxRank,
+                        cvfSuccessor, (int) cvfSuccessorIndex, fullIndexedConfigInfo.getMaxRank((int) cvfSuccessorIndex));
+        }
+        if(worstCvfs != null && progConfigMaxRank != INFINITY_RANK)
+            worstCvfs.addConfig(configIndex, totalCvfMaxRankOffset);
+    }
+
+
+    /**
+     * (full analysis, edge-free storage)
+     * Initialize per-config primitive results indexed by configuration index.
+     * Unlike init(), successor lists are not stored; they are regenerated from
+     * the configuration index whenever needed.
+     */
+    void edgeFreeInit() {
+        fullMaxAnaResults = new AnalysisResults<>(new TreeMap<>(), new Histogram());
+        fullAvgAnaResults = new AnalysisResults<>(new TreeMap<>(), new Histogram());
+
+        long sizeOfIndexedStateSpace = currentProgramConfig.getSizeOfIndexedStateSpace();
+        if(sizeOfIndexedStateSpace > MAX_SIZE_OF_INDEXED_STATE_SPACE){
+            System.out.println("ERROR: edgeFreeInit: indexed state space of " + sizeOfIndexedStateSpace
+                    + " configs exceeds the limit of " + MAX_SIZE_OF_INDEXED_STATE_SPACE);
+            System.exit(1);
+        }
+
+        // longest paths to the invariant of the programs we study are at most quadratic in the number of nodes,
+        // ranks are widened automatically if not
+        fullIndexedConfigInfo = new IndexedProgramConfigurationInformation((int) sizeOfIndexedStateSpace, numberOfNodes * numberOfNodes);
+        fullInitMaxRankSuccessors("edgeFreeInit");
+
+        System.out.println("\n     total " + sizeOfIndexedStateSpace + " configs are initialized");
+        System.out.println();
+    }
+
+    /**
+     * (full analysis, edge-free storage)
+     * compute maximum rank and average rank for every program configuration.
+     * Since successor lists are not stored, the fixpoint iteration of fullComputeMaxAndAverageRankForConfigs()
+     * would regenerate every successor list in every round. Instead, we do one iterative depth-first search
+     * over configuration indices, where successors of a config are regenerated once when it is visited and
+     * ranks are finalized in post-order:
+     *   config inside invariant: rank 0
+     *   some successor has infinite rank or is on the search stack (i.e. a cycle): rank infinity
+     *   config outside invariant without successors: rank 0 without paths, as in fullComputeMaxAndAverageRankForConfigs()
+     *   otherwise: same formula as in fullComputeMaxAndAverageRankForConfigs()
+     * As in fullComputeMaxAndAverageRankForConfigs(), rank effects of program transitions and cvfs are counted
+     * when ranks of a config are finalized, so successors do not have to be regenerated in a second pass.
+     * Transitions to configs still on the search stack wait for the ranks of their targets.
+     * @return number of rank updates
+     */
+    int edgeFreeComputeMaxAndAverageRankForConfigs(){
+        int numberOfConfigs = fullIndexedConfigInfo.getNumberOfConfigs();
+        return edgeFreeComputeMaxAndAverageRankForConfigs(new byte[numberOfConfigs], !fullCountsRankEffectsAfterRanks());
+    }
+
+    /**
+     * (full analysis, edge-free storage)
+     * Same as edgeFreeComputeMaxAndAverageRankForConfigs(), but only for the configs whose search status is
+     * EDGE_FREE_UNVISITED; configs already EDGE_FREE_DONE keep their ranks.
+     * Ranks of finalized configs are added to the rank distributions.
+     * @param searchStatus search status of every config
+     * @param countsRankEffects whether rank effects of program transitions and cvfs are counted along the way
+     * @return number of rank updates
+     */
+    private int edgeFreeComputeMaxAndAverageRankForConfigs(byte[] searchStatus, boolean countsRankEffects){
+        int totalRankUpdateCount = 0;
+
+        Histogram fullMaxProgConfigRankDistribution = fullMaxAnaResults.getProgConfigRankDistribution();
+        Histogram fullAvgProgConfigRankDistribution = fullAvgAnaResults.getProgConfigRankDistribution();
+
+        int numberOfConfigs = fullIndexedConfigInfo.getNumberOfConfigs();
+        ArrayDeque<EdgeFreeSearchFrame> searchStack = new ArrayDeque<>();
+
+        // accumulators for successors, reused for every config
+        PathCount successorPathCount = new PathCount();
+        PathCount allSuccTotalPathLength = new PathCount();
+        PathCount allSuccTotalNumberOfPaths = new PathCount();
+
+        // rank effects whose source has final ranks, waiting for the ranks of their target;
+        // null if rank effects are computed by fullComputeRankEffectOfProgramTransitionsAndCvfs() afterwards
+        PendingRankEffects pendingRankEffects = countsRankEffects ? new PendingRankEffects(numberOfConfigs) : null;
+        if(pendingRankEffects != null)
+            fullInitRankEffects();
+
+        for(int rootIndex = 0; rootIndex < numberOfConfigs; rootIndex ++){
+            if(searchStatus[rootIndex] != EDGE_FREE_UNVISITED)
+                continue;
+
+            edgeFreeVisitConfig(rootIndex, searchStatus, searchStack, pendingRankEffects);
+
+            while(!searchStack.isEmpty()){
+                EdgeFreeSearchFrame frame = searchStack.peek();
+
+                if(frame.nextSuccessorPosition < frame.successorIndices.length){
+                    long successorIndex = frame.successorIndices[frame.nextSuccessorPosition];
+                    frame.nextSuccessorPosition ++;
+
+                    if(successorIndex < 0){
+                        System.out.println("ERROR: edgeFreeComputeMaxAndAverageRankForConfigs: successor of config index "
+                                + frame.configIndex + " is outside the indexed state space");
+                        System.exit(1);
+                    }
+
+                    switch(searchStatus[(int) successorIndex]){
+                        case EDGE_FREE_UNVISITED:
+                            edgeFreeVisitConfig((int) successorIndex, searchStatus, searchStack, pendingRankEffects);
+                            break;
+                        case EDGE_FREE_ON_STACK:
+                            // cycle outside the invariant
+                            frame.reachesInfiniteRank = true;
+                            break;
+                        default:
+                            // rank already finalized
+                            break;
+                    }
+
+                    continue;
+                }
+
+                // all successors are finalized, finalize this config
+                searchStack.pop();
+                searchStatus[frame.configIndex] = EDGE_FREE_DONE;
+
+                int maxRankOfSuccessors = -1;
+                int maxSuccessorIndex = -1;
+                allSuccTotalPathLength.setValue(0);
+                allSuccTotalNumberOfPaths.setValue(0);
+                for(long successorIndex : frame.successorIndices){
+                    int successorRank = fullIndexedConfigInfo.getMaxRank((int) successorIndex);
+                    if(successorRank == INFINITY_RANK){
+                        frame.reachesInfiniteRank = true;
+                        break;
+                    }
+
+                    if(maxRankOfSuccessors < successorRank) {
+                        maxRankOfSuccessors = successorRank;
+                        maxSuccessorIndex = (int) successorIndex;
+                    }
+
+                    allSuccTotalPathLength.add(fullIndexedConfigInfo.getTotalPathLength((int) successorIndex, successorPathCount));
+                    allSuccTotalNumberOfPaths.add(fullIndexedConfigInfo.getNumberOfPaths((int) successorIndex, successorPathCount));
+                }
+
+                if(!frame.reachesInfiniteRank){
+                    int nodeNewMaxRank = maxRankOfSuccessors + 1;
+                    fullIndexedConfigInfo.setMaxRank(frame.configIndex, nodeNewMaxRank);
+                    addValueToDistribution(fullMaxProgConfigRankDistribution, nodeNewMaxRank);
+                    if(fullMaxRankSuccessor != null)
+                        fullMaxRankSuccessor[frame.configIndex] = maxSuccessorIndex;
+
+                    fullIndexedConfigInfo.setTotalPathLength(frame.configIndex, allSuccTotalPathLength.add(allSuccTotalNumberOfPaths));
+                    fullIndexedConfigInfo.setNumberOfPaths(frame.configIndex, allSuccTotalNumberOfPaths);
+                    addValueToDistribution(fullAvgProgConfigRankDistribution, fullIndexedConfigInfo.getAvgRank(frame.configIndex));
+
+                    totalRankUpdateCount ++;
+                }
+                // otherwise rank remains infinity
+
+                if(pendingRankEffects == null)
+                    continue;
+
+                // ranks of this config are final, count rank effects of its transitions
+                int progConfigMaxRank = fullIndexedConfigInfo.getMaxRank(frame.configIndex);
+                int progConfigAvgRank = fullIndexedConfigInfo.getAvgRank(frame.configIndex);
+                for(long successorIndex : frame.successorIndices){
+                    if(searchStatus[(int) successorIndex] == EDGE_FREE_DONE){
+                        fullAddRankEffect(PendingRankEffects.PROG_TRANS_OUTSIDE_INV, -1,
+                                progConfigMaxRank, fullIndexedConfigInfo.getMaxRank((int) successorIndex),
+                                progConfigAvgRank, fullIndexedConfigInfo.getAvgRank((int) successorIndex));
+                    }else{
+                        // successor is on the search stack
+                        pendingRankEffects.add((int) successorIndex, progConfigMaxRank, progConfigAvgRank,
+                                PendingRankEffects.PROG_TRANS_OUTSIDE_INV, -1);
+                    }
+                }
+                currentProgramConfig.moveToProgramConfigIndex(frame.configIndex);
+                edgeFreeFinalizeRankEffects(frame.configIndex, PendingRankEffects.CVF_OUTSIDE_INV, searchStatus, pendingRankEffects);
+            }
+        }
+
+        System.out.println("     max ranks are stored with " + fullIndexedConfigInfo.getBitsPerMaxRank() + " bits per config");
+
+        return totalRankUpdateCount;
+    }
+
+    /**
+     * (full analysis, edge-free storage)
+     * Visit a config in the depth-first search of edgeFreeComputeMaxAndAverageRankForConfigs():
+     *   a config inside the invariant gets rank 0 immediately
+     *   a config outside the invariant is pushed onto the search stack together with its regenerated successors
+     * @param configIndex index of config to be visited
+     * @param searchStatus search status of every config
+     * @param searchStack search stack
+     * @param pendingRankEffects rank effects waiting for their target, null if rank effects are not counted
+     */
+    private void edgeFreeVisitConfig(int configIndex, byte[] searchStatus, ArrayDeque<EdgeFreeSearchFrame> searchStack,
+                                     PendingRankEffects pendingRankEffects){
+        currentProgramConfig.moveToProgramConfigIndex(configIndex);
+
+        if(currentProgramConfig.isInsideInvariant()){
+            searchStatus[configIndex] = EDGE_FREE_DONE;
+
+            fullIndexedConfigInfo.setMaxRank(configIndex, 0);
+            fullIndexedConfigInfo.setTotalPathLength(configIndex, INVARIANT_TOTAL_PATH_LENGTH);
+            fullIndexedConfigInfo.setNumberOfPaths(configIndex, INVARIANT_NUMBER_OF_PATHS);
+
+            addValueToDistribution(fullMaxAnaResults.getProgConfigRankDistribution(), 0);
+            addValueToDistribution(fullAvgAnaResults.getProgConfigRankDistribution(), 0);
+
+            if(pendingRankEffects != null) {
+                fullMaxAnaResults.incrementNumberOfProgTransInsideInv();
+                fullAvgAnaResults.incrementNumberOfProgTransInsideInv();
+                edgeFreeFinalizeRankEffects(configIndex, PendingRankEffects.CVF_INSIDE_INV, searchStatus, pendingRankEffects);
+            }
+        }else{
+            searchStatus[configIndex] = EDGE_FREE_ON_STACK;
+            searchStack.push(new EdgeFreeSearchFrame(configIndex, currentProgramConfig.getProgramConfigTransSuccessorIndices()));
+        }
+    }
+
+    /**
+     * (full analysis, edge-free storage)
+     * Count rank effects once the ranks of a config are final:
+     *   cvfs of the config, regenerated from currentProgramConfig which must be at the config,
+     *   and transitions waiting for the ranks of the config.
+     * @param configIndex index of the config
+     * @param cvfTransitionKind PendingRankEffects.CVF_INSIDE_INV or PendingRankEffects.CVF_OUTSIDE_INV
+     * @param searchStatus search status of every config
+     * @param pendingRankEffects rank effects waiting for their target
+     */
+    private void edgeFreeFinalizeRankEffects(int configIndex, int cvfTransitionKind, byte[] searchStatus,
+                                             PendingRankEffects pendingRankEffects){
+        int progConfigMaxRank = fullIndexedConfigInfo.getMaxRank(configIndex);
+        int progConfigAvgRank = fullIndexedConfigInfo.getAvgRank(configIndex);
+
+        for (SuccessorInfo cvfSuccessor : (TreeSet<SuccessorInfo>) currentProgramConfig.getProgramConfigCvfSuccessorList()) {
+            long cvfSuccessorIndex = cvfSuccessor.getSuccessorProgramConfig().getProgramConfigIndex();
+            if(cvfSuccessorIndex < 0){
+                System.out.println("  ERROR: cvfSuccessor " + cvfSuccessor.toString() + " is outside the indexed state space");
+                System.exit(1);
+            }
+
+            if(searchStatus[(int) cvfSuccessorIndex] == EDGE_FREE_DONE){
+                fullAddRankEffect(cvfTransitionKind, cvfSuccessor.getIdOfChangedNode(),
+                        progConfigMaxRank, fullIndexedConfigInfo.getMaxRank((int) cvfSuccessorIndex),
+                        progConfigAvgRank, fullIndexedConfigInfo.getAvgRank((int) cvfSuccessorIndex));
+            }else{
+                pendingRankEffects.add((int) cvfSuccessorIndex, progConfigMaxRank, progConfigAvgRank,
+                        cvfTransitionKind, cvfSuccessor.getIdOfChangedNode());
+            }
+        }
+
+        pendingRankEffects.emit(configIndex,
+                (targetId, sourceMaxRank, sourceAvgRank, transitionKind, idOfChangedNode) ->
+                        fullAddRankEffect(transitionKind, idOfChangedNode,
+                                sourceMaxRank, progConfigMaxRank, sourceAvgRank, progConfigAvgRank));
+    }
+
+    /**
+     * A config outside the invariant on the search stack of edgeFreeComputeMaxAndAverageRankForConfigs()
+     */
+    private static class EdgeFreeSearchFrame {
+        int configIndex;
+        long[] successorIndices;        // regenerated once when the config is visited
+        int nextSuccessorPosition;      // next successor to be explored
+        boolean reachesInfiniteRank;    // some successor has infinite rank or closes a cycle
+
+        EdgeFreeSearchFrame(int configIndex, long[] successorIndices){
+            this.configIndex = configIndex;
+            this.successorIndices = successorIndices;
+            this.nextSuccessorPosition = 0;
+            this.reachesInfiniteRank = false;
+        }
+    }
+
+
+    /**
+     * (full analysis)
+     * compute minimum rank (length of the shortest path to the invariant) for every program configuration
+     * by a breadth first search from the invariant over predecessors of program transitions:
+     *   configs inside the invariant have min rank 0
+     *   a config whose min rank is still unknown when it is found as a predecessor of a config
+     *   of min rank d has min rank d+1
+     * Every config and every transition is visited once, i.e. O(V+E).
+     * Configs from which the invariant is not reachable keep min rank infinity.
+     * Predecessors are taken from the program if it generates them, otherwise from an inverted index.
+     * @return number of configs outside the invariant whose min ranks are computed
+     */
+    int fullComputeMinRankForConfigs(){
+        int totalRankUpdateCount = 0;
+
+        fullMinAnaResults = new AnalysisResults<>(new TreeMap<>(), new Histogram());
+        Histogram fullMinProgConfigRankDistribution = fullMinAnaResults.getProgConfigRankDistribution();
+
+        long sizeOfIndexedStateSpace = currentProgramConfig.getSizeOfIndexedStateSpace();
+        if(sizeOfIndexedStateSpace > MAX_SIZE_OF_INDEXED_STATE_SPACE){
+            System.out.println("ERROR: fullComputeMinRankForConfigs: indexed state space of " + sizeOfIndexedStateSpace
+                    + " configs exceeds the limit of " + MAX_SIZE_OF_INDEXED_STATE_SPACE);
+            System.exit(1);
+        }
+        int numberOfConfigs = (int) sizeOfIndexedStateSpace;
+        InvertedTransitionIndex invertedIndex = newInvertedTransitionIndexIfNeeded("fullComputeMinRankForConfigs");
+        if(configBaseAnalysisTask.contains("diff"))
+            fullInvertedIndex = invertedIndex;
+
+        // min rank is at most max rank, unless max rank is infinity
+        Histogram fullMaxProgConfigRankDistribution = fullMaxAnaResults.getProgConfigRankDistribution();
+        fullMinRank = new PackedRankArray(numberOfConfigs,
+                fullMaxProgConfigRankDistribution.isEmpty() ? 0 : fullMaxProgConfigRankDistribution.getMaxValue());
+
+        // configs are queued in order of min rank, starting with the invariant
+        int[] searchQueue = new int[numberOfConfigs];
+        int queueHead = 0;
+        int queueTail = 0;
+        for(int configIndex = 0; configIndex < numberOfConfigs; configIndex ++){
+            currentProgramConfig.moveToProgramConfigIndex(configIndex);
+            if(currentProgramConfig.isInsideInvariant()){
+                fullMinRank.set(configIndex, 0);
+                searchQueue[queueTail ++] = configIndex;
+            }
+        }
+
+        ArrayList<Long> predecessorList = new ArrayList<>();
+        while(queueHead < queueTail){
+            int configIndex = searchQueue[queueHead ++];
+            int predecessorMinRank = fullMinRank.get(configIndex) + 1;
+
+            predecessorList.clear();
+            forEachTransPredecessor(invertedIndex, configIndex, predecessorList::add);
+            for(long predecessorIndex : predecessorList){
+                if(fullMinRank.get((int) predecessorIndex) == INFINITY_RANK){
+                    fullMinRank.set((int) predecessorIndex, predecessorMinRank);
+                    searchQueue[queueTail ++] = (int) predecessorIndex;
+                    totalRankUpdateCount ++;
+                }
+            }
+        }
+
+        for(int configIndex = 0; configIndex < numberOfConfigs; configIndex ++){
+            if(fullMinRank.get(configIndex) != INFINITY_RANK)
+                addValueToDistribution(fullMinProgConfigRankDistribution, fullMinRank.get(configIndex));
+        }
+
+        // successor-list storage keeps min rank with other information of a config
+        for(Map.Entry<PCT, ProgramConfigurationInformation<PCT>> entry : fullMaxAnaResults.getProgConfigInfoMap().entrySet()){
+            entry.getValue().setMinRank(fullMinRank.get((int) entry.getKey().getProgramConfigIndex()));
+        }
+
+        System.out.println("     min ranks are stored with " + fullMinRank.getBitsPerRank() + " bits per config");
+
+        return totalRankUpdateCount;
+    }
+
+    /**
+     * (full analysis, edge-free storage)
+     * Load max, average and min ranks, and longest-path successors if witness paths are written,
+     * from rankSnapshotFileName (see RankSnapshot) instead of computing them, and rebuild the rank distributions.
+     * Rank effects are not loaded, they depend on the cvf model and are counted afterwards.
+     * @return true if loaded, false if the snapshot does not exist or is of another configuration encoding
+     */
+    boolean fullLoadRankSnapshot(){
+        int numberOfConfigs = fullIndexedConfigInfo.getNumberOfConfigs();
+        fullMinRank = new PackedRankArray(numberOfConfigs, numberOfNodes * numberOfNodes);
+        if(!RankSnapshot.read(rankSnapshotFileName, RankSnapshot.getFingerprint(currentProgramConfig, programName, graphTopology),
+                fullIndexedConfigInfo, fullMinRank, fullMaxRankSuccessor)){
+            // ranks are computed instead, arrays may be partly filled and are allocated again
+            fullIndexedConfigInfo = null;
+            fullMaxRankSuccessor = null;
+            fullMinRank = null;
+            edgeFreeInit();
+            return false;
+        }
+
+        fullMinAnaResults = new AnalysisResults<>(new TreeMap<>(), new Histogram());
+        for(int configIndex = 0; configIndex < numberOfConfigs; configIndex ++){
+            if(fullIndexedConfigInfo.getMaxRank(configIndex) != INFINITY_RANK){
+                addValueToDistribution(fullMaxAnaResults.getProgConfigRankDistribution(), fullIndexedConfigInfo.getMaxRank(configIndex));
+                addValueToDistribution(fullAvgAnaResults.getProgConfigRankDistribution(), fullIndexedConfigInfo.getAvgRank(configIndex));
+            }
+            if(fullMinRank.get(configIndex) != INFINITY_RANK)
+                addValueToDistribution(fullMinAnaResults.getProgConfigRankDistribution(), fullMinRank.get(configIndex));
+        }
+
+        System.out.println("     ranks of " + numberOfConfigs + " configs are loaded from rank snapshot " + rankSnapshotFileName);
+        return true;
+    }
+
+    /**
+     * (full analysis, edge-free storage)
+     * Write max, average and min ranks and longest-path successors to rankSnapshotFileName, ranks must be final
+     */
+    void fullWriteRankSnapshot(){
+        RankSnapshot.write(rankSnapshotFileName, RankSnapshot.getFingerprint(currentProgramConfig, programName, graphTopology),
+                fullIndexedConfigInfo, fullMinRank, fullMaxRankSuccessor);
+        System.out.println("     ranks of " + fullIndexedConfigInfo.getNumberOfConfigs() + " configs are written to rank snapshot " + rankSnapshotFileName);
+    }
+
+    /**
+     * (differential analysis)
+     * Parse the edge edit "add:<node>:<node>" or "remove:<node>:<node>" and prepare the neighbor lists
+     * of both ends before and after the edit. The topology is left as before the edit.
+     */
+    void diffInit(){
+        String[] editFields = topologyEdit.split(":");
+        diffAddsEdge = editFields[0].equals("add");
+        diffEdgeNodes = new int[]{Integer.parseInt(editFields[1]), Integer.parseInt(editFields[2])};
+
+        for(int nodeId : diffEdgeNodes){
+            if(nodeId >= numberOfNodes){
+                System.out.println("ERROR: diffInit: node " + nodeId + " of topology edit is not in the graph of "
+                        + numberOfNodes + " nodes");
+                System.exit(1);
+            }
+        }
+        if(diffEdgeNodes[0] == diffEdgeNodes[1]){
+            System.out.println("ERROR: diffInit: topology edit " + topologyEdit + " is a self loop");
+            System.exit(1);
+        }
+        if(graphTopology.get(diffEdgeNodes[0]).contains(diffEdgeNodes[1]) == diffAddsEdge){
+            System.out.println("ERROR: diffInit: edge " + diffEdgeNodes[0] + " - " + diffEdgeNodes[1]
+                    + (diffAddsEdge ? " is already in the graph" : " is not in the graph"));
+            System.exit(1);
+        }
+
+        diffOriginalNbrLists = new Vector[2];
+        diffEditedNbrLists = new Vector[2];
+        for(int end = 0; end < 2; end ++){
+            diffOriginalNbrLists[end] = graphTopology.get(diffEdgeNodes[end]);
+            diffEditedNbrLists[end] = new Vector<>(diffOriginalNbrLists[end]);
+            if(diffAddsEdge){
+                diffEditedNbrLists[end].add(diffEdgeNodes[1 - end]);
+                // neighbor lists are kept sorted, see Utility.readGraphTopology()
+                Collections.sort(diffEditedNbrLists[end]);
+            }else{
+                diffEditedNbrLists[end].remove(Integer.valueOf(diffEdgeNodes[1 - end]));
+            }
+        }
+
+        diffOriginalMaxDegree = maxDegree;
+        diffEditedMaxDegree = 0;
+        for(int nodeId = 0; nodeId < numberOfNodes; nodeId ++){
+            int degree = graphTopology.get(nodeId).size();
+            if(nodeId == diffEdgeNodes[0] || nodeId == diffEdgeNodes[1])
+                degree += diffAddsEdge ? 1 : -1;
+            diffEditedMaxDegree = Math.max(diffEditedMaxDegree, degree);
+        }
+    }
+
+    /**
+     * (differential analysis)
+     * Put the graph topology as before or after the edge edit, only neighbor lists of the ends are swapped
+     */
+    private void diffSetTopology(boolean edited){
+        for(int end = 0; end < 2; end ++){
+            graphTopology.put(diffEdgeNodes[end], edited ? diffEditedNbrLists[end] : diffOriginalNbrLists[end]);
+        }
+        maxDegree = edited ? diffEditedMaxDegree : diffOriginalMaxDegree;
+    }
+
+    /**
+     * (differential analysis)
+     * @return number of privileges of a node in the current config,
+     *         followed by the configuration indices of its successors in increasing order
+     */
+    private long[] diffGetActionsOfNode(int nodeId){
+        NodeActionEvaluationResults<PCT> actions = currentProgramConfig.evaluateANodeActions(nodeId);
+        long[] actionSummary = new long[actions.getSuccessorList().size() + 1];
+        actionSummary[0] = actions.getPrivilegeCount();
+        int position = 1;
+        for(SuccessorInfo successor : actions.getSuccessorList()){
+            actionSummary[position ++] = successor.getSuccessorProgramConfig().getProgramConfigIndex();
+        }
+        Arrays.sort(actionSummary, 1, actionSummary.length);
+        return actionSummary;
+    }
+
+    /**
+     * (differential analysis)
+     * Visit every predecessor of a config under the topology before the edit, the topology is left as after the edit
+     */
+    private void diffForEachOriginalTransPredecessor(int configIndex, LongConsumer predecessorVisitor){
+        diffSetTopology(false);
+        forEachTransPredecessor(fullInvertedIndex, configIndex, predecessorVisitor);
+        diffSetTopology(true);
+    }
+
+    /**
+     * (differential analysis, edge-free storage)
+     * Update the ranks of full analysis to the topology after the edge edit, without recomputing all of them.
+     * A program reads the topology only through the neighbors of the acting node, so only the actions of both ends
+     * of the edge can change, and so can the invariant, which is defined by the privileges of nodes:
+     *   affected configs: actions of an end differ before and after the edit
+     *   invalidated configs: configs from which an affected config is reachable by program transitions,
+     *     found backward from the affected configs over predecessors before the edit
+     *     (an edge into a config is only changed if its source is affected)
+     *   other configs reach the same configs by the same transitions, so their ranks are kept.
+     * Max and average ranks of invalidated configs are recomputed by the depth-first search of
+     * edgeFreeComputeMaxAndAverageRankForConfigs(), kept ranks are final.
+     * Min ranks of invalidated configs are recomputed by a breadth-first search over invalidated configs,
+     * starting from each invalidated config at 1 + the smallest min rank of its kept successors.
+     * Rank distributions are rebuilt; rank effects are not counted, since cvfs of all configs may change.
+     * The topology is left as after the edit.
+     * @return number of invalidated configs
+     */
+    int diffRecomputeRanks(){
+        diffInit();
+
+        int numberOfConfigs = fullIndexedConfigInfo.getNumberOfConfigs();
+        if(fullInvertedIndex == null)
+            fullInvertedIndex = newInvertedTransitionIndexIfNeeded("diffRecomputeRanks");
+
+        // configuration indices must mean the same configs before and after the edit
+        int[] originalNumberOfNodeStates = new int[numberOfNodes];
+        for(int nodeId = 0; nodeId < numberOfNodes; nodeId ++)
+            originalNumberOfNodeStates[nodeId] = currentProgramConfig.getNumberOfNodeStates(nodeId);
+        diffSetTopology(true);
+        for(int nodeId = 0; nodeId < numberOfNodes; nodeId ++){
+            if(currentProgramConfig.getNumberOfNodeStates(nodeId) != originalNumberOfNodeStates[nodeId]){
+                System.out.println("ERROR: diffRecomputeRanks: topology edit " + topologyEdit + " changes the number of states of node "
+                        + nodeId + " from " + originalNumberOfNodeStates[nodeId] + " to " + currentProgramConfig.getNumberOfNodeStates(nodeId)
+                        + ", configurations must be analyzed again");
+                System.exit(1);
+            }
+        }
+
+        // affected configs, queued first for the backward search
+        byte[] diffStatus = new byte[numberOfConfigs]; // DIFF_UNCHANGED initially
+        int[] invalidatedConfigs = new int[numberOfConfigs];
+        int numberOfAffectedConfigs = 0;
+        for(int configIndex = 0; configIndex < numberOfConfigs; configIndex ++){
+            currentProgramConfig.moveToProgramConfigIndex(configIndex);
+            long[] editedActions0 = diffGetActionsOfNode(diffEdgeNodes[0]);
+            long[] editedActions1 = diffGetActionsOfNode(diffEdgeNodes[1]);
+            diffSetTopology(false);
+            boolean affected = !Arrays.equals(editedActions0, diffGetActionsOfNode(diffEdgeNodes[0]))
+                    || !Arrays.equals(editedActions1, diffGetActionsOfNode(diffEdgeNodes[1]));
+            diffSetTopology(true);
+
+            if(affected){
+                diffStatus[configIndex] = DIFF_AFFECTED;
+                invalidatedConfigs[numberOfAffectedConfigs ++] = configIndex;
+            }
+        }
+
+        // invalidated configs
+        int numberOfInvalidatedConfigs = numberOfAffectedConfigs;
+        ArrayList<Long> predecessorList = new ArrayList<>();
+        for(int queueHead = 0; queueHead < numberOfInvalidatedConfigs; queueHead ++){
+            predecessorList.clear();
+            diffForEachOriginalTransPredecessor(invalidatedConfigs[queueHead], predecessorList::add);
+            for(long predecessorIndex : predecessorList){
+                if(diffStatus[(int) predecessorIndex] == DIFF_UNCHANGED){
+                    diffStatus[(int) predecessorIndex] = DIFF_INVALIDATED;
+                    invalidatedConfigs[numberOfInvalidatedConfigs ++] = (int) predecessorIndex;
+                }
+            }
+        }
+        System.out.println("     " + numberOfAffectedConfigs + " configs have actions changed by the topology edit");
+        System.out.println("     " + numberOfInvalidatedConfigs + " configs of " + numberOfConfigs + " have ranks to be recomputed");
+
+        // max and average ranks, kept ranks go directly to the distributions
+        fullMaxAnaResults = new AnalysisResults<>(new TreeMap<>(), new Histogram());
+        fullAvgAnaResults = new AnalysisResults<>(new TreeMap<>(), new Histogram());
+        byte[] searchStatus = new byte[numberOfConfigs]; // EDGE_FREE_UNVISITED initially
+        for(int configIndex = 0; configIndex < numberOfConfigs; configIndex ++){
+            if(diffStatus[configIndex] == DIFF_UNCHANGED){
+                searchStatus[configIndex] = EDGE_FREE_DONE;
+                if(fullIndexedConfigInfo.getMaxRank(configIndex) != INFINITY_RANK){
+                    addValueToDistribution(fullMaxAnaResults.getProgConfigRankDistribution(), fullIndexedConfigInfo.getMaxRank(configIndex));
+                    addValueToDistribution(fullAvgAnaResults.getProgConfigRankDistribution(), fullIndexedConfigInfo.getAvgRank(configIndex));
+                }
+            }else{
+                fullIndexedConfigInfo.setMaxRank(configIndex, INFINITY_RANK);
+                if(fullMaxRankSuccessor != null)
+                    fullMaxRankSuccessor[configIndex] = -1;
+            }
+        }
+        edgeFreeComputeMaxAndAverageRankForConfigs(searchStatus, false);
+
+        // successors of affected configs after the edit, as (successor index << 32 | config index) in increasing order
+        long[] affectedTransitions = new long[numberOfAffectedConfigs];
+        int numberOfAffectedTransitions = 0;
+        for(int position = 0; position < numberOfAffectedConfigs; position ++){
+            currentProgramConfig.moveToProgramConfigIndex(invalidatedConfigs[position]);
+            for(long successorIndex : currentProgramConfig.getProgramConfigTransSuccessorIndices()){
+                if(numberOfAffectedTransitions == affectedTransitions.length)
+                    affectedTransitions = Arrays.copyOf(affectedTransitions, 2 * affectedTransitions.length + 1);
+                affectedTransitions[numberOfAffectedTransitions ++] = (successorIndex << 32) | invalidatedConfigs[position];
+            }
+        }
+        Arrays.sort(affectedTransitions, 0, numberOfAffectedTransitions);
+
+        // min ranks: every invalidated config starts at 0 inside the invariant, otherwise at 1 + smallest kept min rank
+        // of its successors, as (rank << 32 | config index) in increasing order
+        long[] startRanks = new long[numberOfInvalidatedConfigs];
+        int numberOfStartRanks = 0;
+        for(int position = 0; position < numberOfInvalidatedConfigs; position ++){
+            int configIndex = invalidatedConfigs[position];
+            fullMinRank.set(configIndex, INFINITY_RANK);
+
+            currentProgramConfig.moveToProgramConfigIndex(configIndex);
+            int startRank = INFINITY_RANK;
+            if(currentProgramConfig.isInsideInvariant()){
+                startRank = 0;
+            }else{
+                for(long successorIndex : currentProgramConfig.getProgramConfigTransSuccessorIndices()){
+                    if(diffStatus[(int) successorIndex] == DIFF_UNCHANGED && fullMinRank.get((int) successorIndex) != INFINITY_RANK)
+                        startRank = Math.min(startRank, fullMinRank.get((int) successorIndex) + 1);
+                }
+            }
+            if(startRank != INFINITY_RANK)
+                startRanks[numberOfStartRanks ++] = ((long) startRank << 32) | configIndex;
+        }
+        Arrays.sort(startRanks, 0, numberOfStartRanks);
+
+        // breadth-first search, configs of a rank are queued after the configs starting at that rank;
+        // invalidatedConfigs is reused as the queue
+        int[] searchQueue = invalidatedConfigs;
+        int queueHead = 0;
+        int queueTail = 0;
+        int startPosition = 0;
+        while(queueHead < queueTail || startPosition < numberOfStartRanks){
+            int rank = (queueHead < queueTail) ? fullMinRank.get(searchQueue[queueHead]) : (int) (startRanks[startPosition] >>> 32);
+            while(startPosition < numberOfStartRanks && (int) (startRanks[startPosition] >>> 32) == rank){
+                int configIndex = (int) startRanks[startPosition];
+                startPosition ++;
+                if(fullMinRank.get(configIndex) == INFINITY_RANK){
+                    fullMinRank.set(configIndex, rank);
+                    searchQueue[queueTail ++] = configIndex;
+                }
+            }
+
+            int levelEnd = queueTail;
+            for(; queueHead < levelEnd; queueHead ++){
+                int configIndex = searchQueue[queueHead];
+
+                // predecessors after the edit: unaffected predecessors before the edit, and affected configs
+                predecessorList.clear();
+                diffForEachOriginalTransPredecessor(configIndex, predecessorIndex -> {
+                    if(diffStatus[(int) predecessorIndex] == DIFF_INVALIDATED)
+                        predecessorList.add(predecessorIndex);
+                });
+                int position = -Arrays.binarySearch(affectedTransitions, 0, numberOfAffectedTransitions, ((long) configIndex << 32) - 1) - 1;
+                for(; position < numberOfAffectedTransitions && (int) (affectedTransitions[position] >>> 32) == configIndex; position ++)
+                    predecessorList.add(affectedTransitions[position] & 0xFFFFFFFFL);
+
+                for(long predecessorIndex : predecessorList){
+                    if(fullMinRank.get((int) predecessorIndex) == INFINITY_RANK){
+                        fullMinRank.set((int) predecessorIndex, rank + 1);
+                        searchQueue[queueTail ++] = (int) predecessorIndex;
+                    }
+                }
+            }
+        }
+
+        fullMinAnaResults = new AnalysisResults<>(new TreeMap<>(), new Histogram());
+        for(int configIndex = 0; configIndex < numberOfConfigs; configIndex ++){
+            if(fullMinRank.get(configIndex) != INFINITY_RANK)
+                addValueToDistribution(fullMinAnaResults.getProgConfigRankDistribution(), fullMinRank.get(configIndex));
+        }
+
+        return numberOfInvalidatedConfigs;
+    }
+
+    /**
+     * (full analysis)
+     * Compute the rank effect on min rank of program transitions and cvfs, min ranks must be computed.
+     * Min ranks of both storages are kept in fullMinRank, so configs are visited by configuration index
+     * and their successors are regenerated as in edgeFreeComputeRankEffectOfConfig().
+     */
+    void fullComputeMinRankEffectOfProgramTransitionsAndCvfs(){
+        initRankEffects(fullMinAnaResults);
+        fullInitRankTransitionMatrices(fullMinAnaResults, fullMinAnaResults.getProgConfigRankDistribution());
+
+        for(int configIndex = 0; configIndex < fullMinRank.getLength(); configIndex ++){
+            currentProgramConfig.moveToProgramConfigIndex(configIndex);
+            int progConfigMinRank = fullMinRank.get(configIndex);
+            boolean progConfigInsideInvariant = currentProgramConfig.isInsideInvariant();
+
+            if(progConfigInsideInvariant){
+                fullMinAnaResults.incrementNumberOfProgTransInsideInv();
+            }else{
+                for(long successorIndex : currentProgramConfig.getProgramConfigTransSuccessorIndices()){
+                    addRankEffect(fullMinAnaResults, PendingRankEffects.PROG_TRANS_OUTSIDE_INV, -1,
+                            progConfigMinRank, fullMinRank.get((int) successorIndex));
+                }
+            }
+
+            int cvfTransitionKind = progConfigInsideInvariant ? PendingRankEffects.CVF_INSIDE_INV : PendingRankEffects.CVF_OUTSIDE_INV;
+            for(SuccessorInfo cvfSuccessor : (TreeSet<SuccessorInfo>) currentProgramConfig.getProgramConfigCvfSuccessorList()){
+                addRankEffect(fullMinAnaResults, cvfTransitionKind, cvfSuccessor.getIdOfChangedNode(),
+                        progConfigMinRank, fullMinRank.get(fullGetCvfSuccessorIndex(cvfSuccessor)));
+            }
+        }
+    }
+
+    /**
+     * (full analysis)
+     * @param cvfSuccessor successor of a cvf
+     * @return configuration index of the successor, which must be inside the indexed state space
+     */
+    private int fullGetCvfSuccessorIndex(SuccessorInfo cvfSuccessor){
+        long cvfSuccessorIndex = cvfSuccessor.getSuccessorProgramConfig().getProgramConfigIndex();
+        if(cvfSuccessorIndex < 0){
+            System.out.println("  ERROR: cvfSuccessor " + cvfSuccessor.toString() + " is outside the indexed state space");
+            System.exit(1);
+        }
+
+        return (int) cvfSuccessorIndex;
+    }
+
+    /**
+     * (full analysis)
+     * @return max rank of a config from either storage, ranks must be final
+     */
+    private int fullGetMaxRank(int configIndex){
+        if(fullIndexedConfigInfo != null)
+            return fullIndexedConfigInfo.getMaxRank(configIndex);
+
+        currentProgramConfig.moveToProgramConfigIndex(configIndex);
+        return fullMaxAnaResults.getProgConfigInfoMap().get(currentProgramConfig).getMaxRank();
+    }
+
+    /**
+     * (full analysis)
+     * @return average rank of a config from either storage, ranks must be final
+     */
+    private int fullGetAvgRank(int configIndex){
+        if(fullIndexedConfigInfo != null)
+            return fullIndexedConfigInfo.getAvgRank(configIndex);
+
+        currentProgramConfig.moveToProgramConfigIndex(configIndex);
+        return fullMaxAnaResults.getProgConfigInfoMap().get(currentProgramConfig).getAvgRank();
+    }
+
+    /**
+     * (full analysis)
+     * Compute the rank effect on max rank and average rank of program transitions and cvfs
+     * under the cvf models other than cvf, all ranks must be final.
+     * Ranks are those of program transitions only, so they are reused for every model that enumerates
+     * the same configurations; other models are skipped.
+     * For every config, cvf successors of all evaluated models are generated together, and the rank effect
+     * of a successor is counted once for each model admitting it.
+     * As in fullComputeMinRankEffectOfProgramTransitionsAndCvfs(), configs are visited by configuration index
+     * in both storages, and ranks are looked up by fullGetMaxRank() and fullGetAvgRank().
+     * @return bitwise or of evaluated cvf models
+     */
+    int fullComputeRankEffectOfOtherCvfModels(){
+        fullMaxCvfModelAnaResults = new TreeMap<>();
+        fullAvgCvfModelAnaResults = new TreeMap<>();
+
+        int cvfModels = 0;
+        for(int cvfModel : CVF_MODELS){
+            if(cvfModel == cvf)
+                continue;
+            if(!currentProgramConfig.hasSameNodeStatesUnderCvf(cvfModel)){
+                System.out.println("     cvf model " + getCvfName(cvfModel) + " enumerates other configurations, it is skipped");
+                continue;
+            }
+
+            cvfModels |= cvfModel;
+            AnalysisResults<PCT> maxAnaResults = new AnalysisResults<>(null, null);
+            AnalysisResults<PCT> avgAnaResults = new AnalysisResults<>(null, null);
+            initRankEffects(maxAnaResults, avgAnaResults);
+            fullMaxCvfModelAnaResults.put(cvfModel, maxAnaResults);
+            fullAvgCvfModelAnaResults.put(cvfModel, avgAnaResults);
+        }
+        if(cvfModels == 0)
+            return cvfModels;
+
+        long sizeOfIndexedStateSpace = currentProgramConfig.getSizeOfIndexedStateSpace();
+        if(sizeOfIndexedStateSpace > MAX_SIZE_OF_INDEXED_STATE_SPACE){
+            System.out.println("ERROR: fullComputeRankEffectOfOtherCvfModels: indexed state space of " + sizeOfIndexedStateSpace
+                    + " configs exceeds the limit of " + MAX_SIZE_OF_INDEXED_STATE_SPACE);
+            System.exit(1);
+        }
+
+        for(int configIndex = 0; configIndex < (int) sizeOfIndexedStateSpace; configIndex ++){
+            // successors are generated before ranks are looked up, since fullGetMaxRank() may move currentProgramConfig
+            currentProgramConfig.moveToProgramConfigIndex(configIndex);
+            boolean progConfigInsideInvariant = currentProgramConfig.isInsideInvariant();
+            long[] successorIndices = progConfigInsideInvariant ? null : currentProgramConfig.getProgramConfigTransSuccessorIndices();
+            TreeMap<SuccessorInfo, Integer> cvfSuccessorModels = currentProgramConfig.getProgramConfigCvfSuccessorModels(cvfModels);
+            int progConfigMaxRank = fullGetMaxRank(configIndex);
+            int progConfigAvgRank = fullGetAvgRank(configIndex);
+
+            if(progConfigInsideInvariant){
+                for(AnalysisResults<PCT> anaResults : fullMaxCvfModelAnaResults.values())
+                    anaResults.incrementNumberOfProgTransInsideInv();
+                for(AnalysisResults<PCT> anaResults : fullAvgCvfModelAnaResults.values())
+                    anaResults.incrementNumberOfProgTransInsideInv();
+            }else{
+                for(long successorIndex : successorIndices){
+                    addCvfModelRankEffect(cvfModels, PendingRankEffects.PROG_TRANS_OUTSIDE_INV, -1,
+                            progConfigMaxRank, fullGetMaxRank((int) successorIndex),
+                            progConfigAvgRank, fullGetAvgRank((int) successorIndex));
+                }
+            }
+
+            int cvfTransitionKind = progConfigInsideInvariant ? PendingRankEffects.CVF_INSIDE_INV : PendingRankEffects.CVF_OUTSIDE_INV;
+            for(Map.Entry<SuccessorInfo, Integer> cvfSuccessorEntry : cvfSuccessorModels.entrySet()){
+                SuccessorInfo cvfSuccessor = cvfSuccessorEntry.getKey();
+                int cvfSuccessorIndex = fullGetCvfSuccessorIndex(cvfSuccessor);
+                addCvfModelRankEffect(cvfSuccessorEntry.getValue(), cvfTransitionKind, cvfSuccessor.getIdOfChangedNode(),
+                        progConfigMaxRank, fullGetMaxRank(cvfSuccessorIndex),
+                        progConfigAvgRank, fullGetAvgRank(cvfSuccessorIndex));
+            }
+        }
+
+        return cvfModels;
+    }
+
+    /**
+     * (full analysis)
+     * Count the rank effect of one transition under each of some cvf models
+     * @param cvfModels bitwise or of models admitting the transition
+     */
+    private void addCvfModelRankEffect(int cvfModels, int transitionKind, int idOfChangedNode,
+                                       int sourceMaxRank, int targetMaxRank, int sourceAvgRank, int targetAvgRank){
+        for(int cvfModel : CVF_MODELS){
+            if((cvfModels & cvfModel) != 0){
+                addRankEffect(fullMaxCvfModelAnaResults.get(cvfModel), fullAvgCvfModelAnaResults.get(cvfModel),
+                        transitionKind, idOfChangedNode, sourceMaxRank, targetMaxRank, sourceAvgRank, targetAvgRank);
+            }
+        }
+    }
+
+    /**
+     * Source of predecessors of program transitions:
+     *   null if forEachTransPredecessor() is supported by the program,
+     *   otherwise a new inverted index of successors over the whole indexed state space
+     * @param callerName for error message
+     */
+    InvertedTransitionIndex newInvertedTransitionIndexIfNeeded(String callerName){
+        currentProgramConfig.moveToFirstProgramConfig();
+        if(currentProgramConfig.forEachTransPredecessor(predecessorIndex -> {})){
+            System.out.println("     predecessors are generated by program");
+            return null;
+        }
+
+        long sizeOfIndexedStateSpace = currentProgramConfig.getSizeOfIndexedStateSpace();
+        if(sizeOfIndexedStateSpace > MAX_SIZE_OF_INDEXED_STATE_SPACE){
+            System.out.println("ERROR: " + callerName + ": indexed state space of " + sizeOfIndexedStateSpace
+                    + " configs exceeds the limit of " + MAX_SIZE_OF_INDEXED_STATE_SPACE);
+            System.exit(1);
+        }
+
+        InvertedTransitionIndex invertedIndex = new InvertedTransitionIndex(currentProgramConfig);
+        System.out.println("     predecessors are taken from inverted index of " + invertedIndex.getNumberOfEdges() + " transitions");
+        return invertedIndex;
+    }
+
+    /**
+     * Visit every predecessor of a config, from the program or from an inverted index
+     * @param invertedIndex inverted index, null if predecessors are generated by program
+     * @param configIndex index of the config
+     * @param predecessorVisitor receives configuration index of every predecessor
+     */
+    void forEachTransPredecessor(InvertedTransitionIndex invertedIndex, long configIndex, LongConsumer predecessorVisitor){
+        if(invertedIndex == null){
+            currentProgramConfig.moveToProgramConfigIndex(configIndex);
+            currentProgramConfig.forEachTransPredecessor(predecessorVisitor);
+        }else{
+            invertedIndex.forEachTransPredecessor((int) configIndex, predecessorVisitor);
+        }
+    }
+
+
+    /**
+     * (non-convergence analysis)
+     * find strongly connected components of program transitions outside the invariant,
+     * every config that can reach a non-trivial component (a cycle) has rank infinity
+     */
+    void sccComputeNonConvergence() {
+        long sizeOfIndexedStateSpace = currentProgramConfig.getSizeOfIndexedStateSpace();
+        if(sizeOfIndexedStateSpace > MAX_SIZE_OF_INDEXED_STATE_SPACE){
+            System.out.println("ERROR: sccComputeNonConvergence: indexed state space of " + sizeOfIndexedStateSpace
+                    + " configs exceeds the limit of " + MAX_SIZE_OF_INDEXED_STATE_SPACE);
+            System.exit(1);
+        }
+
+        sccAnalysis = new TransitionSccAnalysis(currentProgramConfig.getDeepCopy());
+        System.out.println("     " + sccAnalysis.getNumberOfNonTrivialSccs() + " non-trivial sccs among "
+                + sccAnalysis.getNumberOfConfigsOutsideInvariant() + " configs outside the invariant");
+    }
+
+    /**
+     * (symbolic analysis)
+     * compute the number of configs of every max rank and of every min rank symbolically (see SymbolicRankAnalysis),
+     * no config is enumerated and no per-config result is kept, so rank effects are not computed
+     */
+    void symbolicComputeRankLayers() {
+        bddMaxAnaResults = new AnalysisResults<>(new TreeMap<>(), new Histogram());
+        bddMinAnaResults = new AnalysisResults<>(new TreeMap<>(), new Histogram());
+
+        symbolicAnalysis = new SymbolicRankAnalysis(currentProgramConfig.getDeepCopy());
+
+        ArrayList<Long> maxRankLayerSizes = symbolicAnalysis.getMaxRankLayerSizes();
+        for(int rank = 0; rank < maxRankLayerSizes.size(); rank ++){
+            if(maxRankLayerSizes.get(rank) > 0)
+                bddMaxAnaResults.getProgConfigRankDistribution().add(rank, maxRankLayerSizes.get(rank));
+        }
+        ArrayList<Long> minRankLayerSizes = symbolicAnalysis.getMinRankLayerSizes();
+        for(int rank = 0; rank < minRankLayerSizes.size(); rank ++){
+            if(minRankLayerSizes.get(rank) > 0)
+                bddMinAnaResults.getProgConfigRankDistribution().add(rank, minRankLayerSizes.get(rank));
+        }
+
+        long numberOfConfigs = symbolicAnalysis.getNumberOfConfigs();
+        System.out.println("     " + symbolicAnalysis.getNumberOfBddNodes() + " bdd nodes over "
+                + symbolicAnalysis.getNumberOfBddVariables() + " variables");
+        System.out.println("     " + symbolicAnalysis.getNumberOfConfigsInsideInvariant() + " of " + numberOfConfigs
+                + " configs are inside the invariant");
+        System.out.println("     " + symbolicAnalysis.getNumberOfConfigsReachingInvariant() + " configs reach the invariant, "
+                + (numberOfConfigs - bddMaxAnaResults.getProgConfigRankDistribution().getNumberOfSamples())
+                + " configs have infinite max rank");
+    }
+
+    /**
+     * (bitmap analysis)
+     * compute the configs of every max rank and of every min rank as compressed bitmaps (see BitmapRankAnalysis),
+     * no per-config result is kept, so rank effects are not computed
+     */
+    void bitmapComputeRankLayers() {
+        bitmapMaxAnaResults = new AnalysisResults<>(new TreeMap<>(), new Histogram());
+        bitmapMinAnaResults = new AnalysisResults<>(new TreeMap<>(), new Histogram());
+
+        bitmapAnalysis = new BitmapRankAnalysis(currentProgramConfig.getDeepCopy(),
+                newInvertedTransitionIndexIfNeeded("bitmapComputeRankLayers"));
+
+        ArrayList<CompressedBitmap> maxRankLayers = bitmapAnalysis.getMaxRankLayers();
+        for(int rank = 0; rank < maxRankLayers.size(); rank ++){
+            if(!maxRankLayers.get(rank).isEmpty())
+                bitmapMaxAnaResults.getProgConfigRankDistribution().add(rank, maxRankLayers.get(rank).getCardinality());
+        }
+        ArrayList<CompressedBitmap> minRankLayers = bitmapAnalysis.getMinRankLayers();
+        for(int rank = 0; rank < minRankLayers.size(); rank ++){
+            if(!minRankLayers.get(rank).isEmpty())
+                bitmapMinAnaResults.getProgConfigRankDistribution().add(rank, minRankLayers.get(rank).getCardinality());
+        }
+
+        long numberOfConfigs = bitmapAnalysis.getNumberOfConfigs();
+        long[] numberOfContainers = bitmapAnalysis.getNumberOfContainers();
+        System.out.println("     " + bitmapAnalysis.getInvariant().getCardinality() + " of " + numberOfConfigs
+                + " configs are inside the invariant");
+        System.out.println("     " + (numberOfConfigs - bitmapMaxAnaResults.getProgConfigRankDistribution().getNumberOfSamples())
+                + " configs have infinite max rank");
+        System.out.println("     invariant and rank layers take " + bitmapAnalysis.getSizeInBytes() + " bytes ("
+                + numberOfContainers[0] + " array, " + numberOfContainers[1] + " bitmap, " + numberOfContainers[2]
+                + " run containers), an int per config for max rank and for min rank takes " + (8 * numberOfConfigs) + " bytes");
+    }
+
+    /**
+     * (backward analysis)
+     * Initialize the analysis results of backward search and the source of predecessors:
+     *   forEachTransPredecessor() of the program if it is supported,
+     *   otherwise an inverted index of successors over the whole indexed state space
+     * then layer 0 of the search, i.e. the invariant, found by evaluating isInsideInvariant() over the indexed state space
+     */
+    void backwardInit() {
+        backwardMaxAnaResults = new AnalysisResults<>(new TreeMap<>(), new Histogram());
+        backwardAvgAnaResults = new AnalysisResults<>(new TreeMap<>(), new Histogram());
+
+        backwardInvertedIndex = newInvertedTransitionIndexIfNeeded("backwardInit");
+
+        Histogram backwardMaxProgConfigRankDistribution = backwardMaxAnaResults.getProgConfigRankDistribution();
+        Histogram backwardAvgProgConfigRankDistribution = backwardAvgAnaResults.getProgConfigRankDistribution();
+
+        backwardSearchInfoMap = new HashMap<>();
+        backwardCurrentLayer = new ArrayList<>();
+        long sizeOfIndexedStateSpace = currentProgramConfig.getSizeOfIndexedStateSpace();
+        for(long configIndex = 0; configIndex < sizeOfIndexedStateSpace; configIndex ++){
+            currentProgramConfig.moveToProgramConfigIndex(configIndex);
+            if(currentProgramConfig.isInsideInvariant()){
+                backwardSearchInfoMap.put(configIndex, new BackwardSearchInfo(0));
+                backwardCurrentLayer.add(configIndex);
+
+                addValueToDistribution(backwardMaxProgConfigRankDistribution, 0);
+                addValueToDistribution(backwardAvgProgConfigRankDistribution, 0);
+            }
+        }
+        backwardDistance = 0;
+        backwardNumberOfConfigsWithRanks = backwardCurrentLayer.size();
+
+        System.out.println("     layer 0: " + backwardCurrentLayer.size() + " configs");
+
+        try{
+            if(outputFileNamePrefix.equals("stdout")) {
+                backwardLayerWriter = null;
+            }else{
+                backwardLayerWriter = new BufferedWriter(new PrintWriter(outputFileNamePrefix + "-backward-layers.txt"));
+                backwardLayerWriter.write("#   program name:                     " + programName + "\n");
+                backwardLayerWriter.write("#   number of nodes:                  " + numberOfNodes + "\n");
+                backwardLayerWriter.write("#   number of program configurations: " + sizeOfIndexedStateSpace + "\n");
+                backwardLayerWriter.write("#        depth  configs of rank depth  configs of rank <= depth  configs of rank > depth\n");
+                backwardLayerWriter.write("#   ----------  --------------------  ------------------------  -----------------------\n");
+            }
+        } catch (IOException e) {
+            System.out.println(e.getMessage());
+        }
+        backwardWritePartialResults(backwardCurrentLayer.size());
+    }
+
+    /**
+     * (backward analysis)
+     * compute maximum rank and average rank for the configurations within a given distance from the invariant
+     * by searching backward from the invariant, layer by layer:
+     *   layer 0 is the invariant
+     *   for each config in layer d
+     *     for each of its predecessors outside the invariant
+     *       count down the number of successors whose ranks are not yet known
+     *       if all successors have known ranks, the predecessor is in layer d+1, i.e.
+     *         its max rank = d+1 (its last successor has the largest rank d)
+     *         its total path length and number of paths are derived as in fullComputeMaxAndAverageRankForConfigs()
+     * Only configs reached backward from the invariant are visited (and their successors generated).
+     * The search continues from the layers already computed, so it can be deepened by calling this again
+     * with a larger distance. Ranks up to the distance reached are exact, other configs have rank larger than it.
+     * Partial results are written after every layer (see backwardWritePartialResults()),
+     * so a run stopped at any point leaves valid distributions up to the last layer.
+     * @param maxDistance largest rank to be computed
+     * @return number of configs outside the invariant whose ranks are computed by this call
+     */
+    int backwardComputeMaxAndAverageRankForConfigs(int maxDistance){
+        int totalRankUpdateCount = 0;
+
+        Histogram backwardMaxProgConfigRankDistribution = backwardMaxAnaResults.getProgConfigRankDistribution();
+        Histogram backwardAvgProgConfigRankDistribution = backwardAvgAnaResults.getProgConfigRankDistribution();
+
+        ArrayList<Long> predecessorList = new ArrayList<>();
+        while((backwardDistance < maxDistance) && !backwardCurrentLayer.isEmpty()){
+            ArrayList<Long> nextLayer = new ArrayList<>();
+
+            for(long configIndex : backwardCurrentLayer){
+                BackwardSearchInfo configInfo = backwardSearchInfoMap.get(configIndex);
+
+                predecessorList.clear();
+                forEachTransPredecessor(backwardInvertedIndex, configIndex, predecessorList::add);
+
+                for(long predecessorIndex : predecessorList){
+                    BackwardSearchInfo predecessorInfo = backwardSearchInfoMap.get(predecessorIndex);
+                    if(predecessorInfo == null){
+                        // first time seen, count its successors
+                        currentProgramConfig.moveToProgramConfigIndex(predecessorIndex);
+                        predecessorInfo = new BackwardSearchInfo(currentProgramConfig.getProgramConfigTransSuccessorIndices().length);
+                        backwardSearchInfoMap.put(predecessorIndex, predecessorInfo);
+                    }
+
+                    if(predecessorInfo.remainingSuccessors == 0){
+                        // predecessor inside the invariant
+                        continue;
+                    }
+
+                    predecessorInfo.remainingSuccessors --;
+                    predecessorInfo.totalPathLength.add(configInfo.totalPathLength);
+                    predecessorInfo.numberOfPaths.add(configInfo.numberOfPaths);
+
+                    if(predecessorInfo.remainingSuccessors == 0){
+                        // all successors have known ranks
+                        predecessorInfo.maxRank = backwardDistance + 1;
+                        predecessorInfo.totalPathLength.add(predecessorInfo.numberOfPaths);
+
+                        addValueToDistribution(backwardMaxProgConfigRankDistribution, predecessorInfo.maxRank);
+                        addValueToDistribution(backwardAvgProgConfigRankDistribution, predecessorInfo.getAvgRank());
+
+                        nextLayer.add(predecessorIndex);
+                        totalRankUpdateCount ++;
+                    }
+                }
+            }
+
+            backwardCurrentLayer = nextLayer;
+            backwardDistance ++;
+            backwardNumberOfConfigsWithRanks += nextLayer.size();
+            System.out.println("     layer " + backwardDistance + ": " + backwardCurrentLayer.size() + " configs");
+            backwardWritePartialResults(nextLayer.size());
+        }
+
+        System.out.println("     " + backwardSearchInfoMap.size() + " configs are visited, "
+                + (backwardSearchInfoMap.size() - backwardNumberOfConfigsWithRanks)
+                + " of them have rank larger than " + backwardDistance + " or infinite");
+
+        return totalRankUpdateCount;
+    }
+
+    /**
+     * (backward analysis)
+     * Write the results up to the current layer: one line of the layer file,
+     * and the max rank and average rank distributions so far, with the number of configs of rank larger than the layer
+     * @param layerSize number of configs in the current layer
+     */
+    private void backwardWritePartialResults(int layerSize){
+        long numberOfConfigsBeyond = currentProgramConfig.getSizeOfIndexedStateSpace() - backwardNumberOfConfigsWithRanks;
+
+        if(backwardLayerWriter != null){
+            try{
+                backwardLayerWriter.write(String.format("    %10d  %20d  %24d  %23d\n",
+                        backwardDistance, layerSize, backwardNumberOfConfigsWithRanks, numberOfConfigsBeyond));
+                backwardLayerWriter.flush();
+            } catch (IOException e) {
+                System.out.println(e.getMessage());
+            }
+        }
+
+        displayPartialProgConfigRankDistribution(backwardMaxAnaResults, "backward-max", backwardDistance, numberOfConfigsBeyond);
+        displayPartialProgConfigRankDistribution(backwardAvgAnaResults, "backward-avg", backwardDistance, numberOfConfigsBeyond);
+    }
+
+    /**
+     * (backward analysis)
+     * Close the layer file once the search is over
+     */
+    void backwardFinish(){
+        if(backwardLayerWriter == null)
+            return;
+
+        try{
+            backwardLayerWriter.close();
+        } catch (IOException e) {
+            System.out.println(e.getMessage());
+        }
+        backwardLayerWriter = null;
+    }
+
+    /**
+     * A config visited in backwardComputeMaxAndAverageRankForConfigs()
+     */
+    private static class BackwardSearchInfo {
+        int remainingSuccessors;    // successors whose ranks are not known yet, 0 if rank is known
+        int maxRank;
+        PathCount totalPathLength;
+        PathCount numberOfPaths;
+
+        BackwardSearchInfo(int numberOfSuccessors){
+            this.remainingSuccessors = numberOfSuccessors;
+            if(numberOfSuccessors == 0){
+                // inside the invariant
+                this.maxRank = 0;
+                this.totalPathLength = new PathCount(0);
+                this.numberOfPaths = new PathCount(1);
+            }else{
+                this.maxRank = INFINITY_RANK;
+                this.totalPathLength = new PathCount(0);
+                this.numberOfPaths = new PathCount(0);
+            }
+        }
+
+        int getAvgRank(){
+            return PathCount.getAvgRank(totalPathLength, numberOfPaths);
+        }
+    }
+
+
+    /**
+     * (symmetry-reduced analysis)
+     * Group the configs of the indexed state space into orbits under the automorphisms of the graph topology,
+     * if the program is symmetric under them, and keep one representative config per orbit (see SymmetricRankAnalysis).
+     * Other programs use the identity only, i.e. every config is its own orbit.
+     */
+    void symmetricInit() {
+        symMaxAnaResults = new AnalysisResults<>(new TreeMap<>(), new Histogram());
+        symAvgAnaResults = new AnalysisResults<>(new TreeMap<>(), new Histogram());
+
+        long sizeOfIndexedStateSpace = currentProgramConfig.getSizeOfIndexedStateSpace();
+        if(sizeOfIndexedStateSpace > MAX_SIZE_OF_INDEXED_STATE_SPACE){
+            System.out.println("ERROR: symmetricInit: indexed state space of " + sizeOfIndexedStateSpace
+                    + " configs exceeds the limit of " + MAX_SIZE_OF_INDEXED_STATE_SPACE);
+            System.exit(1);
+        }
+
+        GraphAutomorphisms automorphisms;
+        if(graphTopology != null && currentProgramConfig.isSymmetricUnderGraphAutomorphisms()){
+            automorphisms = new GraphAutomorphisms(graphTopology, numberOfNodes);
+            if(!automorphisms.isComplete()){
+                System.out.println("     more than " + GraphAutomorphisms.MAX_NUMBER_OF_AUTOMORPHISMS
+                        + " automorphisms, using the identity only");
+                automorphisms = new GraphAutomorphisms(numberOfNodes);
+            }
+        }else{
+            System.out.println("     program is not symmetric under graph automorphisms, using the identity only");
+            automorphisms = new GraphAutomorphisms(numberOfNodes);
+        }
+
+        symmetricAnalysis = new SymmetricRankAnalysis(currentProgramConfig.getDeepCopy(), automorphisms);
+        int numberOfRepresentatives = symmetricAnalysis.getNumberOfRepresentatives();
+
+        System.out.println("\n     " + symmetricAnalysis.getNumberOfAutomorphisms() + " automorphisms, "
+                + numberOfRepresentatives + " orbits of " + sizeOfIndexedStateSpace + " configs"
+                + String.format(" (reduction factor %.2f)", (double) sizeOfIndexedStateSpace / numberOfRepresentatives));
+        System.out.println();
+    }
+
+    /**
+     * (symmetry-reduced analysis)
+     * compute maximum rank and average rank for every representative config
+     * @return number of representatives outside the invariant whose ranks are computed
+     */
+    int symmetricComputeMaxAndAverageRankForConfigs(){
+        return symmetricAnalysis.computeMaxAndAverageRanks(symMaxAnaResults, symAvgAnaResults);
+    }
+
+    /**
+     * (symmetry-reduced analysis)
+     * compute the rank effect of program transitions and cvfs of every representative, all ranks must be final
+     */
+    void symmetricComputeRankEffectOfProgramTransitionsAndCvfs(){
+        initRankEffects(symMaxAnaResults, symAvgAnaResults);
+        symmetricAnalysis.computeRankEffectOfProgramTransitionsAndCvfs(symMaxAnaResults, symAvgAnaResults);
+    }
+
+    /**
+     * (symmetry-reduced, lumping and path-length distribution analysis)
+     * @return true if the rank distribution, the rank effect distributions and the per-node distributions
+     *         of other analysis are the same as those of full analysis
+     */
+    private boolean isEqualToFullAnalysis(AnalysisResults<PCT> fullAnaResults, AnalysisResults<PCT> otherAnaResults){
+        if(!fullAnaResults.isProgConfigRankDistributionEqual(otherAnaResults) ||
+                !fullAnaResults.isProgTransOutsideInvRankEffectDistributionEqual(otherAnaResults) ||
+                !fullAnaResults.isCvfInsideInvRankEffectDistributionEqual(otherAnaResults) ||
+                !fullAnaResults.isCvfOutsideInvRankEffectDistributionEqual(otherAnaResults) ||
+                fullAnaResults.getNumberOfProgTransInsideInv() != otherAnaResults.getNumberOfProgTransInsideInv())
+            return false;
+
+        for(int nodeId = 0; nodeId < numberOfNodes; nodeId ++){
+            if(!fullAnaResults.getPerNodeCvfOutsideInvRankEffectDistribution().elementAt(nodeId).isEqualToOther(
+                    otherAnaResults.getPerNodeCvfOutsideInvRankEffectDistribution().elementAt(nodeId)))
+                return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * (lumping analysis)
+     * Partition the configs of the indexed state space into blocks of the coarsest bisimulation of
+     * program transitions counted with multiplicity, and keep one config per block (see LumpingRankAnalysis)
+     */
+    void lumpingInit() {
+        lumpMaxAnaResults = new AnalysisResults<>(new TreeMap<>(), new Histogram());
+        lumpAvgAnaResults = new AnalysisResults<>(new TreeMap<>(), new Histogram());
+
+        long sizeOfIndexedStateSpace = currentProgramConfig.getSizeOfIndexedStateSpace();
+        if(sizeOfIndexedStateSpace > MAX_SIZE_OF_INDEXED_STATE_SPACE){
+            System.out.println("ERROR: lumpingInit: indexed state space of " + sizeOfIndexedStateSpace
+                    + " configs exceeds the limit of " + MAX_SIZE_OF_INDEXED_STATE_SPACE);
+            System.exit(1);
+        }
+
+        InvertedTransitionIndex invertedIndex = newInvertedTransitionIndexIfNeeded("lumpingInit");
+        lumpingAnalysis = new LumpingRankAnalysis(currentProgramConfig.getDeepCopy(), invertedIndex);
+        int numberOfBlocks = lumpingAnalysis.getNumberOfBlocks();
+
+        System.out.println("\n     " + numberOfBlocks + " blocks of " + sizeOfIndexedStateSpace + " configs"
+                + String.format(" (reduction factor %.2f)", (double) sizeOfIndexedStateSpace / numberOfBlocks));
+        System.out.println();
+    }
+
+    /**
+     * (lumping analysis)
+     * compute maximum rank and average rank for every block
+     * @return number of blocks outside the invariant whose ranks are computed
+     */
+    int lumpingComputeMaxAndAverageRankForConfigs(){
+        return lumpingAnalysis.computeMaxAndAverageRanks(lumpMaxAnaResults, lumpAvgAnaResults);
+    }
+
+    /**
+     * (lumping analysis)
+     * compute the rank effect of program transitions and cvfs, all ranks must be final
+     */
+    void lumpingComputeRankEffectOfProgramTransitionsAndCvfs(){
+        initRankEffects(lumpMaxAnaResults, lumpAvgAnaResults);
+        lumpingAnalysis.computeRankEffectOfProgramTransitionsAndCvfs(lumpMaxAnaResults, lumpAvgAnaResults);
+    }
+
+
+    /**
+     * (random daemon analysis)
+     * Write the distribution of expected convergence time rounded to the nearest step, and print
+     * worst and mean expected time over configs outside the invariant
+     */
+    void daemonDisplayExpectedSteps(){
+        daemonAnaResults = new AnalysisResults<>(null, new Histogram());
+        long numberOfConfigsOfInfiniteTime = 0;
+        long numberOfConfigsOutsideInvariant = 0;
+        double totalTimeOutsideInvariant = 0;
+        double worstTime = 0;
+        for(int configIndex = 0; configIndex < randomDaemonAnalysis.getNumberOfConfigs(); configIndex ++){
+            double expectedSteps = randomDaemonAnalysis.getExpectedSteps(configIndex);
+            if(Double.isInfinite(expectedSteps)){
+                numberOfConfigsOfInfiniteTime ++;
+                continue;
+            }
+
+            addValueToDistribution(daemonAnaResults.getProgConfigRankDistribution(), (int) Math.round(expectedSteps));
+            if(expectedSteps > 0){
+                numberOfConfigsOutsideInvariant ++;
+                totalTimeOutsideInvariant += expectedSteps;
+                worstTime = Math.max(worstTime, expectedSteps);
+            }
+        }
+
+        double meanOutsideInvariant = numberOfConfigsOutsideInvariant == 0 ? 0 : totalTimeOutsideInvariant / numberOfConfigsOutsideInvariant;
+        displayRandomDaemonDistribution(daemonAnaResults, "daemon", faultProbability, numberOfConfigsOfInfiniteTime, meanOutsideInvariant);
+        System.out.println("     worst expected time = " + String.format("%.4f", worstTime)
+                + ", mean expected time outside invariant = " + String.format("%.4f", meanOutsideInvariant)
+                + ", configs of infinite time = " + numberOfConfigsOfInfiniteTime);
+    }
 
-//            System.out.println("  " + currentRoundRankUpdateCount + " rank updates in this round");
-//            System.out.println("  " + totalRankUpdateCount + " configs have rank updated");
+    /**
+     * (random daemon analysis)
+     * @return whether sweeps converged, and expected convergence time of every config is at most its max rank,
+     *         and infinite only if its max rank is infinite
+     */
+    boolean daemonIsWithinMaxRank(){
+        if(!randomDaemonAnalysis.isConverged())
+            return false;
+
+        for(int configIndex = 0; configIndex < randomDaemonAnalysis.getNumberOfConfigs(); configIndex ++){
+            int maxRank = fullGetMaxRank(configIndex);
+            double expectedSteps = randomDaemonAnalysis.getExpectedSteps(configIndex);
+            if(Double.isInfinite(expectedSteps) ? maxRank != INFINITY_RANK : (maxRank != INFINITY_RANK && expectedSteps > maxRank + 1e-6))
+                return false;
+        }
+        return true;
+    }
 
-        }while(currentRoundRankUpdateCount != 0);
+
+    /**
+     * (fault-span analysis)
+     * Explore the configs reachable from the invariant by program transitions and at most faultSpanCvfs cvfs
+     * (see FaultSpanAnalysis), without enumerating the indexed state space
+     */
+    void faultSpanInit() {
+        spanMaxAnaResults = new AnalysisResults<>(new TreeMap<>(), new Histogram());
+        spanAvgAnaResults = new AnalysisResults<>(new TreeMap<>(), new Histogram());
+        spanMinAnaResults = new AnalysisResults<>(new TreeMap<>(), new Histogram());
+
+        faultSpanAnalysis = new FaultSpanAnalysis(currentProgramConfig.getDeepCopy(), faultSpanCvfs);
+        int numberOfSpanConfigs = faultSpanAnalysis.getNumberOfConfigs();
+        spanConfigInfo = new IndexedProgramConfigurationInformation(numberOfSpanConfigs, numberOfNodes * numberOfNodes);
+
+        System.out.println("\n     invariant is " + (faultSpanAnalysis.isInvariantGeneratedByBacktracking() ?
+                "generated by backtracking over node states" : "found by scanning the indexed state space"));
+        for(int level = 0; level <= faultSpanCvfs; level ++){
+            System.out.println("     " + faultSpanAnalysis.getNumberOfConfigsOfLevel(level) + " configs reached with " + level
+                    + " cvfs and no fewer");
+        }
+        System.out.println("     " + numberOfSpanConfigs + " configs in fault span of " + faultSpanAnalysis.getSizeOfIndexedStateSpace()
+                + " configs" + String.format(" (%.6f%%)", 100.0 * numberOfSpanConfigs / faultSpanAnalysis.getSizeOfIndexedStateSpace()));
+        System.out.println();
+    }
+
+    /**
+     * (fault-span analysis)
+     * compute maximum rank and average rank for every config of the fault span, min ranks are computed by exploration
+     * @return number of configs outside the invariant whose max ranks are computed
+     */
+    int faultSpanComputeRanksForConfigs(){
+        int totalRankUpdateCount = QuotientRankAnalysis.computeMaxAndAverageRanks(faultSpanAnalysis.getSuccessors(),
+                faultSpanAnalysis.getInsideInvariant(), localId -> 1, spanConfigInfo, spanMaxAnaResults, spanAvgAnaResults);
+
+        for(int localId = 0; localId < faultSpanAnalysis.getNumberOfConfigs(); localId ++){
+            if(faultSpanAnalysis.getMinRank(localId) != INFINITY_RANK)
+                addValueToDistribution(spanMinAnaResults.getProgConfigRankDistribution(), faultSpanAnalysis.getMinRank(localId));
+        }
 
         return totalRankUpdateCount;
     }
 
     /**
-     * Fully compute the rank effect of program transitions and cvf
+     * (fault-span analysis)
+     * compute the rank effect of program transitions of every config of the fault span, and of cvfs of configs
+     * reached with fewer than faultSpanCvfs cvfs (other cvfs may leave the fault span), all ranks must be final.
+     * Cvfs are regenerated from configuration index as in lumping analysis.
      */
-    public void fullComputeRankEffectOfProgramTransitionsAndCvfs() {
-        fullMaxAnaResults.initAnalysisResults();
-        fullAvgAnaResults.initAnalysisResults();
+    void faultSpanComputeRankEffectOfProgramTransitionsAndCvfs(){
+        initRankEffects(spanMaxAnaResults, spanAvgAnaResults);
+        boolean[] insideInvariant = faultSpanAnalysis.getInsideInvariant();
+        QuotientRankAnalysis.addRankEffectOfProgramTransitions(faultSpanAnalysis.getSuccessors(), insideInvariant,
+                localId -> 1, spanConfigInfo, spanMaxAnaResults, spanAvgAnaResults);
+
+        for(int localId = 0; localId < faultSpanAnalysis.getNumberOfConfigs(); localId ++){
+            if(faultSpanAnalysis.getLevel(localId) == faultSpanCvfs)
+                continue;
 
-        TreeMap<PCT, ProgramConfigurationInformation<PCT>> progConfigInfoMap = fullMaxAnaResults.getProgConfigInfoMap();
+            currentProgramConfig.moveToProgramConfigIndex(faultSpanAnalysis.getConfigIndex(localId));
+            int progConfigMaxRank = spanConfigInfo.getMaxRank(localId);
+            int progConfigAvgRank = spanConfigInfo.getAvgRank(localId);
 
-        TreeMap<Integer, Integer> max_progTransOutsideInvRankEffectDistribution = fullMaxAnaResults.getProgTransOutsideInvRankEffectDistribution();
-        TreeMap<Integer, Integer> max_cvfInsideInvRankEffectDistribution = fullMaxAnaResults.getCvfInsideInvRankEffectDistribution();
-        TreeMap<Integer, Integer> max_cvfOutsideInvRankEffectDistribution = fullMaxAnaResults.getCvfOutsideInvRankEffectDistribution();
-        Vector<TreeMap<Integer, Integer>> max_perNodeCvfOutsideInvRankEffectDistribution = fullMaxAnaResults.getPerNodeCvfOutsideInvRankEffectDistribution();
+            int cvfTransitionKind = insideInvariant[localId] ? PendingRankEffects.CVF_INSIDE_INV : PendingRankEffects.CVF_OUTSIDE_INV;
+            for (SuccessorInfo cvfSuccessor : (TreeSet<SuccessorInfo>) currentProgramConfig.getProgramConfigCvfSuccessorList()) {
+                int cvfSuccessorId = faultSpanAnalysis.getLocalId(cvfSuccessor.getSuccessorProgramConfig().getProgramConfigIndex());
+                if(cvfSuccessorId < 0){
+                    System.out.println("  ERROR: cvfSuccessor " + cvfSuccessor.toString() + " is outside the fault span");
+                    System.exit(1);
+                }
 
-        TreeMap<Integer, Integer> avg_progTransOutsideInvRankEffectDistribution = fullAvgAnaResults.getProgTransOutsideInvRankEffectDistribution();
-        TreeMap<Integer, Integer> avg_cvfInsideInvRankEffectDistribution = fullAvgAnaResults.getCvfInsideInvRankEffectDistribution();
-        TreeMap<Integer, Integer> avg_cvfOutsideInvRankEffectDistribution = fullAvgAnaResults.getCvfOutsideInvRankEffectDistribution();
-        Vector<TreeMap<Integer, Integer>> avg_perNodeCvfOutsideInvRankEffectDistribution = fullAvgAnaResults.getPerNodeCvfOutsideInvRankEffectDistribution();
+                addRankEffect(spanMaxAnaResults, spanAvgAnaResults, cvfTransitionKind, cvfSuccessor.getIdOfChangedNode(),
+                        progConfigMaxRank, spanConfigInfo.getMaxRank(cvfSuccessorId),
+                        progConfigAvgRank, spanConfigInfo.getAvgRank(cvfSuccessorId));
+            }
+        }
+    }
 
-        for(int nodeId = 0; nodeId < numberOfNodes; nodeId ++){
-            // one element per node
-            max_perNodeCvfOutsideInvRankEffectDistribution.addElement(new TreeMap<>());
-            avg_perNodeCvfOutsideInvRankEffectDistribution.addElement(new TreeMap<>());
+    /**
+     * (fault-span analysis)
+     * @return true if every config of the fault span has the same max rank, average rank and min rank
+     *         as in full analysis, whose results must be final
+     */
+    boolean faultSpanMatchesFullAnalysis(){
+        for(int localId = 0; localId < faultSpanAnalysis.getNumberOfConfigs(); localId ++){
+            int configIndex = (int) faultSpanAnalysis.getConfigIndex(localId);
+            if(spanConfigInfo.getMaxRank(localId) != fullGetMaxRank(configIndex)
+                    || spanConfigInfo.getAvgRank(localId) != fullGetAvgRank(configIndex)
+                    || faultSpanAnalysis.getMinRank(localId) != fullMinRank.get(configIndex))
+                return false;
         }
 
-        // compute the effect of program transitions and cvfs on each program configuration
-        for (Map.Entry<PCT, ProgramConfigurationInformation<PCT>> entry : progConfigInfoMap.entrySet()) {
-            PCT progConfig = entry.getKey();
-            ProgramConfigurationInformation progConfigInfo = entry.getValue();
-            int progConfigMaxRank = progConfigInfo.getMaxRank();
-            int progConfigAvgRank = progConfigInfo.getAvgRank();
+        return true;
+    }
 
-            TreeSet<SuccessorInfo> successorList = progConfigInfo.getProgSuccessorList();
-            TreeSet<SuccessorInfo> cvfSuccessorList = progConfigInfo.getCvfSuccessorList();
+    /**
+     * (path-length distribution analysis)
+     * compute the distribution of the lengths of all paths to the invariant of every config (see PathLengthAnalysis)
+     * and from it the max rank, the average rank and the percentiles of path length of every config
+     */
+    void distComputePathLengthDistributions() {
+        distMaxAnaResults = new AnalysisResults<>(new TreeMap<>(), new Histogram());
+        distAvgAnaResults = new AnalysisResults<>(new TreeMap<>(), new Histogram());
+        distPercentileAnaResults = new TreeMap<>();
+        for(int percentile : PATH_LENGTH_PERCENTILES)
+            distPercentileAnaResults.put(percentile, new AnalysisResults<>(new TreeMap<>(), new Histogram()));
+
+        long sizeOfIndexedStateSpace = currentProgramConfig.getSizeOfIndexedStateSpace();
+        if(sizeOfIndexedStateSpace > MAX_SIZE_OF_INDEXED_STATE_SPACE){
+            System.out.println("ERROR: distComputePathLengthDistributions: indexed state space of " + sizeOfIndexedStateSpace
+                    + " configs exceeds the limit of " + MAX_SIZE_OF_INDEXED_STATE_SPACE);
+            System.exit(1);
+        }
 
-            // program transitions
-            if (progConfig.isInsideInvariant()) {
-                // invariant state, count
-                fullMaxAnaResults.incrementNumberOfProgTransInsideInv();
-                fullAvgAnaResults.incrementNumberOfProgTransInsideInv();
-            } else {
-                for (SuccessorInfo successor : successorList) {
-                    int successorMaxRank = progConfigInfoMap.get(successor.getSuccessorProgramConfig()).getMaxRank();
-                    int progTransitionMaxRankEffect = successorMaxRank - progConfigMaxRank;
-
-                    // increment count for progTransitionMaxRankEffect
-                    addValueToDistribution(max_progTransOutsideInvRankEffectDistribution, progTransitionMaxRankEffect);
-                    fullMaxAnaResults.incrementNumberOfProgTransOutsideInv();
-                    fullMaxAnaResults.increaseProgTransOutsideInvTotalRankEffect(progTransitionMaxRankEffect);
-
-
-                    // for average rank
-                    int successorAvgRank = progConfigInfoMap.get(successor.getSuccessorProgramConfig()).getAvgRank();
-                    int progTransitionAvgRankEffect = successorAvgRank - progConfigAvgRank;
-                    addValueToDistribution(avg_progTransOutsideInvRankEffectDistribution, progTransitionAvgRankEffect);
-                    fullAvgAnaResults.incrementNumberOfProgTransOutsideInv();
-                    fullAvgAnaResults.increaseProgTransOutsideInvTotalRankEffect(progTransitionAvgRankEffect);
-                }
-            }
+        InvertedTransitionIndex invertedIndex = newInvertedTransitionIndexIfNeeded("distComputePathLengthDistributions");
+        pathLengthAnalysis = new PathLengthAnalysis(currentProgramConfig.getDeepCopy(), invertedIndex, PATH_LENGTH_PERCENTILES);
 
-            // cvf transitions
-            if (progConfig.isInsideInvariant()) {
-                // invariant state
-                for (SuccessorInfo cvfSuccessor : cvfSuccessorList) {
-                    int cvfSuccessorMaxRank = progConfigInfoMap.get(cvfSuccessor.getSuccessorProgramConfig()).getMaxRank();
-                    int cvfMaxRankEffect = cvfSuccessorMaxRank - progConfigMaxRank;
+        for(int configIndex = 0; configIndex < pathLengthAnalysis.getNumberOfConfigs(); configIndex ++){
+            if(pathLengthAnalysis.getMaxRank(configIndex) == INFINITY_RANK)
+                continue;
 
-                    // increment count of cvfMaxRankEffect
-                    addValueToDistribution(max_cvfInsideInvRankEffectDistribution, cvfMaxRankEffect);
-                    fullMaxAnaResults.incrementNumberOfCvfInsideInv();
-                    fullMaxAnaResults.increaseCvfInsideInvTotalRankEffect(cvfMaxRankEffect);
+            distMaxAnaResults.getProgConfigRankDistribution().add(pathLengthAnalysis.getMaxRank(configIndex), 1);
+            distAvgAnaResults.getProgConfigRankDistribution().add(pathLengthAnalysis.getAvgRank(configIndex), 1);
+            for(int position = 0; position < PATH_LENGTH_PERCENTILES.length; position ++){
+                distPercentileAnaResults.get(PATH_LENGTH_PERCENTILES[position]).getProgConfigRankDistribution()
+                        .add(pathLengthAnalysis.getPercentileRank(position, configIndex), 1);
+            }
+        }
 
+        System.out.println("     " + pathLengthAnalysis.getNumberOfConfigsWithRanks() + " of " + sizeOfIndexedStateSpace
+                + " configs have finite ranks, " + pathLengthAnalysis.getNumberOfApproximateDistributions()
+                + " distributions are approximate");
+        System.out.println(String.format("     standard deviation of path length: average %.3f, max %.3f",
+                pathLengthAnalysis.getAverageStandardDeviation(), pathLengthAnalysis.getMaxStandardDeviation()));
+    }
 
-                    // for average rank
-                    int cvfSuccessorAvgRank = progConfigInfoMap.get(cvfSuccessor.getSuccessorProgramConfig()).getAvgRank();
-                    int cvfAvgRankEffect = cvfSuccessorAvgRank - progConfigAvgRank;
-                    addValueToDistribution(avg_cvfInsideInvRankEffectDistribution, cvfAvgRankEffect);
-                    fullAvgAnaResults.incrementNumberOfCvfInsideInv();
-                    fullAvgAnaResults.increaseCvfInsideInvTotalRankEffect(cvfAvgRankEffect);
-                }
-            } else {
-                // outside invariant state
-                for (SuccessorInfo cvfSuccessor : cvfSuccessorList) {
-                    if(!progConfigInfoMap.containsKey(cvfSuccessor.getSuccessorProgramConfig())){
-                        System.out.println("  ERROR: no info for cvfSuccessor " + cvfSuccessor.toString());
-                        System.out.println("progConfigInfoMap: (" + progConfigInfoMap.size() + " entries)");
-                        for(Map.Entry<PCT, ProgramConfigurationInformation<PCT>> e : progConfigInfoMap.entrySet()){
-                            System.out.println("   " + e.getKey().toString() + " ==> " + e.getValue().toString());
-                        }
-                        System.exit(1);
-                    }
+    /**
+     * (path-length distribution analysis)
+     * compute the rank effect of program transitions and cvfs on max rank, average rank
+     * and every percentile of path length, all distributions must be computed
+     */
+    void distComputeRankEffectOfProgramTransitionsAndCvfs(){
+        initRankEffects(distMaxAnaResults, distAvgAnaResults);
+        for(AnalysisResults<PCT> anaResults : distPercentileAnaResults.values())
+            initRankEffects(anaResults);
+
+        for(int configIndex = 0; configIndex < pathLengthAnalysis.getNumberOfConfigs(); configIndex ++){
+            currentProgramConfig.moveToProgramConfigIndex(configIndex);
+            boolean insideInvariant = pathLengthAnalysis.isInsideInvariant(configIndex);
+
+            if(insideInvariant){
+                distMaxAnaResults.incrementNumberOfProgTransInsideInv();
+                distAvgAnaResults.incrementNumberOfProgTransInsideInv();
+                for(AnalysisResults<PCT> anaResults : distPercentileAnaResults.values())
+                    anaResults.incrementNumberOfProgTransInsideInv();
+            }else{
+                for(long successorIndex : currentProgramConfig.getProgramConfigTransSuccessorIndices())
+                    distAddRankEffect(PendingRankEffects.PROG_TRANS_OUTSIDE_INV, -1, configIndex, (int) successorIndex);
+            }
 
-                    int cvfSuccessorMaxRank = progConfigInfoMap.get(cvfSuccessor.getSuccessorProgramConfig()).getMaxRank();
-                    int cvfMaxRankEffect = cvfSuccessorMaxRank - progConfigMaxRank;
-                    int idOfChangedNode = cvfSuccessor.getIdOfChangedNode();
-
-                    // increment count of cvfMaxRankEffect
-                    addValueToDistribution(max_cvfOutsideInvRankEffectDistribution, cvfMaxRankEffect);
-                    fullMaxAnaResults.incrementNumberOfCvfOutsideInv();
-                    fullMaxAnaResults.increaseCvfOutsideInvTotalRankEffect(cvfMaxRankEffect);
-                    addValueToDistribution(max_perNodeCvfOutsideInvRankEffectDistribution.elementAt(idOfChangedNode), cvfMaxRankEffect);
-
-                    // for average rank
-                    int cvfSuccessorAvgRank = progConfigInfoMap.get(cvfSuccessor.getSuccessorProgramConfig()).getAvgRank();
-                    int cvfAvgRankEffect = cvfSuccessorAvgRank - progConfigAvgRank;
-                    addValueToDistribution(avg_cvfOutsideInvRankEffectDistribution, cvfAvgRankEffect);
-                    fullAvgAnaResults.incrementNumberOfCvfOutsideInv();
-                    fullAvgAnaResults.increaseCvfOutsideInvTotalRankEffect(cvfAvgRankEffect);
-                    addValueToDistribution(avg_perNodeCvfOutsideInvRankEffectDistribution.elementAt(idOfChangedNode), cvfAvgRankEffect);
+            int cvfTransitionKind = insideInvariant ? PendingRankEffects.CVF_INSIDE_INV : PendingRankEffects.CVF_OUTSIDE_INV;
+            for (SuccessorInfo cvfSuccessor : (TreeSet<SuccessorInfo>) currentProgramConfig.getProgramConfigCvfSuccessorList()) {
+                long cvfSuccessorIndex = cvfSuccessor.getSuccessorProgramConfig().getProgramConfigIndex();
+                if(cvfSuccessorIndex < 0){
+                    System.out.println("  ERROR: cvfSuccessor " + cvfSuccessor.toString() + " is outside the indexed state space");
+                    System.exit(1);
                 }
+
+                distAddRankEffect(cvfTransitionKind, cvfSuccessor.getIdOfChangedNode(), configIndex, (int) cvfSuccessorIndex);
             }
         }
     }
 
+    /**
+     * (path-length distribution analysis)
+     * Count the rank effect of one transition for max rank, average rank and every percentile of path length
+     */
+    private void distAddRankEffect(int transitionKind, int idOfChangedNode, int sourceIndex, int targetIndex){
+        addRankEffect(distMaxAnaResults, distAvgAnaResults, transitionKind, idOfChangedNode,
+                pathLengthAnalysis.getMaxRank(sourceIndex), pathLengthAnalysis.getMaxRank(targetIndex),
+                pathLengthAnalysis.getAvgRank(sourceIndex), pathLengthAnalysis.getAvgRank(targetIndex));
+        for(int position = 0; position < PATH_LENGTH_PERCENTILES.length; position ++){
+            addRankEffect(distPercentileAnaResults.get(PATH_LENGTH_PERCENTILES[position]), transitionKind, idOfChangedNode,
+                    pathLengthAnalysis.getPercentileRank(position, sourceIndex), pathLengthAnalysis.getPercentileRank(position, targetIndex));
+        }
+    }
 
     /**
      * Generate random configurations in the configuration space
@@ -510,8 +2585,8 @@ public class AnalyzeProgramBasedOnConfigurations<PCT extends ProgramConfiguratio
                             new ProgramConfigurationInformation<PCT>(
                                     initRank,
                                     initRank,
-                                    BigInteger.valueOf(initRank),
-                                    BigInteger.ONE,
+                                    new PathCount(initRank),
+                                    new PathCount(1),
                                     pc.getProgramConfigTransSuccessorList(),
                                     pc.getProgramConfigCvfSuccessorList()));
 
@@ -538,8 +2613,8 @@ public class AnalyzeProgramBasedOnConfigurations<PCT extends ProgramConfiguratio
                             new ProgramConfigurationInformation<PCT>(
                                     initRank,
                                     initRank,
-                                    BigInteger.valueOf(initRank),
-                                    BigInteger.ONE,
+                                    new PathCount(initRank),
+                                    new PathCount(1),
                                     pc.getProgramConfigTransSuccessorList(),
                                     pc.getProgramConfigCvfSuccessorList()));
 
@@ -552,8 +2627,8 @@ public class AnalyzeProgramBasedOnConfigurations<PCT extends ProgramConfiguratio
                             new ProgramConfigurationInformation<PCT>(
                                     initRank,
                                     DEFAULT_MIN_RANK,
-                                    BigInteger.ZERO,
-                                    BigInteger.ZERO, // no known path yet
+                                    new PathCount(0),
+                                    new PathCount(0), // no known path yet
                                     pc.getProgramConfigTransSuccessorList(),
                                     pc.getProgramConfigCvfSuccessorList()));
 
@@ -593,8 +2668,8 @@ public class AnalyzeProgramBasedOnConfigurations<PCT extends ProgramConfiguratio
                         new ProgramConfigurationInformation<PCT>(
                                 initRank,
                                 initRank,
-                                BigInteger.valueOf(initRank),
-                                BigInteger.ONE,
+                                new PathCount(initRank),
+                                new PathCount(1),
                                 pc.getProgramConfigTransSuccessorList(),
                                 pc.getProgramConfigCvfSuccessorList()));
             }else{
@@ -605,8 +2680,8 @@ public class AnalyzeProgramBasedOnConfigurations<PCT extends ProgramConfiguratio
                         new ProgramConfigurationInformation<PCT>(
                                 initRank,
                                 DEFAULT_MIN_RANK,
-                                BigInteger.ZERO,
-                                BigInteger.ZERO, // no known path yet
+                                new PathCount(0),
+                                new PathCount(0), // no known path yet
                                 pc.getProgramConfigTransSuccessorList(),
                                 pc.getProgramConfigCvfSuccessorList()));
             }
@@ -662,12 +2737,15 @@ public class AnalyzeProgramBasedOnConfigurations<PCT extends ProgramConfiguratio
      *
      */
     void randomComputeMaxAndAverageRankEffectOfProgramTransitionsAndCvfs(){
-        randMaxAnaResults = new AnalysisResults<>(new TreeMap<>(), new TreeMap<>());
+        randMaxAnaResults = new AnalysisResults<>(new TreeMap<>(), new Histogram());
         randMaxAnaResults.initAnalysisResults();
 
-        randAvgAnaResults = new AnalysisResults<>(new TreeMap<>(), new TreeMap<>());
+        randAvgAnaResults = new AnalysisResults<>(new TreeMap<>(), new Histogram());
         randAvgAnaResults.initAnalysisResults();
 
+        randMinAnaResults = new AnalysisResults<>(new TreeMap<>(), new Histogram());
+        randMinAnaResults.initAnalysisResults();
+
         int minNumberOfSampleInsideInv = 0;
         if(sampleSize > currentProgramConfig.getSizeOfStateSpace()) {
             sampleSize = currentProgramConfig.getSizeOfStateSpace()/1;
@@ -695,17 +2773,23 @@ public class AnalyzeProgramBasedOnConfigurations<PCT extends ProgramConfiguratio
         // auxiliary map for storing ranks of program configurations
         TreeMap<PCT, RankEvaluationResults> rankCache = new TreeMap<>();
 
-        TreeMap<Integer, Integer> max_progTransOutsideInvRankEffectDistribution = randMaxAnaResults.getProgTransOutsideInvRankEffectDistribution();
-        TreeMap<Integer, Integer> max_cvfInsideInvRankEffectDistribution = randMaxAnaResults.getCvfInsideInvRankEffectDistribution();
-        TreeMap<Integer, Integer> max_cvfOutsideInvRankEffectDistribution = randMaxAnaResults.getCvfOutsideInvRankEffectDistribution();
-        TreeMap<Integer, Integer> max_progConfigRankDistribution = randMaxAnaResults.getProgConfigRankDistribution();
-        Vector<TreeMap<Integer, Integer>> max_perNodeCvfOutsideInvRankEffectDistribution = randMaxAnaResults.getPerNodeCvfOutsideInvRankEffectDistribution();
+        Histogram max_progTransOutsideInvRankEffectDistribution = randMaxAnaResults.getProgTransOutsideInvRankEffectDistribution();
+        Histogram max_cvfInsideInvRankEffectDistribution = randMaxAnaResults.getCvfInsideInvRankEffectDistribution();
+        Histogram max_cvfOutsideInvRankEffectDistribution = randMaxAnaResults.getCvfOutsideInvRankEffectDistribution();
+        Histogram max_progConfigRankDistribution = randMaxAnaResults.getProgConfigRankDistribution();
+        Vector<Histogram> max_perNodeCvfOutsideInvRankEffectDistribution = randMaxAnaResults.getPerNodeCvfOutsideInvRankEffectDistribution();
 
-        TreeMap<Integer, Integer> avg_progTransOutsideInvRankEffectDistribution = randAvgAnaResults.getProgTransOutsideInvRankEffectDistribution();
-        TreeMap<Integer, Integer> avg_cvfInsideInvRankEffectDistribution = randAvgAnaResults.getCvfInsideInvRankEffectDistribution();
-        TreeMap<Integer, Integer> avg_cvfOutsideInvRankEffectDistribution = randAvgAnaResults.getCvfOutsideInvRankEffectDistribution();
-        TreeMap<Integer, Integer> avg_progConfigRankDistribution = randAvgAnaResults.getProgConfigRankDistribution();
-        Vector<TreeMap<Integer, Integer>> avg_perNodeCvfOutsideInvRankEffectDistribution = randAvgAnaResults.getPerNodeCvfOutsideInvRankEffectDistribution();
+        Histogram avg_progTransOutsideInvRankEffectDistribution = randAvgAnaResults.getProgTransOutsideInvRankEffectDistribution();
+        Histogram avg_cvfInsideInvRankEffectDistribution = randAvgAnaResults.getCvfInsideInvRankEffectDistribution();
+        Histogram avg_cvfOutsideInvRankEffectDistribution = randAvgAnaResults.getCvfOutsideInvRankEffectDistribution();
+        Histogram avg_progConfigRankDistribution = randAvgAnaResults.getProgConfigRankDistribution();
+        Vector<Histogram> avg_perNodeCvfOutsideInvRankEffectDistribution = randAvgAnaResults.getPerNodeCvfOutsideInvRankEffectDistribution();
+
+        Histogram min_progTransOutsideInvRankEffectDistribution = randMinAnaResults.getProgTransOutsideInvRankEffectDistribution();
+        Histogram min_cvfInsideInvRankEffectDistribution = randMinAnaResults.getCvfInsideInvRankEffectDistribution();
+        Histogram min_cvfOutsideInvRankEffectDistribution = randMinAnaResults.getCvfOutsideInvRankEffectDistribution();
+        Histogram min_progConfigRankDistribution = randMinAnaResults.getProgConfigRankDistribution();
+        Vector<Histogram> min_perNodeCvfOutsideInvRankEffectDistribution = randMinAnaResults.getPerNodeCvfOutsideInvRankEffectDistribution();
 
         // for progress display
         int numberOfPcs = randMaxAnaResults.getProgConfigInfoMap().keySet().size();
@@ -714,8 +2798,9 @@ public class AnalyzeProgramBasedOnConfigurations<PCT extends ProgramConfiguratio
 
         for(int nodeId = 0; nodeId < numberOfNodes; nodeId ++){
             // one element per node
-            max_perNodeCvfOutsideInvRankEffectDistribution.addElement(new TreeMap<>());
-            avg_perNodeCvfOutsideInvRankEffectDistribution.addElement(new TreeMap<>());
+            max_perNodeCvfOutsideInvRankEffectDistribution.addElement(new Histogram());
+            avg_perNodeCvfOutsideInvRankEffectDistribution.addElement(new Histogram());
+            min_perNodeCvfOutsideInvRankEffectDistribution.addElement(new Histogram());
         }
 
 //        int cvfContainsTransCount = 0;
@@ -727,11 +2812,13 @@ public class AnalyzeProgramBasedOnConfigurations<PCT extends ProgramConfiguratio
         for(PCT pc : randMaxAnaResults.getProgConfigInfoMap().keySet()){
             int pcMaxRank;
             int pcAvgRank;
+            int pcMinRank;
             ProgramConfigurationInformation pcInfo = randMaxAnaResults.getProgConfigInfoMap().get(pc);
 
             if(pc.isInsideInvariant()){
                 pcMaxRank = pcInfo.getMaxRank(); // should be 0
                 pcAvgRank = pcMaxRank;
+                pcMinRank = pcMaxRank;
 
                 if(pcMaxRank != 0){
                     System.out.println("ERROR: pcMaxRank of configuration inside invariant is not 0 but " + pcMaxRank);
@@ -754,8 +2841,10 @@ public class AnalyzeProgramBasedOnConfigurations<PCT extends ProgramConfiguratio
                     RankEvaluationResults rankEval = cs.evaluateRanks(rankCache);
                     int csMaxRank = rankEval.getMaxRank();
                     int csAvgRank = rankEval.getAvgRank();
+                    int csMinRank = rankEval.getMinRank();
                     int maxRankOffset = csMaxRank - pcMaxRank;
                     int avgRankOffset = csAvgRank - pcMaxRank;
+                    int minRankOffset = csMinRank - pcMinRank;
 
                     addValueToDistribution(max_cvfInsideInvRankEffectDistribution, maxRankOffset);
                     randMaxAnaResults.incrementNumberOfCvfInsideInv();
@@ -765,6 +2854,10 @@ public class AnalyzeProgramBasedOnConfigurations<PCT extends ProgramConfiguratio
                     randAvgAnaResults.incrementNumberOfCvfInsideInv();
                     randAvgAnaResults.increaseCvfInsideInvTotalRankEffect(avgRankOffset);
 
+                    addValueToDistribution(min_cvfInsideInvRankEffectDistribution, minRankOffset);
+                    randMinAnaResults.incrementNumberOfCvfInsideInv();
+                    randMinAnaResults.increaseCvfInsideInvTotalRankEffect(minRankOffset);
+
                     totalCvfMaxRankOffset += maxRankOffset;
                 }
                 pcInfo.setTotalCvfMaxRankOffset(totalCvfMaxRankOffset);
@@ -775,7 +2868,9 @@ public class AnalyzeProgramBasedOnConfigurations<PCT extends ProgramConfiguratio
                 RankEvaluationResults pcRankEval = pc.evaluateRanks(rankCache);
                 pcMaxRank = pcRankEval.getMaxRank();
                 pcAvgRank = pcRankEval.getAvgRank();
+                pcMinRank = pcRankEval.getMinRank();
                 pcInfo.setMaxRank(pcMaxRank);
+                pcInfo.setMinRank(pcMinRank);
 
 //                boolean pcSanityCheck = pcRankEval.sanityCheck();
 //                if(!pcSanityCheck){
@@ -801,8 +2896,10 @@ public class AnalyzeProgramBasedOnConfigurations<PCT extends ProgramConfiguratio
                     RankEvaluationResults tsRankEval = ts.evaluateRanks(rankCache);
                     int tsMaxRank = tsRankEval.getMaxRank();
                     int tsAvgRank = tsRankEval.getAvgRank();
+                    int tsMinRank = tsRankEval.getMinRank();
                     int maxRankOffset = tsMaxRank - pcMaxRank;
                     int avgRankOffset = tsAvgRank - pcAvgRank;
+                    int minRankOffset = tsMinRank - pcMinRank;
 
                     addValueToDistribution(max_progTransOutsideInvRankEffectDistribution, maxRankOffset);
                     randMaxAnaResults.incrementNumberOfProgTransOutsideInv();
@@ -811,6 +2908,10 @@ public class AnalyzeProgramBasedOnConfigurations<PCT extends ProgramConfiguratio
                     addValueToDistribution(avg_progTransOutsideInvRankEffectDistribution, avgRankOffset);
                     randAvgAnaResults.incrementNumberOfProgTransOutsideInv();
                     randAvgAnaResults.increaseProgTransOutsideInvTotalRankEffect(avgRankOffset);
+
+                    addValueToDistribution(min_progTransOutsideInvRankEffectDistribution, minRankOffset);
+                    randMinAnaResults.incrementNumberOfProgTransOutsideInv();
+                    randMinAnaResults.increaseProgTransOutsideInvTotalRankEffect(minRankOffset);
                 }
 
                 for(SuccessorInfo cSuccessor : cvfs){
@@ -823,8 +2924,10 @@ public class AnalyzeProgramBasedOnConfigurations<PCT extends ProgramConfiguratio
                     RankEvaluationResults csRankEval = cs.evaluateRanks(rankCache);
                     int csMaxRank = csRankEval.getMaxRank();
                     int csAvgRank = csRankEval.getAvgRank();
+                    int csMinRank = csRankEval.getMinRank();
                     int maxRankOffset = csMaxRank - pcMaxRank;
                     int avgRankOffset = csAvgRank - pcAvgRank;
+                    int minRankOffset = csMinRank - pcMinRank;
                     int idOfChangedNode = cSuccessor.getIdOfChangedNode();
 
                     addValueToDistribution(max_cvfOutsideInvRankEffectDistribution, maxRankOffset);
@@ -836,12 +2939,18 @@ public class AnalyzeProgramBasedOnConfigurations<PCT extends ProgramConfiguratio
                     randAvgAnaResults.incrementNumberOfCvfOutsideInv();
                     randAvgAnaResults.increaseCvfOutsideInvTotalRankEffect(avgRankOffset);
                     addValueToDistribution(avg_perNodeCvfOutsideInvRankEffectDistribution.elementAt(idOfChangedNode), avgRankOffset);
+
+                    addValueToDistribution(min_cvfOutsideInvRankEffectDistribution, minRankOffset);
+                    randMinAnaResults.incrementNumberOfCvfOutsideInv();
+                    randMinAnaResults.increaseCvfOutsideInvTotalRankEffect(minRankOffset);
+                    addValueToDistribution(min_perNodeCvfOutsideInvRankEffectDistribution.elementAt(idOfChangedNode), minRankOffset);
                 }
             }
 
             // update rank distribution
             addValueToDistribution(max_progConfigRankDistribution, pcMaxRank);
             addValueToDistribution(avg_progConfigRankDistribution, pcAvgRank);
+            addValueToDistribution(min_progConfigRankDistribution, pcMinRank);
 
             pcCount ++;
 
@@ -884,7 +2993,7 @@ public class AnalyzeProgramBasedOnConfigurations<PCT extends ProgramConfiguratio
 //     * except that it only computes max rank, for reason of speed.
 //     */
 //    void randomComputeMaxRankEffectOfProgramTransitionsAndCvfs(){
-//        randMaxAnaResults = new AnalysisResults<>(new TreeMap<>(), new TreeMap<>());
+//        randMaxAnaResults = new AnalysisResults<>(new TreeMap<>(), new Histogram());
 //        randMaxAnaResults.initAnalysisResults();
 //
 //        int minNumberOfSampleInsideInv = 0;
@@ -906,10 +3015,10 @@ public class AnalyzeProgramBasedOnConfigurations<PCT extends ProgramConfiguratio
 //        // auxiliary map for storing ranks of program configurations
 //        TreeMap<PCT, RankEvaluationResults> rankCache = new TreeMap<>();
 //
-//        TreeMap<Integer, Integer> max_progTransOutsideInvRankEffectDistribution = randMaxAnaResults.getProgTransOutsideInvRankEffectDistribution();
-//        TreeMap<Integer, Integer> max_cvfInsideInvRankEffectDistribution = randMaxAnaResults.getCvfInsideInvRankEffectDistribution();
-//        TreeMap<Integer, Integer> max_cvfOutsideInvRankEffectDistribution = randMaxAnaResults.getCvfOutsideInvRankEffectDistribution();
-//        TreeMap<Integer, Integer> max_progConfigRankDistribution = randMaxAnaResults.getProgConfigRankDistribution();
+//        Histogram max_progTransOutsideInvRankEffectDistribution = randMaxAnaResults.getProgTransOutsideInvRankEffectDistribution();
+//        Histogram max_cvfInsideInvRankEffectDistribution = randMaxAnaResults.getCvfInsideInvRankEffectDistribution();
+//        Histogram max_cvfOutsideInvRankEffectDistribution = randMaxAnaResults.getCvfOutsideInvRankEffectDistribution();
+//        Histogram max_progConfigRankDistribution = randMaxAnaResults.getProgConfigRankDistribution();
 //
 //        // for progress display
 //        int numberOfPcs = randMaxAnaResults.getProgConfigInfoMap().keySet().size();
@@ -1029,22 +3138,62 @@ public class AnalyzeProgramBasedOnConfigurations<PCT extends ProgramConfiguratio
         long currrentMs = startMs;
 
 
+        if(configBaseAnalysisTask.contains("scc")){
+            // screen for cycles outside the invariant before paying for rank analysis
+            System.out.println("  + Non-convergence Analysis");
+            System.out.println("    Finding strongly connected components of program transitions outside the invariant... ");
+            sccComputeNonConvergence();
+            System.out.println("    scc analysis is done in " + ((System.currentTimeMillis() - currrentMs)/1000) + " seconds");
+
+            System.out.println("\n    Getting non-convergence summary and witness cycle ");
+            displayNonConvergence(sccAnalysis);
+
+            if(sccAnalysis.getNumberOfConfigsReachingCycle() > 0){
+                System.out.println("\n    *** Program may not converge from " + sccAnalysis.getNumberOfConfigsReachingCycle()
+                        + " configurations, their ranks are infinity");
+            }else{
+                System.out.println("\n    *** Program converges from every configuration");
+            }
+
+            currrentMs = System.currentTimeMillis();
+        }
+
         if(configBaseAnalysisTask.contains("full")){
             // Full analysis, max-rank based is requested
             System.out.println("  + Full Analysis");
             System.out.println("    Initializing ... ");
-            init();
+            boolean edgeFree = fullAnalysisStorage.equals(FULL_ANALYSIS_STORAGE_EDGE_FREE);
+            if(edgeFree) {
+                edgeFreeInit();
+            }else{
+                init();
+            }
             System.out.println("    init is done in " + ((System.currentTimeMillis() - currrentMs)/1000) + " seconds");
 
+            // ranks do not depend on the cvf model, they may be taken from an earlier run
+            boolean ranksLoaded = false;
+            if(!rankSnapshotFileName.isEmpty()){
+                currrentMs = System.currentTimeMillis();
+                System.out.println("\n    Loading ranks from rank snapshot... ");
+                ranksLoaded = fullLoadRankSnapshot();
+                System.out.println("    loading ranks is done in " + ((System.currentTimeMillis() - currrentMs)/1000) + " seconds");
+            }
+
 //            currrentMs = System.currentTimeMillis();
 //            System.out.println("\n    Fully compute max ranks for program configurations... ");
 //            fullComputeMaxRankForConfigs();
 //            System.out.println("    compute max ranks is done " + ((System.currentTimeMillis() - currrentMs)/1000) + " seconds");
 
-            currrentMs = System.currentTimeMillis();
-            System.out.println("\n    Fully compute max rank and average rank for program configurations... ");
-            fullComputeMaxAndAverageRankForConfigs();
-            System.out.println("    compute max rank and average rank is done " + ((System.currentTimeMillis() - currrentMs)/1000) + " seconds");
+            if(!ranksLoaded) {
+                currrentMs = System.currentTimeMillis();
+                System.out.println("\n    Fully compute max rank and average rank for program configurations... ");
+                if(edgeFree) {
+                    edgeFreeComputeMaxAndAverageRankForConfigs();
+                }else{
+                    fullComputeMaxAndAverageRankForConfigs();
+                }
+                System.out.println("    compute max rank and average rank is done " + ((System.currentTimeMillis() - currrentMs)/1000) + " seconds");
+            }
 
             currrentMs = System.currentTimeMillis();
             System.out.println("\n    Getting full max rank distribution of program configurations ");
@@ -1054,7 +3203,27 @@ public class AnalyzeProgramBasedOnConfigurations<PCT extends ProgramConfiguratio
             System.out.println("\n    Getting full average rank distribution of program configurations ");
             displayProgConfigRankDistribution(fullAvgAnaResults, "full-avg");
 
-            fullComputeRankEffectOfProgramTransitionsAndCvfs();
+            if(!ranksLoaded) {
+                currrentMs = System.currentTimeMillis();
+                System.out.println("\n    Fully compute min rank for program configurations... ");
+                fullComputeMinRankForConfigs();
+                System.out.println("    compute min rank is done " + ((System.currentTimeMillis() - currrentMs)/1000) + " seconds");
+
+                if(!rankSnapshotFileName.isEmpty())
+                    fullWriteRankSnapshot();
+            }
+
+            System.out.println("\n    Getting full min rank distribution of program configurations ");
+            displayProgConfigRankDistribution(fullMinAnaResults, "full-min");
+
+            // loaded ranks come without rank effects
+            if(ranksLoaded || fullCountsRankEffectsAfterRanks()) {
+                currrentMs = System.currentTimeMillis();
+                System.out.println("\n    Fully compute rank effect of program transitions and cvfs with " + rankEffectThreads + " threads... ");
+                fullComputeRankEffectOfProgramTransitionsAndCvfs();
+                System.out.println("    compute rank effect is done in " + ((System.currentTimeMillis() - currrentMs)/1000) + " seconds");
+            }
+            // otherwise rank effects of program transitions and cvfs were counted during rank computation
 
             System.out.println("\n    Getting full effect on max rank change of program transitions and cvfs ");
             displayRankEffectOfProgramTransitionsAndCvfs(fullMaxAnaResults, "full-max");
@@ -1062,10 +3231,406 @@ public class AnalyzeProgramBasedOnConfigurations<PCT extends ProgramConfiguratio
             System.out.println("\n    Getting full effect on average rank change of program transitions and cvfs ");
             displayRankEffectOfProgramTransitionsAndCvfs(fullAvgAnaResults, "full-avg");
 
+            currrentMs = System.currentTimeMillis();
+            System.out.println("\n    Fully compute rank effect on min rank of program transitions and cvfs... ");
+            fullComputeMinRankEffectOfProgramTransitionsAndCvfs();
+            System.out.println("    compute rank effect on min rank is done in " + ((System.currentTimeMillis() - currrentMs)/1000) + " seconds");
+
+            System.out.println("\n    Getting full effect on min rank change of program transitions and cvfs ");
+            displayRankEffectOfProgramTransitionsAndCvfs(fullMinAnaResults, "full-min");
+
+            if(allCvfModels) {
+                currrentMs = System.currentTimeMillis();
+                System.out.println("\n    Fully compute rank effect of program transitions and cvfs under other cvf models... ");
+                int cvfModels = fullComputeRankEffectOfOtherCvfModels();
+                System.out.println("    compute rank effect under other cvf models is done in " + ((System.currentTimeMillis() - currrentMs)/1000) + " seconds");
+
+                for(int cvfModel : CVF_MODELS){
+                    if((cvfModels & cvfModel) == 0)
+                        continue;
+
+                    System.out.println("\n    Getting full effect on max rank change of program transitions and cvfs under " + getCvfName(cvfModel));
+                    displayRankEffectOfProgramTransitionsAndCvfs(fullMaxCvfModelAnaResults.get(cvfModel), "full-max-" + getCvfName(cvfModel));
+
+                    System.out.println("\n    Getting full effect on average rank change of program transitions and cvfs under " + getCvfName(cvfModel));
+                    displayRankEffectOfProgramTransitionsAndCvfs(fullAvgCvfModelAnaResults.get(cvfModel), "full-avg-" + getCvfName(cvfModel));
+                }
+            }
+
+            if(fullWorstCvfs != null){
+                System.out.println("\n    Getting cvfs of worst effect on max rank ");
+                displayWorstCvfs(fullWorstCvfs, "full-max");
+            }
+
+            if(witnessPathConfigs.length > 0 || witnessPathTopK > 0){
+                System.out.println("\n    Getting longest paths to the invariant ");
+                displayWitnessPaths(fullMaxRankSuccessor, fullSelectWitnessPathConfigs(), "full-max");
+            }
+
+            // successor lists computed on demand are not used after this point
+            if(!edgeFree)
+                fullReleaseSuccessorLists();
+
+            // verifying if configs of infinite rank in full analysis are those reaching a cycle
+            if(sccAnalysis != null) {
+                long fullNumberOfInfiniteRanks = sccAnalysis.getNumberOfConfigs()
+                        - fullMaxAnaResults.getProgConfigRankDistribution().getNumberOfSamples();
+                if (fullNumberOfInfiniteRanks == sccAnalysis.getNumberOfConfigsReachingCycle()) {
+                    System.out.println("\n    *** Full analysis MATCHES scc analysis");
+                } else {
+                    System.out.println("\n    *** Full analysis DOES NOT MATCH scc analysis");
+                }
+            }
+
             System.out.println("    Full analysis is done " + ((System.currentTimeMillis() - currrentMs)/1000) + " seconds");
             currrentMs = System.currentTimeMillis();
         }
 
+        if(configBaseAnalysisTask.contains("backward")){
+            // backward search from the invariant
+            System.out.println("\n  + Backward Analysis");
+            System.out.println("    Initializing ... ");
+            backwardInit();
+            System.out.println("    init is done in " + ((System.currentTimeMillis() - currrentMs)/1000) + " seconds");
+
+            currrentMs = System.currentTimeMillis();
+            System.out.println("\n    Compute max rank and average rank for program configurations up to rank " + backwardMaxDistance + "... ");
+            backwardComputeMaxAndAverageRankForConfigs(backwardMaxDistance);
+            backwardFinish();
+            System.out.println("    compute max rank and average rank is done " + ((System.currentTimeMillis() - currrentMs)/1000) + " seconds");
+
+            // backward max and average rank distributions were written after the last layer
+
+            // verifying if full analysis and backward analysis matches
+            if(configBaseAnalysisTask.contains("full") && (backwardMaxDistance == INFINITY_RANK)) {
+                if (fullMaxAnaResults.isProgConfigRankDistributionEqual(backwardMaxAnaResults) &&
+                        fullAvgAnaResults.isProgConfigRankDistributionEqual(backwardAvgAnaResults)) {
+                    System.out.println("\n    *** Full analysis MATCHES backward analysis");
+                } else {
+                    System.out.println("\n    *** Full analysis DOES NOT MATCH backward analysis");
+                }
+            }
+
+            currrentMs = System.currentTimeMillis();
+        }
+
+        if(configBaseAnalysisTask.contains("symmetry")){
+            // full analysis over one representative config per orbit under graph automorphisms
+            System.out.println("\n  + Symmetry-reduced Analysis");
+            System.out.println("    Initializing ... ");
+            symmetricInit();
+            System.out.println("    init is done in " + ((System.currentTimeMillis() - currrentMs)/1000) + " seconds");
+
+            currrentMs = System.currentTimeMillis();
+            System.out.println("\n    Compute max rank and average rank for representative configurations... ");
+            symmetricComputeMaxAndAverageRankForConfigs();
+            System.out.println("    compute max rank and average rank is done " + ((System.currentTimeMillis() - currrentMs)/1000) + " seconds");
+
+            System.out.println("\n    Getting symmetry-reduced max rank distribution of program configurations ");
+            displayProgConfigRankDistribution(symMaxAnaResults, "sym-max");
+
+            System.out.println("\n    Getting symmetry-reduced average rank distribution of program configurations ");
+            displayProgConfigRankDistribution(symAvgAnaResults, "sym-avg");
+
+            currrentMs = System.currentTimeMillis();
+            System.out.println("\n    Compute rank effect of program transitions and cvfs for representative configurations... ");
+            symmetricComputeRankEffectOfProgramTransitionsAndCvfs();
+            System.out.println("    compute rank effect is done in " + ((System.currentTimeMillis() - currrentMs)/1000) + " seconds");
+
+            System.out.println("\n    Getting symmetry-reduced effect on max rank change of program transitions and cvfs ");
+            displayRankEffectOfProgramTransitionsAndCvfs(symMaxAnaResults, "sym-max");
+
+            System.out.println("\n    Getting symmetry-reduced effect on average rank change of program transitions and cvfs ");
+            displayRankEffectOfProgramTransitionsAndCvfs(symAvgAnaResults, "sym-avg");
+
+            // verifying if full analysis and symmetry-reduced analysis matches
+            if(configBaseAnalysisTask.contains("full")) {
+                if (isEqualToFullAnalysis(fullMaxAnaResults, symMaxAnaResults) &&
+                        isEqualToFullAnalysis(fullAvgAnaResults, symAvgAnaResults)) {
+                    System.out.println("\n    *** Full analysis MATCHES symmetry-reduced analysis");
+                } else {
+                    System.out.println("\n    *** Full analysis DOES NOT MATCH symmetry-reduced analysis");
+                }
+            }
+
+            currrentMs = System.currentTimeMillis();
+        }
+
+        if(configBaseAnalysisTask.contains("lumping")){
+            // full analysis over one config per block of the coarsest bisimulation of program transitions
+            System.out.println("\n  + Lumping Analysis");
+            System.out.println("    Initializing ... ");
+            lumpingInit();
+            System.out.println("    init is done in " + ((System.currentTimeMillis() - currrentMs)/1000) + " seconds");
+
+            currrentMs = System.currentTimeMillis();
+            System.out.println("\n    Compute max rank and average rank for blocks of program configurations... ");
+            lumpingComputeMaxAndAverageRankForConfigs();
+            System.out.println("    compute max rank and average rank is done " + ((System.currentTimeMillis() - currrentMs)/1000) + " seconds");
+
+            System.out.println("\n    Getting lumping max rank distribution of program configurations ");
+            displayProgConfigRankDistribution(lumpMaxAnaResults, "lump-max");
+
+            System.out.println("\n    Getting lumping average rank distribution of program configurations ");
+            displayProgConfigRankDistribution(lumpAvgAnaResults, "lump-avg");
+
+            currrentMs = System.currentTimeMillis();
+            System.out.println("\n    Compute rank effect of program transitions and cvfs from blocks... ");
+            lumpingComputeRankEffectOfProgramTransitionsAndCvfs();
+            System.out.println("    compute rank effect is done in " + ((System.currentTimeMillis() - currrentMs)/1000) + " seconds");
+
+            System.out.println("\n    Getting lumping effect on max rank change of program transitions and cvfs ");
+            displayRankEffectOfProgramTransitionsAndCvfs(lumpMaxAnaResults, "lump-max");
+
+            System.out.println("\n    Getting lumping effect on average rank change of program transitions and cvfs ");
+            displayRankEffectOfProgramTransitionsAndCvfs(lumpAvgAnaResults, "lump-avg");
+
+            // verifying if full analysis and lumping analysis matches
+            if(configBaseAnalysisTask.contains("full")) {
+                if (isEqualToFullAnalysis(fullMaxAnaResults, lumpMaxAnaResults) &&
+                        isEqualToFullAnalysis(fullAvgAnaResults, lumpAvgAnaResults)) {
+                    System.out.println("\n    *** Full analysis MATCHES lumping analysis");
+                } else {
+                    System.out.println("\n    *** Full analysis DOES NOT MATCH lumping analysis");
+                }
+            }
+
+            currrentMs = System.currentTimeMillis();
+        }
+
+        if(configBaseAnalysisTask.contains("span")){
+            // full analysis over the configs reachable from the invariant by at most faultSpanCvfs cvfs
+            System.out.println("\n  + Fault-span Analysis");
+            System.out.println("    Exploring configurations reachable from the invariant with at most " + faultSpanCvfs + " cvfs... ");
+            faultSpanInit();
+            System.out.println("    exploration is done in " + ((System.currentTimeMillis() - currrentMs)/1000) + " seconds");
+
+            currrentMs = System.currentTimeMillis();
+            System.out.println("\n    Compute max rank and average rank for configurations of the fault span... ");
+            faultSpanComputeRanksForConfigs();
+            System.out.println("    compute max rank and average rank is done " + ((System.currentTimeMillis() - currrentMs)/1000) + " seconds");
+
+            System.out.println("\n    Getting fault-span max rank distribution of program configurations ");
+            displayProgConfigRankDistribution(spanMaxAnaResults, "span-max");
+
+            System.out.println("\n    Getting fault-span average rank distribution of program configurations ");
+            displayProgConfigRankDistribution(spanAvgAnaResults, "span-avg");
+
+            System.out.println("\n    Getting fault-span min rank distribution of program configurations ");
+            displayProgConfigRankDistribution(spanMinAnaResults, "span-min");
+
+            currrentMs = System.currentTimeMillis();
+            System.out.println("\n    Compute rank effect of program transitions and cvfs in the fault span... ");
+            faultSpanComputeRankEffectOfProgramTransitionsAndCvfs();
+            System.out.println("    compute rank effect is done in " + ((System.currentTimeMillis() - currrentMs)/1000) + " seconds");
+
+            System.out.println("\n    Getting fault-span effect on max rank change of program transitions and cvfs ");
+            displayRankEffectOfProgramTransitionsAndCvfs(spanMaxAnaResults, "span-max");
+
+            System.out.println("\n    Getting fault-span effect on average rank change of program transitions and cvfs ");
+            displayRankEffectOfProgramTransitionsAndCvfs(spanAvgAnaResults, "span-avg");
+
+            // verifying if full analysis and fault-span analysis matches on the configs of the fault span
+            if(configBaseAnalysisTask.contains("full")) {
+                if (faultSpanMatchesFullAnalysis()) {
+                    System.out.println("\n    *** Full analysis MATCHES fault-span analysis");
+                } else {
+                    System.out.println("\n    *** Full analysis DOES NOT MATCH fault-span analysis");
+                }
+            }
+
+            currrentMs = System.currentTimeMillis();
+        }
+
+        if(configBaseAnalysisTask.contains("symbolic")){
+            // rank layers as binary decision diagrams, without enumerating configs
+            System.out.println("\n  + Symbolic Analysis");
+            System.out.println("    Compute max rank and min rank layers of program configurations... ");
+            symbolicComputeRankLayers();
+            System.out.println("    compute rank layers is done " + ((System.currentTimeMillis() - currrentMs)/1000) + " seconds");
+
+            System.out.println("\n    Getting symbolic max rank distribution of program configurations ");
+            displayProgConfigRankDistribution(bddMaxAnaResults, "bdd-max");
+
+            System.out.println("\n    Getting symbolic min rank distribution of program configurations ");
+            displayProgConfigRankDistribution(bddMinAnaResults, "bdd-min");
+
+            // verifying if full analysis and symbolic analysis matches
+            if(configBaseAnalysisTask.contains("full")) {
+                if (fullMaxAnaResults.isProgConfigRankDistributionEqual(bddMaxAnaResults) &&
+                        fullMinAnaResults.isProgConfigRankDistributionEqual(bddMinAnaResults)) {
+                    System.out.println("\n    *** Full analysis MATCHES symbolic analysis");
+                } else {
+                    System.out.println("\n    *** Full analysis DOES NOT MATCH symbolic analysis");
+                }
+            }
+
+            currrentMs = System.currentTimeMillis();
+        }
+
+        if(configBaseAnalysisTask.contains("bitmap")){
+            // rank layers as compressed bitmaps of configuration indices
+            System.out.println("\n  + Bitmap Analysis");
+            System.out.println("    Compute max rank and min rank layers of program configurations... ");
+            bitmapComputeRankLayers();
+            System.out.println("    compute rank layers is done " + ((System.currentTimeMillis() - currrentMs)/1000) + " seconds");
+
+            System.out.println("\n    Getting bitmap max rank distribution of program configurations ");
+            displayProgConfigRankDistribution(bitmapMaxAnaResults, "bitmap-max");
+
+            System.out.println("\n    Getting bitmap min rank distribution of program configurations ");
+            displayProgConfigRankDistribution(bitmapMinAnaResults, "bitmap-min");
+
+            // verifying if full analysis and bitmap analysis matches
+            if(configBaseAnalysisTask.contains("full")) {
+                if (fullMaxAnaResults.isProgConfigRankDistributionEqual(bitmapMaxAnaResults) &&
+                        fullMinAnaResults.isProgConfigRankDistributionEqual(bitmapMinAnaResults)) {
+                    System.out.println("\n    *** Full analysis MATCHES bitmap analysis");
+                } else {
+                    System.out.println("\n    *** Full analysis DOES NOT MATCH bitmap analysis");
+                }
+            }
+
+            currrentMs = System.currentTimeMillis();
+        }
+
+        if(configBaseAnalysisTask.contains("distribution")){
+            // distribution of lengths of all paths to the invariant of every config
+            System.out.println("\n  + Path-length Distribution Analysis");
+            System.out.println("    Compute path-length distributions for program configurations... ");
+            distComputePathLengthDistributions();
+            System.out.println("    compute path-length distributions is done " + ((System.currentTimeMillis() - currrentMs)/1000) + " seconds");
+
+            System.out.println("\n    Getting path-length distribution max rank distribution of program configurations ");
+            displayProgConfigRankDistribution(distMaxAnaResults, "dist-max");
+
+            System.out.println("\n    Getting path-length distribution average rank distribution of program configurations ");
+            displayProgConfigRankDistribution(distAvgAnaResults, "dist-avg");
+
+            for(int percentile : PATH_LENGTH_PERCENTILES){
+                System.out.println("\n    Getting path-length distribution p" + percentile + " rank distribution of program configurations ");
+                displayProgConfigRankDistribution(distPercentileAnaResults.get(percentile), "dist-p" + percentile);
+            }
+
+            currrentMs = System.currentTimeMillis();
+            System.out.println("\n    Compute rank effect of program transitions and cvfs from path-length distributions... ");
+            distComputeRankEffectOfProgramTransitionsAndCvfs();
+            System.out.println("    compute rank effect is done in " + ((System.currentTimeMillis() - currrentMs)/1000) + " seconds");
+
+            System.out.println("\n    Getting path-length distribution effect on max rank change of program transitions and cvfs ");
+            displayRankEffectOfProgramTransitionsAndCvfs(distMaxAnaResults, "dist-max");
+
+            System.out.println("\n    Getting path-length distribution effect on average rank change of program transitions and cvfs ");
+            displayRankEffectOfProgramTransitionsAndCvfs(distAvgAnaResults, "dist-avg");
+
+            System.out.println("\n    Getting path-length distribution effect on percentile ranks of program transitions and cvfs ");
+            displayRankEffectOfPercentileRanks(distPercentileAnaResults, "dist");
+
+            // verifying if full analysis and path-length distribution analysis matches
+            if(configBaseAnalysisTask.contains("full")) {
+                if (isEqualToFullAnalysis(fullMaxAnaResults, distMaxAnaResults) &&
+                        isEqualToFullAnalysis(fullAvgAnaResults, distAvgAnaResults)) {
+                    System.out.println("\n    *** Full analysis MATCHES path-length distribution analysis");
+                } else {
+                    System.out.println("\n    *** Full analysis DOES NOT MATCH path-length distribution analysis");
+                }
+            }
+
+            currrentMs = System.currentTimeMillis();
+        }
+
+        if(configBaseAnalysisTask.contains("multicvf")){
+            // worst-case ranks when cvfs keep striking during recovery, from max ranks of full analysis
+            System.out.println("\n  + Multi-cvf Analysis");
+            System.out.println("    Compute worst-case ranks with up to " + multiCvfs + " cvfs during recovery... ");
+            multiCvfAnalysis = new MultiCvfRankAnalysis(currentProgramConfig.getDeepCopy(), this::fullGetMaxRank, multiCvfs);
+            System.out.println("    compute worst-case ranks is done in " + ((System.currentTimeMillis() - currrentMs)/1000) + " seconds");
+
+            for(int numberOfCvfs = 0; numberOfCvfs <= multiCvfs; numberOfCvfs ++){
+                Histogram rankDistribution = multiCvfAnalysis.getRankDistribution(numberOfCvfs);
+                System.out.println("\n    Getting worst-case rank distribution of program configurations with up to " + numberOfCvfs + " cvfs ");
+                displayMultiCvfRankDistribution(new AnalysisResults<>(null, rankDistribution), "multicvf-" + numberOfCvfs,
+                        numberOfCvfs, multiCvfAnalysis.getNumberOfConfigsOfInfiniteRank(numberOfCvfs));
+                System.out.println("     worst-case recovery time = " + rankDistribution.getMaxValue()
+                        + ", average recovery time = " + (rankDistribution.isEmpty() ? "n/a" : String.format("%.4f", rankDistribution.getMean()))
+                        + ", configs of infinite rank = " + multiCvfAnalysis.getNumberOfConfigsOfInfiniteRank(numberOfCvfs));
+            }
+
+            // with no cvf, worst-case rank is max rank
+            if(multiCvfAnalysis.getRankDistribution(0).isEqualToOther(fullMaxAnaResults.getProgConfigRankDistribution())){
+                System.out.println("\n    *** Full analysis MATCHES multi-cvf analysis without cvfs");
+            }else{
+                System.out.println("\n    *** Full analysis DOES NOT MATCH multi-cvf analysis without cvfs");
+            }
+
+            currrentMs = System.currentTimeMillis();
+        }
+
+        if(configBaseAnalysisTask.contains("daemon")){
+            // expected convergence time under a random daemon, as estimated by simulation
+            System.out.println("\n  + Random Daemon Analysis");
+            System.out.println("    Compute expected convergence time with fault probability " + faultProbability + "... ");
+            randomDaemonAnalysis = new RandomDaemonAnalysis(currentProgramConfig.getDeepCopy(), this::fullGetMaxRank, faultProbability);
+            System.out.println("    compute expected convergence time is done in " + ((System.currentTimeMillis() - currrentMs)/1000)
+                    + " seconds, " + randomDaemonAnalysis.getNumberOfSweeps() + " Gauss-Seidel sweeps");
+            if(!randomDaemonAnalysis.isConverged()){
+                System.out.println("     expected convergence time did not converge after " + randomDaemonAnalysis.getNumberOfSweeps()
+                        + " sweeps, last relative change = " + randomDaemonAnalysis.getLastChange());
+            }
+
+            System.out.println("\n    Getting random daemon expected convergence time distribution of program configurations ");
+            daemonDisplayExpectedSteps();
+
+            // without cvfs, expected time is an average over paths of program transitions, at most the longest one
+            if(faultProbability == 0) {
+                if (daemonIsWithinMaxRank()) {
+                    System.out.println("\n    *** Full analysis MATCHES random daemon analysis (expected time <= max rank)");
+                } else {
+                    System.out.println("\n    *** Full analysis DOES NOT MATCH random daemon analysis (expected time <= max rank)");
+                }
+            }
+
+            currrentMs = System.currentTimeMillis();
+        }
+
+        if(configBaseAnalysisTask.contains("diff")){
+            // differential analysis: full analysis is updated to the topology after an edge edit,
+            // later analyses are of the edited topology
+            System.out.println("\n  + Differential Analysis");
+            System.out.println("    topology edit: " + topologyEdit);
+
+            currrentMs = System.currentTimeMillis();
+            System.out.println("\n    Recompute ranks invalidated by the topology edit... ");
+            diffRecomputeRanks();
+            System.out.println("    recompute ranks is done in " + ((System.currentTimeMillis() - currrentMs)/1000) + " seconds");
+
+            System.out.println("\n    Getting differential max rank distribution of program configurations ");
+            displayProgConfigRankDistribution(fullMaxAnaResults, "diff-max");
+
+            System.out.println("\n    Getting differential average rank distribution of program configurations ");
+            displayProgConfigRankDistribution(fullAvgAnaResults, "diff-avg");
+
+            System.out.println("\n    Getting differential min rank distribution of program configurations ");
+            displayProgConfigRankDistribution(fullMinAnaResults, "diff-min");
+
+            currrentMs = System.currentTimeMillis();
+            System.out.println("\n    Compute rank effect of program transitions and cvfs in the edited topology with " + rankEffectThreads + " threads... ");
+            fullComputeRankEffectOfProgramTransitionsAndCvfs();
+            fullComputeMinRankEffectOfProgramTransitionsAndCvfs();
+            System.out.println("    compute rank effect is done in " + ((System.currentTimeMillis() - currrentMs)/1000) + " seconds");
+
+            System.out.println("\n    Getting differential effect on max rank change of program transitions and cvfs ");
+            displayRankEffectOfProgramTransitionsAndCvfs(fullMaxAnaResults, "diff-max");
+
+            System.out.println("\n    Getting differential effect on average rank change of program transitions and cvfs ");
+            displayRankEffectOfProgramTransitionsAndCvfs(fullAvgAnaResults, "diff-avg");
+
+            System.out.println("\n    Getting differential effect on min rank change of program transitions and cvfs ");
+            displayRankEffectOfProgramTransitionsAndCvfs(fullMinAnaResults, "diff-min");
+
+            currrentMs = System.currentTimeMillis();
+        }
+
         if(configBaseAnalysisTask.contains("statistical")){
             // Statistical analysis
             System.out.println("\n  + Statistical Analysis");
@@ -1079,7 +3644,7 @@ public class AnalyzeProgramBasedOnConfigurations<PCT extends ProgramConfiguratio
             // max-rank based from random paths
             System.out.println("\n    Getting statistical max rank distribution of program configurations ");
             displayProgConfigRankDistribution(randMaxAnaResults, "rand-max");
-            System.out.println("     max rank = " + randMaxAnaResults.getProgConfigRankDistribution().lastKey());
+            System.out.println("     max rank = " + randMaxAnaResults.getProgConfigRankDistribution().getMaxValue());
 
             System.out.println("\n    Getting statistical effect on max-rank change of program transitions and cvfs ");
             displayRankEffectOfProgramTransitionsAndCvfs(randMaxAnaResults, "rand-max");
@@ -1102,7 +3667,7 @@ public class AnalyzeProgramBasedOnConfigurations<PCT extends ProgramConfiguratio
             // average-rank based from random paths
             System.out.println("\n    Getting statistical avg rank distribution of program configurations ");
             displayProgConfigRankDistribution(randAvgAnaResults, "rand-avg");
-            System.out.println("     max rank = " + randAvgAnaResults.getProgConfigRankDistribution().lastKey());
+            System.out.println("     max rank = " + randAvgAnaResults.getProgConfigRankDistribution().getMaxValue());
 
             System.out.println("\n    Getting statistical effect on avg-rank change of program transitions and cvfs ");
             displayRankEffectOfProgramTransitionsAndCvfs(randAvgAnaResults, "rand-avg");
@@ -1119,6 +3684,26 @@ public class AnalyzeProgramBasedOnConfigurations<PCT extends ProgramConfiguratio
                 }
             }
 
+            // min-rank based from random paths
+            System.out.println("\n    Getting statistical min rank distribution of program configurations ");
+            displayProgConfigRankDistribution(randMinAnaResults, "rand-min");
+            System.out.println("     max rank = " + randMinAnaResults.getProgConfigRankDistribution().getMaxValue());
+
+            System.out.println("\n    Getting statistical effect on min-rank change of program transitions and cvfs ");
+            displayRankEffectOfProgramTransitionsAndCvfs(randMinAnaResults, "rand-min");
+
+            // min ranks along probed paths are exact if all paths are probed
+            if(configBaseAnalysisTask.contains("full")){
+                if(fullMinAnaResults.isProgConfigRankDistributionEqual(randMinAnaResults) &&
+                        fullMinAnaResults.isProgTransOutsideInvRankEffectDistributionEqual(randMinAnaResults) &&
+                        fullMinAnaResults.isCvfInsideInvRankEffectDistributionEqual(randMinAnaResults) &&
+                        fullMinAnaResults.isCvfOutsideInvRankEffectDistributionEqual(randMinAnaResults)){
+                    System.out.println("\n    *** Full analysis MATCHES statistical analysis for min-rank");
+                }else{
+                    System.out.println("\n    *** Full analysis DOES NOT MATCH statistical analysis for min-rank");
+                }
+            }
+
             long endMs = System.currentTimeMillis();
             System.out.println("\n  + Program end time " + DateFormat.getDateTimeInstance().format(endMs));
             System.out.println(String.format("    duration: %.2f seconds", (endMs - startMs)/1000.0));
@@ -2,6 +2,7 @@ package main;
 
 import datastructure.AnalysisResults;
 import datastructure.ConfigurationPair;
+import datastructure.Histogram;
 import datastructure.ProgramConfigurationInformation;
 import datastructure.RankEvaluationResults;
 import template.ProgramConfigurationTemplate;
@@ -266,17 +267,17 @@ public class AnalyzeProgramBasedOnTransitions<PCT extends ProgramConfigurationTe
             TreeMap<ConfigurationPair<PCT>, Integer> cvfRankEffectMap){
         // encapsulate results in an AnalysisResults object
         TreeMap<PCT, ProgramConfigurationInformation<PCT>> progConfigInfoMap = new TreeMap<>();
-        TreeMap<Integer, Integer> progConfigRankDistribution = new TreeMap<>();
-        TreeMap<Integer, Integer> progTransOutsideInvRankEffectDistribution = configPairRankEffectMapToRankDistribution(transRankEffectMap);
+        Histogram progConfigRankDistribution = new Histogram();
+        Histogram progTransOutsideInvRankEffectDistribution = configPairRankEffectMapToRankDistribution(transRankEffectMap);
         int numberOfProgTransOutsideInv = transRankEffectMap.size();
-        int progTransOutsideInvTotalRankEffect = transRankEffectMap.values().stream().reduce(0, Integer::sum);
+        long progTransOutsideInvTotalRankEffect = transRankEffectMap.values().stream().mapToLong(Integer::longValue).sum();
         int numberOfProgTransInsideInv = 0;
-        TreeMap<Integer, Integer> cvfInsideInvRankEffectDistribution = new TreeMap<>();
-        TreeMap<Integer, Integer> cvfOutsideInvRankEffectDistribution = configPairRankEffectMapToRankDistribution(cvfRankEffectMap);
+        Histogram cvfInsideInvRankEffectDistribution = new Histogram();
+        Histogram cvfOutsideInvRankEffectDistribution = configPairRankEffectMapToRankDistribution(cvfRankEffectMap);
         int numberOfCvfInsideInv = 0;
         int numberOfCvfOutsideInv = cvfRankEffectMap.size();
         int cvfInsideInvTotalRankEffect = 0;
-        int cvfOutsideInvTotalRankEffect = cvfRankEffectMap.values().stream().reduce(0, Integer::sum);
+        long cvfOutsideInvTotalRankEffect = cvfRankEffectMap.values().stream().mapToLong(Integer::longValue).sum();
 
         return new AnalysisResults(
                 progConfigInfoMap,
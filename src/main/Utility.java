@@ -2,6 +2,8 @@ package main;
 
 import datastructure.ConfigurationPair;
 import datastructure.DebugInfo;
+import datastructure.Histogram;
+import datastructure.PathCount;
 import datastructure.RankEvaluationResults;
 import template.ProgramConfigurationTemplate;
 import template.SuccessorInfo;
@@ -17,7 +19,7 @@ import java.util.concurrent.ThreadLocalRandom;
 
 public class Utility {
     // dipslay average in string
-    public static String averageToStr(double total, int count){
+    public static String averageToStr(double total, long count){
         if(count == 0){
             return "N/A";
         }else{
@@ -33,28 +35,23 @@ public class Utility {
         rankCache.put(pc, eval);
 
 //        if(eval.getRankTotal() > DebugInfo.maxRankTotalRecorded){
-//            DebugInfo.maxRankTotalRecorded = eval.getRankTotal();
+//            DebugInfo.maxRankTotalRecorded = new PathCount(eval.getRankTotal());
 //        }
 //        if(eval.getPathCount() > DebugInfo.maxPathCountRecorded){
-//            DebugInfo.maxPathCountRecorded = eval.getPathCount();
+//            DebugInfo.maxPathCountRecorded = new PathCount(eval.getPathCount());
 //        }
         if(eval.getRankTotal().compareTo(DebugInfo.maxRankTotalRecorded) > 0){
-            DebugInfo.maxRankTotalRecorded = eval.getRankTotal();
+            DebugInfo.maxRankTotalRecorded = new PathCount(eval.getRankTotal());
         }
         if(eval.getPathCount().compareTo(DebugInfo.maxPathCountRecorded) > 0){
-            DebugInfo.maxPathCountRecorded = eval.getPathCount();
+            DebugInfo.maxPathCountRecorded = new PathCount(eval.getPathCount());
         }
 
 
     }
 
-    public static void addValueToDistribution(TreeMap<Integer, Integer> dist, int val){
-        if(!dist.containsKey(val)){
-            dist.put(val, 1);
-        }else{
-            int currentCount = dist.get(val);
-            dist.put(val, currentCount + 1);
-        }
+    public static void addValueToDistribution(Histogram dist, int val){
+        dist.add(val);
     }
 
     public static <PCT extends ProgramConfigurationTemplate> PCT getRandomElementFromTreeSet(TreeSet<PCT> aSet){
@@ -88,10 +85,10 @@ public class Utility {
     }
 
 
-    public static <PCT extends ProgramConfigurationTemplate> TreeMap<Integer, Integer> configPairRankEffectMapToRankDistribution(
+    public static <PCT extends ProgramConfigurationTemplate> Histogram configPairRankEffectMapToRankDistribution(
             TreeMap<ConfigurationPair<PCT>, Integer> configPairRankEffectMap){
 
-        TreeMap<Integer, Integer> rankDistribution = new TreeMap<>();
+        Histogram rankDistribution = new Histogram();
         for(Map.Entry<ConfigurationPair<PCT>, Integer> entry : configPairRankEffectMap.entrySet()){
             int rankValue = entry.getValue();
             addValueToDistribution(rankDistribution, rankValue);
@@ -154,6 +151,9 @@ public class Utility {
                 for(int nbrIdx = 1; nbrIdx < lineSplit.length; nbrIdx ++){
                     nbrList.addElement(Integer.valueOf(lineSplit[nbrIdx]));
                 }
+                // sorted once here: max-matching indexes p-values by position in the list,
+                // and the lists are shared by all threads, so they are never sorted in place later
+                Collections.sort(nbrList);
                 graphTopology.put(nodeId, nbrList);
 
                 // remove this code since maxDegree is no longer defined
@@ -186,8 +186,8 @@ public class NodeStateMaxMatching extends NodeStateTemplate {
     // Differs from moveToNextNodeState in that it consider topology
     // It is expected to be more efficient
     private NodeStateMaxMatching moveToNextNodeStateWithTopologyRestriction(){
+        // neighbor list is sorted when the topology is read, see Utility.readGraphTopology()
         Vector<Integer> nbrList = graphTopology.get(nodeId);
-        Collections.sort(nbrList);
         int maximalPvalue = Collections.max(nbrList);
 
         if(getPvalue() < maximalPvalue){
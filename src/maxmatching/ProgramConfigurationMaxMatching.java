@@ -6,9 +6,11 @@ import template.ProgramConfigurationTemplate;
 import template.SuccessorInfo;
 
 import java.util.*;
+import java.util.function.LongConsumer;
 
 import static main.AnalyzeCvfs.graphTopology;
 import static main.Utility.getBooleanFromInt;
+import static main.Utility.getIntFromBoolean;
 import static maxmatching.NodeStateMaxMatching.*;
 
 /**
@@ -76,6 +78,63 @@ public class ProgramConfigurationMaxMatching extends ProgramConfigurationTemplat
         return nodestate.getMvalue();
     }
 
+    /**
+     * Implement super class abstract methods for configuration index.
+     * As in moveToNextProgramConfig(), node states are ordered by m-value first, then by p-value.
+     * The p-value ranges over null and all node ids, or over null and the neighbors (in increasing order)
+     * if topology is considered.
+     * @param nodeId node of interest
+     * @return number of possible p-values of the node
+     */
+    int getNumberOfPvalues(int nodeId){
+        if(cvf == CVF_AS_CONSTRAINED_PERTURBATION_AND_TOPOLOGY_RESTRICTION){
+            return graphTopology.get(nodeId).size() + 1;
+        }else{
+            return graphTopology.size() + 1;
+        }
+    }
+
+    public int getNumberOfNodeStates(int nodeId){
+        return 2 * getNumberOfPvalues(nodeId);
+    }
+
+    public int getNodeStateIndex(int nodeId){
+        int pvalue = getNodePvalue(nodeId);
+        int pvalueIndex;
+        if(pvalue == MAX_MATCHING_PVALUE_NULL){
+            pvalueIndex = 0;
+        }else if(cvf == CVF_AS_CONSTRAINED_PERTURBATION_AND_TOPOLOGY_RESTRICTION){
+            // p-value index is the position in the neighbor list, sorted when the topology is read
+            Vector<Integer> nbrList = graphTopology.get(nodeId);
+            int position = nbrList.indexOf(pvalue);
+            if(position < 0)
+                return -1;
+            pvalueIndex = position + 1;
+        }else{
+            if(pvalue >= graphTopology.size())
+                return -1;
+            pvalueIndex = pvalue + 1;
+        }
+
+        return getIntFromBoolean(getNodeMvalue(nodeId)) * getNumberOfPvalues(nodeId) + pvalueIndex;
+    }
+
+    public void setNodeStateByIndex(int nodeId, int nodeStateIndex){
+        int numberOfPvalues = getNumberOfPvalues(nodeId);
+        int mvalue = nodeStateIndex / numberOfPvalues;
+        int pvalueIndex = nodeStateIndex % numberOfPvalues;
+        int pvalue;
+        if(pvalueIndex == 0){
+            pvalue = MAX_MATCHING_PVALUE_NULL;
+        }else if(cvf == CVF_AS_CONSTRAINED_PERTURBATION_AND_TOPOLOGY_RESTRICTION){
+            Vector<Integer> nbrList = graphTopology.get(nodeId);
+            pvalue = nbrList.elementAt(pvalueIndex - 1);
+        }else{
+            pvalue = pvalueIndex - 1;
+        }
+        updateStateForANode(nodeId, mvalue, pvalue);
+    }
+
     /**
      * Perturb arbitrarily the state of a specified node.
      * @param nodeId node whose state to be perturbed
@@ -355,6 +414,103 @@ public class ProgramConfigurationMaxMatching extends ProgramConfigurationTemplat
         return new NodeActionEvaluationResults(nodeId, privilegesCount, listOfSuccessors);
     }
 
+    /**
+     * Implement super class hook: a node reads its own state, the states of its neighbors
+     * and the state of the node its p-value points to, which may be any node unless cvfs are topology restricted
+     */
+    @Override
+    public int[] getNodesReadByNode(int nodeId){
+        TreeSet<Integer> nodesRead = new TreeSet<>(graphTopology.get(nodeId));
+        nodesRead.add(nodeId);
+        if(cvf != CVF_AS_CONSTRAINED_PERTURBATION_AND_TOPOLOGY_RESTRICTION){
+            for(int otherNodeId = 0; otherNodeId < graphTopology.size(); otherNodeId ++)
+                nodesRead.add(otherNodeId);
+        }
+        return nodesRead.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Implement super class hook: a node reads its own state, the states of its neighbors
+     * and the state of the node its p-value points to (action 4)
+     */
+    @Override
+    public int[] getNodesReadByNodeInCurrentState(int nodeId){
+        // called for many configurations, so without boxing
+        Vector<Integer> nodeNbr = graphTopology.get(nodeId);
+        int nodePvalue = getNodePvalue(nodeId);
+        boolean readsPvalue = (nodePvalue != MAX_MATCHING_PVALUE_NULL) && (nodePvalue != nodeId) && !nodeNbr.contains(nodePvalue);
+
+        int[] nodesRead = new int[nodeNbr.size() + (readsPvalue ? 2 : 1)];
+        for(int position = 0; position < nodeNbr.size(); position ++)
+            nodesRead[position] = nodeNbr.get(position);
+        nodesRead[nodeNbr.size()] = nodeId;
+        if(readsPvalue)
+            nodesRead[nodeNbr.size() + 1] = nodePvalue;
+        Arrays.sort(nodesRead);
+        return nodesRead;
+    }
+
+    /**
+     * Implement super class hook: the invariant consists of the configurations without privileges,
+     * see isInsideInvariant()
+     */
+    @Override
+    public int getNumberOfPrivilegesInsideInvariant(){
+        return 0;
+    }
+
+    /**
+     * Implement super class hook: actions 1 to 4 as in evaluateANodeActions()
+     */
+    @Override
+    public String getActionName(SuccessorInfo successor){
+        int nodeId = successor.getIdOfChangedNode();
+        if(((NodeStateMaxMatching) getNodeStateMap().get(nodeId)).getMvalue() != evaluatePRMarried(nodeId))
+            return "update-m-value";
+        if(getNodePvalue(nodeId) != MAX_MATCHING_PVALUE_NULL)
+            return "abandonment";
+
+        int newPvalue = ((ProgramConfigurationMaxMatching) successor.getSuccessorProgramConfig()).getNodePvalue(nodeId);
+        return (getNodePvalue(newPvalue) == nodeId) ? "marriage" : "seduction";
+    }
+
+    /**
+     * Implement super class hook: predecessors of the current configuration.
+     * An action of a node only changes its own state:
+     *   action 1 flips the m-value,
+     *   actions 2 and 3 change a null p-value to some node,
+     *   action 4 changes a p-value to null.
+     * Candidate states of the node are generated accordingly, and each candidate is kept only if
+     * the actions of the node there indeed lead to the current configuration.
+     */
+    @Override
+    public boolean forEachTransPredecessor(LongConsumer predecessorVisitor){
+        if(getProgramConfigIndex() < 0)
+            return true;
+
+        for(int nodeId = 0; nodeId < getNumberOfNodes(); nodeId ++){
+            int numberOfPvalues = getNumberOfPvalues(nodeId);
+            int nodeStateIndex = getNodeStateIndex(nodeId);
+            int mvalueIndex = nodeStateIndex / numberOfPvalues;
+            int pvalueIndex = nodeStateIndex % numberOfPvalues;
+
+            // action 1
+            visitTransPredecessorCandidate(nodeId, (1 - mvalueIndex) * numberOfPvalues + pvalueIndex, predecessorVisitor);
+
+            if(pvalueIndex != 0){
+                // action 2 or 3: p-value was null
+                visitTransPredecessorCandidate(nodeId, mvalueIndex * numberOfPvalues, predecessorVisitor);
+            }else{
+                // action 4: p-value was not null
+                for(int oldPvalueIndex = 1; oldPvalueIndex < numberOfPvalues; oldPvalueIndex ++){
+                    visitTransPredecessorCandidate(nodeId, mvalueIndex * numberOfPvalues + oldPvalueIndex, predecessorVisitor);
+                }
+            }
+        }
+
+        return true;
+    }
+
 
     /***********************************************************************
      *** Overriding methods
@@ -138,6 +138,22 @@ public class ProgramConfigurationNewDijkstra extends ProgramConfigurationTemplat
         return currentNode.getNodeValue();
     }
 
+    // configuration index: every node has 3 states and the x value is also its index
+    @Override
+    public int getNumberOfNodeStates(int nodeId){
+        return NEW_DIJKSTRA_NUMBER_OF_NODE_STATES;
+    }
+
+    @Override
+    public int getNodeStateIndex(int nodeId){
+        return getNodeValue(nodeId);
+    }
+
+    @Override
+    public void setNodeStateByIndex(int nodeId, int nodeStateIndex){
+        updateStateForANode(nodeId, new NodeStateNewDijkstra(nodeId, nodeStateIndex));
+    }
+
     @Override
     /**
      * In Dijkstra 3 states program, a configuration is legitimate (inside the invariant) when the number of privileges is exactly 1
@@ -3,11 +3,12 @@ package template;
 import datastructure.DebugInfo;
 import datastructure.NodeActionEvaluationResults;
 import datastructure.NodePerturbationResults;
+import datastructure.PathCount;
 import datastructure.RankEvaluationResults;
 
-import java.math.BigInteger;
 import java.util.*;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongConsumer;
 
 import static datastructure.DebugInfo.*;
 import static main.Utility.getRandomElementFromTreeSet;
@@ -25,6 +26,11 @@ public abstract class ProgramConfigurationTemplate<NST extends NodeStateTemplate
     public static final int CVF_AS_ARBITRARY_PERTURBATION = 1;
     public static final int CVF_AS_CONSTRAINED_PERTURBATION = 2;
     public static final int CVF_AS_CONSTRAINED_PERTURBATION_AND_TOPOLOGY_RESTRICTION = 4;
+    // cvf models are distinct bits, so a set of models is their bitwise or
+    public static final int[] CVF_MODELS = {
+            CVF_AS_ARBITRARY_PERTURBATION,
+            CVF_AS_CONSTRAINED_PERTURBATION,
+            CVF_AS_CONSTRAINED_PERTURBATION_AND_TOPOLOGY_RESTRICTION};
 
     public static final int PROBE_LIMIT_OPTION_ALL_PATHS = -1;
     public static final int PROBE_LIMIT_OPTION_ADAPTIVE = -2;
@@ -206,7 +212,17 @@ public abstract class ProgramConfigurationTemplate<NST extends NodeStateTemplate
      *         Current configuration is excluded in results
      */
     public NodePerturbationResults perturbANodeByCvf(int nodeId){
-        switch(cvf){
+        return perturbANodeByCvf(nodeId, cvf);
+    }
+
+    /**
+     * Same as perturbANodeByCvf(nodeId) with a given cvf model instead of the cvf of this configuration
+     * @param nodeId node whose state to be perturbed
+     * @param cvfModel one of CVF_MODELS
+     * @return list of states obtained by perturbing a node following cvf rules of the model.
+     */
+    public NodePerturbationResults perturbANodeByCvf(int nodeId, int cvfModel){
+        switch(cvfModel){
             case CVF_AS_CONSTRAINED_PERTURBATION_AND_TOPOLOGY_RESTRICTION:
                 return perturbANodeWithContraintAndTopologyRestriction(nodeId);
 
@@ -217,7 +233,7 @@ public abstract class ProgramConfigurationTemplate<NST extends NodeStateTemplate
                 return perturbANodeArbitrarily(nodeId);
 
             default:
-                System.out.println("ERROR: unknown cvf type: " + cvf);
+                System.out.println("ERROR: unknown cvf type: " + cvfModel);
                 return null;
         }
     }
@@ -299,6 +315,49 @@ public abstract class ProgramConfigurationTemplate<NST extends NodeStateTemplate
         return cvfSuccessorOfAllNodes;
     }
 
+    /**
+     * Cvf successors of the current program configuration under several cvf models at once.
+     * A successor admitted by more than one model appears once.
+     * @param cvfModels bitwise or of models in CVF_MODELS
+     * @return every cvf successor under any of the models, mapped to the bitwise or of the models admitting it
+     */
+    public TreeMap<SuccessorInfo, Integer> getProgramConfigCvfSuccessorModels(int cvfModels){
+        TreeMap<SuccessorInfo, Integer> cvfSuccessorModels = new TreeMap<>();
+
+        for(int nodeId : nodeStateMap.keySet()){
+            for(int cvfModel : CVF_MODELS){
+                if((cvfModels & cvfModel) == 0)
+                    continue;
+
+                TreeSet<SuccessorInfo> cvfSuccessorList = perturbANodeByCvf(nodeId, cvfModel).getPerturbedSuccessorList();
+                for(SuccessorInfo cvfSuccessor : cvfSuccessorList){
+                    cvfSuccessorModels.merge(cvfSuccessor, cvfModel, (a, b) -> a | b);
+                }
+            }
+        }
+        return cvfSuccessorModels;
+    }
+
+    /**
+     * Whether the enumeration of program configurations is the same under another cvf model,
+     * i.e. every node takes the same number of states.
+     * Programs only restrict their node states (and thus their actions) to the topology under
+     * CVF_AS_CONSTRAINED_PERTURBATION_AND_TOPOLOGY_RESTRICTION, so the configurations and
+     * program transitions are then the same under both models.
+     * @param otherCvf one of CVF_MODELS
+     */
+    public boolean hasSameNodeStatesUnderCvf(int otherCvf){
+        int thisCvf = cvf;
+        boolean sameNodeStates = true;
+        for(int nodeId = 0; nodeId < numberOfNodes && sameNodeStates; nodeId ++){
+            int numberOfNodeStates = getNumberOfNodeStates(nodeId);
+            cvf = otherCvf;
+            sameNodeStates = (getNumberOfNodeStates(nodeId) == numberOfNodeStates);
+            cvf = thisCvf;
+        }
+        return sameNodeStates;
+    }
+
 //    /**
 //     * @return list of some random (instead of all) cvf successors of the current program configuration
 //     *          by choosing some random nodes and perturb it
@@ -352,6 +411,207 @@ public abstract class ProgramConfigurationTemplate<NST extends NodeStateTemplate
     }
 
 
+    /**
+     * @param nodeId node of interest
+     * @return number of states a node could take in the enumeration scheme used by moveToNextProgramConfig(),
+     *         i.e. the radix of the digit of that node in the configuration index
+     */
+    abstract public int getNumberOfNodeStates(int nodeId);
+
+    /**
+     * @param nodeId node of interest
+     * @return position of the current state of the node among its states in the enumeration scheme
+     *         used by moveToNextProgramConfig(), in range [0, getNumberOfNodeStates(nodeId)).
+     *         -1 if the current state is not part of the enumerated state space (e.g. perturbed arbitrarily)
+     */
+    abstract public int getNodeStateIndex(int nodeId);
+
+    /**
+     * Change the state of a node to the state at given position in the enumeration scheme of its states
+     * @param nodeId node of interest
+     * @param nodeStateIndex position of the new state, in range [0, getNumberOfNodeStates(nodeId))
+     */
+    abstract public void setNodeStateByIndex(int nodeId, int nodeStateIndex);
+
+    /**
+     * @return number of program configurations that can be addressed by a configuration index.
+     *         Differs from getSizeOfStateSpace() in that it is exactly the number of configurations
+     *         visited by moveToNextProgramConfig() in one round.
+     */
+    public long getSizeOfIndexedStateSpace(){
+        long size = 1;
+        for(int nodeId = 0; nodeId < getNumberOfNodes(); nodeId ++){
+            size = size * getNumberOfNodeStates(nodeId);
+        }
+        return size;
+    }
+
+    /**
+     * The configuration index is the position of the current program configuration
+     * in the enumeration scheme starting from moveToFirstProgramConfig().
+     * It is a mixed radix number where node 0 is the most significant digit.
+     * @return index of the current program configuration,
+     *         -1 if some node state is outside the enumerated state space
+     */
+    public long getProgramConfigIndex(){
+        long index = 0;
+        for(int nodeId = 0; nodeId < getNumberOfNodes(); nodeId ++){
+            int nodeStateIndex = getNodeStateIndex(nodeId);
+            if(nodeStateIndex < 0)
+                return -1;
+            index = index * getNumberOfNodeStates(nodeId) + nodeStateIndex;
+        }
+        return index;
+    }
+
+    /**
+     * Change the current program config to the one with the given configuration index.
+     * Unlike moveToNthProgramConfig(), it does not depend on moveToNextProgramConfig()
+     * thus it is efficient for every program.
+     * @param index configuration index, in range [0, getSizeOfIndexedStateSpace())
+     * @return this object
+     */
+    public ProgramConfigurationTemplate<NST> moveToProgramConfigIndex(long index){
+        for(int nodeId = getNumberOfNodes() - 1; nodeId >= 0; nodeId --){
+            int radix = getNumberOfNodeStates(nodeId);
+            setNodeStateByIndex(nodeId, (int) (index % radix));
+            index = index / radix;
+        }
+        return this;
+    }
+
+    /**
+     * @return configuration indices of the successors obtained by normal program transitions.
+     *         As in getProgramConfigTransSuccessorList(), a successor is counted once per node changing state.
+     *         A successor outside the enumerated state space has index -1.
+     */
+    public long[] getProgramConfigTransSuccessorIndices(){
+        TreeSet<SuccessorInfo> successorList = getProgramConfigTransSuccessorList();
+        long[] successorIndices = new long[successorList.size()];
+        int position = 0;
+        for(SuccessorInfo successor : successorList){
+            successorIndices[position] = successor.getSuccessorProgramConfig().getProgramConfigIndex();
+            position ++;
+        }
+        return successorIndices;
+    }
+
+    /**
+     * Whether the program is symmetric under automorphisms of its graph topology:
+     * if the states of nodes are moved along an automorphism, then so are the program transitions, the cvfs
+     * and the invariant. It requires that actions and cvfs of a node depend on the states of its neighbors
+     * but not on node ids, and that node states do not refer to node ids.
+     * The base implementation returns false; symmetry reduction then uses the identity only.
+     */
+    public boolean isSymmetricUnderGraphAutomorphisms(){
+        return false;
+    }
+
+    /**
+     * (optional hook)
+     * @param nodeId node of interest
+     * @return nodes whose states are read by the actions of the node, including the node itself, in increasing order;
+     *         evaluateANodeActions(nodeId) must depend on the states of these nodes only.
+     *         The base implementation returns null; symbolic analysis is then not supported.
+     */
+    public int[] getNodesReadByNode(int nodeId){
+        return null;
+    }
+
+    /**
+     * (optional hook)
+     * @param nodeId node of interest
+     * @return nodes whose states are read by the actions of the node in its current state, including the node itself,
+     *         in increasing order; a subset of getNodesReadByNode(nodeId) that depends on the state of the node only.
+     *         The base implementation returns getNodesReadByNode(nodeId).
+     */
+    public int[] getNodesReadByNodeInCurrentState(int nodeId){
+        return getNodesReadByNode(nodeId);
+    }
+
+    /**
+     * (optional hook)
+     * @return number of privileges (see getNumberOfPrivileges()) of every configuration inside the invariant,
+     *         if the invariant consists exactly of the configurations with that number of privileges, otherwise -1.
+     *         The base implementation returns -1; symbolic analysis is then not supported.
+     */
+    public int getNumberOfPrivilegesInsideInvariant(){
+        return -1;
+    }
+
+    /**
+     * (optional hook)
+     * @param successor a program transition successor of this configuration, as in getProgramConfigTransSuccessorList()
+     * @return name of the action of successor.getIdOfChangedNode() taking this configuration to the successor,
+     *         used to print witness paths.
+     *         The base implementation returns "action".
+     */
+    public String getActionName(SuccessorInfo successor){
+        return "action";
+    }
+
+    /**
+     * @param nodeId node of interest
+     * @return weight of the digit of the node in the configuration index, i.e.
+     *         the change in configuration index when the state index of the node increases by 1
+     */
+    public long getNodeIndexWeight(int nodeId){
+        long weight = 1;
+        for(int otherNodeId = getNumberOfNodes() - 1; otherNodeId > nodeId; otherNodeId --){
+            weight = weight * getNumberOfNodeStates(otherNodeId);
+        }
+        return weight;
+    }
+
+    /**
+     * (optional hook)
+     * Visit every predecessor of the current program configuration, i.e. every configuration
+     * from which the current configuration is reached by one normal program transition.
+     * As in getProgramConfigTransSuccessorList(), a predecessor is visited once per node changing state.
+     * Predecessors outside the enumerated state space are not visited.
+     * The current program configuration is unchanged when the function returns.
+     * The base implementation does not support predecessor generation; analyses then
+     * fall back to an inverted index of successors (see InvertedTransitionIndex).
+     * @param predecessorVisitor receives configuration index of every predecessor
+     * @return true if predecessors are generated, false if predecessor generation is not supported
+     */
+    public boolean forEachTransPredecessor(LongConsumer predecessorVisitor){
+        return false;
+    }
+
+    /**
+     * Helper for forEachTransPredecessor() in programs whose actions are not easily inverted.
+     * Change the state of a node to a candidate state, and if the actions of that node
+     * lead back to the current configuration, visit the resulting configuration as a predecessor.
+     * The state of the node is restored afterward.
+     * @param nodeId node whose state is changed
+     * @param candidateStateIndex index of the candidate state of the node in the predecessor
+     * @param predecessorVisitor receives configuration index of the predecessor
+     */
+    protected void visitTransPredecessorCandidate(int nodeId, int candidateStateIndex, LongConsumer predecessorVisitor){
+        int nodeStateIndex = getNodeStateIndex(nodeId);
+        if(candidateStateIndex == nodeStateIndex)
+            return;
+
+        setNodeStateByIndex(nodeId, candidateStateIndex);
+
+        boolean leadsToCurrentConfig = false;
+        TreeSet<SuccessorInfo> successorList = evaluateANodeActions(nodeId).getSuccessorList();
+        for(SuccessorInfo successor : successorList){
+            if(successor.getSuccessorProgramConfig().getNodeStateIndex(nodeId) == nodeStateIndex){
+                leadsToCurrentConfig = true;
+                break;
+            }
+        }
+        long predecessorIndex = getProgramConfigIndex();
+
+        setNodeStateByIndex(nodeId, nodeStateIndex);
+
+        if(leadsToCurrentConfig){
+            predecessorVisitor.accept(predecessorIndex);
+        }
+    }
+
     /**
      * Change the current program configuration to a random program configuration in the state space
      * @return this object
@@ -569,7 +829,7 @@ public abstract class ProgramConfigurationTemplate<NST extends NodeStateTemplate
 
         // base case where current program configuration is in invariant
         if(this.isInsideInvariant()){
-            return new RankEvaluationResults(0, 0, BigInteger.ZERO, BigInteger.ONE);
+            return new RankEvaluationResults(0, 0, new PathCount(0), new PathCount(1));
         }
 
         RankEvaluationResults result = new RankEvaluationResults();
@@ -704,7 +964,7 @@ public abstract class ProgramConfigurationTemplate<NST extends NodeStateTemplate
             numberOfProbedConfigurationsInsideInvariant ++;
 
 //            return new RankEvaluationResults(0, 0, 0, 1);
-            return new RankEvaluationResults(0, 0, BigInteger.ZERO, BigInteger.ONE);
+            return new RankEvaluationResults(0, 0, new PathCount(0), new PathCount(1));
         }
 
         RankEvaluationResults result = new RankEvaluationResults();
@@ -859,8 +1119,8 @@ public abstract class ProgramConfigurationTemplate<NST extends NodeStateTemplate
             results.setMaxRank(aNewProbe.getMaxRank() + 1);
             results.setMinRank(aNewProbe.getMinRank() + 1);
             //results.setRankTotal(aNewProbe.getRankTotal() + aNewProbe.getPathCount());
-            results.setRankTotal(aNewProbe.getRankTotal().add(aNewProbe.getPathCount()));
-            results.setPathCount(aNewProbe.getPathCount());
+            results.setRankTotal(new PathCount(aNewProbe.getRankTotal()).add(aNewProbe.getPathCount()));
+            results.setPathCount(new PathCount(aNewProbe.getPathCount()));
         }else{
             // results already has sub-path before
             // update max, min
@@ -875,9 +1135,9 @@ public abstract class ProgramConfigurationTemplate<NST extends NodeStateTemplate
             //long additionRank = aNewProbe.getRankTotal() + aNewProbe.getPathCount();
             //results.setRankTotal(results.getRankTotal() + additionRank);
             //results.setPathCount(results.getPathCount() + aNewProbe.getPathCount());
-            BigInteger additionRank = aNewProbe.getRankTotal().add(aNewProbe.getPathCount());
-            results.setRankTotal(results.getRankTotal().add(additionRank));
-            results.setPathCount(results.getPathCount().add(aNewProbe.getPathCount()));
+            // counters of results are owned by results, update in place
+            results.getRankTotal().add(aNewProbe.getRankTotal()).add(aNewProbe.getPathCount());
+            results.getPathCount().add(aNewProbe.getPathCount());
         }
     }
 